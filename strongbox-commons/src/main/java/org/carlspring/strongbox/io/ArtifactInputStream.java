@@ -153,15 +153,8 @@ public class ArtifactInputStream
     public int read(byte[] bytes)
             throws IOException
     {
-        int len = in.read(bytes);
-
-        for (Map.Entry entry : digests.entrySet())
-        {
-            MessageDigest digest = (MessageDigest) entry.getValue();
-            digest.update(bytes);
-        }
-
-        return len;
+        // Only the bytes which have actually been read may be digested.
+        return read(bytes, 0, bytes.length);
     }
 
     InputStream getTarget()
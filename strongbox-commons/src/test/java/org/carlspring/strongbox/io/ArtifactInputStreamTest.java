@@ -0,0 +1,51 @@
+package org.carlspring.strongbox.io;
+
+import java.io.ByteArrayInputStream;
+import java.security.MessageDigest;
+import java.util.Collections;
+
+import org.apache.commons.codec.digest.MessageDigestAlgorithms;
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ArtifactInputStreamTest
+{
+
+    private static final byte[] CONTENT = "This is a test of the artifact input stream.\n".getBytes();
+
+
+    @Test
+    public void testDigestOnlyCoversTheBytesRead()
+            throws Exception
+    {
+        ArtifactInputStream ais = new ArtifactInputStream(null, new ByteArrayInputStream(CONTENT));
+
+        // The buffer is larger than the content, so that its unused part would spoil the digest.
+        byte[] bytes = new byte[CONTENT.length * 4];
+        while (ais.read(bytes) != -1)
+        {
+            // Keep reading.
+        }
+
+        byte[] expected = MessageDigest.getInstance(MessageDigestAlgorithms.MD5).digest(CONTENT);
+
+        assertArrayEquals(expected, ais.getMessageDigest(MessageDigestAlgorithms.MD5).digest());
+    }
+
+    @Test
+    public void testStoredChecksumsAreServedWithoutDigesting()
+            throws Exception
+    {
+        ArtifactInputStream ais = new ArtifactInputStream(null,
+                                                          new ByteArrayInputStream(CONTENT),
+                                                          Collections.emptySet());
+        ais.getHexDigests().put(MessageDigestAlgorithms.SHA_1, "da39a3ee5e6b4b0d3255bfef95601890afd80709");
+
+        assertTrue(ais.getDigests().isEmpty());
+        assertEquals("da39a3ee5e6b4b0d3255bfef95601890afd80709",
+                     ais.getMessageDigestAsHexadecimalString(MessageDigestAlgorithms.SHA_1));
+    }
+
+}
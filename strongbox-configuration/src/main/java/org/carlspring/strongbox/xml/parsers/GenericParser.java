@@ -13,12 +13,14 @@ import java.net.URL;
 import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.Set;
-import java.util.concurrent.locks.ReentrantLock;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
+ * The {@link JAXBContext} is thread-safe and is created once, while the (not thread-safe) marshallers and
+ * unmarshallers are created for every call, so the parser can be used by several threads at the same time.
+ *
  * @author mtodorov
  */
 public class GenericParser<T>
@@ -28,11 +30,9 @@ public class GenericParser<T>
 
     private static final Logger logger = LoggerFactory.getLogger(GenericParser.class);
 
-    private ReentrantLock lock = new ReentrantLock();
-
     private Set<Class> classes = new LinkedHashSet<>();
 
-    private JAXBContext context;
+    private volatile JAXBContext context;
 
 
     static
@@ -106,23 +106,10 @@ public class GenericParser<T>
     public T parse(InputStream is)
             throws JAXBException
     {
-        T object = null;
-
-        try
-        {
-            lock.lock();
-
-            Unmarshaller unmarshaller = getContext().createUnmarshaller();
+        Unmarshaller unmarshaller = getContext().createUnmarshaller();
 
-            //noinspection unchecked
-            object = (T) unmarshaller.unmarshal(is);
-        }
-        finally
-        {
-            lock.unlock();
-        }
-
-        return object;
+        //noinspection unchecked
+        return (T) unmarshaller.unmarshal(is);
     }
 
     public void store(T object,
@@ -147,21 +134,12 @@ public class GenericParser<T>
                       OutputStream os)
             throws JAXBException
     {
-        try
-        {
-            lock.lock();
-
-            JAXBContext context = getContext();
+        JAXBContext context = getContext();
 
-            Marshaller marshaller = context.createMarshaller();
-            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, IS_OUTPUT_FORMATTED);
+        Marshaller marshaller = context.createMarshaller();
+        marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, IS_OUTPUT_FORMATTED);
 
-            marshaller.marshal(object, os);
-        }
-        finally
-        {
-            lock.unlock();
-        }
+        marshaller.marshal(object, os);
     }
 
     /**
@@ -174,40 +152,23 @@ public class GenericParser<T>
             throws JAXBException
     {
         StringWriter writer = new StringWriter();
-        try
-        {
-            lock.lock();
 
-            JAXBContext context = getContext();
+        JAXBContext context = getContext();
 
-            Marshaller marshaller = context.createMarshaller();
-            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, IS_OUTPUT_FORMATTED);
+        Marshaller marshaller = context.createMarshaller();
+        marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, IS_OUTPUT_FORMATTED);
 
-            marshaller.marshal(object, writer);
-            return writer.getBuffer().toString();
-        }
-        finally
-        {
-            lock.unlock();
-        }
+        marshaller.marshal(object, writer);
+        return writer.getBuffer().toString();
     }
 
     @SuppressWarnings("unchecked")
     public T deserialize(String input)
             throws JAXBException
     {
-        try
-        {
-            lock.lock();
-
-            JAXBContext context = getContext();
-            Unmarshaller m = context.createUnmarshaller();
-            return (T) m.unmarshal(new StringReader(input));
-        }
-        finally
-        {
-            lock.unlock();
-        }
+        JAXBContext context = getContext();
+        Unmarshaller m = context.createUnmarshaller();
+        return (T) m.unmarshal(new StringReader(input));
     }
 
     public void setContext(Class<?> classType)
@@ -219,20 +180,29 @@ public class GenericParser<T>
     public JAXBContext getContext()
             throws JAXBException
     {
-        if (context == null)
+        JAXBContext result = context;
+        if (result == null)
         {
-            try
-            {
-                context = JAXBContext.newInstance(classes.toArray(new Class[classes.size()]));
-            }
-            catch (Exception e)
+            synchronized (this)
             {
-                logger.error(e.getMessage(), e);
-                return null;
+                result = context;
+                if (result == null)
+                {
+                    try
+                    {
+                        result = JAXBContext.newInstance(classes.toArray(new Class[classes.size()]));
+                        context = result;
+                    }
+                    catch (Exception e)
+                    {
+                        logger.error(e.getMessage(), e);
+                        return null;
+                    }
+                }
             }
         }
 
-        return context;
+        return result;
     }
 
 }
@@ -7,6 +7,7 @@ import javax.annotation.PostConstruct;
 import javax.persistence.EntityManagerFactory;
 
 import org.carlspring.strongbox.data.server.EmbeddedOrientDbServer;
+import org.carlspring.strongbox.data.server.OrientDbConnectionMode;
 import org.carlspring.strongbox.data.tx.OEntityUnproxyAspect;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,7 +29,11 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 import org.springframework.transaction.support.TransactionTemplate;
 
 import com.orientechnologies.orient.client.remote.OServerAdmin;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
 import com.orientechnologies.orient.core.entity.OEntityManager;
+import com.orientechnologies.orient.core.exception.OSecurityAccessException;
+import com.orientechnologies.orient.core.metadata.security.OSecurity;
+import com.orientechnologies.orient.core.metadata.security.OUser;
 
 /**
  * Spring configuration for data service project.
@@ -51,6 +56,22 @@ public class DataServiceConfig
 
     private static final Logger logger = LoggerFactory.getLogger("DataServiceConfig");
 
+    /**
+     * The user which OrientDb creates in every new database.
+     */
+    private static final String DEFAULT_DATABASE_USERNAME = "admin";
+
+    private static final String DEFAULT_DATABASE_PASSWORD = "admin";
+
+    private static final String DATABASE_ADMIN_ROLE = "admin";
+
+    /**
+     * One of <code>remote</code> (the default), <code>plocal</code>, or <code>memory</code>
+     * (see {@link OrientDbConnectionMode}).
+     */
+    @Value("${strongbox.orientdb.mode:remote}")
+    String mode;
+
     @Value("${strongbox.orientdb.host:127.0.0.1}")
     String host;
 
@@ -122,6 +143,13 @@ public class DataServiceConfig
     public void registerEntities()
         throws Exception
     {
+        if (getConnectionMode().isEmbedded())
+        {
+            // No server (and network listener) is needed to talk to the database in-process.
+            createEmbeddedDatabase();
+            return;
+        }
+
         if (embeddableServer == null)
         {
             embeddableServer = new EmbeddedOrientDbServer(this);
@@ -143,9 +171,80 @@ public class DataServiceConfig
         }
     }
 
-    private String getConnectionUrl()
+    private void createEmbeddedDatabase()
+    {
+        ODatabaseDocumentTx db = new ODatabaseDocumentTx(getConnectionUrl());
+        try
+        {
+            if (!db.exists())
+            {
+                logger.debug("Create database " + getConnectionUrl());
+                db.create();
+            }
+            else
+            {
+                logger.debug("Reuse existing database " + getConnectionUrl());
+                try
+                {
+                    db.open(username, password);
+                    return;
+                }
+                catch (OSecurityAccessException e)
+                {
+                    // The database has been created by the server, so it only has the default database users.
+                    db.open(DEFAULT_DATABASE_USERNAME, DEFAULT_DATABASE_PASSWORD);
+                }
+            }
+
+            // The server users can't be used in-process, so the user has to exist in the database itself.
+            OSecurity security = db.getMetadata().getSecurity();
+            OUser user = security.getUser(username);
+            if (user == null)
+            {
+                security.createUser(username, password, DATABASE_ADMIN_ROLE);
+            }
+            else if (!user.checkPassword(password))
+            {
+                user.setPassword(password);
+                user.save();
+            }
+        }
+        finally
+        {
+            if (!db.isClosed())
+            {
+                db.close();
+            }
+        }
+    }
+
+    public OrientDbConnectionMode getConnectionMode()
+    {
+        return OrientDbConnectionMode.fromProtocol(mode);
+    }
+
+    public String getConnectionUrl()
+    {
+        switch (getConnectionMode())
+        {
+            case PLOCAL:
+                // The same files as the ones of the embedded server.
+                return "plocal:" + EmbeddedOrientDbServer.getDatabasePath() + "/" + database;
+            case MEMORY:
+                return "memory:" + database;
+            default:
+                return "remote:" + host + ":" + port + "/" + database;
+        }
+    }
+
+    public String getMode()
+    {
+        return mode;
+    }
+
+    public void setMode(String mode)
     {
-        return "remote:" + host + ":" + port + "/" + database;
+        this.mode = mode;
     }
 
     public String getHost()
@@ -105,7 +105,7 @@ public class EmbeddedOrientDbServer
         return property;
     }
 
-    private String getDatabasePath()
+    public static String getDatabasePath()
     {
         return getVaultDirectory() + "/db";
     }
@@ -0,0 +1,55 @@
+package org.carlspring.strongbox.data.server;
+
+/**
+ * The ways in which the application can connect to its OrientDb database.
+ */
+public enum OrientDbConnectionMode
+{
+
+    /**
+     * Through the binary protocol of the {@link EmbeddedOrientDbServer}, which also allows external tools to connect.
+     */
+    REMOTE("remote"),
+
+    /**
+     * In-process, straight to the database files on the disk, without starting any network listener.
+     */
+    PLOCAL("plocal"),
+
+    /**
+     * In-process, to a database which is only kept in memory (intended for tests).
+     */
+    MEMORY("memory");
+
+    private final String protocol;
+
+
+    OrientDbConnectionMode(String protocol)
+    {
+        this.protocol = protocol;
+    }
+
+    public String getProtocol()
+    {
+        return protocol;
+    }
+
+    public boolean isEmbedded()
+    {
+        return this != REMOTE;
+    }
+
+    public static OrientDbConnectionMode fromProtocol(String protocol)
+    {
+        for (OrientDbConnectionMode mode : values())
+        {
+            if (mode.protocol.equalsIgnoreCase(protocol.trim()))
+            {
+                return mode;
+            }
+        }
+
+        throw new IllegalArgumentException("Unsupported OrientDb connection mode '" + protocol + "'!");
+    }
+
+}
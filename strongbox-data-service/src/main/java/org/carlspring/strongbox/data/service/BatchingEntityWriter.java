@@ -0,0 +1,372 @@
+package org.carlspring.strongbox.data.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.carlspring.strongbox.data.domain.GenericEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes entities in the background, coalescing the saves into multi-record transactions
+ * (see {@link CrudService#save(Iterable)}).
+ * <p>
+ * A batch is written as soon as it's full, or once the oldest entity in it has waited for <code>maxDelay</code>
+ * milliseconds. The queue of the entities waiting to be written is bounded: once it's full, {@link #write(GenericEntity)}
+ * blocks until the writer catches up. If a batch fails, its entities are written one by one, so that only the
+ * entities which can't be written at all are lost. The entities which are still queued when the writer is stopped
+ * are written before it stops.
+ */
+public class BatchingEntityWriter<T extends GenericEntity>
+{
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchingEntityWriter.class);
+
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    public static final long DEFAULT_MAX_DELAY = 200;
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 10000;
+
+    /**
+     * Queued by {@link #flush(long, TimeUnit)} to have the current batch written without waiting for it to fill up.
+     */
+    private static final Object FLUSH = new Object();
+
+    private final String name;
+
+    private final CrudService<T, String> crudService;
+
+    private final int batchSize;
+
+    private final long maxDelay;
+
+    private final BlockingQueue<Object> queue;
+
+    /**
+     * The number of entities which have been submitted, but not written yet.
+     */
+    private int pending;
+
+    private volatile boolean running;
+
+    private Thread worker;
+
+    private final AtomicLong batches = new AtomicLong();
+
+    private final AtomicLong writtenEntities = new AtomicLong();
+
+    private final AtomicLong failedEntities = new AtomicLong();
+
+    private final AtomicLong maxBatchSize = new AtomicLong();
+
+    private final AtomicLong totalBatchLatency = new AtomicLong();
+
+    private final AtomicLong maxBatchLatency = new AtomicLong();
+
+
+    public BatchingEntityWriter(String name,
+                                CrudService<T, String> crudService)
+    {
+        this(name, crudService, DEFAULT_BATCH_SIZE, DEFAULT_MAX_DELAY, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param maxDelay   the maximum time (in milliseconds) for which an entity waits for its batch to fill up
+     * @param capacity   the number of entities which can be queued before {@link #write(GenericEntity)} blocks
+     */
+    public BatchingEntityWriter(String name,
+                                CrudService<T, String> crudService,
+                                int batchSize,
+                                long maxDelay,
+                                int capacity)
+    {
+        this.name = name;
+        this.crudService = crudService;
+        this.batchSize = batchSize;
+        this.maxDelay = maxDelay;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    public synchronized void start()
+    {
+        if (running)
+        {
+            return;
+        }
+
+        running = true;
+
+        worker = new Thread(this::processQueue, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Writes the entities which are still queued and stops the writer.
+     */
+    public void stop()
+            throws InterruptedException
+    {
+        Thread thread;
+        synchronized (this)
+        {
+            running = false;
+            thread = worker;
+            worker = null;
+        }
+
+        if (thread != null)
+        {
+            // Wake the worker up, if it's waiting for a batch to fill up.
+            queue.offer(FLUSH);
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        }
+    }
+
+    /**
+     * Queues the entity for writing, blocking while the queue is full.
+     */
+    public void write(T entity)
+            throws InterruptedException
+    {
+        if (!running)
+        {
+            throw new IllegalStateException("The " + name + " writer is not running.");
+        }
+
+        synchronized (this)
+        {
+            pending++;
+        }
+
+        try
+        {
+            queue.put(entity);
+        }
+        catch (InterruptedException e)
+        {
+            completed(1);
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the queued entities without waiting for their batch to fill up, and waits until they have been written.
+     *
+     * @return <code>true</code>, if there is nothing left to write, <code>false</code>, if the timeout elapsed
+     */
+    public boolean flush(long timeout,
+                         TimeUnit unit)
+            throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + unit.toMillis(timeout);
+
+        if (!queue.offer(FLUSH, timeout, unit))
+        {
+            return false;
+        }
+
+        synchronized (this)
+        {
+            while (pending > 0)
+            {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0)
+                {
+                    return false;
+                }
+
+                wait(remaining);
+            }
+        }
+
+        return true;
+    }
+
+    public synchronized int getPending()
+    {
+        return pending;
+    }
+
+    public boolean isRunning()
+    {
+        return running;
+    }
+
+    /**
+     * @return the number of batches which have been written
+     */
+    public long getBatchCount()
+    {
+        return batches.get();
+    }
+
+    public long getWrittenEntityCount()
+    {
+        return writtenEntities.get();
+    }
+
+    public long getFailedEntityCount()
+    {
+        return failedEntities.get();
+    }
+
+    public long getMaxBatchSize()
+    {
+        return maxBatchSize.get();
+    }
+
+    public double getAverageBatchSize()
+    {
+        long count = batches.get();
+
+        return count > 0 ? (writtenEntities.get() + failedEntities.get()) / (double) count : 0;
+    }
+
+    /**
+     * @return the average time (in milliseconds) which it took to write a batch
+     */
+    public double getAverageBatchLatency()
+    {
+        long count = batches.get();
+
+        return count > 0 ? TimeUnit.NANOSECONDS.toMicros(totalBatchLatency.get()) / 1000d / count : 0;
+    }
+
+    /**
+     * @return the longest time (in milliseconds) which it took to write a batch
+     */
+    public long getMaxBatchLatency()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(maxBatchLatency.get());
+    }
+
+    private void processQueue()
+    {
+        List<T> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty())
+        {
+            try
+            {
+                Object element = queue.poll(1, TimeUnit.SECONDS);
+                if (element == null)
+                {
+                    continue;
+                }
+
+                if (element != FLUSH)
+                {
+                    fillBatch(batch, element);
+                }
+
+                if (!batch.isEmpty())
+                {
+                    writeBatch(batch);
+                }
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            finally
+            {
+                completed(batch.size());
+                batch.clear();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void fillBatch(List<T> batch,
+                           Object first)
+            throws InterruptedException
+    {
+        batch.add((T) first);
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDelay);
+        while (batch.size() < batchSize)
+        {
+            long remaining = deadline - System.nanoTime();
+            Object element = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+            if (element == null || element == FLUSH)
+            {
+                return;
+            }
+
+            batch.add((T) element);
+        }
+    }
+
+    private void writeBatch(List<T> batch)
+    {
+        long start = System.nanoTime();
+        try
+        {
+            crudService.save(batch);
+
+            writtenEntities.addAndGet(batch.size());
+        }
+        catch (RuntimeException e)
+        {
+            logger.warn("Failed to write a batch of " + batch.size() + " entities, writing them one by one.", e);
+
+            writeEntities(batch);
+        }
+
+        long latency = System.nanoTime() - start;
+
+        batches.incrementAndGet();
+        totalBatchLatency.addAndGet(latency);
+        updateMax(maxBatchLatency, latency);
+        updateMax(maxBatchSize, batch.size());
+
+        logger.debug("Wrote a batch of " + batch.size() + " entities in " +
+                     TimeUnit.NANOSECONDS.toMillis(latency) + " ms.");
+    }
+
+    /**
+     * Writes the entities of a failed batch in separate transactions, so that a single invalid entity (such as a
+     * duplicate) doesn't cause the whole batch to be lost.
+     */
+    private void writeEntities(List<T> batch)
+    {
+        for (T entity : batch)
+        {
+            try
+            {
+                crudService.save(entity);
+
+                writtenEntities.incrementAndGet();
+            }
+            catch (RuntimeException e)
+            {
+                failedEntities.incrementAndGet();
+
+                logger.error("Failed to write " + entity + ".", e);
+            }
+        }
+    }
+
+    private static void updateMax(AtomicLong max,
+                                  long value)
+    {
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value))
+        {
+            // Retry, as another value has been recorded in the meantime.
+        }
+    }
+
+    private synchronized void completed(int count)
+    {
+        pending -= count;
+        notifyAll();
+    }
+
+}
@@ -3,6 +3,7 @@ package org.carlspring.strongbox.data.service;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -46,6 +47,55 @@ public abstract class CommonCrudService<T extends GenericEntity> implements Crud
         return getDelegate().save(entity);
     }
 
+    /**
+     * Saves all the entities in one transaction. The record ids of the entities which only have a uuid are looked
+     * up with a single query, instead of one query per entity.
+     */
+    @Override
+    public <S extends T> Iterable<S> save(Iterable<S> entities)
+    {
+        Map<String, S> entitiesByUuid = new HashMap<>();
+        for (S entity : entities)
+        {
+            if (entity.getObjectId() == null && entity.getUuid() == null)
+            {
+                entity.setUuid(UUID.randomUUID().toString());
+            }
+            else if (entity.getObjectId() == null)
+            {
+                entitiesByUuid.put(entity.getUuid(), entity);
+            }
+        }
+
+        if (!entitiesByUuid.isEmpty())
+        {
+            String sQuery = String.format("select @rid as objectId, uuid from %s where uuid in :uuids",
+                                          getEntityClass().getSimpleName());
+            OSQLSynchQuery<ODocument> oQuery = new OSQLSynchQuery<ODocument>(sQuery);
+            HashMap<String, Object> params = new HashMap<String, Object>();
+            params.put("uuids", new ArrayList<>(entitiesByUuid.keySet()));
+
+            List<ODocument> resultList = getDelegate().command(oQuery).execute(params);
+            for (ODocument record : resultList)
+            {
+                S entity = entitiesByUuid.get(record.<String>field("uuid"));
+                ODocument value = record.field("objectId");
+                if (entity != null && value != null)
+                {
+                    entity.setObjectId(value.getIdentity().toString());
+                }
+            }
+        }
+
+        List<S> result = new ArrayList<>();
+        for (S entity : entities)
+        {
+            result.add(getDelegate().save(entity));
+        }
+
+        return result;
+    }
+
     @Override
     public Optional<T> findOne(String id)
     {
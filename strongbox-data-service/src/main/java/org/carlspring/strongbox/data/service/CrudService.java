@@ -14,6 +14,11 @@ public interface CrudService<T, ID extends Serializable>
 
     <S extends T> S save(S entity);
 
+    /**
+     * Saves all the entities within a single transaction.
+     */
+    <S extends T> Iterable<S> save(Iterable<S> entities);
+
     Optional<T> findOne(ID id);
 
     boolean exists(ID id);
@@ -23,6 +23,12 @@ public class ArtifactEvent
 
     private int type;
 
+    private String storageId;
+
+    private String repositoryId;
+
+    private String path;
+
 
     public ArtifactEvent()
     {
@@ -33,6 +39,17 @@ public class ArtifactEvent
         this.type = type;
     }
 
+    public ArtifactEvent(String storageId,
+                         String repositoryId,
+                         String path,
+                         int type)
+    {
+        this.storageId = storageId;
+        this.repositoryId = repositoryId;
+        this.path = path;
+        this.type = type;
+    }
+
     public int getType()
     {
         return type;
@@ -43,4 +60,34 @@ public class ArtifactEvent
         this.type = type;
     }
 
+    public String getStorageId()
+    {
+        return storageId;
+    }
+
+    public void setStorageId(String storageId)
+    {
+        this.storageId = storageId;
+    }
+
+    public String getRepositoryId()
+    {
+        return repositoryId;
+    }
+
+    public void setRepositoryId(String repositoryId)
+    {
+        this.repositoryId = repositoryId;
+    }
+
+    public String getPath()
+    {
+        return path;
+    }
+
+    public void setPath(String path)
+    {
+        this.path = path;
+    }
+
 }
@@ -0,0 +1,54 @@
+package org.carlspring.strongbox.event;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Dispatches {@link ArtifactEvent}-s to all of the registered {@link ArtifactEventListener}-s.
+ */
+public class ArtifactEventListenerRegistry
+{
+
+    private static final Logger logger = LoggerFactory.getLogger(ArtifactEventListenerRegistry.class);
+
+    private final List<ArtifactEventListener> eventListeners = new CopyOnWriteArrayList<>();
+
+
+    public void addListener(ArtifactEventListener listener)
+    {
+        eventListeners.add(listener);
+    }
+
+    public boolean removeListener(ArtifactEventListener listener)
+    {
+        return eventListeners.remove(listener);
+    }
+
+    public void dispatchEvent(ArtifactEvent event)
+    {
+        logger.debug("Dispatching artifact event " + event.getType() + " for " +
+                     event.getStorageId() + ":" + event.getRepositoryId() + "/" + event.getPath() + "...");
+
+        for (ArtifactEventListener listener : eventListeners)
+        {
+            try
+            {
+                listener.handle(event);
+            }
+            catch (RuntimeException e)
+            {
+                // A misbehaving listener must not prevent the others from being notified.
+                logger.error("Failed to dispatch artifact event to " + listener.getClass().getName(), e);
+            }
+        }
+    }
+
+    public List<ArtifactEventListener> getEventListeners()
+    {
+        return eventListeners;
+    }
+
+}
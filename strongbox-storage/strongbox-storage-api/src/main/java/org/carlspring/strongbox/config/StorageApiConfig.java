@@ -2,24 +2,43 @@ package org.carlspring.strongbox.config;
 
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 
 import org.carlspring.strongbox.artifact.coordinates.MavenArtifactCoordinates;
 import org.carlspring.strongbox.configuration.ConfigurationManager;
+import org.carlspring.strongbox.data.service.BatchingEntityWriter;
 import org.carlspring.strongbox.domain.ArtifactEntry;
+import org.carlspring.strongbox.event.ArtifactEventListenerRegistry;
 import org.carlspring.strongbox.providers.layout.LayoutProviderRegistry;
 import org.carlspring.strongbox.providers.repository.RepositoryProviderRegistry;
 import org.carlspring.strongbox.providers.storage.StorageProviderRegistry;
+import org.carlspring.strongbox.services.ArtifactEntryService;
 import org.carlspring.strongbox.services.impl.ArtifactResolutionServiceImpl;
 import org.carlspring.strongbox.storage.checksum.ChecksumCacheManager;
 import org.carlspring.strongbox.storage.validation.version.VersionValidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.orientechnologies.orient.core.entity.OEntityManager;
+import com.orientechnologies.orient.core.index.OIndex;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OSchema;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.object.db.OObjectDatabaseTx;
 
 @Configuration
 @ComponentScan({ "org.carlspring.strongbox.artifact",
@@ -34,6 +53,20 @@ import com.orientechnologies.orient.core.entity.OEntityManager;
 public class StorageApiConfig
 {
 
+    private static final Logger logger = LoggerFactory.getLogger(StorageApiConfig.class);
+
+    private static final int GROUP_RESOLUTION_THREADS = 32;
+
+    private static final int GROUP_RESOLUTION_QUEUE_SIZE = 256;
+
+    private static final String ARTIFACT_ENTRY_PATH_INDEX = "idx_artifact_entry_path";
+
+    private static final String ARTIFACT_ENTRY_COORDINATES_INDEX = "idx_artifact_entry_coordinates";
+
+    private static final String MAVEN_ARTIFACT_COORDINATES_INDEX = "idx_maven_artifact_coordinates";
+
+    private static final int ARTIFACT_PATH_UPDATE_BATCH_SIZE = 1000;
+
     @Inject
     private List<VersionValidator> versionValidators;
 
@@ -52,9 +85,18 @@ public class StorageApiConfig
     @Inject
     private ConfigurationManager configurationManager;
 
+    @Inject
+    private ArtifactEntryService artifactEntryService;
+
     @Inject
     private OEntityManager entityManager;
-    
+
+    @PersistenceContext
+    private EntityManager persistenceEntityManager;
+
+    @Inject
+    private TransactionTemplate transactionTemplate;
+
     @PostConstruct
     public void init()
     {
@@ -66,9 +108,117 @@ public class StorageApiConfig
         // internal OrientDB exception: MavenArtifactCoordinates will not be serializable because
         // it was not registered using registerEntityClass()
         entityManager.registerEntityClass(MavenArtifactCoordinates.class);
+
+        boolean artifactPathIndexUnique = transactionTemplate.execute((s) -> createIndexes());
+        if (!artifactPathIndexUnique)
+        {
+            updateArtifactPaths();
+
+            transactionTemplate.execute((s) -> {
+                createUniqueArtifactPathIndex();
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Creates the indexes which back the lookups of the {@link ArtifactEntry}-s (if they aren't present yet):
+     * <ul>
+     *     <li>by storage, repository and path (which is what happens on every deployment), which is unique, once the
+     *     existing entries have been updated (see {@link #updateArtifactPaths()})</li>
+     *     <li>by the Maven coordinates (<code>artifactCoordinates.groupId = ...</code>), which requires both
+     *     the link to the coordinates and the coordinates themselves to be indexed</li>
+     * </ul>
+     *
+     * @return whether the index of the paths is unique already
+     */
+    private boolean createIndexes()
+    {
+        OSchema schema = ((OObjectDatabaseTx) persistenceEntityManager.getDelegate()).getMetadata()
+                                                                                     .getSchema();
+
+        OClass coordinatesClass = schema.getOrCreateClass(MavenArtifactCoordinates.class.getSimpleName());
+        if (coordinatesClass.getClassIndex(MAVEN_ARTIFACT_COORDINATES_INDEX) == null)
+        {
+            getOrCreateProperty(coordinatesClass, "groupId", OType.STRING);
+            getOrCreateProperty(coordinatesClass, "artifactId", OType.STRING);
+            getOrCreateProperty(coordinatesClass, "version", OType.STRING);
+
+            coordinatesClass.createIndex(MAVEN_ARTIFACT_COORDINATES_INDEX, OClass.INDEX_TYPE.NOTUNIQUE,
+                                         "groupId", "artifactId", "version");
+        }
+
+        OClass artifactEntryClass = schema.getOrCreateClass(ArtifactEntry.class.getSimpleName());
+        OIndex<?> artifactPathIndex = artifactEntryClass.getClassIndex(ARTIFACT_ENTRY_PATH_INDEX);
+        if (artifactPathIndex == null)
+        {
+            getOrCreateProperty(artifactEntryClass, "storageId", OType.STRING);
+            getOrCreateProperty(artifactEntryClass, "repositoryId", OType.STRING);
+            getOrCreateProperty(artifactEntryClass, "artifactPath", OType.STRING);
+
+            // Not unique yet, as it's used to find the duplicates while the existing entries are updated.
+            artifactEntryClass.createIndex(ARTIFACT_ENTRY_PATH_INDEX, OClass.INDEX_TYPE.NOTUNIQUE,
+                                           "storageId", "repositoryId", "artifactPath");
+        }
+
+        if (artifactEntryClass.getClassIndex(ARTIFACT_ENTRY_COORDINATES_INDEX) == null)
+        {
+            if (artifactEntryClass.getProperty("artifactCoordinates") == null)
+            {
+                artifactEntryClass.createProperty("artifactCoordinates", OType.LINK, coordinatesClass);
+            }
+
+            artifactEntryClass.createIndex(ARTIFACT_ENTRY_COORDINATES_INDEX, OClass.INDEX_TYPE.NOTUNIQUE,
+                                           "artifactCoordinates");
+        }
+
+        return artifactPathIndex != null && OClass.INDEX_TYPE.UNIQUE.name().equals(artifactPathIndex.getType());
     }
 
-    @Bean(name = "checksumCacheManager")
+    /**
+     * The entries which have been stored before their path was recorded can't be looked up by it, so every
+     * redeployment of their artifacts would create another entry. Their paths are derived from their coordinates
+     * (and the duplicates, which have been created in the meantime, are removed), one transaction per batch.
+     */
+    private void updateArtifactPaths()
+    {
+        logger.info("Updating the paths of the artifact entries...");
+
+        String lastRecordId = null;
+        do
+        {
+            lastRecordId = artifactEntryService.updateArtifactPaths(lastRecordId, ARTIFACT_PATH_UPDATE_BATCH_SIZE);
+        }
+        while (lastRecordId != null);
+
+        logger.info("Updated the paths of the artifact entries.");
+    }
+
+    private void createUniqueArtifactPathIndex()
+    {
+        OObjectDatabaseTx database = (OObjectDatabaseTx) persistenceEntityManager.getDelegate();
+        database.getMetadata()
+                .getIndexManager()
+                .dropIndex(ARTIFACT_ENTRY_PATH_INDEX);
+
+        database.getMetadata()
+                .getSchema()
+                .getClass(ArtifactEntry.class.getSimpleName())
+                .createIndex(ARTIFACT_ENTRY_PATH_INDEX, OClass.INDEX_TYPE.UNIQUE,
+                             "storageId", "repositoryId", "artifactPath");
+    }
+
+    private static void getOrCreateProperty(OClass oClass,
+                                            String name,
+                                            OType type)
+    {
+        if (oClass.getProperty(name) == null)
+        {
+            oClass.createProperty(name, type);
+        }
+    }
+
+    @Bean(name = "checksumCacheManager", initMethod = "startMonitor", destroyMethod = "stopMonitor")
     ChecksumCacheManager checksumCacheManager()
     {
         ChecksumCacheManager checksumCacheManager = new ChecksumCacheManager();
@@ -78,6 +228,57 @@ public class StorageApiConfig
         return checksumCacheManager;
     }
 
+    @Bean(name = "artifactEventListenerRegistry")
+    ArtifactEventListenerRegistry artifactEventListenerRegistry()
+    {
+        return new ArtifactEventListenerRegistry();
+    }
+
+    /**
+     * Used for bulk writes of {@link ArtifactEntry}-s (such as the ones of the deployments and of reindexing),
+     * which are then saved in multi-record transactions.
+     */
+    @Bean(name = "artifactEntryWriter", initMethod = "start", destroyMethod = "stop")
+    BatchingEntityWriter<ArtifactEntry> artifactEntryWriter()
+    {
+        return new BatchingEntityWriter<>("artifact-entry-writer", artifactEntryService);
+    }
+
+    /**
+     * Used by group repositories which resolve their members in parallel. Once the pool and its queue are exhausted,
+     * the members are resolved by the requesting thread itself. Once it has been shut down, the lookups are rejected.
+     */
+    @Bean(name = "groupRepositoryResolutionExecutor", destroyMethod = "shutdownNow")
+    ExecutorService groupRepositoryResolutionExecutor()
+    {
+        AtomicInteger threadNumber = new AtomicInteger();
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(GROUP_RESOLUTION_THREADS,
+                                                             GROUP_RESOLUTION_THREADS,
+                                                             60L,
+                                                             TimeUnit.SECONDS,
+                                                             new ArrayBlockingQueue<>(GROUP_RESOLUTION_QUEUE_SIZE),
+                                                             r -> {
+                                                                 Thread thread = new Thread(r,
+                                                                                            "group-resolution-" +
+                                                                                            threadNumber.incrementAndGet());
+                                                                 thread.setDaemon(true);
+
+                                                                 return thread;
+                                                             },
+                                                             (r, e) -> {
+                                                                 if (e.isShutdown())
+                                                                 {
+                                                                     throw new RejectedExecutionException("Shut down.");
+                                                                 }
+
+                                                                 r.run();
+                                                             });
+        executor.allowCoreThreadTimeOut(true);
+
+        return executor;
+    }
+
     @Bean(name = "versionValidators")
     LinkedHashSet<VersionValidator> versionValidators()
     {
@@ -3,18 +3,19 @@ package org.carlspring.strongbox.configuration;
 import org.carlspring.strongbox.xml.parsers.GenericParser;
 
 import javax.annotation.PostConstruct;
-import javax.inject.Inject;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.cache.Cache;
-import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Component;
 
 /**
  * Repository configuration used custom serialization mechanism so we decided to decouple repository configuration cache
  * management logic.
+ * <p>
+ * The serialized form of the last stored configuration is held in memory (it's the same one which is written to the
+ * database), so that storing a configuration only serializes it once.
  *
  * @author Alex Oreshkevich
  */
@@ -24,23 +25,14 @@ public class ConfigurationCache
 
     private static final Logger logger = LoggerFactory.getLogger(ConfigurationRepository.class);
 
-    @Inject
-    CacheManager cacheManager;
-
     private GenericParser<Configuration> parser;
 
-    private Cache configurationCache;
+    private final AtomicReference<CachedConfiguration> cachedConfiguration = new AtomicReference<>();
 
     @PostConstruct
     public synchronized void init()
     {
         parser = new GenericParser<>(Configuration.class);
-
-        configurationCache = cacheManager.getCache("configuration");
-        if (configurationCache == null)
-        {
-            throw new RuntimeException("Unable to get configuration cache");
-        }
     }
 
     public Configuration save(Configuration configuration)
@@ -51,16 +43,9 @@ public class ConfigurationCache
             return null;
         }
 
-        if (configuration.getObjectId() == null)
-        {
-            throw new IllegalArgumentException("Unable to save configuration into cache: id is null");
-        }
-
         try
         {
-            String value = parser.serialize(configuration);
-            configurationCache.evict(configuration.getObjectId());
-            configurationCache.put(configuration.getObjectId(), value);
+            return save(configuration, parser.serialize(configuration));
         }
         catch (Exception e)
         {
@@ -70,28 +55,36 @@ public class ConfigurationCache
         return configuration;
     }
 
+    /**
+     * @param data the serialized form of the configuration
+     */
+    public Configuration save(Configuration configuration,
+                              String data)
+    {
+        if (configuration.getObjectId() == null)
+        {
+            throw new IllegalArgumentException("Unable to save configuration into cache: id is null");
+        }
+
+        cachedConfiguration.set(new CachedConfiguration(configuration.getObjectId(), data));
+
+        return configuration;
+    }
+
+    /**
+     * @return a copy of the cached configuration
+     */
     public Optional<Configuration> getConfiguration(String id)
     {
-        if (id == null)
+        CachedConfiguration cached = cachedConfiguration.get();
+        if (id == null || cached == null || !id.equals(cached.id))
         {
             return Optional.empty();
         }
 
         try
         {
-            Cache.ValueWrapper valueWrapper = configurationCache.get(id);
-            if (valueWrapper == null)
-            {
-                return Optional.empty();
-            }
-
-            String configuration = (String) valueWrapper.get();
-            if (configuration == null)
-            {
-                return Optional.empty();
-            }
-
-            return Optional.ofNullable(parser.deserialize(configuration));
+            return Optional.ofNullable(parser.deserialize(cached.data));
         }
         catch (Exception e)
         {
@@ -104,4 +97,22 @@ public class ConfigurationCache
     {
         return parser;
     }
+
+    private static final class CachedConfiguration
+    {
+
+        private final String id;
+
+        private final String data;
+
+
+        CachedConfiguration(String id,
+                            String data)
+        {
+            this.id = id;
+            this.data = data;
+        }
+
+    }
+
 }
@@ -5,6 +5,8 @@ import org.carlspring.strongbox.service.ProxyRepositoryConnectionPoolConfigurati
 import org.carlspring.strongbox.storage.Storage;
 import org.carlspring.strongbox.storage.repository.Repository;
 import org.carlspring.strongbox.storage.repository.RepositoryTypeEnum;
+import org.carlspring.strongbox.storage.routing.RoutingRules;
+import org.carlspring.strongbox.storage.routing.RoutingRulesMatcher;
 
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
@@ -12,6 +14,7 @@ import javax.xml.bind.JAXBException;
 import java.io.File;
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.commons.collections.MapUtils;
 import org.slf4j.Logger;
@@ -32,6 +35,12 @@ public class ConfigurationManager
     @Inject
     private ProxyRepositoryConnectionPoolConfigurationService proxyRepositoryConnectionPoolConfigurationService;
 
+    private final AtomicReference<RoutingRulesMatcher> routingRulesMatcher = new AtomicReference<>(
+            RoutingRulesMatcher.EMPTY);
+
+    private final AtomicReference<ConfigurationSnapshot> snapshot = new AtomicReference<>(
+            ConfigurationSnapshot.EMPTY);
+
 
     @PostConstruct
     public synchronized void init()
@@ -41,9 +50,11 @@ public class ConfigurationManager
 
         logger.debug("Initializing configuration...");
 
-        setRepositoryStorageRelationships();
+        // The allows are set first, so that they are stored with the relationships (and make it into the snapshot).
         setAllows();
+        setRepositoryStorageRelationships();
         setProxyRepositoryConnectionPoolConfigurations();
+        compileRoutingRules(getConfiguration().getRoutingRules());
 
         dump();
     }
@@ -150,6 +161,40 @@ public class ConfigurationManager
         }
     }
 
+    /**
+     * Replaces the precompiled routing rules. This is invoked whenever the configuration is stored, as the
+     * routing rules are modified in place.
+     */
+    public void compileRoutingRules(RoutingRules routingRules)
+    {
+        routingRulesMatcher.set(routingRules != null ? new RoutingRulesMatcher(routingRules) :
+                                RoutingRulesMatcher.EMPTY);
+    }
+
+    public RoutingRulesMatcher getRoutingRulesMatcher()
+    {
+        return routingRulesMatcher.get();
+    }
+
+    /**
+     * Replaces the snapshot of the storages and repositories. This is invoked whenever the configuration is stored.
+     *
+     * @param copy a deep copy of the configuration, which the snapshot takes ownership of
+     */
+    public void updateSnapshot(Configuration configuration,
+                               Configuration copy)
+    {
+        snapshot.set(new ConfigurationSnapshot(configuration, copy));
+    }
+
+    /**
+     * @return the storages and repositories as of the last time the configuration was stored
+     */
+    public ConfigurationSnapshot getSnapshot()
+    {
+        return snapshot.get();
+    }
+
     public static File getStrongboxLockFile()
     {
         return new File(ConfigurationResourceResolver.getVaultDirectory(), "storage-booter.lock");
@@ -157,6 +202,12 @@ public class ConfigurationManager
 
     public Repository getRepository(String storageAndRepositoryId)
     {
+        Repository repository = getCurrentSnapshot().getRepository(storageAndRepositoryId);
+        if (repository != null)
+        {
+            return repository;
+        }
+
         String[] elements = storageAndRepositoryId.split(":");
         String storageId = elements[0];
         String repositoryId = elements[1];
@@ -166,9 +217,34 @@ public class ConfigurationManager
 
     public Repository getRepository(String storageId, String repositoryId)
     {
+        Repository repository = getCurrentSnapshot().getRepository(storageId, repositoryId);
+        if (repository != null)
+        {
+            return repository;
+        }
+
+        // The repository may have been added since the configuration was last stored.
         return getConfiguration().getStorage(storageId).getRepository(repositoryId);
     }
 
+    public Storage getStorage(String storageId)
+    {
+        Storage storage = getCurrentSnapshot().getStorage(storageId);
+
+        return storage != null ? storage : getConfiguration().getStorage(storageId);
+    }
+
+    /**
+     * @return the snapshot, if it has been taken of the current configuration, or an empty one, if the configuration
+     *         has been replaced since then
+     */
+    private ConfigurationSnapshot getCurrentSnapshot()
+    {
+        ConfigurationSnapshot currentSnapshot = snapshot.get();
+
+        return currentSnapshot.getConfiguration() == configuration ? currentSnapshot : ConfigurationSnapshot.EMPTY;
+    }
+
     public String getStorageId(Storage storage, String storageAndRepositoryId)
     {
         String[] storageAndRepositoryIdTokens = storageAndRepositoryId.split(":");
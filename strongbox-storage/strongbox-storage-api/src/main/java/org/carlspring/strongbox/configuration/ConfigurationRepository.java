@@ -3,9 +3,16 @@ package org.carlspring.strongbox.configuration;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.AbstractMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
@@ -27,6 +34,15 @@ import org.springframework.transaction.support.TransactionTemplate;
 import com.orientechnologies.orient.core.entity.OEntityManager;
 import com.orientechnologies.orient.object.db.OObjectDatabaseTx;
 
+/**
+ * Stores the {@link Configuration} in the database.
+ * <p>
+ * Once the configuration has been created, its updates are published in memory right away (see
+ * {@link ConfigurationCache} and {@link ConfigurationManager#getSnapshot()}) and written to the database in the
+ * background. If the configuration is updated several times before it has been written, only its last state is.
+ * A failed write is retried a few times; if it still fails, the next update is written right away and the failure
+ * is reported to its caller.
+ */
 @Component("configurationRepository")
 @Transactional
 public class ConfigurationRepository
@@ -34,6 +50,10 @@ public class ConfigurationRepository
 
     private static final Logger logger = LoggerFactory.getLogger(ConfigurationRepository.class);
 
+    private static final int MAX_PERSIST_ATTEMPTS = 5;
+
+    private static final long PERSIST_RETRY_DELAY = TimeUnit.SECONDS.toMillis(1);
+
     @Inject
     ServerConfigurationService serverConfigurationService;
 
@@ -52,7 +72,29 @@ public class ConfigurationRepository
     @Inject
     private TransactionTemplate transactionTemplate;
     
-    private String currentDatabaseId;
+    private volatile String currentDatabaseId;
+
+    /**
+     * The id and the serialized form of the configuration which is waiting to be written to the database.
+     */
+    private final AtomicReference<Map.Entry<String, String>> pendingConfiguration = new AtomicReference<>();
+
+    /**
+     * The reason why the last configuration could not be written to the database, after it had been retried.
+     */
+    private final AtomicReference<RuntimeException> persistenceFailure = new AtomicReference<>();
+
+    /**
+     * The number of times the pending configuration has failed to be written (only used by the persistence thread).
+     */
+    private int failedAttempts;
+
+    private final ScheduledExecutorService persistenceExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "configuration-persistence");
+        thread.setDaemon(true);
+
+        return thread;
+    });
 
 
     public ConfigurationRepository()
@@ -90,6 +132,18 @@ public class ConfigurationRepository
         
     }
 
+    @PreDestroy
+    public void close()
+            throws InterruptedException
+    {
+        // Let the last update be written.
+        persistenceExecutor.shutdown();
+        if (!persistenceExecutor.awaitTermination(30, TimeUnit.SECONDS))
+        {
+            logger.warn("Timed out while writing the configuration to the database.");
+        }
+    }
+
     private synchronized boolean schemaExists()
     {
         OObjectDatabaseTx db = getDatabase();
@@ -140,7 +194,10 @@ public class ConfigurationRepository
         return configuration;
     }
 
-    public synchronized Configuration getConfiguration()
+    /**
+     * @return a copy of the last stored configuration
+     */
+    public Configuration getConfiguration()
     {
         Optional<Configuration> optionalConfig = configurationCache.getConfiguration(currentDatabaseId);
         if (optionalConfig.isPresent())
@@ -164,11 +221,31 @@ public class ConfigurationRepository
             final String data = configurationCache.getParser().serialize(configuration);
             final String configurationId = configuration.getObjectId();
 
-            // update existing configuration with new data (if possible)
             if (configurationId != null)
             {
-                serverConfigurationService.findOne(configurationId)
-                                          .ifPresent(binaryConfiguration -> doSave(binaryConfiguration, data));
+                RuntimeException failure = persistenceFailure.getAndSet(null);
+                if (failure == null)
+                {
+                    // update existing configuration with new data (in the background)
+                    persist(configurationId, data);
+                }
+                else
+                {
+                    // The previous update never made it to the database, so this one is written right away.
+                    logger.warn("The previous configuration update could not be written to the database (" +
+                                failure.getMessage() + "), writing this one directly.");
+
+                    pendingConfiguration.set(null);
+                    try
+                    {
+                        write(configurationId, data);
+                    }
+                    catch (RuntimeException e)
+                    {
+                        persistenceFailure.set(e);
+                        throw e;
+                    }
+                }
             }
             else
             {
@@ -181,7 +258,9 @@ public class ConfigurationRepository
             }
 
             configuration.setObjectId(currentDatabaseId);
-            configurationCache.save(configuration);
+            configurationCache.save(configuration, data);
+            configurationManager.compileRoutingRules(configuration.getRoutingRules());
+            configurationManager.updateSnapshot(configuration, configurationCache.getParser().deserialize(data));
 
             logger.debug("Configuration updated under ID " + currentDatabaseId);
         }
@@ -195,6 +274,66 @@ public class ConfigurationRepository
         return Optional.of(configuration);
     }
 
+    private void persist(String configurationId,
+                         String data)
+    {
+        // A write is only scheduled if there is none pending, as the pending one will pick up this data.
+        if (pendingConfiguration.getAndSet(new AbstractMap.SimpleImmutableEntry<>(configurationId, data)) == null)
+        {
+            persistenceExecutor.execute(this::persistPendingConfiguration);
+        }
+    }
+
+    private void persistPendingConfiguration()
+    {
+        Map.Entry<String, String> pending = pendingConfiguration.getAndSet(null);
+        if (pending == null)
+        {
+            return;
+        }
+
+        try
+        {
+            write(pending.getKey(), pending.getValue());
+
+            failedAttempts = 0;
+        }
+        catch (RuntimeException e)
+        {
+            failedAttempts++;
+            if (failedAttempts < MAX_PERSIST_ATTEMPTS && !persistenceExecutor.isShutdown())
+            {
+                logger.warn("Unable to write the configuration to the database, retrying (attempt " +
+                            failedAttempts + " of " + MAX_PERSIST_ATTEMPTS + ").", e);
+
+                // Unless a newer update has been scheduled in the meantime, which supersedes this one.
+                if (pendingConfiguration.compareAndSet(null, pending))
+                {
+                    persistenceExecutor.schedule(this::persistPendingConfiguration,
+                                                 PERSIST_RETRY_DELAY * failedAttempts,
+                                                 TimeUnit.MILLISECONDS);
+                }
+            }
+            else
+            {
+                logger.error("Unable to write the configuration to the database.", e);
+
+                failedAttempts = 0;
+                persistenceFailure.set(e);
+            }
+        }
+    }
+
+    private void write(String configurationId,
+                       String data)
+    {
+        transactionTemplate.execute((s) -> {
+            serverConfigurationService.findOne(configurationId)
+                                      .ifPresent(binaryConfiguration -> doSave(binaryConfiguration, data));
+            return null;
+        });
+    }
+
     @Transactional
     private synchronized void doSave(BinaryConfiguration binaryConfiguration,
                                      String data)
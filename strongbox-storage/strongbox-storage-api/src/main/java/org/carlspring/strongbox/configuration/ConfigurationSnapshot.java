@@ -0,0 +1,132 @@
+package org.carlspring.strongbox.configuration;
+
+import org.carlspring.strongbox.storage.Storage;
+import org.carlspring.strongbox.storage.repository.Repository;
+import org.carlspring.strongbox.xml.parsers.GenericParser;
+
+import javax.xml.bind.JAXBException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The storages and repositories of the {@link Configuration}, as of the moment it was last stored.
+ * <p>
+ * The lookup maps are built once and are never modified afterwards, so they can be read by any number of threads
+ * without locking, while the configuration itself is being modified. The {@link Storage} and {@link Repository}
+ * instances are copies of the ones of the configuration, so modifying the configuration in place doesn't affect the
+ * snapshot either; the changes are only picked up once the configuration has been stored. The copies are shared by
+ * all the readers of the snapshot, so they must not be modified.
+ */
+public final class ConfigurationSnapshot
+{
+
+    public static final ConfigurationSnapshot EMPTY = new ConfigurationSnapshot(null, null);
+
+    private final Configuration configuration;
+
+    private final Map<String, Storage> storages;
+
+    /**
+     * The repositories by "storageId:repositoryId".
+     */
+    private final Map<String, Repository> repositories;
+
+
+    /**
+     * Takes a snapshot of the configuration, which is copied through its serialized form.
+     */
+    public ConfigurationSnapshot(Configuration configuration)
+            throws JAXBException
+    {
+        this(configuration, copy(configuration));
+    }
+
+    /**
+     * @param configuration the configuration, which this is a snapshot of
+     * @param copy          a deep copy of the configuration (such as the one deserialized from its stored form), which
+     *                      is owned by the snapshot from now on
+     */
+    public ConfigurationSnapshot(Configuration configuration,
+                                 Configuration copy)
+    {
+        this.configuration = configuration;
+
+        Map<String, Storage> storages = new LinkedHashMap<>();
+        Map<String, Repository> repositories = new HashMap<>();
+
+        if (copy != null && copy.getStorages() != null)
+        {
+            for (Storage storage : copy.getStorages().values())
+            {
+                storages.put(storage.getId(), storage);
+
+                if (storage.getRepositories() == null)
+                {
+                    continue;
+                }
+
+                for (Repository repository : storage.getRepositories().values())
+                {
+                    // The relationship isn't serialized.
+                    repository.setStorage(storage);
+
+                    repositories.put(getKey(storage.getId(), repository.getId()), repository);
+                }
+            }
+        }
+
+        this.storages = Collections.unmodifiableMap(storages);
+        this.repositories = Collections.unmodifiableMap(repositories);
+    }
+
+    public Configuration getConfiguration()
+    {
+        return configuration;
+    }
+
+    public Map<String, Storage> getStorages()
+    {
+        return storages;
+    }
+
+    public Storage getStorage(String storageId)
+    {
+        return storages.get(storageId);
+    }
+
+    public Repository getRepository(String storageId,
+                                    String repositoryId)
+    {
+        return repositories.get(getKey(storageId, repositoryId));
+    }
+
+    /**
+     * @param storageAndRepositoryId "storageId:repositoryId"
+     */
+    public Repository getRepository(String storageAndRepositoryId)
+    {
+        return repositories.get(storageAndRepositoryId);
+    }
+
+    private static Configuration copy(Configuration configuration)
+            throws JAXBException
+    {
+        if (configuration == null)
+        {
+            return null;
+        }
+
+        GenericParser<Configuration> parser = new GenericParser<>(Configuration.class);
+
+        return parser.deserialize(parser.serialize(configuration));
+    }
+
+    private static String getKey(String storageId,
+                                 String repositoryId)
+    {
+        return storageId + ":" + repositoryId;
+    }
+
+}
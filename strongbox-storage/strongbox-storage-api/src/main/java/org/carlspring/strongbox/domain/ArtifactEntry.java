@@ -20,6 +20,11 @@ public class ArtifactEntry
     // if you have to rename this field please update ArtifactEntryServiceImpl.findByCoordinates() implementation
     private ArtifactCoordinates artifactCoordinates;
 
+    /**
+     * The path of the artifact, relative to its repository (indexed together with the storage and repository id).
+     */
+    private String artifactPath;
+
     public ArtifactEntry()
     {
     }
@@ -54,6 +59,16 @@ public class ArtifactEntry
         this.artifactCoordinates = artifactCoordinates;
     }
 
+    public String getArtifactPath()
+    {
+        return artifactPath;
+    }
+
+    public void setArtifactPath(String artifactPath)
+    {
+        this.artifactPath = artifactPath;
+    }
+
     @Override
     public String toString()
     {
@@ -64,6 +79,9 @@ public class ArtifactEntry
         sb.append(", \n\trepositoryId='")
           .append(repositoryId)
           .append('\'');
+        sb.append(", \n\tartifactPath='")
+          .append(artifactPath)
+          .append('\'');
         sb.append(", \n\tartifactCoordinates=")
           .append(artifactCoordinates);
         sb.append('}');
@@ -0,0 +1,214 @@
+package org.carlspring.strongbox.io;
+
+import org.carlspring.commons.io.MultipleDigestOutputStream;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Copies everything which is read from the source stream into a cache (along with calculating its digests), so that
+ * the content can be served to the client while it is being stored.
+ * <p>
+ * Once the source stream has been exhausted, the cache is closed and handed over to the {@link CacheListener}, which
+ * decides whether the cached content can be kept. If the client stops reading early, the rest of the source stream
+ * is still copied into the cache upon {@link #close()}, so that the cache is always complete. If that isn't possible,
+ * the listener is told about the failure instead, so that a closed stream always has an outcome.
+ */
+public class CachingInputStream
+        extends FilterInputStream
+{
+
+    private static final int DRAIN_BUFFER_SIZE = 64 * 1024;
+
+    private final MultipleDigestOutputStream cacheOutputStream;
+
+    private final CacheListener listener;
+
+    private boolean completed;
+
+
+    public CachingInputStream(InputStream source,
+                              MultipleDigestOutputStream cacheOutputStream,
+                              CacheListener listener)
+    {
+        super(source);
+        this.cacheOutputStream = cacheOutputStream;
+        this.listener = listener;
+    }
+
+    @Override
+    public int read()
+            throws IOException
+    {
+        int ch;
+        try
+        {
+            ch = in.read();
+            if (ch != -1)
+            {
+                cacheOutputStream.write(ch);
+            }
+        }
+        catch (IOException e)
+        {
+            fail(e);
+            throw e;
+        }
+
+        if (ch == -1)
+        {
+            complete();
+        }
+
+        return ch;
+    }
+
+    @Override
+    public int read(byte[] bytes,
+                    int off,
+                    int len)
+            throws IOException
+    {
+        int numberOfBytesRead;
+        try
+        {
+            numberOfBytesRead = in.read(bytes, off, len);
+            if (numberOfBytesRead > 0)
+            {
+                cacheOutputStream.write(bytes, off, numberOfBytesRead);
+            }
+        }
+        catch (IOException e)
+        {
+            fail(e);
+            throw e;
+        }
+
+        if (numberOfBytesRead == -1)
+        {
+            complete();
+        }
+
+        return numberOfBytesRead;
+    }
+
+    @Override
+    public long skip(long n)
+            throws IOException
+    {
+        // Skipped bytes still have to make it into the cache.
+        byte[] bytes = new byte[(int) Math.min(n, DRAIN_BUFFER_SIZE)];
+
+        long skipped = 0;
+        while (skipped < n)
+        {
+            int len = read(bytes, 0, (int) Math.min(bytes.length, n - skipped));
+            if (len == -1)
+            {
+                break;
+            }
+
+            skipped += len;
+        }
+
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported()
+    {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit)
+    {
+        // Not supported, as the content is consumed while it is being cached.
+    }
+
+    @Override
+    public synchronized void reset()
+            throws IOException
+    {
+        throw new IOException("mark/reset not supported");
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        try
+        {
+            if (!completed)
+            {
+                byte[] bytes = new byte[DRAIN_BUFFER_SIZE];
+                while (read(bytes, 0, bytes.length) != -1)
+                {
+                    // Keep filling the cache.
+                }
+            }
+        }
+        finally
+        {
+            if (!completed)
+            {
+                fail(new IOException("The stream was closed before its content could be cached."));
+            }
+
+            in.close();
+        }
+    }
+
+    private void complete()
+            throws IOException
+    {
+        if (completed)
+        {
+            return;
+        }
+
+        completed = true;
+
+        cacheOutputStream.close();
+
+        listener.onComplete(cacheOutputStream);
+    }
+
+    private void fail(IOException cause)
+    {
+        if (completed)
+        {
+            return;
+        }
+
+        completed = true;
+
+        try
+        {
+            cacheOutputStream.close();
+        }
+        catch (IOException e)
+        {
+            cause.addSuppressed(e);
+        }
+
+        listener.onFailure(cause);
+    }
+
+    public interface CacheListener
+    {
+
+        /**
+         * Invoked once the whole content has been written to the cache.
+         *
+         * @throws IOException if the cached content is not acceptable; this will be reported to the reader
+         */
+        void onComplete(MultipleDigestOutputStream cacheOutputStream)
+                throws IOException;
+
+        void onFailure(IOException cause);
+
+    }
+
+}
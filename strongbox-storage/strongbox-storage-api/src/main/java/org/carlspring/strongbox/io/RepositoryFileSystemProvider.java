@@ -6,6 +6,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SeekableByteChannel;
 import java.nio.file.AccessMode;
 import java.nio.file.CopyOption;
@@ -84,6 +85,15 @@ public class RepositoryFileSystemProvider
         return storageFileSystemProvider.newByteChannel(getTargetPath(path), options, attrs);
     }
 
+    @Override
+    public FileChannel newFileChannel(Path path,
+                                      Set<? extends OpenOption> options,
+                                      FileAttribute<?>... attrs)
+            throws IOException
+    {
+        return storageFileSystemProvider.newFileChannel(getTargetPath(path), options, attrs);
+    }
+
     public DirectoryStream<Path> newDirectoryStream(Path dir,
                                                     Filter<? super Path> filter)
             throws IOException
@@ -25,18 +25,22 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import org.apache.commons.codec.digest.MessageDigestAlgorithms;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -49,6 +53,10 @@ public abstract class AbstractLayoutProvider<T extends ArtifactCoordinates>
 
     private static final Logger logger = LoggerFactory.getLogger(AbstractLayoutProvider.class);
 
+    private static final Set<String> DIGEST_ALGORITHMS = Collections.unmodifiableSet(
+            new LinkedHashSet<>(Arrays.asList(MessageDigestAlgorithms.MD5, MessageDigestAlgorithms.SHA_1)));
+
+
     @Inject
     protected LayoutProviderRegistry layoutProviderRegistry;
 
@@ -105,6 +113,17 @@ public abstract class AbstractLayoutProvider<T extends ArtifactCoordinates>
                                               String path)
             throws IOException,
                    NoSuchAlgorithmException
+    {
+        return getInputStream(storageId, repositoryId, path, false);
+    }
+
+    @Override
+    public ArtifactInputStream getInputStream(String storageId,
+                                              String repositoryId,
+                                              String path,
+                                              boolean calculateDigests)
+            throws IOException,
+                   NoSuchAlgorithmException
     {
         Storage storage = getConfiguration().getStorage(storageId);
 
@@ -129,7 +148,8 @@ public abstract class AbstractLayoutProvider<T extends ArtifactCoordinates>
 
         logger.debug("Resolved " + path + "!");
 
-        return decorateStream(storageId, repositoryId, path, is, artifactCoordinates);
+        return decorateStream(repository, path, is, artifactCoordinates,
+                              calculateDigests || repository.isVerifyChecksumsOnRead());
     }
 
     @Override
@@ -215,69 +235,87 @@ public abstract class AbstractLayoutProvider<T extends ArtifactCoordinates>
         return result;
     }
 
-    protected ArtifactInputStream decorateStream(String storageId,
-                                                 String repositoryId,
+    /**
+     * Wraps the stream of the path.
+     * <p>
+     * Unless the digests have to be calculated, the checksums which have been stored alongside the path are served
+     * instead, so that the content doesn't have to be hashed on every read. Only the digests which haven't been stored
+     * are calculated while the stream is being read.
+     */
+    protected ArtifactInputStream decorateStream(Repository repository,
                                                  String path,
                                                  InputStream is,
-                                                 T artifactCoordinates)
+                                                 T artifactCoordinates,
+                                                 boolean calculateDigests)
         throws NoSuchAlgorithmException
     {
-        ArtifactInputStream result = new ArtifactInputStream(artifactCoordinates, is, getDigestAlgorithmSet());
-        // Add digest algorithm only if it is not a Checksum (we don't need a Checksum of Checksum).
-        if (!ArtifactFileUtils.isChecksum(path))
+        Set<String> digestAlgorithms = getDigestAlgorithmSet();
+        if (calculateDigests)
         {
-            getDigestAlgorithmSet().stream()
-                                   .forEach(a -> {
-                                       String checksum = getChecksum(storageId, repositoryId, path, result, a);
-                                       if (checksum == null)
-                                       {
-                                           return;
-                                       }
-                                       result.getHexDigests()
-                                             .put(a, checksum);
-                                   });
+            return new ArtifactInputStream(artifactCoordinates, is, digestAlgorithms);
         }
+
+        // We don't need a Checksum of a Checksum.
+        if (ArtifactFileUtils.isChecksum(path))
+        {
+            return new ArtifactInputStream(artifactCoordinates, is, Collections.emptySet());
+        }
+
+        Map<String, String> storedChecksums = getStoredChecksums(repository, path, digestAlgorithms);
+
+        Set<String> missingDigestAlgorithms = new LinkedHashSet<>(digestAlgorithms);
+        missingDigestAlgorithms.removeAll(storedChecksums.keySet());
+
+        ArtifactInputStream result = new ArtifactInputStream(artifactCoordinates, is, missingDigestAlgorithms);
+        result.getHexDigests().putAll(storedChecksums);
+
         return result;
     }
 
-    private String getChecksum(String storageId,
-                               String repositoryId,
-                               String path,
-                               ArtifactInputStream is,
-                               String digestAlgorithm)
+    /**
+     * @return the non-empty checksums which have been stored alongside the path, by digest algorithm
+     */
+    private Map<String, String> getStoredChecksums(Repository repository,
+                                                   String path,
+                                                   Set<String> digestAlgorithms)
     {
-        Storage storage = getConfiguration().getStorage(storageId);
-        Repository repository = storage.getRepository(repositoryId);
-
-        String checksumExtension = ".".concat(digestAlgorithm.toLowerCase()
-                                                             .replaceAll("-", ""));
-        String checksumPath = path.concat(checksumExtension);
-        String checksum = null;
+        Map<String, String> checksums = new LinkedHashMap<>();
+        for (String digestAlgorithm : digestAlgorithms)
+        {
+            String checksumExtension = ".".concat(digestAlgorithm.toLowerCase()
+                                                                 .replaceAll("-", ""));
+            String checksumPath = path.concat(checksumExtension);
 
-            try
+            String checksum;
+            try (InputStream is = Files.newInputStream(resolve(repository, checksumPath)))
             {
-                if (Files.exists(resolve(repository, checksumPath)) && new File(checksumPath).length() != 0)
-                {
-                checksum = MessageDigestUtils.readChecksumFile(getInputStream(storageId, repositoryId, checksumPath));
-                }
-                else
-                {
-                    checksum = is.getMessageDigestAsHexadecimalString(digestAlgorithm);
-                }
+                checksum = MessageDigestUtils.readChecksumFile(is);
             }
-            catch (IOException | NoSuchAlgorithmException e)
+            catch (NoSuchFileException e)
+            {
+                continue;
+            }
+            catch (IOException e)
             {
                 logger.error(String.format("Failed to read checksum: alg-[%s]; path-[%s];",
-                                           digestAlgorithm, path + "." + checksumExtension), e);
+                                           digestAlgorithm, checksumPath), e);
+                continue;
             }
 
-        return checksum;
+            // The checksum files may also contain the name of the file after the checksum itself.
+            checksum = checksum != null ? checksum.trim().split("\\s+")[0] : "";
+            if (!checksum.isEmpty())
+            {
+                checksums.put(digestAlgorithm, checksum);
+            }
+        }
+
+        return checksums;
     }
 
     public Set<String> getDigestAlgorithmSet()
     {
-        return Stream.of(MessageDigestAlgorithms.MD5, MessageDigestAlgorithms.SHA_1)
-                     .collect(Collectors.toSet());
+        return DIGEST_ALGORITHMS;
     }
 
     protected abstract boolean isMetadata(String path);
@@ -605,18 +643,22 @@ public abstract class AbstractLayoutProvider<T extends ArtifactCoordinates>
                      {
                          if (!isExistChecksum(repository, e.getPath()) || forceRegeneration)
                          {
-                             ArtifactInputStream is = null;
-                             try
+                             String artifactPath = e.getPath().substring(repository.getBasedir().length() + 1);
+
+                             // The stored checksums can't be trusted here, so the digests have to be calculated.
+                             try (ArtifactInputStream is = getInputStream(repository.getStorage().getId(),
+                                                                          repository.getId(),
+                                                                          artifactPath,
+                                                                          true))
                              {
-                                 String artifactPath = e.getPath().substring(repository.getBasedir().length() + 1);
-                                 is = getInputStream(repository.getStorage().getId(), repository.getId(), artifactPath);
+                                 IOUtils.copy(is, NullOutputStream.NULL_OUTPUT_STREAM);
+
+                                 writeChecksum(is, e);
                              }
                              catch (IOException | NoSuchAlgorithmException e1)
                              {
                                  logger.error(e1.getMessage(), e1);
                              }
-
-                             writeChecksum(is, e);
                          }
                      });
     }
@@ -629,7 +671,7 @@ public abstract class AbstractLayoutProvider<T extends ArtifactCoordinates>
                 .stream()
                 .forEach(e ->
                          {
-                             String checksum = is.getHexDigests().get(e);
+                             String checksum = is.getMessageDigestAsHexadecimalString(e);
                              String checksumExtension = ".".concat(e.toLowerCase().replaceAll("-", ""));
 
                              try
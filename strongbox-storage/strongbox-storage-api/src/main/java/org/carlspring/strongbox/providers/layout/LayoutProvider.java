@@ -33,6 +33,13 @@ public interface LayoutProvider<T extends ArtifactCoordinates>
     ArtifactInputStream getInputStream(String storageId, String repositoryId, String path)
             throws IOException, NoSuchAlgorithmException, ArtifactTransportException;
 
+    /**
+     * @param calculateDigests whether the digests should be calculated from the content, while it is being read,
+     *                         rather than taken from the stored checksums
+     */
+    ArtifactInputStream getInputStream(String storageId, String repositoryId, String path, boolean calculateDigests)
+            throws IOException, NoSuchAlgorithmException, ArtifactTransportException;
+
     ArtifactOutputStream getOutputStream(String storageId,
                                          String repositoryId,
                                          String path)
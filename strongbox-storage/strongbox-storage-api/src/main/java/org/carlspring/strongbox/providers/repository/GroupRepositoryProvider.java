@@ -7,18 +7,27 @@ import org.carlspring.strongbox.providers.ProviderImplementationException;
 import org.carlspring.strongbox.providers.layout.LayoutProvider;
 import org.carlspring.strongbox.storage.Storage;
 import org.carlspring.strongbox.storage.repository.Repository;
-import org.carlspring.strongbox.storage.routing.RoutingRule;
 import org.carlspring.strongbox.storage.routing.RoutingRules;
-import org.carlspring.strongbox.storage.routing.RuleSet;
+import org.carlspring.strongbox.storage.routing.RoutingRulesMatcher;
+import org.carlspring.strongbox.storage.routing.RoutingRulesMatcher.CompiledRoutingRule;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 import static org.carlspring.strongbox.providers.layout.LayoutProviderRegistry.getLayoutProvider;
 
@@ -33,6 +42,18 @@ public class GroupRepositoryProvider extends AbstractRepositoryProvider
 
     private static final String ALIAS = "group";
 
+    /**
+     * The result of the member lookup which the current thread is carrying out, if it is resolving the members of a
+     * group in parallel.
+     */
+    private static final ThreadLocal<CompletableFuture<ArtifactInputStream>> memberLookup = new ThreadLocal<>();
+
+    @Inject
+    private NegativeLookupCache negativeLookupCache;
+
+    @Inject
+    @Qualifier("groupRepositoryResolutionExecutor")
+    private ExecutorService groupRepositoryResolutionExecutor;
 
     @PostConstruct
     @Override
@@ -64,11 +85,17 @@ public class GroupRepositoryProvider extends AbstractRepositoryProvider
 
         Repository groupRepository = storage.getRepository(repositoryId);
 
+        if (negativeLookupCache.isMissing(storageId, repositoryId, artifactPath))
+        {
+            return null;
+        }
+
+        RoutingRulesMatcher routingRulesMatcher = getRoutingRulesMatcher();
+
         // Check the routing rules first.
         // Check the routing accept rules for the specified repository.
-        final ArtifactInputStream isRepositoryAccept = getInputStreamFromRepositoryAcceptRules(repositoryId,
-                                                                                               artifactPath,
-                                                                                               storage);
+        final ArtifactInputStream isRepositoryAccept = getArtifactInputStreamViaAcceptedRules(
+                artifactPath, storage, routingRulesMatcher.getAcceptRules(repositoryId, artifactPath));
 
         if (isRepositoryAccept != null)
         {
@@ -76,118 +103,331 @@ public class GroupRepositoryProvider extends AbstractRepositoryProvider
         }
 
         // Check the routing rules for wildcard accept rules
-        final ArtifactInputStream isWildcardRepositoryAccept = getInputStreamFromWildcardRepositoryAcceptRules(artifactPath, storage);
+        final ArtifactInputStream isWildcardRepositoryAccept = getArtifactInputStreamViaAcceptedRules(
+                artifactPath, storage, routingRulesMatcher.getWildcardAcceptRules(artifactPath));
         if (isWildcardRepositoryAccept != null)
         {
             return isWildcardRepositoryAccept;
         }
 
-        // Handle:
+        // If there are no matches in the routing rules, then loop as usual, handling:
         // - Repository deny
         // - Repository wildcard repository deny
-        final RuleSet denyRules = getRoutingRules().getDenyRules(repositoryId);
-        final RuleSet wildcardDenyRules = getRoutingRules().getWildcardDeniedRules();
-
-        // If there are no matches in the routing rules, then loop as usual:
+        List<Repository> members = new ArrayList<>();
         for (String storageAndRepositoryId : groupRepository.getGroupRepositories())
         {
             String sId = getConfigurationManager().getStorageId(storage, storageAndRepositoryId);
             String rId = getConfigurationManager().getRepositoryId(storageAndRepositoryId);
 
-            Repository r = getConfiguration().getStorage(sId).getRepository(rId);
+            Repository r = getConfigurationManager().getRepository(sId, rId);
 
-            if (r.isInService() &&
-                !repositoryRejects(r.getId(), artifactPath, denyRules) &&
-                !repositoryRejects(r.getId(), artifactPath, wildcardDenyRules))
+            if (r.isInService() && !routingRulesMatcher.rejects(repositoryId, r.getId(), artifactPath))
             {
-                ArtifactInputStream is;
-                try
-                {
-                    is = resolveArtifact(sId, r.getId(), artifactPath);
-                }
-                catch (FileNotFoundException e)
-                {
-                    continue;
-                }
+                members.add(r);
+            }
+        }
+
+        // Nested groups are resolved sequentially by the thread which is already resolving them in parallel,
+        // so that the threads of the pool never end up waiting for each other.
+        ArtifactInputStream is = groupRepository.isParallelResolution() && members.size() > 1 &&
+                                 memberLookup.get() == null ?
+                                 resolveArtifactInParallel(members, artifactPath) :
+                                 resolveArtifactSequentially(members, artifactPath);
+        if (is != null)
+        {
+            return is;
+        }
+
+        if (allMembersMissing(members, artifactPath))
+        {
+            negativeLookupCache.addMissing(storageId,
+                                           repositoryId,
+                                           artifactPath,
+                                           groupRepository.getNegativeLookupCacheTtl());
+        }
+
+        return null;
+    }
+
+    /**
+     * A proxy (or a nested group) which hasn't found the artifact may have merely failed to reach its remote
+     * repository, so the group only remembers the path as missing, if all of these have remembered it themselves.
+     */
+    private boolean allMembersMissing(List<Repository> members,
+                                      String artifactPath)
+    {
+        for (Repository r : members)
+        {
+            if (!r.isHostedRepository() &&
+                !negativeLookupCache.isMissing(r.getStorage().getId(), r.getId(), artifactPath))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private ArtifactInputStream resolveArtifactSequentially(List<Repository> members,
+                                                            String artifactPath)
+            throws IOException,
+                   NoSuchAlgorithmException,
+                   ArtifactTransportException,
+                   ProviderImplementationException
+    {
+        for (Repository r : members)
+        {
+            ArtifactInputStream is;
+            try
+            {
+                is = resolveArtifact(r.getStorage().getId(), r.getId(), artifactPath);
+            }
+            catch (FileNotFoundException e)
+            {
+                continue;
+            }
+            if (is != null)
+            {
+                return is;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Looks up the artifact in all the members concurrently. The first member in the declared order which contains
+     * the artifact wins, regardless of which member responded first. Once it is known, the lookups of the members
+     * with a lower priority are cancelled, without waiting for them: those which haven't started yet are skipped,
+     * proxies which are still running check {@link #isMemberLookupCancelled()} before going to their remote
+     * repositories, and the streams which are resolved nevertheless are closed.
+     */
+    private ArtifactInputStream resolveArtifactInParallel(List<Repository> members,
+                                                          String artifactPath)
+            throws IOException,
+                   NoSuchAlgorithmException,
+                   ArtifactTransportException,
+                   ProviderImplementationException
+    {
+        List<CompletableFuture<ArtifactInputStream>> results = new ArrayList<>(members.size());
+        for (Repository r : members)
+        {
+            CompletableFuture<ArtifactInputStream> result = new CompletableFuture<>();
+            results.add(result);
+
+            try
+            {
+                groupRepositoryResolutionExecutor.execute(new MemberLookup(r, artifactPath, result));
+            }
+            catch (RejectedExecutionException e)
+            {
+                // Shutting down.
+                result.completeExceptionally(new IOException("The group resolution executor has been shut down.", e));
+            }
+        }
+
+        int i = 0;
+        try
+        {
+            for (; i < results.size(); i++)
+            {
+                ArtifactInputStream is = awaitResolution(results.get(i));
                 if (is != null)
                 {
                     return is;
                 }
             }
+
+            return null;
         }
+        finally
+        {
+            for (int j = i + 1; j < results.size(); j++)
+            {
+                CompletableFuture<ArtifactInputStream> result = results.get(j);
+                if (!result.cancel(false))
+                {
+                    // The member has already resolved the artifact, so its stream has to be released.
+                    result.thenAccept(this::closeQuietly);
+                }
+            }
+        }
+    }
 
-        return null;
+    /**
+     * @return <code>true</code>, if the current thread is looking up a member of a group in parallel and the lookup
+     * is no longer needed, because a member with a higher priority contains the artifact
+     */
+    public static boolean isMemberLookupCancelled()
+    {
+        CompletableFuture<ArtifactInputStream> result = memberLookup.get();
+
+        return result != null && result.isCancelled();
     }
 
-    public boolean repositoryRejects(String repositoryId, String artifactPath, RuleSet denyRules)
+    /**
+     * Fails the lookups which are still queued, so that the requests waiting for them don't wait forever.
+     */
+    @PreDestroy
+    public void shutdown()
     {
-        if (denyRules != null && !denyRules.getRoutingRules().isEmpty())
+        for (Runnable runnable : groupRepositoryResolutionExecutor.shutdownNow())
         {
-            for (RoutingRule rule : denyRules.getRoutingRules())
+            if (runnable instanceof MemberLookup)
             {
-                if (rule.getRepositories().contains(repositoryId) && artifactPath.matches(rule.getPattern()))
+                ((MemberLookup) runnable).result.completeExceptionally(
+                        new IOException("The group resolution executor has been shut down."));
+            }
+        }
+    }
+
+    private final class MemberLookup
+            implements Runnable
+    {
+
+        private final Repository repository;
+
+        private final String artifactPath;
+
+        private final CompletableFuture<ArtifactInputStream> result;
+
+
+        MemberLookup(Repository repository,
+                     String artifactPath,
+                     CompletableFuture<ArtifactInputStream> result)
+        {
+            this.repository = repository;
+            this.artifactPath = artifactPath;
+            this.result = result;
+        }
+
+        @Override
+        public void run()
+        {
+            if (result.isDone())
+            {
+                // A member with a higher priority already contains the artifact.
+                return;
+            }
+
+            memberLookup.set(result);
+            try
+            {
+                ArtifactInputStream is = resolveArtifact(repository.getStorage().getId(),
+                                                         repository.getId(),
+                                                         artifactPath);
+                if (!result.complete(is))
                 {
-                    return true;
+                    // Cancelled while the lookup was running.
+                    closeQuietly(is);
                 }
             }
+            catch (FileNotFoundException e)
+            {
+                result.complete(null);
+            }
+            catch (Exception e)
+            {
+                result.completeExceptionally(e);
+            }
+            finally
+            {
+                memberLookup.remove();
+            }
         }
 
-        return false;
     }
 
-    private ArtifactInputStream getInputStreamFromWildcardRepositoryAcceptRules(String artifactPath, Storage storage)
+    private ArtifactInputStream awaitResolution(CompletableFuture<ArtifactInputStream> result)
             throws IOException,
                    NoSuchAlgorithmException,
                    ArtifactTransportException,
                    ProviderImplementationException
     {
-        RuleSet globalAcceptRules = getRoutingRules().getWildcardAcceptedRules();
+        try
+        {
+            return result.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+
+            throw new InterruptedIOException("Interrupted while resolving the members of the group.");
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+            {
+                throw (IOException) cause;
+            }
+            else if (cause instanceof NoSuchAlgorithmException)
+            {
+                throw (NoSuchAlgorithmException) cause;
+            }
+            else if (cause instanceof ArtifactTransportException)
+            {
+                throw (ArtifactTransportException) cause;
+            }
+            else if (cause instanceof ProviderImplementationException)
+            {
+                throw (ProviderImplementationException) cause;
+            }
+            else if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
 
-        return getArtifactInputStreamViaAcceptedRules(artifactPath, storage, globalAcceptRules);
+            throw new IOException(cause);
+        }
     }
 
-    private ArtifactInputStream getInputStreamFromRepositoryAcceptRules(String repositoryId,
-                                                                        String artifactPath,
-                                                                        Storage storage)
-            throws IOException,
-                   NoSuchAlgorithmException,
-                   ArtifactTransportException,
-                   ProviderImplementationException
+    private void closeQuietly(ArtifactInputStream is)
     {
-        RuleSet acceptRules = getRoutingRules().getAcceptRules(repositoryId);
+        if (is == null)
+        {
+            return;
+        }
+
+        try
+        {
+            is.close();
+        }
+        catch (IOException e)
+        {
+            logger.warn("Failed to close a stream which was resolved in parallel.", e);
+        }
+    }
 
-        return getArtifactInputStreamViaAcceptedRules(artifactPath, storage, acceptRules);
+    public boolean repositoryRejects(String groupRepositoryId,
+                                     String repositoryId,
+                                     String artifactPath)
+    {
+        return getRoutingRulesMatcher().rejects(groupRepositoryId, repositoryId, artifactPath);
     }
 
     private ArtifactInputStream getArtifactInputStreamViaAcceptedRules(String artifactPath,
                                                                        Storage storage,
-                                                                       RuleSet acceptRules)
+                                                                       List<CompiledRoutingRule> acceptRules)
             throws ProviderImplementationException,
                    NoSuchAlgorithmException,
                    IOException,
                    ArtifactTransportException
     {
-        if (acceptRules != null && acceptRules.getRoutingRules() != null &&
-            !acceptRules.getRoutingRules().isEmpty())
+        // The rules have already been matched against the path.
+        for (CompiledRoutingRule rule : acceptRules)
         {
-            final List<RoutingRule> routingRules = acceptRules.getRoutingRules();
-            for (RoutingRule rule : routingRules)
+            for (String rId : rule.getRepositories())
             {
-                if (artifactPath.matches(rule.getPattern()))
+                String sId = getConfigurationManager().getStorageId(storage, rId);
+                rId = getConfigurationManager().getRepositoryId(rId);
+
+                Repository repository = getConfigurationManager().getRepository(sId, rId);
+                LayoutProvider layoutProvider = getLayoutProvider(repository, getLayoutProviderRegistry());
+
+                if (repository.isInService() && layoutProvider.containsPath(repository, artifactPath))
                 {
-                    for (String rId : rule.getRepositories())
-                    {
-                        String sId = getConfigurationManager().getStorageId(storage, rId);
-                        rId = getConfigurationManager().getRepositoryId(rId);
-
-                        Repository repository = getConfiguration().getStorage(sId).getRepository(rId);
-                        LayoutProvider layoutProvider = getLayoutProvider(repository, getLayoutProviderRegistry());
-
-                        if (repository.isInService() && layoutProvider.containsPath(repository, artifactPath))
-                        {
-                            return resolveArtifact(sId, repository.getId(), artifactPath);
-                        }
-                    }
+                    return resolveArtifact(sId, repository.getId(), artifactPath);
                 }
             }
         }
@@ -216,7 +456,7 @@ public class GroupRepositoryProvider extends AbstractRepositoryProvider
                    ProviderImplementationException
     {
         ArtifactInputStream is;
-        Repository repository = getConfiguration().getStorage(storageId).getRepository(repositoryId);
+        Repository repository = getConfigurationManager().getRepository(storageId, repositoryId);
 
         if (!getAlias().equals(repository.getType()))
         {
@@ -272,4 +512,9 @@ public class GroupRepositoryProvider extends AbstractRepositoryProvider
         return getConfiguration().getRoutingRules();
     }
 
+    public RoutingRulesMatcher getRoutingRulesMatcher()
+    {
+        return getConfigurationManager().getRoutingRulesMatcher();
+    }
+
 }
@@ -48,7 +48,7 @@ public class HostedRepositoryProvider extends AbstractRepositoryProvider
                    NoSuchAlgorithmException,
                    ArtifactTransportException
     {
-        Repository repository = getConfiguration().getStorage(storageId).getRepository(repositoryId);
+        Repository repository = getConfigurationManager().getRepository(storageId, repositoryId);
 
         return getLayoutProviderRegistry().getProvider(repository.getLayout())
                                           .getInputStream(storageId, repositoryId, path);
@@ -60,7 +60,7 @@ public class HostedRepositoryProvider extends AbstractRepositoryProvider
                                                 String path)
             throws IOException, NoSuchAlgorithmException
     {
-        Repository repository = getConfiguration().getStorage(storageId).getRepository(repositoryId);
+        Repository repository = getConfigurationManager().getRepository(storageId, repositoryId);
 
         return getLayoutProviderRegistry().getProvider(repository.getLayout())
                                           .getOutputStream(storageId, repositoryId, path);
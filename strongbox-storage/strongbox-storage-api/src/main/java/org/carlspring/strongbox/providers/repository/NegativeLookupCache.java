@@ -0,0 +1,244 @@
+package org.carlspring.strongbox.providers.repository;
+
+import org.carlspring.strongbox.event.ArtifactEvent;
+import org.carlspring.strongbox.event.ArtifactEventListener;
+import org.carlspring.strongbox.event.ArtifactEventListenerRegistry;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Remembers the paths which could not be resolved in a group, or proxy repository, so that clients probing for
+ * non-existent artifacts (sources, javadocs, metadata in the wrong repository, etc.) do not cause all the members of
+ * a group, or the remote repository, to be queried over and over again.
+ * <p>
+ * Entries expire after the TTL configured for the respective repository and are invalidated as soon as an artifact
+ * with the same path is deployed, or deleted anywhere. As the entries are keyed by path, invalidating the entries of
+ * an artifact is a single removal; only deleting or moving a directory requires the paths underneath it to be found.
+ */
+@Component
+public class NegativeLookupCache
+        implements ArtifactEventListener
+{
+
+    private static final Logger logger = LoggerFactory.getLogger(NegativeLookupCache.class);
+
+    public static final int DEFAULT_MAX_SIZE = 10000;
+
+    /**
+     * Key:     path
+     * Value:   storageId:repositoryId -> the time (in milliseconds) at which the entry expires
+     */
+    private final ConcurrentMap<String, ConcurrentMap<String, Long>> entries = new ConcurrentHashMap<>();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private int maxSize = DEFAULT_MAX_SIZE;
+
+    @Inject
+    private ArtifactEventListenerRegistry artifactEventListenerRegistry;
+
+
+    @PostConstruct
+    public void register()
+    {
+        artifactEventListenerRegistry.addListener(this);
+    }
+
+    /**
+     * @return <code>true</code>, if the path was recently found not to exist in the specified repository
+     */
+    public boolean isMissing(String storageId,
+                             String repositoryId,
+                             String path)
+    {
+        Map<String, Long> repositories = entries.get(path);
+        if (repositories == null)
+        {
+            return false;
+        }
+
+        String repositoryKey = storageId + ":" + repositoryId;
+
+        Long expiresAt = repositories.get(repositoryKey);
+        if (expiresAt == null)
+        {
+            return false;
+        }
+
+        if (expiresAt < System.currentTimeMillis())
+        {
+            if (repositories.remove(repositoryKey, expiresAt))
+            {
+                size.decrementAndGet();
+            }
+
+            return false;
+        }
+
+        hits.incrementAndGet();
+
+        logger.debug("Path " + path + " is known to be missing in " + repositoryKey + ".");
+
+        return true;
+    }
+
+    /**
+     * Records that the path could not be resolved in the specified repository.
+     *
+     * @param ttl the number of seconds for which the path should be considered missing; nothing is recorded,
+     *            if this is not a positive number
+     */
+    public void addMissing(String storageId,
+                           String repositoryId,
+                           String path,
+                           long ttl)
+    {
+        if (ttl <= 0)
+        {
+            return;
+        }
+
+        if (size.get() >= maxSize)
+        {
+            removeExpired();
+
+            if (size.get() >= maxSize)
+            {
+                // Rather than tracking the usage of each entry, simply start over.
+                logger.debug("The negative lookup cache is full, clearing it.");
+
+                clear();
+            }
+        }
+
+        long expiresAt = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ttl);
+        String repositoryKey = storageId + ":" + repositoryId;
+
+        entries.compute(path, (p, repositories) -> {
+            if (repositories == null)
+            {
+                repositories = new ConcurrentHashMap<>();
+            }
+
+            if (repositories.put(repositoryKey, expiresAt) == null)
+            {
+                size.incrementAndGet();
+            }
+
+            return repositories;
+        });
+    }
+
+    /**
+     * Removes all the entries for the specified path, regardless of the repository in which it was looked up, as the
+     * path may now be resolvable via any group containing the repository where it was changed.
+     */
+    public void invalidate(String path)
+    {
+        entries.computeIfPresent(path, (p, repositories) -> {
+            size.addAndGet(-repositories.size());
+
+            return null;
+        });
+
+        logger.debug("Invalidated negative lookups of " + path + ".");
+    }
+
+    /**
+     * Removes all the entries for the specified path and, as it may be a directory, for everything underneath it.
+     */
+    public void invalidateDirectory(String path)
+    {
+        invalidate(path);
+
+        String directoryPrefix = path.endsWith("/") ? path : path + "/";
+        for (String p : entries.keySet())
+        {
+            if (p.startsWith(directoryPrefix))
+            {
+                invalidate(p);
+            }
+        }
+    }
+
+    public void removeExpired()
+    {
+        long now = System.currentTimeMillis();
+
+        for (String path : entries.keySet())
+        {
+            entries.computeIfPresent(path, (p, repositories) -> {
+                repositories.entrySet().removeIf(e -> e.getValue() < now);
+
+                return repositories.isEmpty() ? null : repositories;
+            });
+        }
+
+        size.set(entries.values().stream().mapToInt(Map::size).sum());
+    }
+
+    public void clear()
+    {
+        entries.clear();
+        size.set(0);
+    }
+
+    @Override
+    public void handle(ArtifactEvent event)
+    {
+        switch (event.getType())
+        {
+            case ArtifactEvent.EVENT_ARTIFACT_UPLOADED:
+            case ArtifactEvent.EVENT_ARTIFACT_CHECKSUM_UPLOADED:
+            case ArtifactEvent.EVENT_ARTIFACT_CHANGED:
+                if (event.getPath() != null)
+                {
+                    invalidate(event.getPath());
+                }
+                break;
+            case ArtifactEvent.EVENT_ARTIFACT_MOVED:
+            case ArtifactEvent.EVENT_ARTIFACT_DELETED:
+                if (event.getPath() != null)
+                {
+                    invalidateDirectory(event.getPath());
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    public int getSize()
+    {
+        return size.get();
+    }
+
+    public long getHits()
+    {
+        return hits.get();
+    }
+
+    public int getMaxSize()
+    {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize)
+    {
+        this.maxSize = maxSize;
+    }
+
+}
@@ -0,0 +1,245 @@
+package org.carlspring.strongbox.providers.repository;
+
+import org.carlspring.strongbox.client.ArtifactTransportException;
+
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Makes sure that concurrent cache misses for the same path of a proxy repository result in a single download from
+ * the remote repository. The first requester performs the download, while everybody else asking for the same path
+ * in the meantime waits for it to complete and then serves the file from the local cache.
+ * <p>
+ * The owner of a download does not have to complete it on the same thread, which allows the download to be streamed
+ * to the first requester while it is being cached. As that takes as long as the first requester takes to read it,
+ * the others only wait for up to {@link #getAwaitTimeout()} milliseconds, after which they have to fetch the
+ * artifact on their own.
+ */
+@Component
+public class ProxyRepositoryDownloadCoordinator
+{
+
+    private static final Logger logger = LoggerFactory.getLogger(ProxyRepositoryDownloadCoordinator.class);
+
+    public static final long DEFAULT_AWAIT_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+
+    /**
+     * Key:     storageId:repositoryId:path
+     * Value:   The download which is currently in progress.
+     */
+    private final ConcurrentMap<String, Download> downloads = new ConcurrentHashMap<>();
+
+    private final AtomicLong remoteDownloads = new AtomicLong();
+
+    private final AtomicLong coalescedDownloads = new AtomicLong();
+
+    private final AtomicLong timedOutWaits = new AtomicLong();
+
+    private volatile long awaitTimeout = DEFAULT_AWAIT_TIMEOUT;
+
+
+    /**
+     * Registers a download of the specified path. If there is no download of this path in progress yet, the caller
+     * becomes its owner and is responsible for completing it. Otherwise, the caller should {@link Download#await()}
+     * the outcome of the download which is already in progress.
+     */
+    public Download start(String storageId,
+                          String repositoryId,
+                          String path)
+    {
+        String key = storageId + ":" + repositoryId + ":" + path;
+
+        Download download = new Download(key, new CompletableFuture<>(), true);
+        Download inProgress = downloads.putIfAbsent(key, download);
+        if (inProgress != null)
+        {
+            coalescedDownloads.incrementAndGet();
+
+            logger.debug("The download of " + key + " is already in progress.");
+
+            return new Download(key, inProgress.result, false);
+        }
+
+        remoteDownloads.incrementAndGet();
+
+        return download;
+    }
+
+    /**
+     * Executes the download, unless a download of the same path is already in progress, in which case this waits for
+     * the outcome of that one instead. If that one doesn't complete in time, the download is executed anyway.
+     *
+     * @return <code>true</code>, if the artifact was downloaded into the local cache
+     */
+    public boolean download(String storageId,
+                            String repositoryId,
+                            String path,
+                            RemoteDownload remoteDownload)
+            throws IOException,
+                   NoSuchAlgorithmException,
+                   ArtifactTransportException
+    {
+        Download download = start(storageId, repositoryId, path);
+        if (!download.isOwner())
+        {
+            try
+            {
+                return download.await();
+            }
+            catch (TimeoutException e)
+            {
+                return remoteDownload.execute();
+            }
+        }
+
+        try
+        {
+            boolean downloaded = remoteDownload.execute();
+            download.complete(downloaded);
+
+            return downloaded;
+        }
+        catch (Exception e)
+        {
+            download.fail(e);
+            throw e;
+        }
+    }
+
+    /**
+     * @return the number of downloads which have actually been made from remote repositories
+     */
+    public long getRemoteDownloadCount()
+    {
+        return remoteDownloads.get();
+    }
+
+    /**
+     * @return the number of remote downloads which were saved, because the same path was already being downloaded
+     */
+    public long getCoalescedDownloadCount()
+    {
+        return coalescedDownloads.get();
+    }
+
+    /**
+     * @return the number of requests which gave up waiting for a download in progress
+     */
+    public long getTimedOutWaitCount()
+    {
+        return timedOutWaits.get();
+    }
+
+    public int getDownloadsInProgress()
+    {
+        return downloads.size();
+    }
+
+    /**
+     * @return the number of milliseconds for which a request waits for the download of another one
+     */
+    public long getAwaitTimeout()
+    {
+        return awaitTimeout;
+    }
+
+    public void setAwaitTimeout(long awaitTimeout)
+    {
+        this.awaitTimeout = awaitTimeout;
+    }
+
+    public final class Download
+    {
+
+        private final String key;
+
+        private final CompletableFuture<Boolean> result;
+
+        private final boolean owner;
+
+
+        private Download(String key,
+                         CompletableFuture<Boolean> result,
+                         boolean owner)
+        {
+            this.key = key;
+            this.result = result;
+            this.owner = owner;
+        }
+
+        public boolean isOwner()
+        {
+            return owner;
+        }
+
+        /**
+         * @return <code>true</code>, if the artifact was downloaded into the local cache
+         * @throws TimeoutException if the download hasn't completed within the {@link #getAwaitTimeout()}
+         */
+        public boolean await()
+                throws ArtifactTransportException,
+                       TimeoutException
+        {
+            logger.debug("Waiting for the download of " + key + "...");
+
+            try
+            {
+                return result.get(awaitTimeout, TimeUnit.MILLISECONDS);
+            }
+            catch (TimeoutException e)
+            {
+                timedOutWaits.incrementAndGet();
+
+                logger.debug("Timed out while waiting for the download of " + key + ".");
+
+                throw e;
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+
+                throw new ArtifactTransportException("Interrupted while waiting for the download of " + key, e);
+            }
+            catch (ExecutionException e)
+            {
+                throw new ArtifactTransportException("Failed to download " + key, e.getCause());
+            }
+        }
+
+        public void complete(boolean downloaded)
+        {
+            result.complete(downloaded);
+            downloads.remove(key, this);
+        }
+
+        public void fail(Throwable cause)
+        {
+            result.completeExceptionally(cause);
+            downloads.remove(key, this);
+        }
+
+    }
+
+    @FunctionalInterface
+    public interface RemoteDownload
+    {
+
+        boolean execute()
+                throws IOException,
+                       NoSuchAlgorithmException,
+                       ArtifactTransportException;
+
+    }
+
+}
@@ -5,12 +5,13 @@ import org.carlspring.strongbox.client.ArtifactResolver;
 import org.carlspring.strongbox.client.ArtifactTransportException;
 import org.carlspring.strongbox.io.ArtifactInputStream;
 import org.carlspring.strongbox.io.ArtifactOutputStream;
+import org.carlspring.strongbox.io.CachingInputStream;
+import org.carlspring.strongbox.io.CachingInputStream.CacheListener;
 import org.carlspring.strongbox.io.RepositoryFileSystemProvider;
 import org.carlspring.strongbox.io.RepositoryPath;
+import org.carlspring.strongbox.providers.repository.ProxyRepositoryDownloadCoordinator.Download;
 import org.carlspring.strongbox.providers.storage.StorageProvider;
-import org.carlspring.strongbox.service.ProxyRepositoryConnectionPoolConfigurationService;
 import org.carlspring.strongbox.storage.Storage;
-import org.carlspring.strongbox.storage.repository.RemoteRepository;
 import org.carlspring.strongbox.storage.repository.Repository;
 
 import javax.annotation.PostConstruct;
@@ -20,7 +21,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeoutException;
 
+import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -41,7 +44,13 @@ public class ProxyRepositoryProvider extends AbstractRepositoryProvider
     private RepositoryProviderRegistry repositoryProviderRegistry;
 
     @Inject
-    private ProxyRepositoryConnectionPoolConfigurationService proxyRepositoryConnectionPoolConfigurationService;
+    private RemoteRepositoryClientRegistry remoteRepositoryClientRegistry;
+
+    @Inject
+    private ProxyRepositoryDownloadCoordinator proxyRepositoryDownloadCoordinator;
+
+    @Inject
+    private NegativeLookupCache negativeLookupCache;
 
     @Inject
     @Qualifier("filesystemStorageProvider")
@@ -74,12 +83,10 @@ public class ProxyRepositoryProvider extends AbstractRepositoryProvider
 
         logger.debug("Checking in " + storage.getId() + ":" + repositoryId + "...");
 
-        Repository repository = getConfiguration().getStorage(storageId).getRepository(repositoryId);
+        Repository repository = getConfigurationManager().getRepository(storageId, repositoryId);
 
         RepositoryPath reposytoryPath = filesystemStorageProvider.resolve(repository);
         RepositoryPath artifactPath = reposytoryPath.resolve(path);
-        RepositoryFileSystemProvider fileSystemProvider = (RepositoryFileSystemProvider) artifactPath.getFileSystem()
-                                                                                                     .provider();
 
         logger.debug(" -> Checking for " + artifactPath + "...");
 
@@ -94,52 +101,267 @@ public class ProxyRepositoryProvider extends AbstractRepositoryProvider
         {
             logger.debug("The artifact was not found in the local cache.");
 
-            RepositoryPath tempArtifact = fileSystemProvider.getTempPath(artifactPath);
-            
-            RemoteRepository remoteRepository = repository.getRemoteRepository();
-
-            ArtifactResolver client = new ArtifactResolver(proxyRepositoryConnectionPoolConfigurationService.getClient());
-            client.setRepositoryBaseUrl(remoteRepository.getUrl());
-            client.setUsername(remoteRepository.getUsername());
-            client.setPassword(remoteRepository.getPassword());
+            if (negativeLookupCache.isMissing(storageId, repositoryId, path))
+            {
+                return null;
+            }
 
-            Response response = client.getResourceWithResponse(path);
-            if (response.getStatus() != 200 || response.getEntity() == null)
+            if (GroupRepositoryProvider.isMemberLookupCancelled())
             {
+                logger.debug("A repository with a higher priority in the group already contains " + path + ".");
+
                 return null;
             }
 
-            InputStream remoteIs = response.readEntity(InputStream.class);
+            Download download = proxyRepositoryDownloadCoordinator.start(storageId, repositoryId, path);
+            if (!download.isOwner())
+            {
+                try
+                {
+                    return download.await() ? new ArtifactInputStream(null, Files.newInputStream(artifactPath)) : null;
+                }
+                catch (TimeoutException e)
+                {
+                    // The download is still being streamed to a slow client, which shouldn't hold this one up.
+                    return fetchRemoteArtifact(repository, path);
+                }
+            }
+
+            try
+            {
+                if (repository.getRemoteRepository().isStreamingDownloads())
+                {
+                    // The download will be completed once the client has read the whole stream.
+                    return streamRemoteArtifact(repository, path, artifactPath, download);
+                }
+
+                boolean downloaded = downloadRemoteArtifact(repository, path, artifactPath);
+                download.complete(downloaded);
+
+                if (!downloaded)
+                {
+                    return null;
+                }
+            }
+            catch (IOException | NoSuchAlgorithmException | ArtifactTransportException | RuntimeException e)
+            {
+                download.fail(e);
+                throw e;
+            }
+
+            // 1 b) If it exists on the remote, serve the downloaded artifact
+            return new ArtifactInputStream(null, Files.newInputStream(artifactPath));
+        }
+    }
+
+    /**
+     * Remembers the path as missing, if the remote repository has definitely answered that it doesn't exist. Other
+     * failures (server errors, failed authentication, timeouts) are not remembered, as they
+     * may well be gone with the next request.
+     */
+    private void addMissingIfNotFound(Repository repository,
+                                      String path,
+                                      Response response)
+    {
+        int status = response.getStatus();
+        if (status != Response.Status.NOT_FOUND.getStatusCode() && status != Response.Status.GONE.getStatusCode())
+        {
+            return;
+        }
+
+        negativeLookupCache.addMissing(repository.getStorage().getId(),
+                                       repository.getId(),
+                                       path,
+                                       repository.getRemoteRepository().getNegativeLookupCacheTtl());
+    }
+
+    /**
+     * Serves the remote artifact without caching it (that is left to the download which is already in progress).
+     */
+    private ArtifactInputStream fetchRemoteArtifact(Repository repository,
+                                                    String path)
+            throws IOException,
+                   NoSuchAlgorithmException,
+                   ArtifactTransportException
+    {
+        ArtifactResolver client = remoteRepositoryClientRegistry.getArtifactResolver(repository);
+
+        Response response = client.getResourceWithResponse(path);
+        if (response.getStatus() != 200 || response.getEntity() == null)
+        {
+            response.close();
+            return null;
+        }
+
+        InputStream remoteIs = response.readEntity(InputStream.class);
+        if (remoteIs == null)
+        {
+            response.close();
+            return null;
+        }
+
+        return new ArtifactInputStream(null, remoteIs);
+    }
+
+    private boolean downloadRemoteArtifact(Repository repository,
+                                           String path,
+                                           RepositoryPath artifactPath)
+            throws IOException,
+                   NoSuchAlgorithmException,
+                   ArtifactTransportException
+    {
+        if (Files.exists(artifactPath))
+        {
+            // Another request has just finished downloading it.
+            return true;
+        }
+
+        RepositoryFileSystemProvider fileSystemProvider = getFileSystemProvider(artifactPath);
+        RepositoryPath tempArtifact = fileSystemProvider.getTempPath(artifactPath);
+
+        ArtifactResolver client = remoteRepositoryClientRegistry.getArtifactResolver(repository);
+
+        Response response = client.getResourceWithResponse(path);
+        if (response.getStatus() != 200 || response.getEntity() == null)
+        {
+            addMissingIfNotFound(repository, path, response);
+
+            // Otherwise the connection would not be returned to the pool.
+            response.close();
+            return false;
+        }
+
+        try (InputStream remoteIs = response.readEntity(InputStream.class))
+        {
             if (remoteIs == null)
             {
-                return null;
+                return false;
             }
 
-            int total = 0;
-            try (MultipleDigestOutputStream mdos = new MultipleDigestOutputStream(fileSystemProvider.newOutputStream(
-                    tempArtifact)))
+            MultipleDigestOutputStream mdos = new MultipleDigestOutputStream(fileSystemProvider.newOutputStream(
+                    tempArtifact));
+            try
             {
                 int len;
-                final int size = 1024;
+                final int size = 64 * 1024;
                 byte[] bytes = new byte[size];
 
                 while ((len = remoteIs.read(bytes, 0, size)) != -1)
                 {
                     mdos.write(bytes, 0, len);
-                    total += len;
                 }
 
                 mdos.flush();
             }
-
+            finally
+            {
+                mdos.close();
+            }
 
             // TODO: Add a policy for validating the checksums of downloaded artifacts
             // TODO: Validate the local checksum against the remote's checksums
-            fileSystemProvider.restoreFromTemp(artifactPath);
+            getFileSystemProvider(artifactPath).restoreFromTemp(artifactPath);
 
-            // 1 b) If it exists on the remote, serve the downloaded artifact
-            return new ArtifactInputStream(null, Files.newInputStream(artifactPath));
+            return true;
+        }
+    }
+
+    /**
+     * Serves the remote artifact while it is being downloaded into the temporary location of the local cache.
+     * The cached file is only promoted into the repository once the whole artifact has been read.
+     */
+    private ArtifactInputStream streamRemoteArtifact(Repository repository,
+                                                     String path,
+                                                     RepositoryPath artifactPath,
+                                                     Download download)
+            throws IOException,
+                   NoSuchAlgorithmException,
+                   ArtifactTransportException
+    {
+        RepositoryFileSystemProvider fileSystemProvider = getFileSystemProvider(artifactPath);
+        RepositoryPath tempArtifact = fileSystemProvider.getTempPath(artifactPath);
+
+        ArtifactResolver client = remoteRepositoryClientRegistry.getArtifactResolver(repository);
+
+        Response response = client.getResourceWithResponse(path);
+        if (response.getStatus() != 200 || response.getEntity() == null)
+        {
+            addMissingIfNotFound(repository, path, response);
+
+            response.close();
+            download.complete(false);
+            return null;
+        }
+
+        InputStream remoteIs = response.readEntity(InputStream.class);
+        if (remoteIs == null)
+        {
+            response.close();
+            download.complete(false);
+            return null;
+        }
+
+        MultipleDigestOutputStream mdos;
+        try
+        {
+            mdos = new MultipleDigestOutputStream(fileSystemProvider.newOutputStream(tempArtifact));
+        }
+        catch (IOException | NoSuchAlgorithmException | RuntimeException e)
+        {
+            // Nobody is going to read the remote stream, so the connection has to be released here.
+            IOUtils.closeQuietly(remoteIs);
+            response.close();
+            Files.deleteIfExists(tempArtifact.getTarget());
+
+            throw e;
         }
+
+        CachingInputStream cis = new CachingInputStream(remoteIs, mdos, new CacheListener()
+        {
+
+            @Override
+            public void onComplete(MultipleDigestOutputStream cacheOutputStream)
+                    throws IOException
+            {
+                try
+                {
+                    fileSystemProvider.restoreFromTemp(artifactPath);
+                }
+                catch (IOException | RuntimeException e)
+                {
+                    download.fail(e);
+                    throw e;
+                }
+
+                download.complete(true);
+            }
+
+            @Override
+            public void onFailure(IOException cause)
+            {
+                logger.error("Failed to download " + path + " from " + repository.getRemoteRepository().getUrl(),
+                             cause);
+
+                try
+                {
+                    Files.deleteIfExists(tempArtifact.getTarget());
+                }
+                catch (IOException e)
+                {
+                    logger.error("Failed to remove " + tempArtifact, e);
+                }
+
+                download.fail(cause);
+            }
+
+        });
+
+        return new ArtifactInputStream(null, cis);
+    }
+
+    private RepositoryFileSystemProvider getFileSystemProvider(RepositoryPath artifactPath)
+    {
+        return (RepositoryFileSystemProvider) artifactPath.getFileSystem().provider();
     }
 
     @Override
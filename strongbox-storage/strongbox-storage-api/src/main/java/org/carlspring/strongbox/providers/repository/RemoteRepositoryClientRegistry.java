@@ -0,0 +1,270 @@
+package org.carlspring.strongbox.providers.repository;
+
+import org.carlspring.strongbox.client.ArtifactResolver;
+import org.carlspring.strongbox.service.ProxyRepositoryConnectionPoolConfigurationService;
+import org.carlspring.strongbox.storage.repository.RemoteRepository;
+import org.carlspring.strongbox.storage.repository.Repository;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.ws.rs.client.Client;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.authentication.HttpAuthenticationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps one pre-configured, long-lived client per proxy repository, so that the remote repositories are not
+ * accessed through a freshly built client (with its own configuration, providers and authentication filters)
+ * for every single request.
+ * <p>
+ * All the clients share the pooled connection manager of the
+ * {@link ProxyRepositoryConnectionPoolConfigurationService}, which keeps the connections to the remote hosts alive
+ * between requests. A client is rebuilt, if the configuration of its remote repository changes, and dropped, when
+ * its repository is updated or removed. The replaced clients are only closed once a grace period
+ * ({@link #DEFAULT_CLOSE_GRACE_PERIOD} by default) has elapsed, so that the requests which are still in flight
+ * through them can complete.
+ */
+@Component
+public class RemoteRepositoryClientRegistry
+{
+
+    private static final Logger logger = LoggerFactory.getLogger(RemoteRepositoryClientRegistry.class);
+
+    public static final long DEFAULT_CLOSE_GRACE_PERIOD = TimeUnit.MINUTES.toMillis(10);
+
+    /**
+     * Key:     storageId:repositoryId
+     * Value:   the client of the remote repository
+     */
+    private final ConcurrentMap<String, RemoteRepositoryClient> clients = new ConcurrentHashMap<>();
+
+    /**
+     * Closes the replaced clients, once their grace period has elapsed.
+     */
+    private final ScheduledExecutorService closer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "remote-repository-client-closer");
+        thread.setDaemon(true);
+
+        return thread;
+    });
+
+    private volatile long closeGracePeriod = DEFAULT_CLOSE_GRACE_PERIOD;
+
+    @Inject
+    private ProxyRepositoryConnectionPoolConfigurationService proxyRepositoryConnectionPoolConfigurationService;
+
+
+    public RemoteRepositoryClientRegistry()
+    {
+    }
+
+    RemoteRepositoryClientRegistry(ProxyRepositoryConnectionPoolConfigurationService connectionPoolService)
+    {
+        this.proxyRepositoryConnectionPoolConfigurationService = connectionPoolService;
+    }
+
+    /**
+     * Closes all the clients, including the replaced ones, whose grace period hasn't elapsed yet.
+     */
+    @PreDestroy
+    public void shutdown()
+    {
+        // The pending closes are carried out right away.
+        for (Runnable close : closer.shutdownNow())
+        {
+            close.run();
+        }
+
+        clear();
+    }
+
+    public ArtifactResolver getArtifactResolver(Repository repository)
+    {
+        String key = repository.getStorage().getId() + ":" + repository.getId();
+        List<Object> settings = getSettings(repository.getRemoteRepository());
+
+        RemoteRepositoryClient client = clients.get(key);
+        if (client != null && client.settings.equals(settings))
+        {
+            return client.resolver;
+        }
+
+        return clients.compute(key, (k, existing) -> {
+            if (existing != null && existing.settings.equals(settings))
+            {
+                // Another request has just (re)built it.
+                return existing;
+            }
+
+            if (existing != null)
+            {
+                logger.debug("The configuration of the remote repository of " + key + " has changed.");
+
+                retire(key, existing);
+            }
+
+            return createClient(key, repository.getRemoteRepository(), settings);
+        }).resolver;
+    }
+
+    /**
+     * Drops the client of the specified repository, so that a new one is built the next time it is needed. The client
+     * is closed once the grace period has elapsed.
+     */
+    public void invalidate(String storageId,
+                           String repositoryId)
+    {
+        String key = storageId + ":" + repositoryId;
+
+        RemoteRepositoryClient client = clients.remove(key);
+        if (client != null)
+        {
+            retire(key, client);
+        }
+    }
+
+    /**
+     * Drops the clients of all the repositories of the specified storage.
+     */
+    public void invalidate(String storageId)
+    {
+        String prefix = storageId + ":";
+        for (String key : clients.keySet())
+        {
+            if (key.startsWith(prefix))
+            {
+                invalidate(storageId, key.substring(prefix.length()));
+            }
+        }
+    }
+
+    public void clear()
+    {
+        for (String key : clients.keySet())
+        {
+            RemoteRepositoryClient client = clients.remove(key);
+            if (client != null)
+            {
+                retire(key, client);
+            }
+        }
+    }
+
+    public int size()
+    {
+        return clients.size();
+    }
+
+    public long getCloseGracePeriod()
+    {
+        return closeGracePeriod;
+    }
+
+    /**
+     * @param closeGracePeriod how long (in milliseconds) a replaced client is kept open for the requests in flight
+     */
+    public void setCloseGracePeriod(long closeGracePeriod)
+    {
+        this.closeGracePeriod = closeGracePeriod;
+    }
+
+    private RemoteRepositoryClient createClient(String key,
+                                                RemoteRepository remoteRepository,
+                                                List<Object> settings)
+    {
+        logger.debug("Creating a client for the remote repository of " + key +
+                     " (" + remoteRepository.getUrl() + ")...");
+
+        Client client = proxyRepositoryConnectionPoolConfigurationService.getClient();
+
+        if (remoteRepository.getUsername() != null && remoteRepository.getPassword() != null)
+        {
+            // Registered once for the client, instead of for each of the requests made through it.
+            client.register(HttpAuthenticationFeature.basic(remoteRepository.getUsername(),
+                                                            remoteRepository.getPassword()));
+        }
+
+        if (remoteRepository.getConnectTimeout() > 0)
+        {
+            client.property(ClientProperties.CONNECT_TIMEOUT, remoteRepository.getConnectTimeout());
+        }
+        if (remoteRepository.getReadTimeout() > 0)
+        {
+            client.property(ClientProperties.READ_TIMEOUT, remoteRepository.getReadTimeout());
+        }
+
+        ArtifactResolver resolver = new ArtifactResolver(client);
+        resolver.setRepositoryBaseUrl(remoteRepository.getUrl());
+
+        return new RemoteRepositoryClient(resolver, settings);
+    }
+
+    private void retire(String key,
+                        RemoteRepositoryClient client)
+    {
+        try
+        {
+            closer.schedule(() -> close(key, client), closeGracePeriod, TimeUnit.MILLISECONDS);
+        }
+        catch (RejectedExecutionException e)
+        {
+            // The registry has been shut down.
+            close(key, client);
+        }
+    }
+
+    private static void close(String key,
+                              RemoteRepositoryClient client)
+    {
+        try
+        {
+            // The connections belong to the shared connection manager, so they are not closed with the client.
+            client.resolver.close();
+        }
+        catch (RuntimeException e)
+        {
+            logger.warn("Failed to close the client of the remote repository of " + key + ".", e);
+        }
+    }
+
+    private static List<Object> getSettings(RemoteRepository remoteRepository)
+    {
+        return Arrays.asList(remoteRepository.getUrl(),
+                             remoteRepository.getUsername(),
+                             remoteRepository.getPassword(),
+                             remoteRepository.getConnectTimeout(),
+                             remoteRepository.getReadTimeout());
+    }
+
+    private static final class RemoteRepositoryClient
+    {
+
+        private final ArtifactResolver resolver;
+
+        /**
+         * The settings of the remote repository with which the client was built.
+         */
+        private final List<Object> settings;
+
+
+        RemoteRepositoryClient(ArtifactResolver resolver,
+                               List<Object> settings)
+        {
+            this.resolver = resolver;
+            this.settings = settings;
+        }
+
+    }
+
+}
@@ -33,4 +33,28 @@ public interface ArtifactEntryService
     List<ArtifactEntry> findByCoordinates(Map<String, String> coordinates);
     
     Optional<ArtifactEntry> findOne(ArtifactCoordinates artifactCoordinates);
+
+    /**
+     * Looks up the entry of an artifact by its location, which is an index lookup (or no query at all, if
+     * the entry has been looked up recently).
+     *
+     * @param path the path of the artifact, relative to its repository
+     * @return the entry, or an empty {@link Optional}, if there is none
+     */
+    Optional<ArtifactEntry> findOne(String storageId,
+                                    String repositoryId,
+                                    String path);
+
+    /**
+     * Records the path of the entries which have been stored before it was recorded (by deriving it from their
+     * coordinates), and removes the entries which have the same path as another entry, processing one batch of
+     * entries at a time.
+     *
+     * @param lastRecordId the record id of the last entry of the previous batch, or <code>null</code>, to start with
+     *                     the first entry
+     * @return the record id of the last entry of this batch, or <code>null</code>, if there were no more entries
+     */
+    String updateArtifactPaths(String lastRecordId,
+                               int batchSize);
+
 }
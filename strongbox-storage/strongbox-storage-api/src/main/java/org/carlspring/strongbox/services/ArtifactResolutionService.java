@@ -3,6 +3,7 @@ package org.carlspring.strongbox.services;
 import org.carlspring.strongbox.artifact.coordinates.ArtifactCoordinates;
 import org.carlspring.strongbox.client.ArtifactTransportException;
 import org.carlspring.strongbox.io.ArtifactOutputStream;
+import org.carlspring.strongbox.io.RepositoryPath;
 import org.carlspring.strongbox.providers.ProviderImplementationException;
 
 import java.io.IOException;
@@ -34,4 +35,15 @@ public interface ArtifactResolutionService
                    ProviderImplementationException,
                    NoSuchAlgorithmException;
 
+    /**
+     * Resolves the locally stored file behind the specified path, without opening it. This is only possible for
+     * hosted repositories and for artifacts which have already been cached by a proxy repository.
+     *
+     * @return the path to the local file, or <code>null</code> if the path can not be served straight from storage
+     */
+    RepositoryPath resolvePath(String storageId,
+                               String repositoryId,
+                               String artifactPath)
+            throws IOException;
+
 }
@@ -1,9 +1,14 @@
 package org.carlspring.strongbox.services.impl;
 
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
 
 import org.carlspring.strongbox.artifact.coordinates.ArtifactCoordinates;
 import org.carlspring.strongbox.data.service.CommonCrudService;
@@ -13,11 +18,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import com.orientechnologies.orient.core.id.ORecordId;
 import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
 
 /**
  * DAO implementation for {@link ArtifactEntry} entities.
+ * <p>
+ * All the queries use bound parameters and are backed by the indexes created in
+ * {@link org.carlspring.strongbox.config.StorageApiConfig}. The record ids of the entries which have been looked up
+ * by their path are kept in a bounded cache, so that the entries of recently deployed artifacts are loaded directly.
  *
  * @author Alex Oreshkevich
  */
@@ -31,12 +43,73 @@ class ArtifactEntryServiceImpl extends CommonCrudService<ArtifactEntry> implemen
     // will help us avoid to have hardcoded name of this class
     private static final String ARTIFACT_ENTRY_CLASS_NAME = ArtifactEntry.class.getSimpleName();
 
+    private static final String FIND_BY_PATH_QUERY = "select * from " + ARTIFACT_ENTRY_CLASS_NAME +
+                                                     " where storageId = :storageId" +
+                                                     " and repositoryId = :repositoryId" +
+                                                     " and artifactPath = :artifactPath";
+
+    private static final String FIND_EARLIER_BY_PATH_QUERY = FIND_BY_PATH_QUERY + " and @rid < :recordId";
+
+    private static final String FIND_NEXT_QUERY = "select * from " + ARTIFACT_ENTRY_CLASS_NAME +
+                                                  " where @rid > :recordId order by @rid";
+
+    /**
+     * The coordinates become part of the queries, so they are restricted to plain names.
+     */
+    private static final Pattern COORDINATE_NAME_PATTERN = Pattern.compile("\\w+");
+
+    private static final int MAX_CACHED_RECORD_IDS = 100000;
+
+    /**
+     * The record ids of the entries, by "storageId:repositoryId:path" (least recently used first).
+     */
+    private final Map<String, String> recordIds = Collections.synchronizedMap(
+            new LinkedHashMap<String, String>(1024, 0.75f, true)
+            {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, String> eldest)
+                {
+                    return size() > MAX_CACHED_RECORD_IDS;
+                }
+            });
+
     @Override
     public Class<ArtifactEntry> getEntityClass()
     {
         return ArtifactEntry.class;
     }
 
+    @Override
+    public <S extends ArtifactEntry> S save(S entity)
+    {
+        if (entity.getArtifactPath() == null && entity.getArtifactCoordinates() != null)
+        {
+            entity.setArtifactPath(entity.getArtifactCoordinates().toPath());
+        }
+
+        S result = super.save(entity);
+        cacheRecordIdAfterCommit(result);
+
+        return result;
+    }
+
+    @Override
+    public <S extends ArtifactEntry> Iterable<S> save(Iterable<S> entities)
+    {
+        for (S entity : entities)
+        {
+            if (entity.getArtifactPath() == null && entity.getArtifactCoordinates() != null)
+            {
+                entity.setArtifactPath(entity.getArtifactCoordinates().toPath());
+            }
+        }
+
+        Iterable<S> result = super.save(entities);
+        result.forEach(this::cacheRecordIdAfterCommit);
+
+        return result;
+    }
+
     @Override
     @Transactional
     public List<ArtifactEntry> findByCoordinates(Map<String, String> coordinates)
@@ -50,11 +123,12 @@ class ArtifactEntryServiceImpl extends CommonCrudService<ArtifactEntry> implemen
         // prepare custom query based on all non-null coordinates that were joined by logical AND
         // read more about fetching strategies here: http://orientdb.com/docs/2.2/Fetching-Strategies.html
 
-        String nativeQuery = buildQuery(coordinates);
+        Map<String, Object> parameters = new HashMap<>();
+        String nativeQuery = buildQuery(coordinates, parameters);
         OSQLSynchQuery<ArtifactEntry> query = new OSQLSynchQuery<>(nativeQuery);
-        logger.info("[findByCoordinates] SQL -> \n\t" + nativeQuery);
+        logger.debug("[findByCoordinates] SQL -> \n\t" + nativeQuery + "\n\t" + parameters);
 
-        return getDelegate().query(query);
+        return getDelegate().query(query, parameters);
     }
 
     @Override
@@ -65,37 +139,43 @@ class ArtifactEntryServiceImpl extends CommonCrudService<ArtifactEntry> implemen
         return findByCoordinates(coordinates == null ? null : coordinates.getCoordinates());
     }
 
-    private String buildQuery(Map<String, String> map)
+    private String buildQuery(Map<String, String> map,
+                              Map<String, Object> parameters)
     {
         StringBuilder sb = new StringBuilder();
         sb.append("select * from ")
           .append(ARTIFACT_ENTRY_CLASS_NAME);
 
-        if (map == null || map.isEmpty())
+        String separator = " where ";
+
+        // process only coordinates with non-null values, which are bound as parameters
+        for (Map.Entry<String, String> entry : map.entrySet())
         {
-            return sb.toString();
-        }
+            if (entry.getValue() == null)
+            {
+                continue;
+            }
+
+            String coordinate = entry.getKey();
+            if (!COORDINATE_NAME_PATTERN.matcher(coordinate).matches())
+            {
+                throw new IllegalArgumentException("Invalid coordinate name '" + coordinate + "'.");
+            }
 
-        sb.append(" where ");
+            sb.append(separator)
+              .append("artifactCoordinates.")
+              .append(coordinate)
+              .append(" = :")
+              .append(coordinate);
 
-        // process only coordinates with non-null values
-        // don't forget to 'wrap' values into ''
-        map.entrySet()
-           .stream()
-           .filter(entry -> entry.getValue() != null)
-           .forEach(entry -> sb.append("artifactCoordinates.")
-                               .append(entry.getKey())
-                               .append(" = '")
-                               .append(entry.getValue())
-                               .append("' and "));
+            parameters.put(coordinate, entry.getValue());
 
-        // remove last 'and' statement (that don't relates to any coordinate)
-        String query = sb.toString();
-        query = query.substring(0, query.length() - 5);
+            separator = " and ";
+        }
 
         // now query should looks like
-        // select * from ArtifactEntry where artifactCoordinates.groupId = ? and ....
-        return query + ";";
+        // select * from ArtifactEntry where artifactCoordinates.groupId = :groupId and ....
+        return sb.toString();
     }
 
     @Override
@@ -106,4 +186,201 @@ class ArtifactEntryServiceImpl extends CommonCrudService<ArtifactEntry> implemen
                 : artifactEntryList.iterator().next());
     }
 
+    @Override
+    public Optional<ArtifactEntry> findOne(String storageId,
+                                           String repositoryId,
+                                           String path)
+    {
+        String key = getKey(storageId, repositoryId, path);
+
+        String recordId = recordIds.get(key);
+        if (recordId != null)
+        {
+            ArtifactEntry artifactEntry = findOne(recordId).orElse(null);
+            if (artifactEntry != null && matches(artifactEntry, storageId, repositoryId, path))
+            {
+                return Optional.of(artifactEntry);
+            }
+
+            // The entry has been removed in the meantime.
+            recordIds.remove(key);
+        }
+
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("storageId", storageId);
+        parameters.put("repositoryId", repositoryId);
+        parameters.put("artifactPath", path);
+
+        OSQLSynchQuery<ArtifactEntry> query = new OSQLSynchQuery<>(FIND_BY_PATH_QUERY);
+        query.setLimit(1);
+
+        List<ArtifactEntry> artifactEntryList = getDelegate().query(query, parameters);
+        if (artifactEntryList == null || artifactEntryList.isEmpty())
+        {
+            return Optional.empty();
+        }
+
+        ArtifactEntry artifactEntry = artifactEntryList.iterator().next();
+        cacheRecordId(artifactEntry);
+
+        return Optional.of(artifactEntry);
+    }
+
+    @Override
+    public String updateArtifactPaths(String lastRecordId,
+                                      int batchSize)
+    {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("recordId", lastRecordId != null ? new ORecordId(lastRecordId) : new ORecordId());
+
+        OSQLSynchQuery<ArtifactEntry> query = new OSQLSynchQuery<>(FIND_NEXT_QUERY);
+        query.setLimit(batchSize);
+
+        List<ArtifactEntry> artifactEntries = getDelegate().query(query, parameters);
+        if (artifactEntries == null || artifactEntries.isEmpty())
+        {
+            return null;
+        }
+
+        // The paths which have been recorded in this batch (and might not be visible to the queries yet).
+        Set<String> keys = new HashSet<>();
+
+        // The entry which was stored first is kept, as the entries are processed in the order of their record ids.
+
+        int updated = 0;
+        int removed = 0;
+        for (ArtifactEntry artifactEntry : artifactEntries)
+        {
+            String path = artifactEntry.getArtifactPath();
+            if (path == null && artifactEntry.getArtifactCoordinates() != null)
+            {
+                path = artifactEntry.getArtifactCoordinates().toPath();
+            }
+            if (path == null)
+            {
+                continue;
+            }
+
+            String key = getKey(artifactEntry.getStorageId(), artifactEntry.getRepositoryId(), path);
+            if (!keys.add(key) || hasEarlierEntry(artifactEntry, path))
+            {
+                logger.debug("Removing the duplicate entry " + artifactEntry.getObjectId() + " of " + key + ".");
+
+                getDelegate().delete(new ORecordId(artifactEntry.getObjectId()));
+                removed++;
+            }
+            else if (artifactEntry.getArtifactPath() == null)
+            {
+                artifactEntry.setArtifactPath(path);
+                getDelegate().save(artifactEntry);
+                updated++;
+            }
+        }
+
+        logger.debug("Recorded the path of " + updated + " and removed " + removed + " duplicate(s) of " +
+                     artifactEntries.size() + " artifact entries.");
+
+        recordIds.clear();
+
+        return artifactEntries.get(artifactEntries.size() - 1).getObjectId();
+    }
+
+    private boolean hasEarlierEntry(ArtifactEntry artifactEntry,
+                                    String path)
+    {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("storageId", artifactEntry.getStorageId());
+        parameters.put("repositoryId", artifactEntry.getRepositoryId());
+        parameters.put("artifactPath", path);
+        parameters.put("recordId", new ORecordId(artifactEntry.getObjectId()));
+
+        OSQLSynchQuery<ArtifactEntry> query = new OSQLSynchQuery<>(FIND_EARLIER_BY_PATH_QUERY);
+        query.setLimit(1);
+
+        List<ArtifactEntry> artifactEntries = getDelegate().query(query, parameters);
+
+        return artifactEntries != null && !artifactEntries.isEmpty();
+    }
+
+    @Override
+    public void delete(String id)
+    {
+        super.delete(id);
+
+        recordIds.values().removeIf(id::equals);
+    }
+
+    @Override
+    public void delete(ArtifactEntry entity)
+    {
+        super.delete(entity);
+
+        recordIds.remove(getKey(entity.getStorageId(), entity.getRepositoryId(), entity.getArtifactPath()));
+    }
+
+    @Override
+    public void deleteAll()
+    {
+        super.deleteAll();
+
+        recordIds.clear();
+    }
+
+    /**
+     * The record ids of new records only become permanent once their transaction has been committed, and a rolled
+     * back change must not be cached at all.
+     */
+    private void cacheRecordIdAfterCommit(ArtifactEntry artifactEntry)
+    {
+        if (!TransactionSynchronizationManager.isSynchronizationActive())
+        {
+            cacheRecordId(artifactEntry);
+
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter()
+        {
+
+            @Override
+            public void afterCommit()
+            {
+                cacheRecordId(artifactEntry);
+            }
+
+        });
+    }
+
+    private void cacheRecordId(ArtifactEntry artifactEntry)
+    {
+        String objectId = artifactEntry.getObjectId();
+
+        // The record ids of new records are only temporary until their transaction has been committed.
+        if (objectId == null || artifactEntry.getArtifactPath() == null || !new ORecordId(objectId).isPersistent())
+        {
+            return;
+        }
+
+        recordIds.put(getKey(artifactEntry.getStorageId(), artifactEntry.getRepositoryId(),
+                             artifactEntry.getArtifactPath()),
+                      objectId);
+    }
+
+    private static boolean matches(ArtifactEntry artifactEntry,
+                                   String storageId,
+                                   String repositoryId,
+                                   String path)
+    {
+        return storageId.equals(artifactEntry.getStorageId()) &&
+               repositoryId.equals(artifactEntry.getRepositoryId()) &&
+               path.equals(artifactEntry.getArtifactPath());
+    }
+
+    private static String getKey(String storageId,
+                                 String repositoryId,
+                                 String path)
+    {
+        return storageId + ":" + repositoryId + ":" + path;
+    }
+
 }
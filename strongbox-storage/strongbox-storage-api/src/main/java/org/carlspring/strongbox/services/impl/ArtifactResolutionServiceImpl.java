@@ -1,6 +1,7 @@
 package org.carlspring.strongbox.services.impl;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.security.NoSuchAlgorithmException;
 
 import javax.inject.Inject;
@@ -10,11 +11,14 @@ import org.carlspring.strongbox.client.ArtifactTransportException;
 import org.carlspring.strongbox.configuration.ConfigurationManager;
 import org.carlspring.strongbox.io.ArtifactInputStream;
 import org.carlspring.strongbox.io.ArtifactOutputStream;
+import org.carlspring.strongbox.io.RepositoryPath;
 import org.carlspring.strongbox.providers.ProviderImplementationException;
 import org.carlspring.strongbox.providers.layout.LayoutProvider;
 import org.carlspring.strongbox.providers.layout.LayoutProviderRegistry;
 import org.carlspring.strongbox.providers.repository.RepositoryProvider;
 import org.carlspring.strongbox.providers.repository.RepositoryProviderRegistry;
+import org.carlspring.strongbox.providers.storage.StorageProvider;
+import org.carlspring.strongbox.providers.storage.StorageProviderRegistry;
 import org.carlspring.strongbox.services.ArtifactResolutionService;
 import org.carlspring.strongbox.storage.ArtifactResolutionException;
 import org.carlspring.strongbox.storage.ArtifactStorageException;
@@ -43,6 +47,9 @@ public class ArtifactResolutionServiceImpl
     @Inject
     private LayoutProviderRegistry layoutProviderRegistry;
 
+    @Inject
+    private StorageProviderRegistry storageProviderRegistry;
+
     @Override
     public ArtifactInputStream getInputStream(String storageId,
                                               String repositoryId,
@@ -54,7 +61,7 @@ public class ArtifactResolutionServiceImpl
     {
         artifactOperationsValidator.validate(storageId, repositoryId, artifactPath);
 
-        final Repository repository = getStorage(storageId).getRepository(repositoryId);
+        final Repository repository = configurationManager.getRepository(storageId, repositoryId);
 
         RepositoryProvider repositoryProvider = repositoryProviderRegistry.getProvider(repository.getType());
 
@@ -77,7 +84,7 @@ public class ArtifactResolutionServiceImpl
     {
         artifactOperationsValidator.validate(storageId, repositoryId, artifactPath);
 
-        Repository repository = getStorage(storageId).getRepository(repositoryId);
+        Repository repository = configurationManager.getRepository(storageId, repositoryId);
 
         RepositoryProvider repositoryProvider = repositoryProviderRegistry.getProvider(repository.getType());
 
@@ -90,9 +97,35 @@ public class ArtifactResolutionServiceImpl
         return os;
     }
 
+    @Override
+    public RepositoryPath resolvePath(String storageId,
+                                      String repositoryId,
+                                      String artifactPath)
+        throws IOException
+    {
+        artifactOperationsValidator.validate(storageId, repositoryId, artifactPath);
+
+        Repository repository = configurationManager.getRepository(storageId, repositoryId);
+        if (!repository.isHostedRepository() && !repository.isProxyRepository())
+        {
+            // Group repositories have to go through the routing rules of their members.
+            return null;
+        }
+
+        StorageProvider storageProvider = storageProviderRegistry.getProvider(repository.getImplementation());
+        RepositoryPath repositoryPath = storageProvider.resolve(repository, artifactPath);
+        if (!Files.isRegularFile(repositoryPath))
+        {
+            // Not stored (or not yet cached by the proxy), so it has to be resolved via the repository provider.
+            return null;
+        }
+
+        return repositoryPath;
+    }
+
     public Storage getStorage(String storageId)
     {
-        return configurationManager.getConfiguration().getStorage(storageId);
+        return configurationManager.getStorage(storageId);
     }
 
     @Override
@@ -100,7 +133,7 @@ public class ArtifactResolutionServiceImpl
                                                       String repositoryId,
                                                       String artifactPath)
     {
-        Repository repository = getStorage(storageId).getRepository(repositoryId);
+        Repository repository = configurationManager.getRepository(storageId, repositoryId);
         LayoutProvider<?> layoutProvider = layoutProviderRegistry.getProvider(repository.getLayout());
         layoutProvider.getArtifactCoordinates(artifactPath); 
         return layoutProvider.getArtifactCoordinates(artifactPath);
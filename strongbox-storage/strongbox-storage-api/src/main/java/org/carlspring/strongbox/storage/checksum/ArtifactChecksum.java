@@ -1,7 +1,7 @@
 package org.carlspring.strongbox.storage.checksum;
 
-import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -14,13 +14,13 @@ public class ArtifactChecksum
      * Key:   Algorithm
      * Value: Checksum
      */
-    private Map<String, String> checksums = new LinkedHashMap<>();
+    private Map<String, String> checksums = new ConcurrentHashMap<>();
 
     /**
      * The last time this checksum object was accessed in any way.
      * Used to determine when to remove entries from the cache manager.
      */
-    private long lastAccessed;
+    private volatile long lastAccessed;
 
     private AtomicInteger numberOfChecksums = new AtomicInteger(0);
 
@@ -1,9 +1,16 @@
 package org.carlspring.strongbox.storage.checksum;
 
-import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,6 +31,11 @@ import org.slf4j.LoggerFactory;
  * - a checksum is not claimed within cachedChecksumLifetime, trigger an event and log
  * this, then remove the checksum from the cache. (If this checksums set is empty,
  * remove the respective Checksum from the cachedChecksums).
+ * <p>
+ * The cache can be used concurrently without any global locking: the entries are kept in a
+ * {@link ConcurrentHashMap} and the expired entries are removed by a background thread (or lazily,
+ * when they are looked up). If the cache grows beyond its maximum size, the least recently accessed
+ * entries are evicted in the background as well, so that deployers never wait for the eviction.
  *
  * @author mtodorov
  */
@@ -32,11 +44,13 @@ public class ChecksumCacheManager
 
     private static Logger logger = LoggerFactory.getLogger(ChecksumCacheManager.class);
 
+    public static final int DEFAULT_MAX_SIZE = 100000;
+
     /**
      * Key:     Artifact path
      * Value:   Artifact checksum.
      */
-    private Map<String, ArtifactChecksum> cachedChecksums = new LinkedHashMap<>();
+    private final Map<String, ArtifactChecksum> cachedChecksums = new ConcurrentHashMap<>();
 
     /**
      * Specifies how long to keep the cached checksums.
@@ -51,6 +65,26 @@ public class ChecksumCacheManager
      */
     private long cachedChecksumExpiredCheckInterval = 60000L;
 
+    /**
+     * Specifies how many artifacts' checksums to keep, before evicting the least recently accessed ones.
+     */
+    private int maxSize = DEFAULT_MAX_SIZE;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * The number of checksums which expired without having been claimed.
+     */
+    private final LongAdder expired = new LongAdder();
+
+    private final LongAdder evicted = new LongAdder();
+
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    private ScheduledExecutorService expirer;
+
 
     public ChecksumCacheManager()
     {
@@ -58,7 +92,7 @@ public class ChecksumCacheManager
 
     public boolean containsArtifactPath(String artifactPath)
     {
-        final boolean containsChecksum = cachedChecksums.containsKey(artifactPath);
+        final boolean containsChecksum = lookup(artifactPath) != null;
         if (containsChecksum)
         {
             logger.debug("Cache contains artifact path '" + artifactPath + "'.");
@@ -70,89 +104,202 @@ public class ChecksumCacheManager
     public String getArtifactChecksum(String artifactBasePath,
                                       String algorithm)
     {
-        if (!cachedChecksums.containsKey(artifactBasePath))
-        {
-            return null;
-        }
+        final ArtifactChecksum artifactChecksum = lookup(artifactBasePath);
 
-        final ArtifactChecksum artifactChecksum = getArtifactChecksum(artifactBasePath);
-        final String checksum = artifactChecksum.getChecksum(algorithm);
+        final String checksum = artifactChecksum != null ? artifactChecksum.getChecksum(algorithm) : null;
         if (checksum != null)
         {
             logger.debug("Found checksum '" + checksum + "' [" + algorithm + "]" + " for '" + artifactBasePath + "' in cache.");
         }
 
+        count(checksum != null);
+
         return checksum;
     }
 
     public ArtifactChecksum getArtifactChecksum(String artifactBasePath)
     {
-        return cachedChecksums.get(artifactBasePath);
+        final ArtifactChecksum artifactChecksum = lookup(artifactBasePath);
+
+        count(artifactChecksum != null);
+
+        return artifactChecksum;
+    }
+
+    /**
+     * Looks the checksums up without counting the lookup, which is only counted once by the public methods.
+     */
+    private ArtifactChecksum lookup(String artifactBasePath)
+    {
+        ArtifactChecksum artifactChecksum = cachedChecksums.get(artifactBasePath);
+        if (artifactChecksum != null && isExpired(artifactChecksum, System.currentTimeMillis()))
+        {
+            expire(artifactBasePath, artifactChecksum);
+            artifactChecksum = null;
+        }
+
+        return artifactChecksum;
+    }
+
+    private void count(boolean hit)
+    {
+        if (hit)
+        {
+            hits.increment();
+        }
+        else
+        {
+            misses.increment();
+        }
     }
 
     public boolean validateChecksum(String artifactPath,
                                     String algorithm,
                                     String checksum)
     {
-        return getArtifactChecksum(artifactPath, algorithm).equals(checksum);
+        return checksum != null && checksum.equals(getArtifactChecksum(artifactPath, algorithm));
     }
 
-    public synchronized void addArtifactChecksum(String artifactBasePath,
-                                                 String algorithm,
-                                                 String checksum)
+    public void addArtifactChecksum(String artifactBasePath,
+                                    String algorithm,
+                                    String checksum)
     {
         logger.debug("Adding checksum '" + checksum + "' [" + algorithm + "]" + " for '" + artifactBasePath + "' in cache.");
 
-        if (cachedChecksums.containsKey(artifactBasePath))
-        {
-            final ArtifactChecksum artifactChecksum = getArtifactChecksum(artifactBasePath);
-            artifactChecksum.addChecksum(algorithm, checksum);
-        }
-        else
-        {
-            ArtifactChecksum artifactChecksum = new ArtifactChecksum();
+        cachedChecksums.compute(artifactBasePath, (path, artifactChecksum) -> {
+            if (artifactChecksum != null && isExpired(artifactChecksum, System.currentTimeMillis()))
+            {
+                expired.increment();
+                artifactChecksum = null;
+            }
+
+            if (artifactChecksum == null)
+            {
+                artifactChecksum = new ArtifactChecksum();
+            }
+
             artifactChecksum.addChecksum(algorithm, checksum);
 
-            cachedChecksums.put(artifactBasePath, artifactChecksum);
+            return artifactChecksum;
+        });
+
+        if (cachedChecksums.size() > maxSize)
+        {
+            evictInBackground();
         }
     }
 
-    public synchronized void removeArtifactChecksum(String artifactBasePath,
-                                                    String algorithm)
+    public void removeArtifactChecksum(String artifactBasePath,
+                                       String algorithm)
     {
         logger.debug("Removing " + algorithm + " checksum for artifact '" + artifactBasePath + "' from cache.");
-        getArtifactChecksum(artifactBasePath).removeChecksum(algorithm);
+
+        cachedChecksums.computeIfPresent(artifactBasePath, (path, artifactChecksum) -> {
+            artifactChecksum.removeChecksum(algorithm);
+
+            return artifactChecksum.getChecksums().isEmpty() ? null : artifactChecksum;
+        });
     }
 
-    public synchronized void removeArtifactChecksum(String artifactBasePath)
+    public void removeArtifactChecksum(String artifactBasePath)
     {
         logger.debug("Removing artifact '" + artifactBasePath + "' from cache.");
         cachedChecksums.remove(artifactBasePath);
     }
 
-    public synchronized void removeExpiredChecksums()
+    public void removeExpiredChecksums()
     {
-        for (String checksum : getExpiredChecksums())
+        long now = System.currentTimeMillis();
+
+        for (Map.Entry<String, ArtifactChecksum> artifactChecksumEntry : cachedChecksums.entrySet())
         {
-            removeArtifactChecksum(checksum);
+            if (isExpired(artifactChecksumEntry.getValue(), now))
+            {
+                expire(artifactChecksumEntry.getKey(), artifactChecksumEntry.getValue());
+            }
         }
     }
 
-    private Set<String> getExpiredChecksums()
+    /**
+     * Removes the expired checksums and, if the cache is still too large, the least recently accessed ones.
+     */
+    void evict()
     {
-        Set<String> expiredChecksums = new LinkedHashSet<>();
+        removeExpiredChecksums();
 
-        for (Map.Entry<String, ArtifactChecksum> artifactChecksumEntry : cachedChecksums.entrySet())
+        int excess = cachedChecksums.size() - maxSize;
+        if (excess <= 0)
+        {
+            return;
+        }
+
+        // The access times keep changing, so they have to be captured before sorting by them.
+        List<Map.Entry<Long, Map.Entry<String, ArtifactChecksum>>> entries = new ArrayList<>();
+        for (Map.Entry<String, ArtifactChecksum> entry : cachedChecksums.entrySet())
+        {
+            entries.add(new AbstractMap.SimpleImmutableEntry<>(entry.getValue().getLastAccessed(), entry));
+        }
+
+        entries.sort(Comparator.comparing(Map.Entry::getKey));
+
+        for (int i = 0; i < excess && i < entries.size(); i++)
         {
-            ArtifactChecksum checksum = artifactChecksumEntry.getValue();
+            Map.Entry<String, ArtifactChecksum> entry = entries.get(i).getValue();
+            if (cachedChecksums.remove(entry.getKey(), entry.getValue()))
+            {
+                evicted.increment();
 
-            if (System.currentTimeMillis() - checksum.getLastAccessed() > cachedChecksumLifetime)
+                logger.warn("Evicted the unclaimed checksums of '" + entry.getKey() + "', as the cache is full.");
+            }
+        }
+    }
+
+    private void evictInBackground()
+    {
+        if (!evicting.compareAndSet(false, true))
+        {
+            // Somebody else is already taking care of it.
+            return;
+        }
+
+        Runnable eviction = () -> {
+            try
             {
-                expiredChecksums.add(artifactChecksumEntry.getKey());
+                evict();
             }
+            finally
+            {
+                evicting.set(false);
+            }
+        };
+
+        ScheduledExecutorService executor = expirer;
+        if (executor != null && !executor.isShutdown())
+        {
+            executor.execute(eviction);
         }
+        else
+        {
+            eviction.run();
+        }
+    }
 
-        return expiredChecksums;
+    private boolean isExpired(ArtifactChecksum artifactChecksum,
+                              long now)
+    {
+        return now - artifactChecksum.getLastAccessed() > cachedChecksumLifetime;
+    }
+
+    private void expire(String artifactBasePath,
+                        ArtifactChecksum artifactChecksum)
+    {
+        if (cachedChecksums.remove(artifactBasePath, artifactChecksum))
+        {
+            expired.increment();
+
+            logger.warn("The checksums " + artifactChecksum.getChecksums().keySet() + " of '" + artifactBasePath +
+                        "' were not claimed within " + cachedChecksumLifetime + " ms.");
+        }
     }
 
     public long getCachedChecksumLifetime()
@@ -175,41 +322,79 @@ public class ChecksumCacheManager
         this.cachedChecksumExpiredCheckInterval = cachedChecksumExpiredCheckInterval;
     }
 
+    public int getMaxSize()
+    {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize)
+    {
+        this.maxSize = maxSize;
+    }
+
     public long getSize()
     {
         return cachedChecksums.size();
     }
 
-    public void startMonitor()
+    /**
+     * @return the number of checksum lookups which have been served from the cache (the ones of
+     *         {@link #containsArtifactPath(String)} aren't counted)
+     */
+    public long getHits()
+    {
+        return hits.sum();
+    }
+
+    public long getMisses()
+    {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of artifacts whose checksums expired without having been claimed
+     */
+    public long getExpired()
     {
-        new CachedChecksumExpirer();
+        return expired.sum();
     }
 
-    private class CachedChecksumExpirer
-            extends Thread
+    /**
+     * @return the number of artifacts whose checksums were evicted without having been claimed, as the cache was full
+     */
+    public long getEvicted()
     {
+        return evicted.sum();
+    }
 
-        private CachedChecksumExpirer()
+    public synchronized void startMonitor()
+    {
+        if (expirer != null)
         {
-            start();
+            return;
         }
 
-        @Override
-        public void run()
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "checksum-cache-expirer");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        executor.scheduleWithFixedDelay(this::removeExpiredChecksums,
+                                        cachedChecksumExpiredCheckInterval,
+                                        cachedChecksumExpiredCheckInterval,
+                                        TimeUnit.MILLISECONDS);
+
+        expirer = executor;
+    }
+
+    public synchronized void stopMonitor()
+    {
+        if (expirer != null)
         {
-            try
-            {
-                //noinspection InfiniteLoopStatement
-                while (true)
-                {
-                    Thread.sleep(getCachedChecksumExpiredCheckInterval());
-                    removeExpiredChecksums();
-                }
-            }
-            catch (InterruptedException e)
-            {
-                logger.error(e.getMessage(), e);
-            }
+            expirer.shutdownNow();
+            expirer = null;
         }
     }
 
@@ -37,6 +37,33 @@ public class RemoteRepository
     @XmlAttribute(name = "checksum-policy")
     private String checksumPolicy;
 
+    /**
+     * Whether artifacts which are not cached yet should be streamed to the client while they are being downloaded,
+     * instead of only serving them once the download has completed.
+     */
+    @XmlAttribute(name = "streaming-downloads")
+    private boolean streamingDownloads;
+
+    /**
+     * The number of seconds for which a path which was not found in the remote repository
+     * will not be requested from it again (0 disables this).
+     */
+    @XmlAttribute(name = "negative-lookup-cache-ttl")
+    private long negativeLookupCacheTtl;
+
+    /**
+     * The number of milliseconds to wait for a connection to the remote repository to be established
+     * (0 means no timeout).
+     */
+    @XmlAttribute(name = "connect-timeout")
+    private int connectTimeout;
+
+    /**
+     * The number of milliseconds to wait for data from the remote repository (0 means no timeout).
+     */
+    @XmlAttribute(name = "read-timeout")
+    private int readTimeout;
+
 
     public RemoteRepository()
     {
@@ -112,4 +139,44 @@ public class RemoteRepository
         this.checksumPolicy = checksumPolicy;
     }
 
+    public boolean isStreamingDownloads()
+    {
+        return streamingDownloads;
+    }
+
+    public void setStreamingDownloads(boolean streamingDownloads)
+    {
+        this.streamingDownloads = streamingDownloads;
+    }
+
+    public long getNegativeLookupCacheTtl()
+    {
+        return negativeLookupCacheTtl;
+    }
+
+    public void setNegativeLookupCacheTtl(long negativeLookupCacheTtl)
+    {
+        this.negativeLookupCacheTtl = negativeLookupCacheTtl;
+    }
+
+    public int getConnectTimeout()
+    {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(int connectTimeout)
+    {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public int getReadTimeout()
+    {
+        return readTimeout;
+    }
+
+    public void setReadTimeout(int readTimeout)
+    {
+        this.readTimeout = readTimeout;
+    }
+
 }
@@ -79,6 +79,27 @@ public class Repository
     @XmlAttribute(name = "checksum-headers-enabled")
     private boolean checksumHeadersEnabled;
 
+    /**
+     * The number of seconds for which a path which could not be resolved in this group repository
+     * will not be looked up in its members again (0 disables this).
+     */
+    @XmlAttribute(name = "negative-lookup-cache-ttl")
+    private long negativeLookupCacheTtl;
+
+    /**
+     * Whether the members of this group repository should be looked up concurrently, rather than one after another.
+     * The first member (in the declared order) which contains the artifact is still the one which serves it.
+     */
+    @XmlAttribute(name = "parallel-resolution")
+    private boolean parallelResolution;
+
+    /**
+     * Whether the checksums of artifacts should be calculated while they are being read, instead of serving the
+     * checksums which have been stored alongside them.
+     */
+    @XmlAttribute(name = "verify-checksums-on-read")
+    private boolean verifyChecksumsOnRead;
+
     /**
      * The per-repository proxy settings that override the overall global proxy settings.
      */
@@ -275,6 +296,36 @@ public class Repository
         this.checksumHeadersEnabled = checksumHeadersEnabled;
     }
 
+    public long getNegativeLookupCacheTtl()
+    {
+        return negativeLookupCacheTtl;
+    }
+
+    public void setNegativeLookupCacheTtl(long negativeLookupCacheTtl)
+    {
+        this.negativeLookupCacheTtl = negativeLookupCacheTtl;
+    }
+
+    public boolean isParallelResolution()
+    {
+        return parallelResolution;
+    }
+
+    public void setParallelResolution(boolean parallelResolution)
+    {
+        this.parallelResolution = parallelResolution;
+    }
+
+    public boolean isVerifyChecksumsOnRead()
+    {
+        return verifyChecksumsOnRead;
+    }
+
+    public void setVerifyChecksumsOnRead(boolean verifyChecksumsOnRead)
+    {
+        this.verifyChecksumsOnRead = verifyChecksumsOnRead;
+    }
+
     public ProxyConfiguration getProxyConfiguration()
     {
         return proxyConfiguration;
@@ -0,0 +1,326 @@
+package org.carlspring.strongbox.storage.routing;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An immutable, precompiled form of the {@link RoutingRules}.
+ * <p>
+ * The patterns of the rules are compiled only once and the rules which start with a literal prefix are indexed in a
+ * prefix trie, so that only the rules which can possibly match a path have their patterns evaluated. The rules are
+ * still evaluated in the order in which they have been defined.
+ * <p>
+ * Any change to the routing rules requires a new instance to be compiled.
+ */
+public final class RoutingRulesMatcher
+{
+
+    private static final Logger logger = LoggerFactory.getLogger(RoutingRulesMatcher.class);
+
+    public static final RoutingRulesMatcher EMPTY = new RoutingRulesMatcher(new RoutingRules());
+
+    private static final String REGEX_METACHARACTERS = "\\[](){}.*+?^$|";
+
+    /**
+     * K: groupRepositoryId V: the compiled accepted rule set for this group repository.
+     */
+    private final Map<String, CompiledRuleSet> accepted;
+
+    /**
+     * K: groupRepositoryId V: the compiled denied rule set for this group repository.
+     */
+    private final Map<String, CompiledRuleSet> denied;
+
+
+    public RoutingRulesMatcher(RoutingRules routingRules)
+    {
+        this.accepted = compile(routingRules.getAccepted());
+        this.denied = compile(routingRules.getDenied());
+    }
+
+    /**
+     * @return the accept rules of the group repository which match the path, in the order of their definition
+     */
+    public List<CompiledRoutingRule> getAcceptRules(String groupRepositoryId,
+                                                    String artifactPath)
+    {
+        return getMatchingRules(accepted.get(groupRepositoryId), artifactPath);
+    }
+
+    /**
+     * @return the wildcard accept rules which match the path, in the order of their definition
+     */
+    public List<CompiledRoutingRule> getWildcardAcceptRules(String artifactPath)
+    {
+        return getAcceptRules(RoutingRules.WILDCARD, artifactPath);
+    }
+
+    /**
+     * @return <code>true</code>, if either the deny rules of the group repository, or the wildcard deny rules,
+     *         reject the path for the specified member repository
+     */
+    public boolean rejects(String groupRepositoryId,
+                           String repositoryId,
+                           String artifactPath)
+    {
+        return rejects(denied.get(groupRepositoryId), repositoryId, artifactPath) ||
+               rejects(denied.get(RoutingRules.WILDCARD), repositoryId, artifactPath);
+    }
+
+    private boolean rejects(CompiledRuleSet ruleSet,
+                            String repositoryId,
+                            String artifactPath)
+    {
+        if (ruleSet == null)
+        {
+            return false;
+        }
+
+        BitSet candidates = ruleSet.getCandidates(artifactPath);
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1))
+        {
+            CompiledRoutingRule rule = ruleSet.rules.get(i);
+            if (rule.repositories.contains(repositoryId) && rule.matches(artifactPath))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private List<CompiledRoutingRule> getMatchingRules(CompiledRuleSet ruleSet,
+                                                       String artifactPath)
+    {
+        if (ruleSet == null)
+        {
+            return Collections.emptyList();
+        }
+
+        List<CompiledRoutingRule> matchingRules = new ArrayList<>();
+
+        BitSet candidates = ruleSet.getCandidates(artifactPath);
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1))
+        {
+            CompiledRoutingRule rule = ruleSet.rules.get(i);
+            if (rule.matches(artifactPath))
+            {
+                matchingRules.add(rule);
+            }
+        }
+
+        return matchingRules;
+    }
+
+    private static Map<String, CompiledRuleSet> compile(Map<String, RuleSet> ruleSets)
+    {
+        if (ruleSets == null || ruleSets.isEmpty())
+        {
+            return Collections.emptyMap();
+        }
+
+        Map<String, CompiledRuleSet> compiledRuleSets = new HashMap<>();
+        for (Map.Entry<String, RuleSet> entry : ruleSets.entrySet())
+        {
+            RuleSet ruleSet = entry.getValue();
+            if (ruleSet != null && ruleSet.getRoutingRules() != null && !ruleSet.getRoutingRules().isEmpty())
+            {
+                compiledRuleSets.put(entry.getKey(), new CompiledRuleSet(ruleSet.getRoutingRules()));
+            }
+        }
+
+        return Collections.unmodifiableMap(compiledRuleSets);
+    }
+
+    /**
+     * Determines the literal text with which every path matching the pattern has to start.
+     *
+     * @return the literal prefix, or an empty string, if there is none
+     */
+    static String getLiteralPrefix(String pattern)
+    {
+        // A top-level alternation means that the path doesn't have to start with anything in particular.
+        int depth = 0;
+        for (int i = 0; i < pattern.length(); i++)
+        {
+            char c = pattern.charAt(i);
+            if (c == '\\')
+            {
+                i++;
+            }
+            else if (c == '(' || c == '[')
+            {
+                depth++;
+            }
+            else if ((c == ')' || c == ']') && depth > 0)
+            {
+                depth--;
+            }
+            else if (c == '|' && depth == 0)
+            {
+                return "";
+            }
+        }
+
+        int end = 0;
+        while (end < pattern.length() && REGEX_METACHARACTERS.indexOf(pattern.charAt(end)) < 0)
+        {
+            end++;
+        }
+
+        // A quantifier makes the character preceding it optional, or repeatable.
+        if (end < pattern.length() && end > 0 && "*+?{".indexOf(pattern.charAt(end)) >= 0)
+        {
+            end--;
+        }
+
+        return pattern.substring(0, end);
+    }
+
+    /**
+     * A routing rule with its pattern compiled.
+     */
+    public static final class CompiledRoutingRule
+    {
+
+        private final Pattern pattern;
+
+        private final Set<String> repositories;
+
+
+        private CompiledRoutingRule(Pattern pattern,
+                                    Set<String> repositories)
+        {
+            this.pattern = pattern;
+            this.repositories = repositories;
+        }
+
+        public boolean matches(String artifactPath)
+        {
+            return pattern != null && pattern.matcher(artifactPath).matches();
+        }
+
+        public String getPattern()
+        {
+            return pattern != null ? pattern.pattern() : null;
+        }
+
+        /**
+         * @return the repositories of this rule, in the order of their definition
+         */
+        public Set<String> getRepositories()
+        {
+            return repositories;
+        }
+
+    }
+
+    private static final class CompiledRuleSet
+    {
+
+        private final List<CompiledRoutingRule> rules;
+
+        /**
+         * The rules which can match any path, as they don't start with a literal prefix.
+         */
+        private final BitSet unprefixedRules = new BitSet();
+
+        private final PrefixTrieNode prefixTrie = new PrefixTrieNode();
+
+
+        CompiledRuleSet(List<RoutingRule> routingRules)
+        {
+            List<CompiledRoutingRule> compiledRules = new ArrayList<>(routingRules.size());
+            for (int i = 0; i < routingRules.size(); i++)
+            {
+                RoutingRule routingRule = routingRules.get(i);
+
+                Pattern pattern = null;
+                try
+                {
+                    pattern = routingRule.getPattern() != null ? Pattern.compile(routingRule.getPattern()) : null;
+                }
+                catch (PatternSyntaxException e)
+                {
+                    logger.error("Invalid routing rule pattern '" + routingRule.getPattern() + "', ignoring rule.", e);
+                }
+
+                Set<String> repositories = routingRule.getRepositories() != null ?
+                                           Collections.unmodifiableSet(new LinkedHashSet<>(routingRule.getRepositories())) :
+                                           Collections.emptySet();
+
+                compiledRules.add(new CompiledRoutingRule(pattern, repositories));
+
+                String prefix = pattern != null ? getLiteralPrefix(pattern.pattern()) : "";
+                if (prefix.isEmpty())
+                {
+                    unprefixedRules.set(i);
+                }
+                else
+                {
+                    prefixTrie.add(prefix, i);
+                }
+            }
+
+            this.rules = Collections.unmodifiableList(compiledRules);
+        }
+
+        /**
+         * @return the indexes of the rules which can possibly match the path
+         */
+        BitSet getCandidates(String artifactPath)
+        {
+            BitSet candidates = (BitSet) unprefixedRules.clone();
+
+            PrefixTrieNode node = prefixTrie;
+            for (int i = 0; i < artifactPath.length() && node != null; i++)
+            {
+                node = node.children.get(artifactPath.charAt(i));
+                if (node != null)
+                {
+                    candidates.or(node.rules);
+                }
+            }
+
+            return candidates;
+        }
+
+    }
+
+    private static final class PrefixTrieNode
+    {
+
+        private final Map<Character, PrefixTrieNode> children = new HashMap<>();
+
+        /**
+         * The rules whose literal prefix ends at this node.
+         */
+        private final BitSet rules = new BitSet();
+
+
+        void add(String prefix,
+                 int rule)
+        {
+            PrefixTrieNode node = this;
+            for (int i = 0; i < prefix.length(); i++)
+            {
+                node = node.children.computeIfAbsent(prefix.charAt(i), c -> new PrefixTrieNode());
+            }
+
+            node.rules.set(rule);
+        }
+
+    }
+
+}
@@ -0,0 +1,255 @@
+package org.carlspring.strongbox.configuration;
+
+import org.carlspring.strongbox.storage.Storage;
+import org.carlspring.strongbox.storage.repository.Repository;
+import org.carlspring.strongbox.xml.parsers.GenericParser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class ConfigurationSnapshotTest
+{
+
+    private static final Logger logger = LoggerFactory.getLogger(ConfigurationSnapshotTest.class);
+
+    private static final int STORAGES = 5;
+
+    private static final int REPOSITORIES = 20;
+
+
+    @Test
+    public void testLookups()
+            throws Exception
+    {
+        Configuration configuration = createConfiguration();
+        ConfigurationSnapshot snapshot = new ConfigurationSnapshot(configuration);
+
+        Repository repository = snapshot.getRepository("storage1", "repository7");
+
+        assertSame(configuration, snapshot.getConfiguration());
+        assertEquals("repository7", repository.getId());
+        assertSame(snapshot.getStorage("storage1"), repository.getStorage());
+        assertSame(repository, snapshot.getRepository("storage1:repository7"));
+        assertEquals("storage3", snapshot.getStorage("storage3").getId());
+        assertEquals(STORAGES, snapshot.getStorages().size());
+
+        assertNull(snapshot.getRepository("storage1", "missing"));
+        assertNull(snapshot.getStorage("missing"));
+
+        // Changes to the configuration are only picked up by the next snapshot.
+        configuration.getStorage("storage1").saveRepository(new Repository("added"));
+        configuration.getStorages().remove("storage3");
+
+        assertNull(snapshot.getRepository("storage1", "added"));
+        assertNotNull(snapshot.getStorage("storage3"));
+
+        ConfigurationSnapshot next = new ConfigurationSnapshot(configuration);
+
+        assertNotNull(next.getRepository("storage1", "added"));
+        assertNull(next.getStorage("storage3"));
+    }
+
+    @Test
+    public void testChangesToTheConfigurationDoNotLeakIntoTheSnapshot()
+            throws Exception
+    {
+        Configuration configuration = createConfiguration();
+        ConfigurationSnapshot snapshot = new ConfigurationSnapshot(configuration);
+
+        Storage storage = configuration.getStorage("storage1");
+        Repository repository = storage.getRepository("repository7");
+
+        assertNotSame(storage, snapshot.getStorage("storage1"));
+        assertNotSame(repository, snapshot.getRepository("storage1", "repository7"));
+
+        repository.putOutOfService();
+        repository.setAllowsDeployment(false);
+        repository.getGroupRepositories().add("repository8");
+        storage.setBasedir("/changed");
+
+        Repository copy = snapshot.getRepository("storage1", "repository7");
+
+        assertTrue(copy.isInService());
+        assertTrue(copy.allowsDeployment());
+        assertTrue(copy.getGroupRepositories().isEmpty());
+        assertFalse("/changed".equals(snapshot.getStorage("storage1").getBasedir()));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSnapshotIsReadOnly()
+            throws Exception
+    {
+        new ConfigurationSnapshot(createConfiguration()).getStorages().clear();
+    }
+
+    /**
+     * Compares the throughput of <code>getStorage(id).getRepository(id)</code> with several threads looking up
+     * repositories at the same time, as they did before (parsing the stored configuration) and with the snapshot,
+     * which is replaced every now and then, as if the configuration was being updated.
+     * <p>
+     * This takes a while, so it's only run when asked for:
+     * <pre>
+     *     mvn test -Dtest=ConfigurationSnapshotTest -Dstrongbox.benchmark=true [-Dstrongbox.benchmark.threads=16]
+     * </pre>
+     */
+    @Test
+    public void testLookupThroughputUnderContention()
+            throws Exception
+    {
+        assumeTrue(Boolean.getBoolean("strongbox.benchmark"));
+
+        int threads = Integer.getInteger("strongbox.benchmark.threads",
+                                         Runtime.getRuntime().availableProcessors() * 2);
+
+        Configuration configuration = createConfiguration();
+        GenericParser<Configuration> parser = new GenericParser<>(Configuration.class);
+        String data = parser.serialize(configuration);
+
+        AtomicReference<ConfigurationSnapshot> snapshot = new AtomicReference<>(
+                new ConfigurationSnapshot(configuration, parser.deserialize(data)));
+
+        double parsing = measure(threads, 200, (storageId, repositoryId) -> {
+            try
+            {
+                return parser.deserialize(data).getStorage(storageId).getRepository(repositoryId);
+            }
+            catch (Exception e)
+            {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        double snapshots = measure(threads, 1000000, (storageId, repositoryId) -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (random.nextInt(100000) == 0)
+            {
+                try
+                {
+                    snapshot.set(new ConfigurationSnapshot(configuration, parser.deserialize(data)));
+                }
+                catch (Exception e)
+                {
+                    throw new IllegalStateException(e);
+                }
+            }
+
+            return snapshot.get().getRepository(storageId, repositoryId);
+        });
+
+        logger.info(String.format("%n" +
+                                  "%d threads      lookups (ops/s)%n" +
+                                  "parsing     %18.1f%n" +
+                                  "snapshot    %18.1f",
+                                  threads, parsing, snapshots));
+
+        assertTrue(snapshots > parsing);
+    }
+
+    private double measure(int threads,
+                           int lookupsPerThread,
+                           Lookup lookup)
+            throws InterruptedException
+    {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+
+        // The assertions of the workers are reported by this thread, as JUnit doesn't see the others fail.
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++)
+        {
+            Thread worker = new Thread(() -> {
+                try
+                {
+                    start.await();
+
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int j = 0; j < lookupsPerThread; j++)
+                    {
+                        Repository repository = lookup.getRepository("storage" + random.nextInt(STORAGES),
+                                                                     "repository" + random.nextInt(REPOSITORIES));
+                        assertNotNull(repository);
+                    }
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+                catch (AssertionError | RuntimeException e)
+                {
+                    failures.add(e);
+                }
+                finally
+                {
+                    done.countDown();
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+
+        long startTime = System.nanoTime();
+        start.countDown();
+        done.await();
+        long nanos = System.nanoTime() - startTime;
+
+        for (Thread worker : workers)
+        {
+            worker.join();
+        }
+
+        if (!failures.isEmpty())
+        {
+            AssertionError error = new AssertionError(failures.size() + " of the workers have failed.",
+                                                      failures.peek());
+            failures.stream().skip(1).forEach(error::addSuppressed);
+
+            throw error;
+        }
+
+        return (double) threads * lookupsPerThread / (nanos / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private static Configuration createConfiguration()
+    {
+        Configuration configuration = new Configuration();
+        for (int i = 0; i < STORAGES; i++)
+        {
+            Storage storage = new Storage("storage" + i);
+            for (int j = 0; j < REPOSITORIES; j++)
+            {
+                Repository repository = new Repository("repository" + j);
+                repository.setStorage(storage);
+
+                storage.saveRepository(repository);
+            }
+
+            configuration.addStorage(storage);
+        }
+
+        return configuration;
+    }
+
+    @FunctionalInterface
+    private interface Lookup
+    {
+
+        Repository getRepository(String storageId,
+                                 String repositoryId);
+
+    }
+
+}
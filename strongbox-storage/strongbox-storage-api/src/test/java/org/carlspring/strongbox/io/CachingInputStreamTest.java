@@ -0,0 +1,167 @@
+package org.carlspring.strongbox.io;
+
+import org.carlspring.commons.io.MultipleDigestOutputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class CachingInputStreamTest
+{
+
+    private static final byte[] CONTENT = "This is a test of the caching input stream.\n".getBytes();
+
+
+    @Test
+    public void testContentIsCachedWhileReading()
+            throws Exception
+    {
+        ByteArrayOutputStream cache = new ByteArrayOutputStream();
+        RecordingListener listener = new RecordingListener();
+
+        ByteArrayOutputStream client = new ByteArrayOutputStream();
+        try (CachingInputStream cis = new CachingInputStream(new ByteArrayInputStream(CONTENT),
+                                                             new MultipleDigestOutputStream(cache),
+                                                             listener))
+        {
+            byte[] bytes = new byte[8];
+            int len;
+            while ((len = cis.read(bytes)) != -1)
+            {
+                client.write(bytes, 0, len);
+            }
+        }
+
+        assertArrayEquals(CONTENT, client.toByteArray());
+        assertArrayEquals(CONTENT, cache.toByteArray());
+        assertEquals("The cache should have been completed exactly once!", 1, listener.completions.get());
+        assertNull(listener.failure.get());
+    }
+
+    @Test
+    public void testCacheIsCompletedWhenTheReaderStopsEarly()
+            throws Exception
+    {
+        ByteArrayOutputStream cache = new ByteArrayOutputStream();
+        RecordingListener listener = new RecordingListener();
+
+        try (CachingInputStream cis = new CachingInputStream(new ByteArrayInputStream(CONTENT),
+                                                             new MultipleDigestOutputStream(cache),
+                                                             listener))
+        {
+            cis.read(new byte[4]);
+        }
+
+        assertArrayEquals("The remaining content should have been cached on close!", CONTENT, cache.toByteArray());
+        assertEquals(1, listener.completions.get());
+    }
+
+    @Test
+    public void testFailureOfTheSourceIsReported()
+            throws Exception
+    {
+        RecordingListener listener = new RecordingListener();
+
+        InputStream failingSource = new InputStream()
+        {
+            @Override
+            public int read()
+                    throws IOException
+            {
+                throw new IOException("Connection reset");
+            }
+        };
+
+        try (CachingInputStream cis = new CachingInputStream(failingSource,
+                                                             new MultipleDigestOutputStream(new ByteArrayOutputStream()),
+                                                             listener))
+        {
+            cis.read(new byte[4]);
+
+            fail("Expected the failure of the source to be propagated!");
+        }
+        catch (IOException e)
+        {
+            // Expected
+        }
+
+        assertNotNull("The failure should have been reported to the listener!", listener.failure.get());
+        assertEquals(0, listener.completions.get());
+    }
+
+    @Test
+    public void testFailureWhileClosingIsReported()
+            throws Exception
+    {
+        RecordingListener listener = new RecordingListener();
+
+        InputStream brokenSource = new ByteArrayInputStream(CONTENT)
+        {
+            @Override
+            public synchronized int read(byte[] bytes,
+                                         int off,
+                                         int len)
+            {
+                if (pos > 0)
+                {
+                    throw new IllegalStateException("The response has been released");
+                }
+
+                return super.read(bytes, off, len);
+            }
+        };
+
+        CachingInputStream cis = new CachingInputStream(brokenSource,
+                                                        new MultipleDigestOutputStream(new ByteArrayOutputStream()),
+                                                        listener);
+        cis.read(new byte[4]);
+
+        try
+        {
+            cis.close();
+
+            fail("Expected the failure to be propagated!");
+        }
+        catch (IllegalStateException e)
+        {
+            // Expected
+        }
+
+        assertNotNull("A stream which has been closed should always have an outcome!", listener.failure.get());
+        assertEquals(0, listener.completions.get());
+    }
+
+    private static class RecordingListener
+            implements CachingInputStream.CacheListener
+    {
+
+        private final AtomicInteger completions = new AtomicInteger();
+
+        private final AtomicReference<IOException> failure = new AtomicReference<>();
+
+
+        @Override
+        public void onComplete(MultipleDigestOutputStream cacheOutputStream)
+        {
+            completions.incrementAndGet();
+        }
+
+        @Override
+        public void onFailure(IOException cause)
+        {
+            failure.set(cause);
+        }
+
+    }
+
+}
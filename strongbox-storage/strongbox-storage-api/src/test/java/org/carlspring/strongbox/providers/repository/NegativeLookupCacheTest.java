@@ -0,0 +1,86 @@
+package org.carlspring.strongbox.providers.repository;
+
+import org.carlspring.strongbox.event.ArtifactEvent;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NegativeLookupCacheTest
+{
+
+    private static final String PATH = "org/carlspring/foo/1.0/foo-1.0-sources.jar";
+
+
+    @Test
+    public void testMissingPathIsRemembered()
+    {
+        NegativeLookupCache cache = new NegativeLookupCache();
+
+        assertFalse(cache.isMissing("storage0", "group-releases", PATH));
+
+        cache.addMissing("storage0", "group-releases", PATH, 60);
+
+        assertTrue("The path should have been remembered as missing!",
+                   cache.isMissing("storage0", "group-releases", PATH));
+        assertFalse("The path should only be missing in the repository it was looked up in!",
+                    cache.isMissing("storage0", "releases", PATH));
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void testNothingIsRememberedWithoutTtl()
+    {
+        NegativeLookupCache cache = new NegativeLookupCache();
+        cache.addMissing("storage0", "carlspring", PATH, 0);
+
+        assertFalse(cache.isMissing("storage0", "carlspring", PATH));
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void testDeploymentInvalidatesTheMissingPath()
+    {
+        NegativeLookupCache cache = new NegativeLookupCache();
+        cache.addMissing("storage0", "group-releases", PATH, 60);
+        cache.addMissing("storage0", "carlspring", PATH, 60);
+
+        // The artifact has been deployed to a member of the group.
+        cache.handle(new ArtifactEvent("storage0", "releases", PATH, ArtifactEvent.EVENT_ARTIFACT_UPLOADED));
+
+        assertFalse(cache.isMissing("storage0", "group-releases", PATH));
+        assertFalse(cache.isMissing("storage0", "carlspring", PATH));
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void testDeletionOfDirectoryInvalidatesTheMissingPathsUnderneathIt()
+    {
+        NegativeLookupCache cache = new NegativeLookupCache();
+        cache.addMissing("storage0", "group-releases", PATH, 60);
+        cache.addMissing("storage0", "group-releases", "org/carlspring/bar/1.0/bar-1.0.jar", 60);
+
+        cache.handle(new ArtifactEvent("storage0", "releases", "org/carlspring/foo",
+                                       ArtifactEvent.EVENT_ARTIFACT_DELETED));
+
+        assertFalse(cache.isMissing("storage0", "group-releases", PATH));
+        assertTrue(cache.isMissing("storage0", "group-releases", "org/carlspring/bar/1.0/bar-1.0.jar"));
+        assertEquals(1, cache.getSize());
+    }
+
+    @Test
+    public void testCacheIsBounded()
+    {
+        NegativeLookupCache cache = new NegativeLookupCache();
+        cache.setMaxSize(10);
+
+        for (int i = 0; i < 25; i++)
+        {
+            cache.addMissing("storage0", "group-releases", "org/carlspring/foo/" + i + "/foo-" + i + ".jar", 60);
+        }
+
+        assertTrue("The cache should not grow beyond its maximum size!", cache.getSize() <= 10);
+    }
+
+}
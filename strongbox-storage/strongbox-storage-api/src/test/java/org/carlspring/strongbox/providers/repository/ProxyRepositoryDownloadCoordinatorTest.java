@@ -0,0 +1,149 @@
+package org.carlspring.strongbox.providers.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ProxyRepositoryDownloadCoordinatorTest
+{
+
+    private static final int REQUESTS = 10;
+
+
+    @Test
+    public void testConcurrentDownloadsOfTheSamePathAreCoalesced()
+            throws Exception
+    {
+        ProxyRepositoryDownloadCoordinator coordinator = new ProxyRepositoryDownloadCoordinator();
+
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch downloadStarted = new CountDownLatch(1);
+        CountDownLatch releaseDownload = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(REQUESTS);
+        try
+        {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < REQUESTS; i++)
+            {
+                results.add(executor.submit(() -> coordinator.download("storage0",
+                                                                       "maven-central",
+                                                                       "org/foo/bar/1.0/bar-1.0.jar",
+                                                                       () ->
+                                                                       {
+                                                                           executions.incrementAndGet();
+                                                                           downloadStarted.countDown();
+
+                                                                           return awaitQuietly(releaseDownload);
+                                                                       })));
+            }
+
+            assertTrue("The download was never started!", downloadStarted.await(10, TimeUnit.SECONDS));
+
+            // Give the rest of the requests the chance to queue up behind the one in progress.
+            while (coordinator.getCoalescedDownloadCount() < REQUESTS - 1)
+            {
+                Thread.sleep(10);
+            }
+
+            releaseDownload.countDown();
+
+            for (Future<Boolean> result : results)
+            {
+                assertTrue("Failed to resolve the artifact!", result.get(10, TimeUnit.SECONDS));
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        assertEquals("Expected a single remote download!", 1, executions.get());
+        assertEquals(1, coordinator.getRemoteDownloadCount());
+        assertEquals(REQUESTS - 1, coordinator.getCoalescedDownloadCount());
+        assertEquals(0, coordinator.getDownloadsInProgress());
+    }
+
+    @Test
+    public void testSequentialDownloadsAreNotCoalesced()
+            throws Exception
+    {
+        ProxyRepositoryDownloadCoordinator coordinator = new ProxyRepositoryDownloadCoordinator();
+
+        coordinator.download("storage0", "maven-central", "org/foo/bar/1.0/bar-1.0.pom", () -> false);
+        coordinator.download("storage0", "maven-central", "org/foo/bar/1.0/bar-1.0.pom", () -> true);
+
+        assertEquals(2, coordinator.getRemoteDownloadCount());
+        assertEquals(0, coordinator.getCoalescedDownloadCount());
+    }
+
+    @Test
+    public void testWaitingForADownloadWhichIsNeverCompletedTimesOut()
+            throws Exception
+    {
+        ProxyRepositoryDownloadCoordinator coordinator = new ProxyRepositoryDownloadCoordinator();
+        coordinator.setAwaitTimeout(100);
+
+        // Owned by a request whose client never finishes reading the stream.
+        ProxyRepositoryDownloadCoordinator.Download owner = coordinator.start("storage0",
+                                                                              "maven-central",
+                                                                              "org/foo/bar/1.0/bar-1.0.jar");
+        assertTrue(owner.isOwner());
+
+        ProxyRepositoryDownloadCoordinator.Download waiter = coordinator.start("storage0",
+                                                                               "maven-central",
+                                                                               "org/foo/bar/1.0/bar-1.0.jar");
+        assertFalse(waiter.isOwner());
+
+        try
+        {
+            waiter.await();
+            fail("The wait should have timed out!");
+        }
+        catch (TimeoutException e)
+        {
+            // Expected
+        }
+
+        // The coalesced request fetches the artifact on its own instead.
+        AtomicInteger executions = new AtomicInteger();
+        assertTrue(coordinator.download("storage0",
+                                        "maven-central",
+                                        "org/foo/bar/1.0/bar-1.0.jar",
+                                        () -> executions.incrementAndGet() > 0));
+
+        assertEquals(1, executions.get());
+        assertEquals(2, coordinator.getTimedOutWaitCount());
+
+        owner.complete(true);
+
+        assertEquals(0, coordinator.getDownloadsInProgress());
+    }
+
+    private boolean awaitQuietly(CountDownLatch latch)
+    {
+        try
+        {
+            return latch.await(10, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,205 @@
+package org.carlspring.strongbox.providers.repository;
+
+import org.carlspring.strongbox.client.ArtifactResolver;
+import org.carlspring.strongbox.service.ProxyRepositoryConnectionPoolConfigurationService;
+import org.carlspring.strongbox.storage.Storage;
+import org.carlspring.strongbox.storage.repository.RemoteRepository;
+import org.carlspring.strongbox.storage.repository.Repository;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.pool.PoolStats;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RemoteRepositoryClientRegistryTest
+{
+
+    private RemoteRepositoryClientRegistry registry;
+
+
+    @Before
+    public void setUp()
+    {
+        registry = new RemoteRepositoryClientRegistry(new ClientService());
+    }
+
+    @After
+    public void tearDown()
+    {
+        registry.shutdown();
+    }
+
+    @Test
+    public void testClientIsReusedUntilTheRemoteRepositoryChanges()
+    {
+        Repository repository = createRepository("proxied", "http://localhost:48080/releases");
+
+        ArtifactResolver resolver = registry.getArtifactResolver(repository);
+
+        assertSame(resolver, registry.getArtifactResolver(repository));
+        assertEquals(1, registry.size());
+
+        repository.getRemoteRepository().setUrl("http://localhost:48080/snapshots");
+
+        ArtifactResolver rebuilt = registry.getArtifactResolver(repository);
+
+        assertNotSame(resolver, rebuilt);
+        assertEquals("http://localhost:48080/snapshots", rebuilt.getRepositoryBaseUrl());
+        assertEquals(1, registry.size());
+
+        // The grace period hasn't elapsed yet.
+        assertFalse(isClosed(resolver));
+    }
+
+    @Test
+    public void testInvalidatedClientIsClosedOnceTheGracePeriodHasElapsed()
+            throws InterruptedException
+    {
+        registry.setCloseGracePeriod(500);
+
+        Repository repository = createRepository("proxied", "http://localhost:48080/releases");
+
+        // A request which is in flight, while the repository is updated.
+        ArtifactResolver inFlight = registry.getArtifactResolver(repository);
+
+        registry.invalidate("storage0", "proxied");
+
+        assertEquals(0, registry.size());
+        assertFalse("The client was closed while a request could still be using it!", isClosed(inFlight));
+        inFlight.getClientInstance().target("http://localhost:48080/releases/org/foo/1.0/foo-1.0.jar");
+
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (!isClosed(inFlight) && System.currentTimeMillis() < deadline)
+        {
+            Thread.sleep(50);
+        }
+
+        assertTrue("The client should have been closed after the grace period!", isClosed(inFlight));
+
+        ArtifactResolver rebuilt = registry.getArtifactResolver(repository);
+
+        assertNotSame(inFlight, rebuilt);
+        assertFalse(isClosed(rebuilt));
+    }
+
+    @Test
+    public void testInvalidatingAStorageDropsOnlyItsClients()
+    {
+        Repository repository = createRepository("proxied", "http://localhost:48080/releases");
+
+        Repository other = createRepository("other", "http://localhost:48080/snapshots");
+        other.setStorage(new Storage("storage1"));
+
+        registry.getArtifactResolver(repository);
+        ArtifactResolver kept = registry.getArtifactResolver(other);
+
+        registry.invalidate("storage0");
+
+        assertEquals(1, registry.size());
+        assertSame(kept, registry.getArtifactResolver(other));
+    }
+
+    @Test
+    public void testShutdownClosesAllTheClients()
+    {
+        ArtifactResolver invalidated = registry.getArtifactResolver(createRepository("invalidated",
+                                                                                     "http://localhost:48080/a"));
+        ArtifactResolver active = registry.getArtifactResolver(createRepository("active",
+                                                                                "http://localhost:48080/b"));
+
+        registry.invalidate("storage0", "invalidated");
+        registry.shutdown();
+
+        assertTrue(isClosed(invalidated));
+        assertTrue(isClosed(active));
+        assertEquals(0, registry.size());
+    }
+
+    private static Repository createRepository(String repositoryId,
+                                               String url)
+    {
+        RemoteRepository remoteRepository = new RemoteRepository();
+        remoteRepository.setUrl(url);
+
+        Repository repository = new Repository(repositoryId);
+        repository.setStorage(new Storage("storage0"));
+        repository.setRemoteRepository(remoteRepository);
+
+        return repository;
+    }
+
+    private static boolean isClosed(ArtifactResolver resolver)
+    {
+        try
+        {
+            resolver.getClientInstance().target("http://localhost:48080/");
+
+            return false;
+        }
+        catch (IllegalStateException e)
+        {
+            return true;
+        }
+    }
+
+    private static class ClientService
+            implements ProxyRepositoryConnectionPoolConfigurationService
+    {
+
+        @Override
+        public Client getClient()
+        {
+            return ClientBuilder.newClient();
+        }
+
+        @Override
+        public void setMaxTotal(int max)
+        {
+        }
+
+        @Override
+        public void setDefaultMaxPerRepository(int defaultMax)
+        {
+        }
+
+        @Override
+        public int getDefaultMaxPerRepository()
+        {
+            return 0;
+        }
+
+        @Override
+        public void setMaxPerRepository(String repository,
+                                        int max)
+        {
+        }
+
+        @Override
+        public PoolStats getTotalStats()
+        {
+            return null;
+        }
+
+        @Override
+        public PoolStats getPoolStats(String repository)
+        {
+            return null;
+        }
+
+        @Override
+        public void shutdown()
+        {
+        }
+
+    }
+
+}
@@ -0,0 +1,160 @@
+package org.carlspring.strongbox.services;
+
+import org.carlspring.strongbox.artifact.coordinates.MavenArtifactCoordinates;
+import org.carlspring.strongbox.config.ClientConfig;
+import org.carlspring.strongbox.config.CommonConfig;
+import org.carlspring.strongbox.config.DataServiceConfig;
+import org.carlspring.strongbox.config.StorageApiConfig;
+import org.carlspring.strongbox.data.server.OrientDbConnectionMode;
+import org.carlspring.strongbox.domain.ArtifactEntry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Compares the throughput of {@link ArtifactEntryService#save(Object)} and
+ * {@link ArtifactEntryService#findOne(String, String, String)}
+ * when talking to the database through the binary protocol of the embedded server (<code>remote</code>) and
+ * in-process (<code>plocal</code>).
+ * <p>
+ * This takes a while, so it's only run when asked for:
+ * <pre>
+ *     mvn test -Dtest=ArtifactEntryServiceBenchmarkTest -Dstrongbox.benchmark=true [-Dstrongbox.benchmark.entries=2000]
+ * </pre>
+ */
+public class ArtifactEntryServiceBenchmarkTest
+{
+
+    private static final Logger logger = LoggerFactory.getLogger(ArtifactEntryServiceBenchmarkTest.class);
+
+    private static final String STORAGE_ID = "storage0";
+
+    private static final String REPOSITORY_ID = "benchmark";
+
+    private static final int WARM_UP_ENTRIES = 100;
+
+
+    @Test
+    public void testRemoteVersusEmbeddedThroughput()
+            throws Exception
+    {
+        assumeTrue(Boolean.getBoolean("strongbox.benchmark"));
+
+        int entries = Integer.getInteger("strongbox.benchmark.entries", 1000);
+
+        Result remote = benchmark(OrientDbConnectionMode.REMOTE, entries);
+        Result embedded = benchmark(OrientDbConnectionMode.PLOCAL, entries);
+
+        logger.info(String.format("%n" +
+                                  "mode     save (ops/s)   findOne (ops/s)%n" +
+                                  "remote   %12.1f   %15.1f%n" +
+                                  "plocal   %12.1f   %15.1f",
+                                  remote.saveThroughput, remote.findThroughput,
+                                  embedded.saveThroughput, embedded.findThroughput));
+
+        assertTrue(remote.saveThroughput > 0 && embedded.saveThroughput > 0);
+    }
+
+    private Result benchmark(OrientDbConnectionMode mode,
+                             int entries)
+    {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment()
+               .getPropertySources()
+               .addFirst(new MapPropertySource("benchmark",
+                                               Collections.singletonMap("strongbox.orientdb.mode",
+                                                                        mode.getProtocol())));
+        context.register(StorageApiConfig.class, CommonConfig.class, ClientConfig.class, DataServiceConfig.class);
+        context.refresh();
+
+        try
+        {
+            ArtifactEntryService artifactEntryService = context.getBean(ArtifactEntryService.class);
+            artifactEntryService.deleteAll();
+
+            // Let the JIT and the caches of the database warm up.
+            run(artifactEntryService, mode.getProtocol() + "-warm-up", WARM_UP_ENTRIES);
+            artifactEntryService.deleteAll();
+
+            Result result = run(artifactEntryService, mode.getProtocol(), entries);
+            artifactEntryService.deleteAll();
+
+            return result;
+        }
+        finally
+        {
+            context.close();
+        }
+    }
+
+    private Result run(ArtifactEntryService artifactEntryService,
+                       String prefix,
+                       int entries)
+    {
+        List<MavenArtifactCoordinates> coordinates = new ArrayList<>(entries);
+        for (int i = 0; i < entries; i++)
+        {
+            coordinates.add(new MavenArtifactCoordinates("org.carlspring.strongbox.benchmark." + prefix,
+                                                         "artifact-" + i,
+                                                         "1.0." + i,
+                                                         null,
+                                                         "jar"));
+        }
+
+        long start = System.nanoTime();
+        for (MavenArtifactCoordinates artifactCoordinates : coordinates)
+        {
+            ArtifactEntry artifactEntry = new ArtifactEntry();
+            artifactEntry.setStorageId(STORAGE_ID);
+            artifactEntry.setRepositoryId(REPOSITORY_ID);
+            artifactEntry.setArtifactCoordinates(artifactCoordinates);
+
+            artifactEntryService.save(artifactEntry);
+        }
+        long saveNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (MavenArtifactCoordinates artifactCoordinates : coordinates)
+        {
+            assertTrue(artifactEntryService.findOne(STORAGE_ID, REPOSITORY_ID, artifactCoordinates.toPath())
+                                           .isPresent());
+        }
+        long findNanos = System.nanoTime() - start;
+
+        return new Result(throughput(entries, saveNanos), throughput(entries, findNanos));
+    }
+
+    private static double throughput(int operations,
+                                     long nanos)
+    {
+        return operations / (nanos / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private static class Result
+    {
+
+        private final double saveThroughput;
+
+        private final double findThroughput;
+
+
+        Result(double saveThroughput,
+               double findThroughput)
+        {
+            this.saveThroughput = saveThroughput;
+            this.findThroughput = findThroughput;
+        }
+
+    }
+
+}
@@ -119,6 +119,74 @@ public class ArtifactEntryServiceTest
         artifactEntryService.deleteAll();
     }
 
+    /**
+     * Make sure that the entries can be looked up by their location (both through the index and the cached record id).
+     */
+    @Test
+    public void searchByPath()
+            throws Exception
+    {
+        artifactEntryService.deleteAll();
+        createArtifacts(groupId, artifactId, storageId, repositoryId);
+
+        String path = new MavenArtifactCoordinates(groupId, artifactId, "1.2.3", null, "jar").toPath();
+
+        for (int i = 0; i < 2; i++)
+        {
+            ArtifactEntry artifactEntry = artifactEntryService.findOne(storageId, repositoryId, path)
+                                                              .orElse(null);
+            assertNotNull(artifactEntry);
+            assertEquals(path, artifactEntry.getArtifactPath());
+            assertEquals(artifactId, artifactEntry.getArtifactCoordinates()
+                                                  .getCoordinate("artifactId"));
+        }
+
+        assertFalse(artifactEntryService.findOne(storageId, "snapshots", path).isPresent());
+
+        artifactEntryService.deleteAll();
+
+        assertFalse(artifactEntryService.findOne(storageId, repositoryId, path).isPresent());
+    }
+
+    /**
+     * Make sure that the paths of the existing entries can be updated in batches, and that an entry can't be stored
+     * twice under the same path.
+     */
+    @Test
+    public void updateArtifactPaths()
+            throws Exception
+    {
+        artifactEntryService.deleteAll();
+        createArtifacts(groupId, artifactId, storageId, repositoryId);
+
+        int batches = 0;
+        String lastRecordId = null;
+        do
+        {
+            lastRecordId = artifactEntryService.updateArtifactPaths(lastRecordId, 2);
+            batches++;
+        }
+        while (lastRecordId != null);
+
+        assertEquals(3, batches);
+        assertEquals(3, artifactEntryService.count());
+
+        ArtifactCoordinates coordinates = new MavenArtifactCoordinates(groupId, artifactId, "1.2.3", null, "jar");
+        assertTrue(artifactEntryService.findOne(storageId, repositoryId, coordinates.toPath()).isPresent());
+
+        try
+        {
+            createArtifactEntry(coordinates, storageId, repositoryId);
+            fail("An entry with the same path must not be stored again.");
+        }
+        catch (RuntimeException e)
+        {
+            // Expected
+        }
+
+        artifactEntryService.deleteAll();
+    }
+
     public void displayAllEntries()
     {
         logger.info("[displayAllEntries] ->>>> ...... ");
@@ -0,0 +1,149 @@
+package org.carlspring.strongbox.services;
+
+import org.carlspring.strongbox.artifact.coordinates.ArtifactCoordinates;
+import org.carlspring.strongbox.artifact.coordinates.MavenArtifactCoordinates;
+import org.carlspring.strongbox.config.StorageApiConfig;
+import org.carlspring.strongbox.data.service.BatchingEntityWriter;
+import org.carlspring.strongbox.domain.ArtifactEntry;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the multi-record saves of {@link ArtifactEntryService} and the {@link BatchingEntityWriter} which uses them.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { StorageApiConfig.class })
+public class BatchingEntityWriterTest
+{
+
+    private static final String STORAGE_ID = "storage0";
+
+    private static final String REPOSITORY_ID = "batching-entity-writer-releases";
+
+    private static final String GROUP_ID = "org.carlspring.strongbox.writer";
+
+    @Inject
+    ArtifactEntryService artifactEntryService;
+
+    private BatchingEntityWriter<ArtifactEntry> writer;
+
+
+    @Before
+    public void setUp()
+    {
+        artifactEntryService.deleteAll();
+
+        writer = new BatchingEntityWriter<>("test-artifact-entry-writer", artifactEntryService, 10, 1000, 100);
+        writer.start();
+    }
+
+    @After
+    public void tearDown()
+            throws Exception
+    {
+        writer.stop();
+
+        artifactEntryService.deleteAll();
+    }
+
+    @Test
+    public void testSaveMultipleEntities()
+    {
+        List<ArtifactEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 3; i++)
+        {
+            entries.add(createArtifactEntry("save-test", "1." + i));
+        }
+
+        List<String> uuids = new ArrayList<>();
+        for (ArtifactEntry entry : artifactEntryService.save(entries))
+        {
+            assertNotNull(entry.getObjectId());
+            uuids.add(entry.getUuid());
+        }
+
+        assertEquals(3, artifactEntryService.count());
+
+        // Entities which only have their uuid are updated, rather than stored again.
+        List<ArtifactEntry> updates = new ArrayList<>();
+        for (int i = 0; i < 3; i++)
+        {
+            ArtifactEntry update = createArtifactEntry("save-test", "1." + i);
+            update.setUuid(uuids.get(i));
+            updates.add(update);
+        }
+
+        artifactEntryService.save(updates);
+
+        assertEquals(3, artifactEntryService.count());
+        assertTrue(artifactEntryService.findOne(STORAGE_ID,
+                                                REPOSITORY_ID,
+                                                updates.get(0).getArtifactCoordinates().toPath())
+                                       .isPresent());
+    }
+
+    @Test
+    public void testEntitiesAreWrittenInBatches()
+            throws Exception
+    {
+        for (int i = 0; i < 25; i++)
+        {
+            writer.write(createArtifactEntry("batch-test", "1." + i));
+        }
+
+        assertTrue(writer.flush(30, TimeUnit.SECONDS));
+
+        assertEquals(0, writer.getPending());
+        assertEquals(25, writer.getWrittenEntityCount());
+        assertEquals(0, writer.getFailedEntityCount());
+        assertTrue("The entities should have been written in batches!",
+                   writer.getBatchCount() >= 3 && writer.getBatchCount() < 25);
+        assertTrue(writer.getMaxBatchSize() <= 10);
+        assertEquals(25, artifactEntryService.count());
+    }
+
+    @Test
+    public void testFailedBatchIsWrittenEntityByEntity()
+            throws Exception
+    {
+        artifactEntryService.save(createArtifactEntry("retry-test", "1.0"));
+
+        writer.write(createArtifactEntry("retry-test", "1.1"));
+        // The path of this one is already taken, so the whole batch fails.
+        writer.write(createArtifactEntry("retry-test", "1.0"));
+        writer.write(createArtifactEntry("retry-test", "1.2"));
+
+        assertTrue(writer.flush(30, TimeUnit.SECONDS));
+
+        assertEquals("Only the duplicate should have been lost!", 1, writer.getFailedEntityCount());
+        assertEquals(2, writer.getWrittenEntityCount());
+        assertEquals(3, artifactEntryService.count());
+    }
+
+    private ArtifactEntry createArtifactEntry(String artifactId,
+                                              String version)
+    {
+        ArtifactCoordinates coordinates = new MavenArtifactCoordinates(GROUP_ID, artifactId, version, null, "jar");
+
+        ArtifactEntry artifactEntry = new ArtifactEntry();
+        artifactEntry.setArtifactCoordinates(coordinates);
+        artifactEntry.setStorageId(STORAGE_ID);
+        artifactEntry.setRepositoryId(REPOSITORY_ID);
+
+        return artifactEntry;
+    }
+
+}
@@ -10,16 +10,21 @@ import java.security.NoSuchAlgorithmException;
 import org.junit.Ignore;
 import org.junit.Test;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 /**
  * @author mtodorov
  */
-@Ignore
 public class ChecksumCacheManagerTest
 {
 
+    private static final String ARTIFACT_BASE_PATH = "storage0/repositories/releases/org/carlspring/maven/test-project/1.0/test-project-1.0.jar";
 
+
+    @Ignore
     @Test
     public void testChecksumManagement()
             throws Exception
@@ -56,6 +61,87 @@ public class ChecksumCacheManagerTest
         checkerThread.interrupt();
     }
 
+    @Test
+    public void testHitsAndMisses()
+    {
+        ChecksumCacheManager manager = new ChecksumCacheManager();
+        manager.addArtifactChecksum(ARTIFACT_BASE_PATH, "md5", "120ea8a25e5d487bf68b5f7096440019");
+
+        assertEquals("120ea8a25e5d487bf68b5f7096440019", manager.getArtifactChecksum(ARTIFACT_BASE_PATH, "md5"));
+        assertNull(manager.getArtifactChecksum(ARTIFACT_BASE_PATH + ".pom", "md5"));
+
+        assertEquals(1, manager.getHits());
+        assertEquals(1, manager.getMisses());
+    }
+
+    @Test
+    public void testEachLookupIsCountedOnce()
+    {
+        ChecksumCacheManager manager = new ChecksumCacheManager();
+        manager.addArtifactChecksum(ARTIFACT_BASE_PATH, "md5", "120ea8a25e5d487bf68b5f7096440019");
+
+        assertTrue(manager.containsArtifactPath(ARTIFACT_BASE_PATH));
+        assertTrue(manager.validateChecksum(ARTIFACT_BASE_PATH, "md5", "120ea8a25e5d487bf68b5f7096440019"));
+        assertEquals(1, manager.getHits());
+
+        // The artifact is cached, but not the requested checksum.
+        assertNull(manager.getArtifactChecksum(ARTIFACT_BASE_PATH, "sha1"));
+        assertEquals(1, manager.getHits());
+        assertEquals(1, manager.getMisses());
+    }
+
+    @Test
+    public void testClaimingTheLastChecksumRemovesTheArtifact()
+    {
+        ChecksumCacheManager manager = new ChecksumCacheManager();
+        manager.addArtifactChecksum(ARTIFACT_BASE_PATH, "md5", "120ea8a25e5d487bf68b5f7096440019");
+        manager.addArtifactChecksum(ARTIFACT_BASE_PATH, "sha1", "afa6c8b3a2fae95785dc7d9685a57835d703ac88");
+
+        manager.removeArtifactChecksum(ARTIFACT_BASE_PATH, "md5");
+
+        assertTrue(manager.containsArtifactPath(ARTIFACT_BASE_PATH));
+
+        manager.removeArtifactChecksum(ARTIFACT_BASE_PATH, "sha1");
+
+        assertFalse(manager.containsArtifactPath(ARTIFACT_BASE_PATH));
+        assertEquals(0, manager.getSize());
+    }
+
+    @Test
+    public void testUnclaimedChecksumsExpire()
+            throws Exception
+    {
+        ChecksumCacheManager manager = new ChecksumCacheManager();
+        manager.setCachedChecksumLifetime(50L);
+        manager.addArtifactChecksum(ARTIFACT_BASE_PATH, "md5", "120ea8a25e5d487bf68b5f7096440019");
+        manager.addArtifactChecksum(ARTIFACT_BASE_PATH + ".pom", "md5", "120ea8a25e5d487bf68b5f7096440019");
+
+        Thread.sleep(100L);
+
+        // Expired entries are never served, even if they haven't been removed yet.
+        assertNull(manager.getArtifactChecksum(ARTIFACT_BASE_PATH, "md5"));
+
+        manager.removeExpiredChecksums();
+
+        assertEquals(0, manager.getSize());
+        assertEquals(2, manager.getExpired());
+    }
+
+    @Test
+    public void testCacheIsBounded()
+    {
+        ChecksumCacheManager manager = new ChecksumCacheManager();
+        manager.setMaxSize(10);
+
+        for (int i = 0; i < 25; i++)
+        {
+            manager.addArtifactChecksum(ARTIFACT_BASE_PATH + "." + i, "md5", "120ea8a25e5d487bf68b5f7096440019");
+        }
+
+        assertTrue("The cache should not grow beyond its maximum size!", manager.getSize() <= 10);
+        assertEquals(15, manager.getEvicted());
+    }
+
     @Test
     public void testDigests()
             throws NoSuchAlgorithmException, IOException, CloneNotSupportedException
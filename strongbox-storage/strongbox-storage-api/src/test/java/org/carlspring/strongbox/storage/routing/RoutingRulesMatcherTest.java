@@ -0,0 +1,97 @@
+package org.carlspring.strongbox.storage.routing;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RoutingRulesMatcherTest
+{
+
+    @Test
+    public void testLiteralPrefixes()
+    {
+        assertEquals("org/carlspring/", RoutingRulesMatcher.getLiteralPrefix("org/carlspring/.*"));
+        assertEquals("org/carlspring", RoutingRulesMatcher.getLiteralPrefix("org/carlspring\\.foo/.*"));
+        assertEquals("com/fo", RoutingRulesMatcher.getLiteralPrefix("com/foo?/.*"));
+        assertEquals("", RoutingRulesMatcher.getLiteralPrefix(".*(com|org)/artifacts.in.releases.*"));
+        assertEquals("", RoutingRulesMatcher.getLiteralPrefix("org/foo/.*|com/bar/.*"));
+    }
+
+    @Test
+    public void testAcceptRulesAreMatchedInOrder()
+    {
+        RoutingRules routingRules = new RoutingRules();
+        routingRules.addAcceptRule("group-releases",
+                                   createRuleSet("group-releases",
+                                                 new RoutingRule("org/carlspring/.*", repositories("releases")),
+                                                 new RoutingRule(".*\\.pom", repositories("releases-with-poms")),
+                                                 new RoutingRule("com/foo/.*", repositories("foo-releases"))));
+
+        RoutingRulesMatcher matcher = new RoutingRulesMatcher(routingRules);
+
+        List<RoutingRulesMatcher.CompiledRoutingRule> rules =
+                matcher.getAcceptRules("group-releases", "org/carlspring/bar/1.0/bar-1.0.pom");
+
+        assertEquals(2, rules.size());
+        assertEquals("org/carlspring/.*", rules.get(0).getPattern());
+        assertEquals(".*\\.pom", rules.get(1).getPattern());
+
+        assertTrue(matcher.getAcceptRules("group-releases", "net/example/1.0/example-1.0.jar").isEmpty());
+        assertTrue(matcher.getAcceptRules("group-snapshots", "org/carlspring/bar/1.0/bar-1.0.pom").isEmpty());
+    }
+
+    @Test
+    public void testDenyRules()
+    {
+        RoutingRules routingRules = new RoutingRules();
+        routingRules.addDenyRule("group-releases",
+                                 createRuleSet("group-releases",
+                                               new RoutingRule("org/carlspring/.*", repositories("releases"))));
+        routingRules.addDenyRule(RoutingRules.WILDCARD,
+                                 createRuleSet(RoutingRules.WILDCARD,
+                                               new RoutingRule(".*-sources\\.jar", repositories("carlspring"))));
+
+        RoutingRulesMatcher matcher = new RoutingRulesMatcher(routingRules);
+
+        assertTrue(matcher.rejects("group-releases", "releases", "org/carlspring/bar/1.0/bar-1.0.jar"));
+        assertFalse(matcher.rejects("group-releases", "snapshots", "org/carlspring/bar/1.0/bar-1.0.jar"));
+        assertFalse(matcher.rejects("group-releases", "releases", "com/foo/1.0/foo-1.0.jar"));
+
+        assertTrue(matcher.rejects("group-other", "carlspring", "com/foo/1.0/foo-1.0-sources.jar"));
+        assertFalse(matcher.rejects("group-other", "carlspring", "com/foo/1.0/foo-1.0.jar"));
+    }
+
+    @Test
+    public void testInvalidPatternsAreIgnored()
+    {
+        RoutingRules routingRules = new RoutingRules();
+        routingRules.addDenyRule("group-releases",
+                                 createRuleSet("group-releases",
+                                               new RoutingRule("org/carlspring/(.*", repositories("releases"))));
+
+        RoutingRulesMatcher matcher = new RoutingRulesMatcher(routingRules);
+
+        assertFalse(matcher.rejects("group-releases", "releases", "org/carlspring/bar/1.0/bar-1.0.jar"));
+    }
+
+    private RuleSet createRuleSet(String groupRepositoryId,
+                                  RoutingRule... rules)
+    {
+        RuleSet ruleSet = new RuleSet();
+        ruleSet.setGroupRepository(groupRepositoryId);
+        ruleSet.setRoutingRules(Arrays.asList(rules));
+
+        return ruleSet;
+    }
+
+    private LinkedHashSet<String> repositories(String... repositoryIds)
+    {
+        return new LinkedHashSet<>(Arrays.asList(repositoryIds));
+    }
+
+}
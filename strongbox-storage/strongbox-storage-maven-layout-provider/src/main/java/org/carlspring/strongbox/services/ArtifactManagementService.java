@@ -1,6 +1,7 @@
 package org.carlspring.strongbox.services;
 
 import org.carlspring.strongbox.client.ArtifactTransportException;
+import org.carlspring.strongbox.io.RepositoryPath;
 import org.carlspring.strongbox.providers.ProviderImplementationException;
 import org.carlspring.strongbox.storage.Storage;
 
@@ -29,6 +30,11 @@ public interface ArtifactManagementService extends ConfigurationService
                    ArtifactTransportException,
                    ProviderImplementationException;
 
+    RepositoryPath resolvePath(String storageId,
+                               String repositoryId,
+                               String path)
+            throws IOException;
+
     void delete(String storageId,
                 String repositoryId,
                 String artifactPath,
@@ -1,13 +1,14 @@
 package org.carlspring.strongbox.services.impl;
 
-import org.carlspring.strongbox.artifact.locator.ArtifactDirectoryLocator;
 import org.carlspring.strongbox.configuration.Configuration;
 import org.carlspring.strongbox.configuration.ConfigurationManager;
-import org.carlspring.strongbox.handlers.ArtifactLocationGenerateMavenIndexOperation;
 import org.carlspring.strongbox.services.ArtifactIndexesService;
 import org.carlspring.strongbox.services.RepositoryManagementService;
 import org.carlspring.strongbox.storage.Storage;
+import org.carlspring.strongbox.storage.indexing.IndexTypeEnum;
+import org.carlspring.strongbox.storage.indexing.RepositoryIndexCrawler;
 import org.carlspring.strongbox.storage.indexing.RepositoryIndexManager;
+import org.carlspring.strongbox.storage.indexing.RepositoryIndexer;
 import org.carlspring.strongbox.storage.repository.Repository;
 
 import javax.inject.Inject;
@@ -46,15 +47,16 @@ public class ArtifactIndexesServiceImpl
         Storage storage = getConfiguration().getStorage(storageId);
         Repository repository = storage.getRepository(repositoryId);
 
-        ArtifactLocationGenerateMavenIndexOperation operation = new ArtifactLocationGenerateMavenIndexOperation(repositoryIndexManager);
+        RepositoryIndexer indexer = repositoryIndexManager.getRepositoryIndexer(storageId + ":" + repositoryId + ":" +
+                                                                                IndexTypeEnum.LOCAL.getType());
+        if (indexer == null)
+        {
+            logger.debug("Repository " + storageId + ":" + repositoryId + " has no index to rebuild.");
 
-        operation.setStorage(storage);
-        operation.setRepository(repository);
-        operation.setBasePath(artifactPath);
+            return;
+        }
 
-        ArtifactDirectoryLocator locator = new ArtifactDirectoryLocator();
-        locator.setOperation(operation);
-        locator.locateArtifactDirectories();
+        new RepositoryIndexCrawler(indexer).crawl(artifactPath);
 
         if (artifactPath == null && repository.isIndexingEnabled())
         {
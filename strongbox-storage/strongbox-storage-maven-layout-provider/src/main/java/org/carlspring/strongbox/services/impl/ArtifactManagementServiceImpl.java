@@ -7,6 +7,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -15,19 +16,21 @@ import javax.inject.Inject;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.maven.artifact.Artifact;
+import org.apache.maven.index.ArtifactInfo;
 import org.carlspring.maven.commons.util.ArtifactUtils;
 import org.carlspring.strongbox.artifact.coordinates.ArtifactCoordinates;
 import org.carlspring.strongbox.artifact.locator.ArtifactDirectoryLocator;
 import org.carlspring.strongbox.client.ArtifactTransportException;
 import org.carlspring.strongbox.configuration.Configuration;
 import org.carlspring.strongbox.configuration.ConfigurationManager;
-import org.carlspring.strongbox.domain.ArtifactEntry;
+import org.carlspring.strongbox.event.ArtifactEvent;
+import org.carlspring.strongbox.event.ArtifactEventListenerRegistry;
 import org.carlspring.strongbox.handlers.RemoveTimestampedSnapshotOperation;
 import org.carlspring.strongbox.io.ArtifactOutputStream;
+import org.carlspring.strongbox.io.RepositoryPath;
 import org.carlspring.strongbox.providers.ProviderImplementationException;
 import org.carlspring.strongbox.providers.layout.LayoutProvider;
 import org.carlspring.strongbox.providers.layout.LayoutProviderRegistry;
-import org.carlspring.strongbox.services.ArtifactEntryService;
 import org.carlspring.strongbox.services.ArtifactManagementService;
 import org.carlspring.strongbox.services.ArtifactResolutionService;
 import org.carlspring.strongbox.services.VersionValidatorService;
@@ -35,6 +38,7 @@ import org.carlspring.strongbox.storage.ArtifactStorageException;
 import org.carlspring.strongbox.storage.Storage;
 import org.carlspring.strongbox.storage.checksum.ArtifactChecksum;
 import org.carlspring.strongbox.storage.checksum.ChecksumCacheManager;
+import org.carlspring.strongbox.storage.indexing.IndexTypeEnum;
 import org.carlspring.strongbox.storage.indexing.RepositoryIndexManager;
 import org.carlspring.strongbox.storage.indexing.RepositoryIndexer;
 import org.carlspring.strongbox.storage.repository.Repository;
@@ -59,6 +63,8 @@ public class ArtifactManagementServiceImpl
 
     private static final Logger logger = LoggerFactory.getLogger(ArtifactManagementServiceImpl.class);
 
+    private static final int STORE_BUFFER_SIZE = 64 * 1024;
+
     @Inject
     private ArtifactResolutionService artifactResolutionService;
 
@@ -84,7 +90,10 @@ public class ArtifactManagementServiceImpl
     private LayoutProviderRegistry layoutProviderRegistry;
 
     @Inject
-    private ArtifactEntryService artifactEntryService;
+    private ArtifactEventListenerRegistry artifactEventListenerRegistry;
+
+    @Inject
+    private ArtifactPostStoreProcessor artifactPostStoreProcessor;
     
     @Override
     @Transactional
@@ -109,22 +118,25 @@ public class ArtifactManagementServiceImpl
                 os.setCacheOutputStream(new ByteArrayOutputStream());
             }
 
+            // The digests are calculated while writing, so the artifact only has to be read once.
             int readLength;
-            byte[] bytes = new byte[4096];
+            byte[] bytes = new byte[STORE_BUFFER_SIZE];
             while ((readLength = is.read(bytes, 0, bytes.length)) != -1)
             {
                 // Write the artifact
                 os.write(bytes, 0, readLength);
-                os.flush();
             }
 
+            os.flush();
+
             if (!os.getDigestMap()
                    .isEmpty())
             {
                 // Store artifact Digests in cache if we have them.
                 addChecksumsToCacheManager(os.getDigestMap(), artifactPath);
-                addArtifactToIndex(storageId, repositoryId, path);
-                storeArtifact(storageId, repositoryId, path);
+
+                // Indexing and recording the artifact don't need to hold up the deployer.
+                artifactPostStoreProcessor.submit(storageId, repositoryId, path);
             }
             else
             {
@@ -139,57 +151,13 @@ public class ArtifactManagementServiceImpl
         {
             throw new ArtifactStorageException(e);
         }
-    }
-
-    private void storeArtifact(String storageId,
-                               String repositoryId,
-                               String path)
-    {
-        ArtifactCoordinates artifactCoordinates = artifactResolutionService.getArtifactCoordinates(storageId,
-                                                                                                   repositoryId, path);
-
-        ArtifactEntry artifactEntry = artifactEntryService.findOne(artifactCoordinates)
-                                                          .orElse(createArtifactEntry(artifactCoordinates, storageId,
-                                                                                      repositoryId));
-        artifactEntryService.save(artifactEntry);
-    }
 
-    private ArtifactEntry createArtifactEntry(ArtifactCoordinates artifactCoordinates,
-                                              String storageId,
-                                              String repositoryId)
-    {
-        ArtifactEntry artifactEntry = new ArtifactEntry();
-        artifactEntry.setStorageId(storageId);
-        artifactEntry.setRepositoryId(repositoryId);
-        artifactEntry.setArtifactCoordinates(artifactCoordinates);
-        return artifactEntry;
-    }
-
-    private void addArtifactToIndex(String storageId,
-                                    String repositoryId,
-                                    String path)
-        throws IOException
-    {
-        if (!ArtifactFileUtils.isArtifactFile(path))
-        {
-            return;
-        }
-        
-        RepositoryIndexer indexer = repositoryIndexManager.getRepositoryIndexer(storageId + ":" + repositoryId);
-        if (indexer == null)
-        {
-            return;
-        }
-        
-        Artifact artifact = ArtifactUtils.convertPathToArtifact(path);
-        Storage storage = getStorage(storageId);
-        File storageBasedir = new File(storage.getBasedir());
-        File artifactFile = new File(new File(storageBasedir, repositoryId), path).getCanonicalFile();
-        
-        if (!artifactFile.getName().endsWith(".pom"))
-        {
-            indexer.addArtifactToIndex(repositoryId, artifactFile, artifact);
-        }
+        artifactEventListenerRegistry.dispatchEvent(new ArtifactEvent(storageId,
+                                                                      repositoryId,
+                                                                      path,
+                                                                      ArtifactFileUtils.isChecksum(path) ?
+                                                                      ArtifactEvent.EVENT_ARTIFACT_CHECKSUM_UPLOADED :
+                                                                      ArtifactEvent.EVENT_ARTIFACT_UPLOADED));
     }
 
     @Override
@@ -217,6 +185,15 @@ public class ArtifactManagementServiceImpl
         return null;
     }
 
+    @Override
+    public RepositoryPath resolvePath(String storageId,
+                                      String repositoryId,
+                                      String path)
+            throws IOException
+    {
+        return artifactResolutionService.resolvePath(storageId, repositoryId, path);
+    }
+
     private boolean performRepositoryAcceptanceValidation(String storageId,
                                                           String repositoryId,
                                                           String path)
@@ -272,27 +249,35 @@ public class ArtifactManagementServiceImpl
             LayoutProvider layoutProvider = getLayoutProvider(repository, layoutProviderRegistry);
             layoutProvider.delete(storageId, repositoryId, artifactPath, force);
 
-            final RepositoryIndexer indexer = repositoryIndexManager.getRepositoryIndexer(storageId + ":" + repositoryId);
-            if (indexer != null)
+            final RepositoryIndexer indexer = repositoryIndexManager.getRepositoryIndexer(storageId + ":" +
+                                                                                          repositoryId + ":" +
+                                                                                          IndexTypeEnum.LOCAL.getType());
+            // Only the artifacts themselves are indexed (the poms are added to the documents of their artifacts).
+            if (indexer != null && ArtifactFileUtils.isArtifactFile(artifactPath) && !artifactPath.endsWith(".pom"))
             {
                 String extension = artifactPath.substring(artifactPath.lastIndexOf('.') + 1, artifactPath.length());
 
                 final Artifact a = ArtifactUtils.convertPathToArtifact(artifactPath);
+                final String classifier = a.getClassifier() != null && !a.getClassifier().isEmpty() ?
+                                          a.getClassifier() : null;
 
-                /* TODO: This needs to be properly fixed:
                 indexer.delete(Collections.singletonList(new ArtifactInfo(repositoryId,
                                                                           a.getGroupId(),
                                                                           a.getArtifactId(),
                                                                           a.getVersion(),
-                                                                          a.getClassifier(),
+                                                                          classifier,
                                                                           extension)));
-                */
             }
         }
         catch (IOException | ProviderImplementationException e)
         {
             throw new ArtifactStorageException(e.getMessage(), e);
         }
+
+        artifactEventListenerRegistry.dispatchEvent(new ArtifactEvent(storageId,
+                                                                      repositoryId,
+                                                                      artifactPath,
+                                                                      ArtifactEvent.EVENT_ARTIFACT_DELETED));
     }
 
     @Override
@@ -331,8 +316,13 @@ public class ArtifactManagementServiceImpl
         else
         {
             FileUtils.copyFile(srcFile, destFile);
-            addArtifactToIndex(destStorageId, destRepositoryId, path);
+            artifactPostStoreProcessor.addArtifactToIndex(destStorageId, destRepositoryId, path);
         }
+
+        artifactEventListenerRegistry.dispatchEvent(new ArtifactEvent(destStorageId,
+                                                                      destRepositoryId,
+                                                                      path,
+                                                                      ArtifactEvent.EVENT_ARTIFACT_UPLOADED));
     }
 
     private void validateUploadedChecksumAgainstCache(byte[] checksum,
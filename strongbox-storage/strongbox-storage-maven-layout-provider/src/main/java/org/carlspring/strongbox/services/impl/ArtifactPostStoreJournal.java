@@ -0,0 +1,312 @@
+package org.carlspring.strongbox.services.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An append-only journal of the artifacts which have been stored, but not processed by the
+ * {@link ArtifactPostStoreProcessor} yet.
+ * <p>
+ * The journal is split into segments of (at most) a fixed number of records. Once a segment is full, the records
+ * are appended to the next one, and as soon as all of its records have been processed, the full segment is deleted.
+ * The journal therefore only holds the segments which still have unprocessed records, however long the server has
+ * been running. The records are appended without holding a lock (the channels append atomically) and they are not
+ * forced to the disk.
+ * <p>
+ * When the journal is reopened, all the records of the remaining segments are replayed, including the ones which had
+ * already been processed, so processing a record has to be idempotent.
+ */
+public class ArtifactPostStoreJournal
+        implements Closeable
+{
+
+    private static final Logger logger = LoggerFactory.getLogger(ArtifactPostStoreJournal.class);
+
+    public static final int DEFAULT_SEGMENT_SIZE = 1024;
+
+    private static final String SEGMENT_PREFIX = "segment-";
+
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    /**
+     * The records which the previous run has left unprocessed.
+     */
+    private final List<Entry> unprocessed = new ArrayList<>();
+
+    private Segment current;
+
+    private long nextSegmentId;
+
+    private boolean closed;
+
+
+    public ArtifactPostStoreJournal(Path directory)
+            throws IOException
+    {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public ArtifactPostStoreJournal(Path directory,
+                                    int segmentSize)
+            throws IOException
+    {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+
+        Files.createDirectories(directory);
+
+        TreeMap<Long, Path> segmentFiles = findSegments();
+        for (Long id : segmentFiles.keySet())
+        {
+            Segment segment = new Segment(segmentFiles.get(id));
+            segment.full = true;
+
+            for (String record : Files.readAllLines(segment.path, StandardCharsets.UTF_8))
+            {
+                if (!record.isEmpty())
+                {
+                    segment.outstanding++;
+                    unprocessed.add(new Entry(this, record, segment));
+                }
+            }
+
+            if (segment.outstanding == 0)
+            {
+                Files.deleteIfExists(segment.path);
+            }
+
+            nextSegmentId = id + 1;
+        }
+
+        current = openSegment();
+    }
+
+    /**
+     * @return the records which the previous run has left unprocessed, in the order in which they were appended
+     */
+    public List<Entry> getUnprocessed()
+    {
+        return Collections.unmodifiableList(unprocessed);
+    }
+
+    /**
+     * Appends the record, which is then expected to be {@link Entry#processed()}. The record must not contain any line
+     * breaks.
+     */
+    public Entry append(String record)
+            throws IOException
+    {
+        Segment segment;
+        synchronized (this)
+        {
+            if (closed)
+            {
+                throw new IOException("The journal " + directory + " has been closed.");
+            }
+
+            segment = current;
+            segment.outstanding++;
+            if (++segment.appended >= segmentSize)
+            {
+                segment.full = true;
+                current = openSegment();
+            }
+        }
+
+        Entry entry = new Entry(this, record, segment);
+
+        // The segment can't be deleted while this is being written, as the entry hasn't been processed yet.
+        ByteBuffer buffer = ByteBuffer.wrap((record + "\n").getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining())
+        {
+            segment.channel.write(buffer);
+        }
+
+        return entry;
+    }
+
+    /**
+     * @return the number of segments which are kept on the disk
+     */
+    public int getSegmentCount()
+            throws IOException
+    {
+        return findSegments().size();
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        Segment segment;
+        synchronized (this)
+        {
+            if (closed)
+            {
+                return;
+            }
+
+            closed = true;
+            segment = current;
+            segment.full = true;
+        }
+
+        segment.channel.close();
+
+        synchronized (this)
+        {
+            if (segment.outstanding > 0)
+            {
+                return;
+            }
+        }
+
+        Files.deleteIfExists(segment.path);
+    }
+
+    private void processed(Entry entry)
+    {
+        Segment segment = entry.segment;
+        synchronized (this)
+        {
+            if (--segment.outstanding > 0 || !segment.full)
+            {
+                return;
+            }
+        }
+
+        try
+        {
+            if (segment.channel != null)
+            {
+                segment.channel.close();
+            }
+
+            Files.deleteIfExists(segment.path);
+        }
+        catch (IOException e)
+        {
+            logger.warn("Failed to delete the processed journal segment " + segment.path + ".", e);
+        }
+    }
+
+    private Segment openSegment()
+            throws IOException
+    {
+        Segment segment = new Segment(directory.resolve(String.format("%s%019d%s",
+                                                                      SEGMENT_PREFIX,
+                                                                      nextSegmentId++,
+                                                                      SEGMENT_SUFFIX)));
+        segment.channel = FileChannel.open(segment.path,
+                                           StandardOpenOption.CREATE,
+                                           StandardOpenOption.WRITE,
+                                           StandardOpenOption.APPEND);
+
+        return segment;
+    }
+
+    private TreeMap<Long, Path> findSegments()
+            throws IOException
+    {
+        TreeMap<Long, Path> segments = new TreeMap<>();
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory,
+                                                                    SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX))
+        {
+            for (Path path : paths)
+            {
+                String fileName = path.getFileName().toString();
+                String id = fileName.substring(SEGMENT_PREFIX.length(), fileName.length() - SEGMENT_SUFFIX.length());
+                try
+                {
+                    segments.put(Long.parseLong(id), path);
+                }
+                catch (NumberFormatException e)
+                {
+                    logger.warn("Ignoring " + path + ", which is not a journal segment.");
+                }
+            }
+        }
+
+        return segments;
+    }
+
+    public static final class Entry
+    {
+
+        private final ArtifactPostStoreJournal journal;
+
+        private final String record;
+
+        private final Segment segment;
+
+
+        private Entry(ArtifactPostStoreJournal journal,
+                      String record,
+                      Segment segment)
+        {
+            this.journal = journal;
+            this.record = record;
+            this.segment = segment;
+        }
+
+        public String getRecord()
+        {
+            return record;
+        }
+
+        /**
+         * Marks the record as processed, so that it isn't replayed any more.
+         */
+        public void processed()
+        {
+            journal.processed(this);
+        }
+
+    }
+
+    private static final class Segment
+    {
+
+        private final Path path;
+
+        /**
+         * The channel through which the records are appended (<code>null</code> for the segments of a previous run).
+         */
+        private FileChannel channel;
+
+        private int appended;
+
+        private int outstanding;
+
+        /**
+         * Whether no more records will be appended to this segment.
+         */
+        private boolean full;
+
+
+        Segment(Path path)
+        {
+            this.path = path;
+        }
+
+    }
+
+}
@@ -0,0 +1,573 @@
+package org.carlspring.strongbox.services.impl;
+
+import org.carlspring.maven.commons.util.ArtifactUtils;
+import org.carlspring.strongbox.artifact.coordinates.ArtifactCoordinates;
+import org.carlspring.strongbox.configuration.ConfigurationManager;
+import org.carlspring.strongbox.data.service.BatchingEntityWriter;
+import org.carlspring.strongbox.domain.ArtifactEntry;
+import org.carlspring.strongbox.resource.ConfigurationResourceResolver;
+import org.carlspring.strongbox.services.ArtifactEntryService;
+import org.carlspring.strongbox.services.ArtifactResolutionService;
+import org.carlspring.strongbox.storage.Storage;
+import org.carlspring.strongbox.storage.indexing.IndexTypeEnum;
+import org.carlspring.strongbox.storage.indexing.RepositoryIndexManager;
+import org.carlspring.strongbox.storage.indexing.RepositoryIndexer;
+import org.carlspring.strongbox.util.ArtifactFileUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.artifact.Artifact;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+/**
+ * Carries out the work which follows the storing of an artifact (adding it to the repository's index and
+ * recording its {@link ArtifactEntry}), so that deployers don't have to wait for it.
+ * <p>
+ * The stored artifacts are queued and processed in batches by a single background thread. Artifacts which have
+ * been stored several times before their turn came are only processed once. The entries of a batch are saved
+ * together by the {@link BatchingEntityWriter}.
+ * <p>
+ * The queue holds at most {@link #DEFAULT_QUEUE_CAPACITY} artifacts. Once it is full, the deployers wait for the
+ * worker to catch up, so a burst of uploads can't exhaust the heap. If the worker isn't running, the artifact is
+ * processed by the deployer's own thread instead.
+ * <p>
+ * Until they have been processed, the submitted artifacts are also appended to an {@link ArtifactPostStoreJournal}
+ * in the vault. The journal drops its segments as soon as their artifacts have been processed, and it is replayed
+ * when the processor is started, so the artifacts which were lost with the queue (because the JVM crashed, or was
+ * killed) are still indexed and recorded. The journal isn't forced to the disk, so the artifacts queued right before
+ * an operating system crash can still be lost; the repository has to be re-indexed in that case.
+ */
+@Component
+@DependsOn("storageBooter")
+public class ArtifactPostStoreProcessor
+{
+
+    private static final Logger logger = LoggerFactory.getLogger(ArtifactPostStoreProcessor.class);
+
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 4096;
+
+    private static final String JOURNAL_DIRECTORY = "artifact-post-store";
+
+    private final Path journalDirectory;
+
+    private final BlockingQueue<StoredArtifact> queue;
+
+    /**
+     * The artifacts of the journal, which were left unprocessed by the previous run.
+     */
+    private final List<StoredArtifact> unprocessed = new ArrayList<>();
+
+    private volatile ArtifactPostStoreJournal journal;
+
+    /**
+     * The number of artifacts which have been submitted, but not processed yet.
+     */
+    private int pending;
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    private volatile boolean running;
+
+    private Thread worker;
+
+    @Inject
+    private ArtifactResolutionService artifactResolutionService;
+
+    @Inject
+    private ArtifactEntryService artifactEntryService;
+
+    @Inject
+    private BatchingEntityWriter<ArtifactEntry> artifactEntryWriter;
+
+    @Inject
+    private RepositoryIndexManager repositoryIndexManager;
+
+    @Inject
+    private ConfigurationManager configurationManager;
+
+
+    public ArtifactPostStoreProcessor()
+    {
+        this(Paths.get(ConfigurationResourceResolver.getVaultDirectory(), JOURNAL_DIRECTORY), DEFAULT_QUEUE_CAPACITY);
+    }
+
+    ArtifactPostStoreProcessor(Path journalDirectory,
+                               int queueCapacity)
+    {
+        this.journalDirectory = journalDirectory;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public synchronized void start()
+    {
+        if (running)
+        {
+            return;
+        }
+
+        running = true;
+
+        openJournal();
+
+        worker = new Thread(this::processQueue, "artifact-post-store");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop()
+            throws InterruptedException
+    {
+        Thread thread;
+        synchronized (this)
+        {
+            running = false;
+            thread = worker;
+            worker = null;
+        }
+
+        if (thread != null)
+        {
+            // Let the worker finish the artifacts which have already been stored.
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        }
+
+        // Whatever is still in the queue is replayed from the journal on the next start.
+        closeJournal();
+    }
+
+    /**
+     * Queues the artifact for indexing and recording in the database. If the queue is full, this waits until there
+     * is room for the artifact.
+     */
+    public void submit(String storageId,
+                       String repositoryId,
+                       String path)
+    {
+        StoredArtifact storedArtifact = new StoredArtifact(storageId, repositoryId, path);
+        appendToJournal(storedArtifact);
+
+        synchronized (this)
+        {
+            pending++;
+        }
+
+        try
+        {
+            while (!queue.offer(storedArtifact, 1, TimeUnit.SECONDS))
+            {
+                if (!running)
+                {
+                    logger.warn("The artifact post-store processor is not running, processing " + storedArtifact +
+                                " directly.");
+
+                    processDirectly(storedArtifact);
+                    return;
+                }
+            }
+        }
+        catch (InterruptedException e)
+        {
+            // The artifact has already been stored, so it still has to be processed.
+            Thread.interrupted();
+            try
+            {
+                processDirectly(storedArtifact);
+            }
+            finally
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void processDirectly(StoredArtifact storedArtifact)
+    {
+        try
+        {
+            process(Collections.singletonList(storedArtifact));
+        }
+        finally
+        {
+            completed(Collections.singletonList(storedArtifact));
+        }
+    }
+
+    /**
+     * Waits until all the artifacts which have been submitted so far have been processed.
+     *
+     * @return <code>true</code>, if there is nothing left to process, <code>false</code>, if the timeout elapsed
+     */
+    public synchronized boolean waitForPendingArtifacts(long timeout,
+                                                        TimeUnit unit)
+            throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + unit.toMillis(timeout);
+        while (pending > 0)
+        {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0)
+            {
+                return false;
+            }
+
+            wait(remaining);
+        }
+
+        return true;
+    }
+
+    public synchronized int getPending()
+    {
+        return pending;
+    }
+
+    public int getBatchSize()
+    {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize)
+    {
+        this.batchSize = batchSize;
+    }
+
+    private void processQueue()
+    {
+        List<StoredArtifact> batch = new ArrayList<>(batchSize);
+
+        List<StoredArtifact> replayed;
+        synchronized (this)
+        {
+            replayed = new ArrayList<>(unprocessed);
+            unprocessed.clear();
+        }
+
+        for (int i = 0; i < replayed.size() && running; i += batchSize)
+        {
+            batch.addAll(replayed.subList(i, Math.min(i + batchSize, replayed.size())));
+            try
+            {
+                process(batch);
+            }
+            catch (RuntimeException e)
+            {
+                logger.error("Failed to process stored artifacts " + batch + ".", e);
+            }
+            finally
+            {
+                completed(batch);
+                batch.clear();
+            }
+        }
+
+        while (running || !queue.isEmpty())
+        {
+            try
+            {
+                StoredArtifact storedArtifact = queue.poll(1, TimeUnit.SECONDS);
+                if (storedArtifact == null)
+                {
+                    continue;
+                }
+
+                batch.add(storedArtifact);
+                queue.drainTo(batch, batchSize - 1);
+
+                process(batch);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            catch (RuntimeException e)
+            {
+                logger.error("Failed to process stored artifacts " + batch + ".", e);
+            }
+            finally
+            {
+                completed(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    void process(List<StoredArtifact> batch)
+    {
+        logger.debug("Processing " + batch.size() + " stored artifact(s)...");
+
+        for (StoredArtifact storedArtifact : new LinkedHashSet<>(batch))
+        {
+            try
+            {
+                storeArtifactEntry(storedArtifact.storageId, storedArtifact.repositoryId, storedArtifact.path);
+                addArtifactToIndex(storedArtifact.storageId, storedArtifact.repositoryId, storedArtifact.path);
+            }
+            catch (IOException | RuntimeException e)
+            {
+                logger.error("Failed to process stored artifact " + storedArtifact + ".", e);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+
+        // The entries of the next batch are looked up first, so these have to be in the database by then.
+        try
+        {
+            if (!artifactEntryWriter.flush(30, TimeUnit.SECONDS))
+            {
+                logger.warn("Timed out while writing the artifact entries of " + batch.size() + " artifact(s).");
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void completed(List<StoredArtifact> batch)
+    {
+        for (StoredArtifact storedArtifact : batch)
+        {
+            if (storedArtifact.journalEntry != null)
+            {
+                storedArtifact.journalEntry.processed();
+            }
+        }
+
+        synchronized (this)
+        {
+            pending -= batch.size();
+            notifyAll();
+        }
+    }
+
+    /**
+     * Opens the journal and reads the artifacts which the previous run has left unprocessed.
+     */
+    private void openJournal()
+    {
+        try
+        {
+            journal = new ArtifactPostStoreJournal(journalDirectory);
+
+            for (ArtifactPostStoreJournal.Entry entry : journal.getUnprocessed())
+            {
+                String[] fields = entry.getRecord().split("\t");
+                if (fields.length != 3)
+                {
+                    logger.warn("Ignoring the malformed journal record [" + entry.getRecord() + "].");
+                    entry.processed();
+                    continue;
+                }
+
+                StoredArtifact storedArtifact = new StoredArtifact(fields[0], fields[1], fields[2]);
+                storedArtifact.journalEntry = entry;
+                unprocessed.add(storedArtifact);
+            }
+
+            if (!unprocessed.isEmpty())
+            {
+                logger.info("Replaying " + unprocessed.size() + " artifact(s), which were stored, but not " +
+                            "processed before the last shutdown.");
+
+                pending += unprocessed.size();
+            }
+        }
+        catch (IOException e)
+        {
+            logger.error("Failed to open the journal " + journalDirectory + ", the artifacts which are queued " +
+                         "when the server stops will have to be re-indexed.", e);
+        }
+    }
+
+    /**
+     * Appends the artifact to the journal. This is done without holding the processor's monitor, so the deployers
+     * don't wait for each other's writes.
+     */
+    private void appendToJournal(StoredArtifact storedArtifact)
+    {
+        ArtifactPostStoreJournal currentJournal = journal;
+        if (currentJournal == null)
+        {
+            return;
+        }
+
+        try
+        {
+            storedArtifact.journalEntry = currentJournal.append(storedArtifact.storageId + "\t" +
+                                                                storedArtifact.repositoryId + "\t" +
+                                                                storedArtifact.path);
+        }
+        catch (IOException e)
+        {
+            logger.warn("Failed to add " + storedArtifact + " to the journal.", e);
+        }
+    }
+
+    private void closeJournal()
+    {
+        ArtifactPostStoreJournal currentJournal = journal;
+        if (currentJournal == null)
+        {
+            return;
+        }
+
+        journal = null;
+        try
+        {
+            currentJournal.close();
+        }
+        catch (IOException e)
+        {
+            logger.warn("Failed to close the journal.", e);
+        }
+    }
+
+    private void storeArtifactEntry(String storageId,
+                                    String repositoryId,
+                                    String path)
+            throws InterruptedException
+    {
+        ArtifactCoordinates artifactCoordinates = artifactResolutionService.getArtifactCoordinates(storageId,
+                                                                                                   repositoryId, path);
+
+        ArtifactEntry artifactEntry = artifactEntryService.findOne(storageId, repositoryId, path)
+                                                          .orElseGet(() -> createArtifactEntry(artifactCoordinates,
+                                                                                               storageId,
+                                                                                               repositoryId,
+                                                                                               path));
+        artifactEntryWriter.write(artifactEntry);
+    }
+
+    private ArtifactEntry createArtifactEntry(ArtifactCoordinates artifactCoordinates,
+                                              String storageId,
+                                              String repositoryId,
+                                              String path)
+    {
+        ArtifactEntry artifactEntry = new ArtifactEntry();
+        artifactEntry.setStorageId(storageId);
+        artifactEntry.setRepositoryId(repositoryId);
+        artifactEntry.setArtifactCoordinates(artifactCoordinates);
+        artifactEntry.setArtifactPath(path);
+        return artifactEntry;
+    }
+
+    public void addArtifactToIndex(String storageId,
+                                   String repositoryId,
+                                   String path)
+        throws IOException
+    {
+        if (!ArtifactFileUtils.isArtifactFile(path))
+        {
+            return;
+        }
+
+        RepositoryIndexer indexer = repositoryIndexManager.getRepositoryIndexer(storageId + ":" + repositoryId + ":" +
+                                                                                IndexTypeEnum.LOCAL.getType());
+        if (indexer == null)
+        {
+            return;
+        }
+
+        Artifact artifact = ArtifactUtils.convertPathToArtifact(path);
+        Storage storage = configurationManager.getConfiguration().getStorage(storageId);
+        File storageBasedir = new File(storage.getBasedir());
+        File artifactFile = new File(new File(storageBasedir, repositoryId), path).getCanonicalFile();
+
+        if (!artifactFile.getName().endsWith(".pom"))
+        {
+            indexer.addArtifactToIndex(repositoryId, artifactFile, artifact);
+        }
+    }
+
+    static final class StoredArtifact
+    {
+
+        private final String storageId;
+
+        private final String repositoryId;
+
+        private final String path;
+
+        /**
+         * The artifact's record in the journal (not a part of its identity).
+         */
+        private ArtifactPostStoreJournal.Entry journalEntry;
+
+
+        StoredArtifact(String storageId,
+                       String repositoryId,
+                       String path)
+        {
+            this.storageId = storageId;
+            this.repositoryId = repositoryId;
+            this.path = path;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (!(o instanceof StoredArtifact))
+            {
+                return false;
+            }
+
+            StoredArtifact that = (StoredArtifact) o;
+
+            return storageId.equals(that.storageId) &&
+                   repositoryId.equals(that.repositoryId) &&
+                   path.equals(that.path);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            int result = storageId.hashCode();
+            result = 31 * result + repositoryId.hashCode();
+            result = 31 * result + path.hashCode();
+
+            return result;
+        }
+
+        String getPath()
+        {
+            return path;
+        }
+
+        @Override
+        public String toString()
+        {
+            return storageId + ":" + repositoryId + ":" + path;
+        }
+
+    }
+
+}
@@ -4,6 +4,7 @@ import org.carlspring.strongbox.configuration.Configuration;
 import org.carlspring.strongbox.configuration.ConfigurationManager;
 import org.carlspring.strongbox.configuration.ConfigurationRepository;
 import org.carlspring.strongbox.configuration.ProxyConfiguration;
+import org.carlspring.strongbox.providers.repository.RemoteRepositoryClientRegistry;
 import org.carlspring.strongbox.services.ConfigurationManagementService;
 import org.carlspring.strongbox.storage.Storage;
 import org.carlspring.strongbox.storage.repository.HttpConnectionPool;
@@ -43,6 +44,9 @@ public class ConfigurationManagementServiceImpl
     @Inject
     ConfigurationRepository configurationRepository;
 
+    @Inject
+    private RemoteRepositoryClientRegistry remoteRepositoryClientRegistry;
+
 
     @Override
     public void setConfiguration(Configuration configuration)
@@ -52,6 +56,8 @@ public class ConfigurationManagementServiceImpl
         configurationManager.setConfiguration(configuration);
         configurationManager.store();
         configurationManager.setRepositoryStorageRelationships();
+
+        remoteRepositoryClientRegistry.clear();
     }
 
     @Override
@@ -148,6 +154,8 @@ public class ConfigurationManagementServiceImpl
         configuration.getStorages().remove(storageId);
         configurationManager.setConfiguration(configuration);
         configurationManager.store();
+
+        remoteRepositoryClientRegistry.invalidate(storageId);
     }
 
     @Override
@@ -160,6 +168,8 @@ public class ConfigurationManagementServiceImpl
                      .saveRepository(repository);
         configurationManager.setConfiguration(configuration);
         configurationManager.store();
+
+        remoteRepositoryClientRegistry.invalidate(storageId, repository.getId());
     }
 
     @Override
@@ -238,6 +248,8 @@ public class ConfigurationManagementServiceImpl
 
         configurationManager.setConfiguration(configuration);
         configurationManager.store();
+
+        remoteRepositoryClientRegistry.invalidate(storageId, repositoryId);
     }
 
     @Override
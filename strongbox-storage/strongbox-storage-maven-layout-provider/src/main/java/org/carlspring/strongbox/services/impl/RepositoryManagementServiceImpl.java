@@ -251,6 +251,9 @@ public class RepositoryManagementServiceImpl
                                                                                              .keySet());
         }
 
+        // The packed index is read from the searcher, so the changes which are still pending have to be in it.
+        indexer.commit();
+
         IndexingContext context = indexer.getIndexingContext();
         final IndexSearcher indexSearcher = context.acquireIndexSearcher();
         try
@@ -21,6 +21,8 @@ import java.security.NoSuchAlgorithmException;
 import java.util.List;
 
 import edu.emory.mathcs.backport.java.util.Arrays;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
 import org.apache.maven.artifact.repository.metadata.Versioning;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -120,15 +122,20 @@ public class MavenChecksumManager
                      {
                          if (!layoutProvider.isExistChecksum(repository, e.getPath()) || forceRegeneration)
                          {
-                             ArtifactInputStream is = null;
-                             try
+                             String artifactPath = e.getPath()
+                                                    .substring(repository.getBasedir()
+                                                                         .length() + 1);
+
+                             // The stored checksums can't be trusted here, so the digests have to be calculated.
+                             try (ArtifactInputStream is = layoutProvider.getInputStream(repository.getStorage()
+                                                                                                   .getId(),
+                                                                                         repository.getId(),
+                                                                                         artifactPath,
+                                                                                         true))
                              {
-                                 String artifactPath = e.getPath()
-                                                        .substring(repository.getBasedir()
-                                                                             .length() + 1);
-                                 is = layoutProvider.getInputStream(repository.getStorage()
-                                                                              .getId(), repository.getId(),
-                                                                    artifactPath);
+                                 IOUtils.copy(is, NullOutputStream.NULL_OUTPUT_STREAM);
+
+                                 writeChecksum(layoutProvider, is, e.getPath());
                              }
                              catch (IOException |
                                             NoSuchAlgorithmException |
@@ -136,8 +143,6 @@ public class MavenChecksumManager
                              {
                                  logger.error(e1.getMessage(), e1);
                              }
-
-                             writeChecksum(layoutProvider, is, e.getPath());
                          }
                      });
     }
@@ -151,7 +156,7 @@ public class MavenChecksumManager
                 .stream()
                 .forEach(e ->
                            {
-                               String checksum = getChecksum(is, filePath, e.toString());
+                               String checksum = is.getMessageDigestAsHexadecimalString(e.toString());
                                String checksumExtension = "." + e.toString()
                                                                  .toLowerCase()
                                                                  .replaceAll("-", "");
@@ -171,17 +176,6 @@ public class MavenChecksumManager
 
     }
 
-    private String getChecksum(ArtifactInputStream is,
-                               String path,
-                               String algorithm)
-    {
-        if (ArtifactUtils.isArtifact(path))
-        {
-            return is.getMessageDigestAsHexadecimalString(algorithm);
-        }
-        return MessageDigestUtils.convertToHexadecimalString(is.getMessageDigest(algorithm));
-    }
-
     private String getVersionDirectoryName(Repository repository,
                                            String version)
     {
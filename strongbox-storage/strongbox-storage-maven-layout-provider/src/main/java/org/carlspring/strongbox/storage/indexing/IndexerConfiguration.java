@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.maven.index.Indexer;
+import org.apache.maven.index.IndexerEngine;
 import org.apache.maven.index.Scanner;
 import org.apache.maven.index.context.IndexCreator;
 import org.springframework.context.annotation.Scope;
@@ -21,6 +22,8 @@ public class IndexerConfiguration
 
     private Indexer indexer;
 
+    private IndexerEngine indexerEngine;
+
     private Scanner scanner;
 
     private Map<String, IndexCreator> indexers;
@@ -28,10 +31,12 @@ public class IndexerConfiguration
 
     @Inject
     public IndexerConfiguration(Indexer indexer,
+                                IndexerEngine indexerEngine,
                                 Scanner scanner,
                                 Map<String, IndexCreator> indexers)
     {
         this.indexer = indexer;
+        this.indexerEngine = indexerEngine;
         this.scanner = scanner;
         this.indexers = indexers;
     }
@@ -57,6 +62,16 @@ public class IndexerConfiguration
         this.indexer = indexer;
     }
 
+    public IndexerEngine getIndexerEngine()
+    {
+        return indexerEngine;
+    }
+
+    public void setIndexerEngine(IndexerEngine indexerEngine)
+    {
+        this.indexerEngine = indexerEngine;
+    }
+
     public Scanner getScanner()
     {
         return scanner;
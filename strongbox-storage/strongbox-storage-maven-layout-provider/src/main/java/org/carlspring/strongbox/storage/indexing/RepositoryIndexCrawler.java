@@ -0,0 +1,629 @@
+package org.carlspring.strongbox.storage.indexing;
+
+import org.carlspring.maven.commons.util.ArtifactUtils;
+import org.carlspring.strongbox.util.ArtifactFileUtils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.lucene.document.Document;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.index.ArtifactContext;
+import org.apache.maven.index.context.IndexingContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Rebuilds the index of a repository by crawling its directories on a {@link ForkJoinPool}.
+ * <p>
+ * Every directory is listed once, by a task of its own, so the tree is partitioned by the groupId prefixes (such as
+ * <code>org</code>, <code>org/apache</code>, ...) and the pool's work stealing balances the large groups against the
+ * small ones. The documents of the artifacts are created by the tasks as well (which is where the artifacts are
+ * read), and are then handed over to the {@link RepositoryIndexWriter} of the repository, which commits them in
+ * batches.
+ * <p>
+ * The partitions at the top of the tree which have been indexed and committed are recorded in a checkpoint file in
+ * the index directory, so that a crawl which has been interrupted (by a restart, for example) can be resumed from
+ * where it stopped. Partitions in which a directory, or an artifact, couldn't be indexed are not recorded, so they
+ * are crawled again. The checkpoint is removed once the whole tree has been crawled. It is ignored if it's older than
+ * {@link #MAX_CHECKPOINT_AGE}, or if the index has been updated since it was created.
+ * <p>
+ * The tasks wait for the writer (when it has fallen behind, or for a checkpoint's commit) through
+ * {@link ForkJoinPool#managedBlock(ForkJoinPool.ManagedBlocker)}, so that the pool can make up for the blocked
+ * workers.
+ */
+public class RepositoryIndexCrawler
+{
+
+    private static final Logger logger = LoggerFactory.getLogger(RepositoryIndexCrawler.class);
+
+    public static final String CHECKPOINT_FILE = "reindex.checkpoint";
+
+    /**
+     * How deep below the starting directory the completed partitions are recorded.
+     */
+    private static final int CHECKPOINT_DEPTH = 2;
+
+    private static final long CHECKPOINT_INTERVAL = TimeUnit.SECONDS.toMillis(30);
+
+    /**
+     * After this long, the repository has probably changed too much for a checkpoint to be resumed from.
+     */
+    public static final long MAX_CHECKPOINT_AGE = TimeUnit.HOURS.toMillis(24);
+
+    private static final long PROGRESS_INTERVAL = TimeUnit.SECONDS.toMillis(10);
+
+    /**
+     * How many documents may be waiting for the writer, before the crawl waits for it to catch up.
+     */
+    private static final int MAX_PENDING_DOCUMENTS = 10000;
+
+    private final RepositoryIndexer repositoryIndexer;
+
+    private final RepositoryIndexWriter indexWriter;
+
+    private final Path repositoryBasedir;
+
+    private final int parallelism;
+
+    private final LongAdder directories = new LongAdder();
+
+    private final LongAdder artifacts = new LongAdder();
+
+    private final LongAdder skipped = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    private final LongAdder resumedPartitions = new LongAdder();
+
+    private final AtomicLong lastProgress = new AtomicLong();
+
+    private Set<String> completedPartitions = Collections.emptySet();
+
+    private final List<String> uncheckpointedPartitions = new ArrayList<>();
+
+    private long lastCheckpoint;
+
+    private BufferedWriter checkpointWriter;
+
+
+    public RepositoryIndexCrawler(RepositoryIndexer repositoryIndexer)
+    {
+        this(repositoryIndexer, Runtime.getRuntime().availableProcessors());
+    }
+
+    public RepositoryIndexCrawler(RepositoryIndexer repositoryIndexer,
+                                  int parallelism)
+    {
+        this.repositoryIndexer = repositoryIndexer;
+        this.indexWriter = repositoryIndexer.getIndexWriter();
+        this.repositoryBasedir = repositoryIndexer.getRepositoryBasedir().toPath().toAbsolutePath().normalize();
+        this.parallelism = parallelism;
+
+        if (indexWriter == null)
+        {
+            throw new IllegalArgumentException("The indexer of " + repositoryIndexer.getContextId() +
+                                               " has no index writer.");
+        }
+    }
+
+    /**
+     * @param basePath the path within the repository to start crawling from, or <code>null</code> to crawl the whole
+     *                 repository
+     * @return the number of artifacts which have been added to the index
+     */
+    public long crawl(String basePath)
+            throws IOException
+    {
+        Path startingPath = repositoryBasedir;
+        if (basePath != null && !basePath.trim().isEmpty())
+        {
+            startingPath = repositoryBasedir.resolve(basePath.replaceAll("^/+", "")).normalize();
+        }
+
+        if (!Files.isDirectory(startingPath))
+        {
+            logger.debug("Nothing to re-index in " + startingPath + ".");
+
+            return 0;
+        }
+
+        long startTime = System.currentTimeMillis();
+        lastProgress.set(startTime);
+        lastCheckpoint = startTime;
+
+        String checkpointKey = toRelativePath(startingPath);
+        Path checkpointFile = repositoryIndexer.getIndexDir().toPath().resolve(CHECKPOINT_FILE);
+
+        boolean completed;
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (BufferedWriter writer = openCheckpoint(checkpointFile, checkpointKey))
+        {
+            checkpointWriter = writer;
+
+            completed = pool.invoke(new DirectoryTask(startingPath, 0));
+
+            finish(completed);
+
+            if (!completed)
+            {
+                // The remaining documents have been committed by now, so the rest of the partitions can be recorded.
+                synchronized (uncheckpointedPartitions)
+                {
+                    writeCheckpoint(uncheckpointedPartitions);
+                    uncheckpointedPartitions.clear();
+                }
+            }
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+
+        if (completed)
+        {
+            Files.deleteIfExists(checkpointFile);
+        }
+
+        logger.info("Re-indexed " + artifacts.sum() + " artifact(s) in " + directories.sum() + " directories of " +
+                    repositoryIndexer.getContextId() + " in " + (System.currentTimeMillis() - startTime) + " ms" +
+                    (resumedPartitions.sum() > 0 ? " (resumed, skipped " + resumedPartitions.sum() +
+                                                   " completed partition(s))" : "") +
+                    (failed.sum() > 0 ? ", " + failed.sum() + " directories could not be read." : "."));
+
+        return artifacts.sum();
+    }
+
+    /**
+     * Reads the partitions which have been completed by a previous crawl from the same starting directory, and opens
+     * the checkpoint for the ones which will be completed by this one.
+     * <p>
+     * The checkpoint starts with the starting directory, followed by the time when it was created and the timestamp
+     * of the index at that time, and then lists the completed partitions.
+     */
+    private BufferedWriter openCheckpoint(Path checkpointFile,
+                                          String checkpointKey)
+            throws IOException
+    {
+        long indexTimestamp = getIndexTimestamp();
+
+        Set<String> partitions = new HashSet<>();
+        if (Files.exists(checkpointFile))
+        {
+            List<String> lines = Files.readAllLines(checkpointFile, StandardCharsets.UTF_8);
+            if (lines.size() > 2 && lines.get(0).equals(checkpointKey) && isCurrent(lines.get(1), indexTimestamp))
+            {
+                partitions.addAll(lines.subList(2, lines.size()));
+
+                logger.info("Resuming the re-indexing of " + repositoryIndexer.getContextId() + " with " +
+                            partitions.size() + " completed partition(s).");
+            }
+        }
+
+        completedPartitions = partitions;
+
+        if (!partitions.isEmpty())
+        {
+            return Files.newBufferedWriter(checkpointFile, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        }
+
+        Files.createDirectories(checkpointFile.getParent());
+
+        BufferedWriter writer = Files.newBufferedWriter(checkpointFile, StandardCharsets.UTF_8);
+        writer.write(checkpointKey);
+        writer.newLine();
+        writer.write(System.currentTimeMillis() + " " + indexTimestamp);
+        writer.newLine();
+        writer.flush();
+
+        return writer;
+    }
+
+    /**
+     * @return whether the checkpoint with this header (see {@link #openCheckpoint(Path, String)}) can be resumed from
+     */
+    private boolean isCurrent(String header,
+                              long indexTimestamp)
+    {
+        String[] fields = header.split(" ");
+        if (fields.length != 2)
+        {
+            return false;
+        }
+
+        long created;
+        long checkpointIndexTimestamp;
+        try
+        {
+            created = Long.parseLong(fields[0]);
+            checkpointIndexTimestamp = Long.parseLong(fields[1]);
+        }
+        catch (NumberFormatException e)
+        {
+            return false;
+        }
+
+        if (System.currentTimeMillis() - created > MAX_CHECKPOINT_AGE)
+        {
+            logger.info("Discarding the re-indexing checkpoint of " + repositoryIndexer.getContextId() +
+                        ", as it's too old.");
+
+            return false;
+        }
+        if (checkpointIndexTimestamp != indexTimestamp)
+        {
+            logger.info("Discarding the re-indexing checkpoint of " + repositoryIndexer.getContextId() +
+                        ", as the index has been updated since it was created.");
+
+            return false;
+        }
+
+        return true;
+    }
+
+    private long getIndexTimestamp()
+    {
+        Date timestamp = repositoryIndexer.getIndexingContext().getTimestamp();
+
+        return timestamp != null ? timestamp.getTime() : 0;
+    }
+
+    /**
+     * Records the partition, once the documents of its artifacts have been committed.
+     */
+    private void partitionCompleted(String partition)
+    {
+        List<String> partitions;
+        synchronized (uncheckpointedPartitions)
+        {
+            uncheckpointedPartitions.add(partition);
+
+            long now = System.currentTimeMillis();
+            if (now - lastCheckpoint < CHECKPOINT_INTERVAL)
+            {
+                return;
+            }
+
+            lastCheckpoint = now;
+
+            partitions = new ArrayList<>(uncheckpointedPartitions);
+            uncheckpointedPartitions.clear();
+        }
+
+        try
+        {
+            // Commits the documents of these partitions (along with whatever else has been submitted so far).
+            if (!managedBlock(() -> indexWriter.commit(5, TimeUnit.MINUTES)))
+            {
+                synchronized (uncheckpointedPartitions)
+                {
+                    uncheckpointedPartitions.addAll(partitions);
+                }
+
+                return;
+            }
+
+            writeCheckpoint(partitions);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeCheckpoint(List<String> partitions)
+    {
+        synchronized (checkpointWriter)
+        {
+            try
+            {
+                for (String partition : partitions)
+                {
+                    checkpointWriter.write(partition);
+                    checkpointWriter.newLine();
+                }
+
+                checkpointWriter.flush();
+            }
+            catch (IOException e)
+            {
+                logger.warn("Failed to update the re-indexing checkpoint of " + repositoryIndexer.getContextId() + ".",
+                            e);
+            }
+        }
+    }
+
+    /**
+     * Commits the remaining documents and rebuilds the groups, which aren't maintained for the documents which are
+     * added by the crawler. The timestamp of the index is only updated once the whole tree has been crawled, as the
+     * checkpoint of an incomplete crawl would no longer be resumed from otherwise.
+     */
+    private void finish(boolean completed)
+            throws IOException
+    {
+        repositoryIndexer.commit();
+
+        IndexingContext indexingContext = repositoryIndexer.getIndexingContext();
+        indexingContext.rebuildGroups();
+        if (completed)
+        {
+            indexingContext.updateTimestamp(true);
+        }
+        indexingContext.commit();
+    }
+
+    /**
+     * @return <code>false</code>, if the file is an artifact, but it couldn't be added to the index
+     */
+    private boolean index(Path file)
+    {
+        String path = toRelativePath(file);
+        if (!ArtifactFileUtils.isArtifactFile(path) || path.endsWith(".pom"))
+        {
+            return true;
+        }
+
+        Artifact artifact;
+        try
+        {
+            artifact = ArtifactUtils.convertPathToArtifact(path);
+        }
+        catch (RuntimeException e)
+        {
+            logger.debug("Skipping " + path + ", as it's not an artifact.");
+            skipped.increment();
+
+            return true;
+        }
+
+        try
+        {
+            ArtifactContext artifactContext = repositoryIndexer.createArtifactContext(repositoryIndexer.getRepositoryId(),
+                                                                                      file.toFile(),
+                                                                                      artifact);
+
+            Document document = artifactContext.createDocument(repositoryIndexer.getIndexingContext());
+
+            indexWriter.add(artifactContext.getArtifactInfo().getUinfo(), document);
+            artifacts.increment();
+
+            if (indexWriter.getPending() > MAX_PENDING_DOCUMENTS)
+            {
+                managedBlock(() -> indexWriter.awaitApplied(5, TimeUnit.MINUTES));
+            }
+
+            return true;
+        }
+        catch (RuntimeException e)
+        {
+            // It's not really a critical problem, the artifact could be added to the index later.
+            logger.warn("Unable to add " + path + " to the index.", e);
+            skipped.increment();
+
+            return false;
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+
+            return false;
+        }
+    }
+
+    /**
+     * Waits for the writer, letting the pool compensate for the blocked worker (if called by one).
+     */
+    private static boolean managedBlock(WriterOperation operation)
+            throws InterruptedException
+    {
+        WriterBlocker blocker = new WriterBlocker(operation);
+        ForkJoinPool.managedBlock(blocker);
+
+        return blocker.result;
+    }
+
+    private void reportProgress()
+    {
+        long now = System.currentTimeMillis();
+        long last = lastProgress.get();
+        if (now - last >= PROGRESS_INTERVAL && lastProgress.compareAndSet(last, now))
+        {
+            logger.info("Re-indexing " + repositoryIndexer.getContextId() + ": " + artifacts.sum() +
+                        " artifact(s) in " + directories.sum() + " directories so far, " +
+                        indexWriter.getPending() + " document(s) pending.");
+        }
+    }
+
+    private String toRelativePath(Path path)
+    {
+        return repositoryBasedir.relativize(path.toAbsolutePath().normalize()).toString().replace('\\', '/');
+    }
+
+    public long getDirectoryCount()
+    {
+        return directories.sum();
+    }
+
+    public long getArtifactCount()
+    {
+        return artifacts.sum();
+    }
+
+    /**
+     * @return the number of files which looked like artifacts, but couldn't be added to the index
+     */
+    public long getSkippedCount()
+    {
+        return skipped.sum();
+    }
+
+    /**
+     * @return the number of directories which couldn't be read
+     */
+    public long getFailedCount()
+    {
+        return failed.sum();
+    }
+
+    /**
+     * @return the number of partitions which had been completed by a previous crawl
+     */
+    public long getResumedPartitionCount()
+    {
+        return resumedPartitions.sum();
+    }
+
+    public int getParallelism()
+    {
+        return parallelism;
+    }
+
+    /**
+     * Indexes the artifacts of a directory and forks a task for each of its sub-directories.
+     *
+     * @return whether the whole directory tree has been read
+     */
+    private class DirectoryTask
+            extends RecursiveTask<Boolean>
+    {
+
+        private final Path directory;
+
+        private final int depth;
+
+
+        DirectoryTask(Path directory,
+                      int depth)
+        {
+            this.directory = directory;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Boolean compute()
+        {
+            boolean partition = depth > 0 && depth <= CHECKPOINT_DEPTH;
+            String relativePath = partition ? toRelativePath(directory) : null;
+
+            if (partition && completedPartitions.contains(relativePath))
+            {
+                resumedPartitions.increment();
+
+                return true;
+            }
+
+            boolean completed = true;
+
+            List<DirectoryTask> subtasks = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory))
+            {
+                for (Path path : stream)
+                {
+                    // Skip the files and directories which start with a dot (like, for example: .index)
+                    if (path.getFileName().toString().startsWith("."))
+                    {
+                        continue;
+                    }
+
+                    if (Files.isDirectory(path))
+                    {
+                        subtasks.add(new DirectoryTask(path, depth + 1));
+                    }
+                    else if (!index(path))
+                    {
+                        completed = false;
+                    }
+                }
+            }
+            catch (IOException e)
+            {
+                logger.error("Failed to read " + directory + ".", e);
+
+                failed.increment();
+                completed = false;
+            }
+
+            directories.increment();
+
+            invokeAll(subtasks);
+            for (DirectoryTask subtask : subtasks)
+            {
+                completed &= subtask.join();
+            }
+
+            if (completed && partition)
+            {
+                partitionCompleted(relativePath);
+            }
+
+            reportProgress();
+
+            return completed;
+        }
+
+    }
+
+    @FunctionalInterface
+    private interface WriterOperation
+    {
+
+        /**
+         * @return <code>false</code>, if the timeout elapsed
+         */
+        boolean await()
+                throws InterruptedException;
+
+    }
+
+    private static class WriterBlocker
+            implements ForkJoinPool.ManagedBlocker
+    {
+
+        private final WriterOperation operation;
+
+        private boolean result;
+
+        private boolean done;
+
+
+        WriterBlocker(WriterOperation operation)
+        {
+            this.operation = operation;
+        }
+
+        @Override
+        public boolean block()
+                throws InterruptedException
+        {
+            result = operation.await();
+            done = true;
+
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable()
+        {
+            return done;
+        }
+
+    }
+
+}
@@ -0,0 +1,464 @@
+package org.carlspring.strongbox.storage.indexing;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.Term;
+import org.apache.maven.index.ArtifactContext;
+import org.apache.maven.index.ArtifactInfo;
+import org.apache.maven.index.IndexerEngine;
+import org.apache.maven.index.context.IndexingContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes the additions to and deletions from the index of a single {@link IndexingContext} in the background.
+ * <p>
+ * The changes are applied to the Lucene index writer in the order in which they were submitted, but they are only
+ * committed (and thereby, synced to the disk) once <code>commitThreshold</code> of them have been applied, or the
+ * oldest of them was applied <code>commitInterval</code> milliseconds ago. Searches acquire their searchers from
+ * the context, which refreshes them from the index writer, so the applied changes become visible to them before
+ * they have been committed.
+ * <p>
+ * At most {@link #DEFAULT_QUEUE_CAPACITY} changes are queued; once the queue is full, the submitters wait for the
+ * worker to catch up. The worker is idle (rather than polling the queue) while there is nothing to commit.
+ */
+public class RepositoryIndexWriter
+{
+
+    private static final Logger logger = LoggerFactory.getLogger(RepositoryIndexWriter.class);
+
+    public static final int DEFAULT_COMMIT_THRESHOLD = 1000;
+
+    public static final long DEFAULT_COMMIT_INTERVAL = 1000;
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 10000;
+
+    private static final long OFFER_TIMEOUT = 1000;
+
+    private final String name;
+
+    private final IndexerEngine indexerEngine;
+
+    private final IndexingContext indexingContext;
+
+    private final BlockingQueue<Operation> queue = new LinkedBlockingQueue<>(DEFAULT_QUEUE_CAPACITY);
+
+    private volatile int commitThreshold = DEFAULT_COMMIT_THRESHOLD;
+
+    private volatile long commitInterval = DEFAULT_COMMIT_INTERVAL;
+
+    /**
+     * The number of operations which have been submitted so far.
+     */
+    private long submitted;
+
+    /**
+     * The number of operations which have been applied (and, in the case of commits, committed) so far.
+     */
+    private long applied;
+
+    /**
+     * The number of changes which have been applied, but not committed yet (only accessed by the worker).
+     */
+    private int uncommitted;
+
+    /**
+     * When the oldest of the uncommitted changes was applied (only accessed by the worker).
+     */
+    private long oldestUncommitted;
+
+    private final AtomicLong commits = new AtomicLong();
+
+    private volatile boolean running;
+
+    private Thread worker;
+
+
+    public RepositoryIndexWriter(String name,
+                                 IndexerEngine indexerEngine,
+                                 IndexingContext indexingContext)
+    {
+        this.name = name;
+        this.indexerEngine = indexerEngine;
+        this.indexingContext = indexingContext;
+    }
+
+    public synchronized void start()
+    {
+        if (running)
+        {
+            return;
+        }
+
+        running = true;
+
+        worker = new Thread(this::processQueue, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Applies and commits the changes which are still queued and stops the worker.
+     */
+    public void stop()
+            throws InterruptedException
+    {
+        Thread thread;
+        synchronized (this)
+        {
+            running = false;
+            thread = worker;
+            worker = null;
+        }
+
+        if (thread != null)
+        {
+            wakeUp();
+
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        }
+    }
+
+    /**
+     * Makes sure that the worker notices it has been stopped, even if it's waiting for changes. If the queue is full,
+     * the worker isn't waiting.
+     */
+    private void wakeUp()
+    {
+        synchronized (this)
+        {
+            submitted++;
+        }
+
+        if (!queue.offer(new Operation(OperationType.COMMIT, null)))
+        {
+            applied(1);
+        }
+    }
+
+    public void add(ArtifactContext artifactContext)
+    {
+        submit(new Operation(OperationType.ADD, artifactContext));
+    }
+
+    /**
+     * Adds (or replaces) the document of an artifact, which has already been created by the caller (such as by the
+     * {@link RepositoryIndexCrawler}, which creates them concurrently).
+     */
+    public void add(String uinfo,
+                    Document document)
+    {
+        submit(new Operation(uinfo, document));
+    }
+
+    public void delete(ArtifactContext artifactContext)
+    {
+        submit(new Operation(OperationType.DELETE, artifactContext));
+    }
+
+    /**
+     * Commits the changes which have been submitted so far, without waiting for the thresholds to be reached.
+     *
+     * @return <code>false</code>, if the timeout elapsed before they were committed
+     */
+    public boolean commit(long timeout,
+                          TimeUnit unit)
+            throws InterruptedException
+    {
+        return await(submit(new Operation(OperationType.COMMIT, null)), timeout, unit);
+    }
+
+    /**
+     * Waits until the changes which have been submitted so far have been applied (and are visible to searches).
+     *
+     * @return <code>false</code>, if the timeout elapsed first
+     */
+    public boolean awaitApplied(long timeout,
+                                TimeUnit unit)
+            throws InterruptedException
+    {
+        long target;
+        synchronized (this)
+        {
+            target = submitted;
+        }
+
+        return await(target, timeout, unit);
+    }
+
+    private long submit(Operation operation)
+    {
+        long sequence;
+        synchronized (this)
+        {
+            sequence = ++submitted;
+        }
+
+        try
+        {
+            while (!queue.offer(operation, OFFER_TIMEOUT, TimeUnit.MILLISECONDS))
+            {
+                if (!running)
+                {
+                    // Nothing is going to make room for it.
+                    logger.warn("Discarding " + operation + ", as " + name + " has been stopped.");
+                    applied(1);
+                    break;
+                }
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+
+            logger.warn("Interrupted while submitting " + operation + " to " + name + ", discarding it.");
+            applied(1);
+        }
+
+        return sequence;
+    }
+
+    private synchronized boolean await(long sequence,
+                                       long timeout,
+                                       TimeUnit unit)
+            throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + unit.toMillis(timeout);
+        while (applied < sequence)
+        {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0 || (!running && queue.isEmpty()))
+            {
+                return applied >= sequence;
+            }
+
+            wait(remaining);
+        }
+
+        return true;
+    }
+
+    private synchronized void applied(int count)
+    {
+        applied += count;
+        notifyAll();
+    }
+
+    private void processQueue()
+    {
+        List<Operation> batch = new ArrayList<>();
+        while (running || !queue.isEmpty())
+        {
+            try
+            {
+                Operation first;
+                if (uncommitted > 0)
+                {
+                    long timeout = Math.max(1, oldestUncommitted + commitInterval - System.currentTimeMillis());
+                    first = queue.poll(timeout, TimeUnit.MILLISECONDS);
+                }
+                else
+                {
+                    first = queue.take();
+                }
+
+                if (first != null)
+                {
+                    batch.add(first);
+                    queue.drainTo(batch, commitThreshold - 1);
+                }
+
+                boolean commitRequested = apply(batch);
+                if (uncommitted > 0 &&
+                    (commitRequested ||
+                     uncommitted >= commitThreshold ||
+                     System.currentTimeMillis() - oldestUncommitted >= commitInterval))
+                {
+                    commitChanges();
+                }
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            finally
+            {
+                applied(batch.size());
+                batch.clear();
+            }
+        }
+
+        if (uncommitted > 0)
+        {
+            commitChanges();
+        }
+
+        // Let the ones which are still waiting know that nothing else is going to be applied.
+        synchronized (this)
+        {
+            notifyAll();
+        }
+    }
+
+    /**
+     * @return whether any of the operations was a commit
+     */
+    private boolean apply(List<Operation> batch)
+    {
+        boolean commitRequested = false;
+        for (Operation operation : batch)
+        {
+            if (uncommitted == 0)
+            {
+                oldestUncommitted = System.currentTimeMillis();
+            }
+
+            try
+            {
+                switch (operation.type)
+                {
+                    case ADD:
+                        indexerEngine.update(indexingContext, operation.artifactContext);
+                        uncommitted++;
+                        break;
+                    case ADD_DOCUMENT:
+                        indexingContext.getIndexWriter().updateDocument(new Term(ArtifactInfo.UINFO, operation.uinfo),
+                                                                        operation.document);
+                        uncommitted++;
+                        break;
+                    case DELETE:
+                        indexerEngine.remove(indexingContext, operation.artifactContext);
+                        uncommitted++;
+                        break;
+                    case COMMIT:
+                    default:
+                        commitRequested = true;
+                        break;
+                }
+            }
+            catch (IOException | RuntimeException e)
+            {
+                // It's not really a critical problem, artifacts could be added to the index later.
+                logger.warn("Unable to apply " + operation + " in " + name, e);
+            }
+        }
+
+        return commitRequested;
+    }
+
+    private void commitChanges()
+    {
+        logger.debug("Committing " + uncommitted + " change(s) to " + indexingContext.getId() + "...");
+
+        try
+        {
+            indexingContext.commit();
+            commits.incrementAndGet();
+
+            uncommitted = 0;
+        }
+        catch (IOException e)
+        {
+            logger.error("Failed to commit the changes to " + indexingContext.getId() + ".", e);
+
+            // The changes are still pending, so the commit is retried once the interval has elapsed again.
+            oldestUncommitted = System.currentTimeMillis();
+        }
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public synchronized long getPending()
+    {
+        return submitted - applied;
+    }
+
+    public long getCommitCount()
+    {
+        return commits.get();
+    }
+
+    public int getCommitThreshold()
+    {
+        return commitThreshold;
+    }
+
+    public void setCommitThreshold(int commitThreshold)
+    {
+        this.commitThreshold = commitThreshold;
+    }
+
+    public long getCommitInterval()
+    {
+        return commitInterval;
+    }
+
+    public void setCommitInterval(long commitInterval)
+    {
+        this.commitInterval = commitInterval;
+    }
+
+    private enum OperationType
+    {
+
+        ADD,
+
+        ADD_DOCUMENT,
+
+        DELETE,
+
+        COMMIT
+
+    }
+
+    private static final class Operation
+    {
+
+        private final OperationType type;
+
+        private final ArtifactContext artifactContext;
+
+        private final String uinfo;
+
+        private final Document document;
+
+
+        Operation(OperationType type,
+                  ArtifactContext artifactContext)
+        {
+            this.type = type;
+            this.artifactContext = artifactContext;
+            this.uinfo = null;
+            this.document = null;
+        }
+
+        Operation(String uinfo,
+                  Document document)
+        {
+            this.type = OperationType.ADD_DOCUMENT;
+            this.artifactContext = null;
+            this.uinfo = uinfo;
+            this.document = document;
+        }
+
+        @Override
+        public String toString()
+        {
+            return type.name().toLowerCase() + " " +
+                   (artifactContext != null ? artifactContext.getArtifactInfo() : uinfo);
+        }
+
+    }
+
+}
@@ -11,6 +11,7 @@ import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.lucene.analysis.core.WhitespaceAnalyzer;
 import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
@@ -51,6 +52,17 @@ public class RepositoryIndexer
 
     private static final WhitespaceAnalyzer luceneAnalyzer = new WhitespaceAnalyzer(luceneVersion);
 
+    /**
+     * How long (in milliseconds) searches wait for the changes which have been submitted before them to be applied.
+     * This is kept short, so a backlog of changes can't hold the searches up; they see the changes applied so far.
+     */
+    private static final long SEARCH_WAIT_TIMEOUT = 2000;
+
+    /**
+     * How long (in seconds) a commit waits for the changes which have been submitted before it.
+     */
+    private static final long COMMIT_TIMEOUT = 30;
+
     private Indexer indexer;
 
     private Scanner scanner;
@@ -59,6 +71,8 @@ public class RepositoryIndexer
 
     private IndexingContext indexingContext;
 
+    private RepositoryIndexWriter indexWriter;
+
     private String storageId;
 
     private String repositoryId;
@@ -82,15 +96,89 @@ public class RepositoryIndexer
     public void close()
             throws IOException
     {
+        stopIndexWriter();
+
         indexer.closeIndexingContext(indexingContext, false);
     }
 
     public void close(boolean deleteFiles)
             throws IOException
     {
+        stopIndexWriter();
+
         indexingContext.close(deleteFiles);
     }
 
+    private void stopIndexWriter()
+    {
+        if (indexWriter == null)
+        {
+            return;
+        }
+
+        try
+        {
+            indexWriter.stop();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+
+            logger.warn("Interrupted while stopping the index writer of " + contextId + ".");
+        }
+    }
+
+    /**
+     * Commits the changes which have been made to the index so far (such as before the index is packed).
+     */
+    public void commit()
+            throws IOException
+    {
+        if (indexWriter == null)
+        {
+            indexingContext.commit();
+            return;
+        }
+
+        try
+        {
+            if (!indexWriter.commit(COMMIT_TIMEOUT, TimeUnit.SECONDS))
+            {
+                logger.warn("Timed out while committing the changes to " + contextId + ".");
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+
+            throw new IOException("Interrupted while committing the changes to " + contextId + ".", e);
+        }
+    }
+
+    /**
+     * Makes sure that searches see the changes which have been submitted before them.
+     */
+    private void awaitIndexWriter()
+    {
+        if (indexWriter == null)
+        {
+            return;
+        }
+
+        try
+        {
+            if (!indexWriter.awaitApplied(SEARCH_WAIT_TIMEOUT, TimeUnit.MILLISECONDS))
+            {
+                logger.warn("Searching " + contextId + " while " + indexWriter.getPending() +
+                            " change(s) are still pending.");
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     public void delete(final Collection<ArtifactInfo> artifactInfos)
             throws IOException
     {
@@ -109,7 +197,14 @@ public class RepositoryIndexer
             delete.add(new ArtifactContext(null, null, null, artifactInfo, null));
         }
 
-        getIndexer().deleteArtifactsFromIndex(delete, indexingContext);
+        if (indexWriter != null)
+        {
+            delete.forEach(indexWriter::delete);
+        }
+        else
+        {
+            getIndexer().deleteArtifactsFromIndex(delete, indexingContext);
+        }
     }
 
     public Set<SearchResult> search(final String groupId,
@@ -119,6 +214,8 @@ public class RepositoryIndexer
                                     final String classifier)
             throws IOException
     {
+        awaitIndexWriter();
+
         final BooleanQuery query = new BooleanQuery();
 
         if (groupId != null)
@@ -177,6 +274,8 @@ public class RepositoryIndexer
     public Set<SearchResult> search(final String queryText)
             throws ParseException, IOException
     {
+        awaitIndexWriter();
+
         try
         {
             final Query query = new MultiFieldQueryParser(luceneVersion, luceneFields, luceneAnalyzer).parse(queryText);
@@ -222,6 +321,8 @@ public class RepositoryIndexer
     public Set<SearchResult> searchBySHA1(final String checksum)
             throws IOException
     {
+        awaitIndexWriter();
+
         final BooleanQuery query = new BooleanQuery();
         query.add(getIndexer().constructQuery(MAVEN.SHA1, new SourcedSearchExpression(checksum)), MUST);
 
@@ -291,39 +392,17 @@ public class RepositoryIndexer
     {
         try
         {
-            String extension = artifactFile.getName().substring(artifactFile.getName().lastIndexOf(".") + 1,
-                                                                artifactFile.getName().length());
+            ArtifactContext artifactContext = createArtifactContext(repositoryId, artifactFile, artifact);
 
-            ArtifactInfo artifactInfo = new ArtifactInfo(repositoryId,
-                                                         artifact.getGroupId(),
-                                                         artifact.getArtifactId(),
-                                                         artifact.getVersion(),
-                                                         obtainClassifier(artifact),
-                                                         extension);
-
-            if (artifact.getType() != null)
+            if (indexWriter != null)
             {
-                artifactInfo.setFieldValue(MAVEN.PACKAGING, artifact.getType());
+                // Committed together with the other changes, rather than one by one.
+                indexWriter.add(artifactContext);
+            }
+            else
+            {
+                getIndexer().addArtifactsToIndex(asList(artifactContext), indexingContext);
             }
-
-            logger.debug("Adding artifact: {}; repo: {}; type: {}", new String[]{ artifact.getGroupId() + ":" +
-                                                                                  artifact.getArtifactId() + ":" +
-                                                                                  artifact.getVersion() + ":" +
-                                                                                  artifactInfo.getClassifier() + ":" +
-                                                                                  extension,
-                                                                                  repositoryId,
-                                                                                  artifact.getType() });
-
-            File pomFile = new File(artifactFile.getAbsolutePath() + ".pom");
-            // TODO: Improve this to support timestamped SNAPSHOT-s:
-            File metadataFile = new File(artifactFile.getParentFile().getParentFile(), "maven-metadata.xml");
-
-            getIndexer().addArtifactsToIndex(asList(new ArtifactContext(pomFile.exists() ? pomFile : null,
-                                                                        artifactFile,
-                                                                        metadataFile.exists() ? metadataFile : null,
-                                                                        artifactInfo,
-                                                                        artifactInfo.calculateGav())),
-                                             indexingContext);
         }
         catch (Exception e) // it's not really a critical problem, artifacts could be added to index later
         {
@@ -331,6 +410,44 @@ public class RepositoryIndexer
         }
     }
 
+    public ArtifactContext createArtifactContext(String repositoryId,
+                                                 File artifactFile,
+                                                 Artifact artifact)
+    {
+        String extension = artifactFile.getName().substring(artifactFile.getName().lastIndexOf(".") + 1,
+                                                            artifactFile.getName().length());
+
+        ArtifactInfo artifactInfo = new ArtifactInfo(repositoryId,
+                                                     artifact.getGroupId(),
+                                                     artifact.getArtifactId(),
+                                                     artifact.getVersion(),
+                                                     obtainClassifier(artifact),
+                                                     extension);
+
+        if (artifact.getType() != null)
+        {
+            artifactInfo.setFieldValue(MAVEN.PACKAGING, artifact.getType());
+        }
+
+        logger.debug("Adding artifact: {}; repo: {}; type: {}", new String[]{ artifact.getGroupId() + ":" +
+                                                                              artifact.getArtifactId() + ":" +
+                                                                              artifact.getVersion() + ":" +
+                                                                              artifactInfo.getClassifier() + ":" +
+                                                                              extension,
+                                                                              repositoryId,
+                                                                              artifact.getType() });
+
+        File pomFile = new File(artifactFile.getAbsolutePath() + ".pom");
+        // TODO: Improve this to support timestamped SNAPSHOT-s:
+        File metadataFile = new File(artifactFile.getParentFile().getParentFile(), "maven-metadata.xml");
+
+        return new ArtifactContext(pomFile.exists() ? pomFile : null,
+                                   artifactFile,
+                                   metadataFile.exists() ? metadataFile : null,
+                                   artifactInfo,
+                                   artifactInfo.calculateGav());
+    }
+
     private String obtainClassifier(Artifact artifactInfo)
     {
         String classifier = artifactInfo.getClassifier();
@@ -391,6 +508,16 @@ public class RepositoryIndexer
         this.indexingContext = indexingContext;
     }
 
+    public RepositoryIndexWriter getIndexWriter()
+    {
+        return indexWriter;
+    }
+
+    public void setIndexWriter(RepositoryIndexWriter indexWriter)
+    {
+        this.indexWriter = indexWriter;
+    }
+
     public String getStorageId()
     {
         return storageId;
@@ -72,6 +72,14 @@ public class RepositoryIndexerFactory
         repositoryIndexer.setScanner(indexerConfiguration.getScanner());
         repositoryIndexer.setConfiguration(configuration);
 
+        RepositoryIndexWriter indexWriter = new RepositoryIndexWriter("repository-index-writer-" +
+                                                                      repositoryIndexer.getContextId(),
+                                                                      indexerConfiguration.getIndexerEngine(),
+                                                                      indexingContext);
+        indexWriter.start();
+
+        repositoryIndexer.setIndexWriter(indexWriter);
+
         return repositoryIndexer;
     }
 
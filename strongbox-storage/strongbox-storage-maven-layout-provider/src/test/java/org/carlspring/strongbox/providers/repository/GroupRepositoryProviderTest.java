@@ -210,10 +210,13 @@ public class GroupRepositoryProviderTest
     public void tearDown()
             throws Exception
     {
-        Repository repository = configurationManager.getRepository(STORAGE0 + ":" + REPOSITORY_RELEASES_1);
+        Repository repository = configurationManager.getConfiguration()
+                                                    .getStorage(STORAGE0)
+                                                    .getRepository(REPOSITORY_RELEASES_1);
         if (!repository.isInService())
         {
             repository.putInService();
+            configurationManager.store();
         }
     }
 
@@ -244,9 +247,60 @@ public class GroupRepositoryProviderTest
         ResourceCloser.close(is, null);
     }
 
+    @Test
+    public void testGroupIncludesWithParallelResolution()
+            throws IOException,
+                   JAXBException,
+                   NoSuchAlgorithmException,
+                   ArtifactTransportException,
+                   ProviderImplementationException
+    {
+        System.out.println("# Testing group includes with parallel resolution...");
+
+        // The repositories are looked up in the snapshot, which is only updated when the configuration is stored.
+        Repository repository = configurationManager.getConfiguration()
+                                                    .getStorage(STORAGE0)
+                                                    .getRepository(REPOSITORY_GROUP);
+        repository.setParallelResolution(true);
+        configurationManager.store();
+
+        try
+        {
+            RepositoryProvider repositoryProvider = repositoryProviderRegistry.getProvider(repository.getType());
+
+            InputStream is = repositoryProvider.getInputStream(STORAGE0,
+                                                               REPOSITORY_GROUP,
+                                                               "com/artifacts/in/releases/one/foo/1.2.3/foo-1.2.3.jar");
+
+            assertNotNull(is);
+
+            ResourceCloser.close(is, null);
+
+            is = repositoryProvider.getInputStream(STORAGE0,
+                                                   REPOSITORY_GROUP,
+                                                   "com/artifacts/in/releases/two/foo/1.2.4/foo-1.2.4.jar");
+
+            assertNotNull(is);
+
+            ResourceCloser.close(is, null);
+
+            is = repositoryProvider.getInputStream(STORAGE0,
+                                                   REPOSITORY_GROUP,
+                                                   "com/artifacts/in/releases/two/foo/1.2.4/foo-1.2.4-sources.jar");
+
+            assertNull(is);
+        }
+        finally
+        {
+            repository.setParallelResolution(false);
+            configurationManager.store();
+        }
+    }
+
     @Test
     public void testGroupIncludesWithOutOfServiceRepository()
             throws IOException,
+                   JAXBException,
                    NoSuchAlgorithmException,
                    ArtifactTransportException,
                    ProviderImplementationException
@@ -257,6 +311,7 @@ public class GroupRepositoryProviderTest
                             .getStorage(STORAGE0)
                             .getRepository(REPOSITORY_RELEASES_2)
                             .putOutOfService();
+        configurationManager.store();
 
         Repository repository = configurationManager.getRepository(STORAGE0 + ":" + REPOSITORY_GROUP);
         RepositoryProvider repositoryProvider = repositoryProviderRegistry.getProvider(repository.getType());
@@ -269,6 +324,7 @@ public class GroupRepositoryProviderTest
                             .getStorage(STORAGE0)
                             .getRepository(REPOSITORY_RELEASES_2)
                             .putInService();
+        configurationManager.store();
 
         assertNull(is);
 
@@ -0,0 +1,116 @@
+package org.carlspring.strongbox.services.impl;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ArtifactPostStoreJournalTest
+{
+
+    private Path directory;
+
+
+    @Before
+    public void setUp()
+            throws IOException
+    {
+        directory = Files.createTempDirectory("artifact-post-store-journal");
+    }
+
+    @After
+    public void tearDown()
+            throws IOException
+    {
+        try (Stream<Path> paths = Files.list(directory))
+        {
+            for (Path path : (Iterable<Path>) paths::iterator)
+            {
+                Files.delete(path);
+            }
+        }
+
+        Files.delete(directory);
+    }
+
+    @Test
+    public void testProcessedSegmentsAreDeleted()
+            throws IOException
+    {
+        try (ArtifactPostStoreJournal journal = new ArtifactPostStoreJournal(directory, 2))
+        {
+            List<ArtifactPostStoreJournal.Entry> entries = new ArrayList<>();
+            for (int i = 0; i < 5; i++)
+            {
+                entries.add(journal.append("record-" + i));
+            }
+
+            assertEquals(3, journal.getSegmentCount());
+
+            // The first segment still has an unprocessed record.
+            entries.get(0).processed();
+            entries.get(2).processed();
+            assertEquals(3, journal.getSegmentCount());
+
+            entries.get(1).processed();
+            assertEquals(2, journal.getSegmentCount());
+
+            entries.get(3).processed();
+            assertEquals(1, journal.getSegmentCount());
+
+            // The current segment is kept, until the journal is closed.
+            entries.get(4).processed();
+            assertEquals(1, journal.getSegmentCount());
+        }
+
+        assertEquals("The journal should have been deleted, once everything was processed!",
+                     0,
+                     directory.toFile().list().length);
+    }
+
+    @Test
+    public void testUnprocessedRecordsAreReplayedAfterARestart()
+            throws IOException
+    {
+        try (ArtifactPostStoreJournal journal = new ArtifactPostStoreJournal(directory, 2))
+        {
+            for (int i = 0; i < 5; i++)
+            {
+                ArtifactPostStoreJournal.Entry entry = journal.append("record-" + i);
+                if (i != 1 && i != 4)
+                {
+                    entry.processed();
+                }
+            }
+        }
+
+        try (ArtifactPostStoreJournal journal = new ArtifactPostStoreJournal(directory, 2))
+        {
+            // The second segment has been processed completely, the others are replayed as a whole.
+            List<String> records = new ArrayList<>();
+            for (ArtifactPostStoreJournal.Entry entry : journal.getUnprocessed())
+            {
+                records.add(entry.getRecord());
+                entry.processed();
+            }
+
+            assertEquals(Arrays.asList("record-0", "record-1", "record-4"), records);
+            assertEquals(1, journal.getSegmentCount());
+        }
+
+        try (ArtifactPostStoreJournal journal = new ArtifactPostStoreJournal(directory, 2))
+        {
+            assertTrue(journal.getUnprocessed().isEmpty());
+        }
+    }
+
+}
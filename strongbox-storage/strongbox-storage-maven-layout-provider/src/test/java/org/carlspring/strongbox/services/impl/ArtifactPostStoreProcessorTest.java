@@ -0,0 +1,167 @@
+package org.carlspring.strongbox.services.impl;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ArtifactPostStoreProcessorTest
+{
+
+    private Path journalDirectory;
+
+    private RecordingProcessor processor;
+
+
+    @Before
+    public void setUp()
+            throws IOException
+    {
+        journalDirectory = Files.createTempDirectory("artifact-post-store");
+    }
+
+    @After
+    public void tearDown()
+            throws Exception
+    {
+        if (processor != null)
+        {
+            processor.release.countDown();
+            processor.stop();
+        }
+
+        try (Stream<Path> paths = Files.list(journalDirectory))
+        {
+            for (Path path : (Iterable<Path>) paths::iterator)
+            {
+                Files.delete(path);
+            }
+        }
+
+        Files.delete(journalDirectory);
+    }
+
+    @Test
+    public void testSubmittingToAFullQueueWaitsForTheWorker()
+            throws Exception
+    {
+        processor = new RecordingProcessor(journalDirectory, 1);
+        processor.setBatchSize(1);
+        processor.start();
+
+        // The worker takes the first artifact and blocks, the second one fills the queue.
+        processor.submit("storage0", "releases", "org/foo/1");
+        assertTrue(processor.processing.await(10, TimeUnit.SECONDS));
+        processor.submit("storage0", "releases", "org/foo/2");
+
+        Thread deployer = new Thread(() -> processor.submit("storage0", "releases", "org/foo/3"));
+        deployer.start();
+        deployer.join(500);
+
+        assertTrue("The deployer should be waiting for room in the queue!", deployer.isAlive());
+        assertEquals(3, processor.getPending());
+
+        processor.release.countDown();
+        deployer.join(TimeUnit.SECONDS.toMillis(10));
+
+        assertFalse(deployer.isAlive());
+        assertTrue(processor.waitForPendingArtifacts(10, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("org/foo/1", "org/foo/2", "org/foo/3"), processor.processed);
+    }
+
+    @Test
+    public void testArtifactsAreProcessedDirectlyWhenTheProcessorIsNotRunning()
+            throws Exception
+    {
+        processor = new RecordingProcessor(journalDirectory, 1);
+        processor.release.countDown();
+
+        processor.submit("storage0", "releases", "org/foo/1");
+        assertTrue(processor.processed.isEmpty());
+
+        // The queue is full and nothing is draining it.
+        processor.submit("storage0", "releases", "org/foo/2");
+
+        assertEquals(Arrays.asList("org/foo/2"), processor.processed);
+        assertEquals(1, processor.getPending());
+    }
+
+    @Test
+    public void testUnprocessedArtifactsAreReplayedAfterARestart()
+            throws Exception
+    {
+        try (ArtifactPostStoreJournal journal = new ArtifactPostStoreJournal(journalDirectory))
+        {
+            journal.append("storage0\treleases\torg/foo/1");
+            journal.append("malformed");
+        }
+
+        processor = new RecordingProcessor(journalDirectory, 16);
+        processor.release.countDown();
+        processor.start();
+
+        assertTrue(processor.waitForPendingArtifacts(10, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("org/foo/1"), processor.processed);
+
+        processor.stop();
+        processor = null;
+
+        try (ArtifactPostStoreJournal journal = new ArtifactPostStoreJournal(journalDirectory))
+        {
+            assertTrue("The replayed artifacts should have been removed from the journal!",
+                       journal.getUnprocessed().isEmpty());
+        }
+    }
+
+    private static class RecordingProcessor
+            extends ArtifactPostStoreProcessor
+    {
+
+        private final List<String> processed = new CopyOnWriteArrayList<>();
+
+        private final CountDownLatch processing = new CountDownLatch(1);
+
+        private final CountDownLatch release = new CountDownLatch(1);
+
+
+        RecordingProcessor(Path journalDirectory,
+                           int queueCapacity)
+        {
+            super(journalDirectory, queueCapacity);
+        }
+
+        @Override
+        void process(List<StoredArtifact> batch)
+        {
+            processing.countDown();
+            try
+            {
+                release.await();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            for (StoredArtifact storedArtifact : batch)
+            {
+                processed.add(storedArtifact.getPath());
+            }
+        }
+
+    }
+
+}
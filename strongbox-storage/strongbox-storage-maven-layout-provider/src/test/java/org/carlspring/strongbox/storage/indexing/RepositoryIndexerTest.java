@@ -1,13 +1,19 @@
 package org.carlspring.strongbox.storage.indexing;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.PreDestroy;
 import javax.inject.Inject;
@@ -114,6 +120,142 @@ public class RepositoryIndexerTest
         assertEquals("org.carlspring.strongbox:strongbox-commons:1.0 should have been deleted!", 0, search.size());
     }
 
+    @Test
+    public void testChangesAreCommittedTogether()
+            throws Exception
+    {
+        RepositoryIndexer repositoryIndexer = getRepositoryIndexManager().getRepositoryIndexer(STORAGE0 + ":" +
+                                                                                               REPOSITORY_RELEASES + ":" +
+                                                                                               IndexTypeEnum.LOCAL
+                                                                                                            .getType());
+
+        RepositoryIndexWriter indexWriter = repositoryIndexer.getIndexWriter();
+        indexWriter.setCommitInterval(TimeUnit.MINUTES.toMillis(10));
+        try
+        {
+            long commits = indexWriter.getCommitCount();
+
+            File repositoryBasedir = getRepositoryBasedir(STORAGE0, REPOSITORY_RELEASES);
+            for (String version : new String[]{ "1.0", "1.1", "1.2" })
+            {
+                addArtifactToIndex(repositoryBasedir,
+                                   STORAGE0,
+                                   REPOSITORY_RELEASES,
+                                   "org/carlspring/strongbox/strongbox-commons/" + version +
+                                   "/strongbox-commons-" + version + ".jar");
+            }
+
+            // The searches wait for the changes to be applied, but not for them to be committed.
+            Set<SearchResult> search = repositoryIndexer.search("org.carlspring.strongbox",
+                                                                "strongbox-commons",
+                                                                null,
+                                                                null,
+                                                                null);
+            assertEquals("Three versions of the strongbox-commons artifact were expected!", 3, search.size());
+
+            repositoryIndexer.delete(asArtifactInfo(search));
+            search = repositoryIndexer.search("org.carlspring.strongbox", "strongbox-commons", null, null, null);
+
+            assertEquals("The strongbox-commons artifacts should have been deleted!", 0, search.size());
+            assertEquals("The changes shouldn't have been committed yet!", commits, indexWriter.getCommitCount());
+
+            repositoryIndexer.commit();
+
+            assertEquals("The changes should have been committed at once!", commits + 1, indexWriter.getCommitCount());
+        }
+        finally
+        {
+            // The writer is shared with the other tests.
+            indexWriter.setCommitInterval(RepositoryIndexWriter.DEFAULT_COMMIT_INTERVAL);
+        }
+    }
+
+    @Test
+    public void testCrawlIsResumed()
+            throws Exception
+    {
+        RepositoryIndexer repositoryIndexer = getRepositoryIndexManager().getRepositoryIndexer(STORAGE0 + ":" +
+                                                                                               REPOSITORY_RELEASES + ":" +
+                                                                                               IndexTypeEnum.LOCAL
+                                                                                                            .getType());
+
+        String basePath = "org/carlspring/strongbox/strongbox-commons";
+
+        Set<SearchResult> search = repositoryIndexer.search("org.carlspring.strongbox",
+                                                            "strongbox-commons",
+                                                            null,
+                                                            null,
+                                                            null);
+        repositoryIndexer.delete(asArtifactInfo(search));
+        repositoryIndexer.commit();
+
+        long indexTimestamp = repositoryIndexer.getIndexingContext().getTimestamp() != null ?
+                              repositoryIndexer.getIndexingContext().getTimestamp().getTime() : 0;
+
+        // As if a previous crawl had been interrupted after it had completed the 1.0 directory.
+        Path checkpoint = repositoryIndexer.getIndexDir().toPath().resolve(RepositoryIndexCrawler.CHECKPOINT_FILE);
+        Files.write(checkpoint,
+                    Arrays.asList(basePath, System.currentTimeMillis() + " " + indexTimestamp, basePath + "/1.0"),
+                    StandardCharsets.UTF_8);
+
+        RepositoryIndexCrawler crawler = new RepositoryIndexCrawler(repositoryIndexer, 2);
+
+        assertEquals("Only the artifacts of 1.1 and 1.2 were expected to be indexed!", 2, crawler.crawl(basePath));
+        assertEquals(1, crawler.getResumedPartitionCount());
+        assertFalse("The checkpoint should have been removed!", Files.exists(checkpoint));
+
+        search = repositoryIndexer.search("org.carlspring.strongbox", "strongbox-commons", null, null, null);
+        assertEquals("Two versions of the strongbox-commons artifact were expected!", 2, search.size());
+
+        crawler = new RepositoryIndexCrawler(repositoryIndexer, 2);
+
+        assertEquals(3, crawler.crawl(basePath));
+
+        search = repositoryIndexer.search("org.carlspring.strongbox", "strongbox-commons", null, null, null);
+        assertEquals("Three versions of the strongbox-commons artifact were expected!", 3, search.size());
+    }
+
+    @Test
+    public void testStaleCheckpointIsDiscarded()
+            throws Exception
+    {
+        RepositoryIndexer repositoryIndexer = getRepositoryIndexManager().getRepositoryIndexer(STORAGE0 + ":" +
+                                                                                               REPOSITORY_RELEASES + ":" +
+                                                                                               IndexTypeEnum.LOCAL
+                                                                                                            .getType());
+
+        String basePath = "org/carlspring/strongbox/strongbox-commons";
+
+        repositoryIndexer.commit();
+
+        long indexTimestamp = repositoryIndexer.getIndexingContext().getTimestamp() != null ?
+                              repositoryIndexer.getIndexingContext().getTimestamp().getTime() : 0;
+
+        Path checkpoint = repositoryIndexer.getIndexDir().toPath().resolve(RepositoryIndexCrawler.CHECKPOINT_FILE);
+
+        // Created too long ago.
+        long created = System.currentTimeMillis() - RepositoryIndexCrawler.MAX_CHECKPOINT_AGE - 1000;
+        Files.write(checkpoint,
+                    Arrays.asList(basePath, created + " " + indexTimestamp, basePath + "/1.0"),
+                    StandardCharsets.UTF_8);
+
+        RepositoryIndexCrawler crawler = new RepositoryIndexCrawler(repositoryIndexer, 2);
+
+        assertEquals("All the artifacts were expected to be indexed!", 3, crawler.crawl(basePath));
+        assertEquals(0, crawler.getResumedPartitionCount());
+
+        // Created before the index was last updated.
+        Files.write(checkpoint,
+                    Arrays.asList(basePath, System.currentTimeMillis() + " " + (indexTimestamp - 1000), basePath + "/1.0"),
+                    StandardCharsets.UTF_8);
+
+        crawler = new RepositoryIndexCrawler(repositoryIndexer, 2);
+
+        assertEquals("All the artifacts were expected to be indexed!", 3, crawler.crawl(basePath));
+        assertEquals(0, crawler.getResumedPartitionCount());
+        assertFalse("The checkpoint should have been removed!", Files.exists(checkpoint));
+    }
+
     private Collection<ArtifactInfo> asArtifactInfo(Set<SearchResult> results)
     {
         Collection<ArtifactInfo> artifactInfos = new LinkedHashSet<>();
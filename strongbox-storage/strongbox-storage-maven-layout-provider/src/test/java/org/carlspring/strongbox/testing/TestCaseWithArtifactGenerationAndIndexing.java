@@ -11,6 +11,7 @@ import org.carlspring.strongbox.services.ArtifactSearchService;
 import org.carlspring.strongbox.services.ConfigurationManagementService;
 import org.carlspring.strongbox.services.RepositoryManagementService;
 import org.carlspring.strongbox.storage.Storage;
+import org.carlspring.strongbox.storage.indexing.IndexTypeEnum;
 import org.carlspring.strongbox.storage.indexing.RepositoryIndexManager;
 import org.carlspring.strongbox.storage.indexing.RepositoryIndexer;
 import org.carlspring.strongbox.storage.repository.RemoteRepository;
@@ -230,7 +231,8 @@ public abstract class TestCaseWithArtifactGenerationAndIndexing
 
         Artifact artifact = ArtifactUtils.convertPathToArtifact(artifactPath);
 
-        RepositoryIndexer indexer = repositoryIndexManager.getRepositoryIndexer(storageId + ":" + repositoryId);
+        RepositoryIndexer indexer = repositoryIndexManager.getRepositoryIndexer(storageId + ":" + repositoryId + ":" +
+                                                                                IndexTypeEnum.LOCAL.getType());
 
         indexer.addArtifactToIndex(repositoryId, artifactFile, artifact);
     }
@@ -14,10 +14,9 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import org.apache.commons.codec.digest.MessageDigestAlgorithms;
 import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
@@ -45,6 +44,8 @@ public class NugetHierarchicalLayoutProvider extends AbstractLayoutProvider<Nuge
 
     public static final String ALIAS = "Nuget Hierarchical";
 
+    private static final Set<String> DIGEST_ALGORITHMS = Collections.singleton(MessageDigestAlgorithms.SHA_512);
+
     @Override
     @PostConstruct
     public void register()
@@ -115,8 +116,7 @@ public class NugetHierarchicalLayoutProvider extends AbstractLayoutProvider<Nuge
     @Override
     public Set<String> getDigestAlgorithmSet()
     {
-        return Stream.of(MessageDigestAlgorithms.SHA_512)
-                     .collect(Collectors.toSet());
+        return DIGEST_ALGORITHMS;
     }
 
     @Override
@@ -3,8 +3,10 @@ package org.carlspring.strongbox.providers.layout;
 import org.carlspring.strongbox.artifact.coordinates.ArtifactCoordinates;
 import org.carlspring.strongbox.artifact.coordinates.P2ArtifactCoordinates;
 import org.carlspring.strongbox.client.ArtifactTransportException;
+import org.carlspring.strongbox.io.ArtifactOutputStream;
 import org.carlspring.strongbox.providers.ProviderImplementationException;
 import org.carlspring.strongbox.providers.layout.p2.P2ArtifactReader;
+import org.carlspring.strongbox.providers.layout.p2.P2MetadataGenerator;
 import org.carlspring.strongbox.storage.Storage;
 import org.carlspring.strongbox.storage.repository.Repository;
 import org.carlspring.strongbox.storage.repository.UnknownRepositoryTypeException;
@@ -12,6 +14,7 @@ import org.carlspring.strongbox.storage.repository.UnknownRepositoryTypeExceptio
 import javax.inject.Inject;
 import java.io.FilenameFilter;
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.security.NoSuchAlgorithmException;
 import java.util.List;
 
@@ -62,6 +65,41 @@ public class P2LayoutProvider
         return false;
     }
 
+    @Override
+    public ArtifactOutputStream getOutputStream(String storageId,
+                                                String repositoryId,
+                                                String path)
+            throws IOException,
+                   NoSuchAlgorithmException
+    {
+        if (isMetadata(path))
+        {
+            // The index is also rebuilt once the new file is in place, as its modification time has changed.
+            P2ArtifactReader.invalidate(getConfiguration().getStorage(storageId)
+                                                          .getRepository(repositoryId)
+                                                          .getBasedir());
+        }
+
+        return super.getOutputStream(storageId, repositoryId, path);
+    }
+
+    @Override
+    public void delete(String storageId,
+                       String repositoryId,
+                       String path,
+                       boolean force)
+            throws IOException
+    {
+        super.delete(storageId, repositoryId, path, force);
+
+        if (isMetadata(path))
+        {
+            P2ArtifactReader.invalidate(getConfiguration().getStorage(storageId)
+                                                          .getRepository(repositoryId)
+                                                          .getBasedir());
+        }
+    }
+
     @Override
     public void deleteMetadata(String storageId,
                                String repositoryId,
@@ -71,6 +109,11 @@ public class P2LayoutProvider
 
     }
 
+    /**
+     * Generates the artifacts.xml and content.xml (and their compressed forms) and the checksums of the whole
+     * repository, reading only the bundles which have changed since they were last generated. Metadata which has not
+     * been generated by Strongbox (such as the one of a published repository) is left as it is.
+     */
     @Override
     public void rebuildMetadata(String storageId,
                                 String repositoryId,
@@ -79,9 +122,17 @@ public class P2LayoutProvider
                    NoSuchAlgorithmException,
                    XmlPullParserException
     {
-        throw new UnsupportedOperationException("Not yet implemented!");
+        Repository repository = getConfiguration().getStorage(storageId).getRepository(repositoryId);
+
+        getMetadataGenerator(repository).generate(false);
+
+        P2ArtifactReader.invalidate(repository.getBasedir());
     }
 
+    /**
+     * Generates the artifacts.xml and content.xml (and their compressed forms) of the whole repository, unless it
+     * has metadata which has not been generated by Strongbox.
+     */
     @Override
     public void rebuildIndexes(String storageId,
                                String repositoryId,
@@ -89,9 +140,24 @@ public class P2LayoutProvider
                                boolean forceRegeneration)
             throws IOException
     {
-        throw new UnsupportedOperationException("Not yet implemented!");
+        Repository repository = getConfiguration().getStorage(storageId).getRepository(repositoryId);
+
+        P2MetadataGenerator generator = getMetadataGenerator(repository);
+        if (!generator.writeMetadata(generator.scan(forceRegeneration)))
+        {
+            logger.info("The metadata of " + storageId + ":" + repositoryId + " has not been generated by Strongbox," +
+                        " so it has not been replaced.");
+
+            return;
+        }
+
+        P2ArtifactReader.invalidate(repository.getBasedir());
     }
 
+    /**
+     * Generates the checksums of all of the bundles of the repository, as P2 repositories have no version
+     * directories.
+     */
     @Override
     public void regenerateChecksums(Repository repository,
                                     List<String> versionDirectories,
@@ -102,9 +168,15 @@ public class P2LayoutProvider
                    UnknownRepositoryTypeException,
                    ArtifactTransportException
     {
-        throw new UnsupportedOperationException("Not yet implemented!");
+        P2MetadataGenerator generator = getMetadataGenerator(repository);
+        generator.writeChecksums(generator.scan(forceRegeneration), forceRegeneration);
     }
 
+    private P2MetadataGenerator getMetadataGenerator(Repository repository)
+    {
+        return new P2MetadataGenerator(Paths.get(repository.getBasedir()), repository.getId(),
+                                       getDigestAlgorithmSet());
+    }
 
     @Override
     public boolean containsArtifact(Repository repository,
@@ -5,7 +5,13 @@ import org.carlspring.strongbox.xml.parsers.GenericParser;
 
 import javax.xml.bind.JAXBException;
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,12 +19,28 @@ import org.slf4j.LoggerFactory;
 /**
  * Finds a {@link P2ArtifactCoordinates} from the provided repository base directory and artifact path.
  * The artifact path consists of {id}/{version}/{classifier}. E.g. bundle-name/1.0.0/osgi.bundle
+ * <p>
+ * The artifacts.xml (or, if there is none, the compressed artifacts.jar) of each repository is only parsed again,
+ * once it has changed (see {@link P2RepositoryIndex}).
  */
 public class P2ArtifactReader
 {
 
     private static final Logger logger = LoggerFactory.getLogger(P2ArtifactReader.class);
 
+    public static final String ARTIFACTS_XML = "artifacts.xml";
+
+    public static final String ARTIFACTS_JAR = "artifacts.jar";
+
+    private static final GenericParser<P2Repository> repositoryParser = new GenericParser<>(P2Repository.class);
+
+    /**
+     * The indexes of the repositories, by absolute path of the file they were built from.
+     */
+    private static final ConcurrentMap<String, P2RepositoryIndex> indexes = new ConcurrentHashMap<>();
+
+    private static final ConcurrentMap<String, Object> locks = new ConcurrentHashMap<>();
+
     /**
      * Finds a {@link P2ArtifactCoordinates} from the provided repository base directory and artifact path.
      *
@@ -30,24 +52,23 @@ public class P2ArtifactReader
                                                     String bundle)
             throws IOException
     {
-        GenericParser<P2Repository> repositoryParser = new GenericParser<>(P2Repository.class);
         try
         {
-            P2Repository p2Repository = repositoryParser.parse(createFile(repositoryBaseDir));
+            P2RepositoryIndex index = getIndex(repositoryBaseDir);
             final P2ArtifactCoordinates artifactToFind = P2ArtifactCoordinates.create(bundle);
-            for (P2Artifact p2Artifact : p2Repository.getArtifacts().getArtifacts())
+
+            P2Artifact p2Artifact = index.getArtifact(artifactToFind.getId(),
+                                                      artifactToFind.getVersion(),
+                                                      artifactToFind.getClassifier());
+            if (p2Artifact != null)
             {
                 P2ArtifactCoordinates foundArtifact = new P2ArtifactCoordinates(p2Artifact.getId(),
                                                                                 p2Artifact.getVersion(),
                                                                                 p2Artifact.getClassifier());
-                if (foundArtifact.equals(artifactToFind))
-                {
-                    addProperties(foundArtifact, p2Artifact, repositoryBaseDir);
-                    String bundleFilename = P2ArtifactRuleProcessor.getFilename(p2Repository.getMappings(),
-                                                                                foundArtifact);
-                    foundArtifact.setFilename(bundleFilename);
-                    return foundArtifact;
-                }
+                addProperties(foundArtifact, p2Artifact, repositoryBaseDir);
+                String bundleFilename = P2ArtifactRuleProcessor.getFilename(index.getRules(), foundArtifact);
+                foundArtifact.setFilename(bundleFilename);
+                return foundArtifact;
             }
         }
         catch (JAXBException e)
@@ -58,6 +79,81 @@ public class P2ArtifactReader
         return null;
     }
 
+    /**
+     * @return the index of the repository, which is only built again, if the artifacts.xml (or artifacts.jar) has
+     * changed since it was last built
+     * @throws FileNotFoundException if the repository has neither
+     */
+    public static P2RepositoryIndex getIndex(String repositoryBaseDir)
+            throws IOException,
+                   JAXBException
+    {
+        File file = createFile(repositoryBaseDir);
+        String key = file.getAbsolutePath();
+
+        P2RepositoryIndex index = indexes.get(key);
+        if (index != null && index.isCurrent())
+        {
+            return index;
+        }
+
+        // Only one thread parses the file, while the others wait for its index.
+        synchronized (locks.computeIfAbsent(key, k -> new Object()))
+        {
+            index = indexes.get(key);
+            if (index != null && index.isCurrent())
+            {
+                return index;
+            }
+
+            long lastModified = file.lastModified();
+            long length = file.length();
+
+            logger.debug("Indexing " + file.getAbsolutePath() + "...");
+
+            index = new P2RepositoryIndex(file, lastModified, length, parse(file));
+            indexes.put(key, index);
+
+            return index;
+        }
+    }
+
+    /**
+     * Discards the index of the repository, so that it's built again upon the next lookup.
+     */
+    public static void invalidate(String repositoryBaseDir)
+    {
+        File baseDir = repositoryBaseDir == null || repositoryBaseDir.isEmpty() ?
+                       null : new File(repositoryBaseDir);
+
+        indexes.remove(new File(baseDir, ARTIFACTS_XML).getAbsolutePath());
+        indexes.remove(new File(baseDir, ARTIFACTS_JAR).getAbsolutePath());
+    }
+
+    private static P2Repository parse(File file)
+            throws IOException,
+                   JAXBException
+    {
+        if (!file.getName().endsWith(".jar"))
+        {
+            return repositoryParser.parse(file);
+        }
+
+        try (ZipFile zipFile = new ZipFile(file))
+        {
+            ZipEntry entry = zipFile.getEntry(ARTIFACTS_XML);
+            if (entry == null)
+            {
+                throw new FileNotFoundException(file.getAbsolutePath() + " contains no " + ARTIFACTS_XML + ".");
+            }
+
+            try (InputStream is = zipFile.getInputStream(entry))
+            {
+                return repositoryParser.parse(is);
+            }
+        }
+    }
+
     private static void addProperties(P2ArtifactCoordinates foundArtifact,
                                       P2Artifact p2Artifact,
                                       String baseDir)
@@ -74,14 +170,27 @@ public class P2ArtifactReader
         }
     }
 
+    /**
+     * @return the artifacts.xml of the repository, or its artifacts.jar, if there is only the compressed one
+     */
     private static File createFile(String repositoryBaseDir)
+            throws FileNotFoundException
     {
-        final String artifactsFilename = "artifacts.xml";
-        if (repositoryBaseDir == null || repositoryBaseDir.isEmpty())
+        File baseDir = repositoryBaseDir == null || repositoryBaseDir.isEmpty() ?
+                       null : new File(repositoryBaseDir);
+
+        File artifactsXml = new File(baseDir, ARTIFACTS_XML);
+        if (artifactsXml.isFile())
+        {
+            return artifactsXml;
+        }
+
+        File artifactsJar = new File(baseDir, ARTIFACTS_JAR);
+        if (artifactsJar.isFile())
         {
-            return new File(artifactsFilename);
+            return artifactsJar;
         }
 
-        return new File(repositoryBaseDir, artifactsFilename);
+        throw new FileNotFoundException(artifactsXml.getPath() + " (No such file)");
     }
 }
@@ -5,6 +5,7 @@ import org.carlspring.strongbox.artifact.coordinates.P2ArtifactCoordinates;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.stream.Collectors;
@@ -20,10 +21,13 @@ public class P2ArtifactRuleProcessor
 
     private final Map<String, String> properties = new HashMap<>();
 
+    private final Collection<String> outputKeys;
+
     public P2ArtifactRuleProcessor(String outputFormat,
                                    String filter)
     {
         this.outputFormat = outputFormat;
+        this.outputKeys = getOutputPutKeys();
         parseFilter(filter);
     }
 
@@ -84,7 +88,7 @@ public class P2ArtifactRuleProcessor
         if (matches(properties))
         {
             String output = outputFormat;
-            for (String key : getOutputPutKeys())
+            for (String key : outputKeys)
             {
                 output = replaceValue(output, key, properties.get(key));
             }
@@ -109,8 +113,13 @@ public class P2ArtifactRuleProcessor
         final int startOffset = KEY_START.length();
         final int endOffset = KEY_END.length();
 
+        if (outputFormat == null)
+        {
+            return keys;
+        }
+
         String format = outputFormat;
-        int startIndex = 0;
+        int startIndex = format.indexOf(KEY_START);
         while (startIndex >= 0)
         {
             String key = format.substring(startIndex + startOffset, format.indexOf(KEY_END));
@@ -122,14 +131,31 @@ public class P2ArtifactRuleProcessor
         return keys;
     }
 
-    public static String getFilename(P2Mappings mappings,
-                                     P2ArtifactCoordinates p2artifact)
+    /**
+     * Parses the rules of the mappings, so that they can be applied to any number of artifacts.
+     */
+    public static List<P2ArtifactRuleProcessor> compile(P2Mappings mappings)
     {
-        Collection<P2ArtifactRuleProcessor> artifacts = mappings.getRules().stream().map(
+        if (mappings == null)
+        {
+            return new ArrayList<>();
+        }
+
+        return mappings.getRules().stream().map(
                 rule -> new P2ArtifactRuleProcessor(rule.getOutput(), rule.getFilter())).collect(
                 Collectors.toList());
+    }
+
+    public static String getFilename(P2Mappings mappings,
+                                     P2ArtifactCoordinates p2artifact)
+    {
+        return getFilename(compile(mappings), p2artifact);
+    }
 
-        for (P2ArtifactRuleProcessor processor : artifacts)
+    public static String getFilename(List<P2ArtifactRuleProcessor> processors,
+                                     P2ArtifactCoordinates p2artifact)
+    {
+        for (P2ArtifactRuleProcessor processor : processors)
         {
             if (processor.matches(p2artifact.getProperties()))
             {
@@ -140,4 +166,4 @@ public class P2ArtifactRuleProcessor
         return null;
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,173 @@
+package org.carlspring.strongbox.providers.layout.p2;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A file of a P2 repository (a bundle, a feature or a binary), as it was last read by the {@link P2MetadataGenerator}.
+ */
+public class P2Bundle
+{
+
+    public static final String OSGI_BUNDLE = "osgi.bundle";
+
+    public static final String FEATURE = "org.eclipse.update.feature";
+
+    public static final String BINARY = "binary";
+
+    private static final String SEPARATOR = "|";
+
+    private final String path;
+
+    private final String classifier;
+
+    private final String id;
+
+    private final String version;
+
+    private final long size;
+
+    private final long lastModified;
+
+    /**
+     * The hexadecimal checksums, by digest algorithm.
+     */
+    private final Map<String, String> checksums;
+
+    /**
+     * Whether the file has been read in this run, rather than taken over from the previous one.
+     */
+    private final boolean changed;
+
+
+    public P2Bundle(String path,
+                    String classifier,
+                    String id,
+                    String version,
+                    long size,
+                    long lastModified,
+                    Map<String, String> checksums,
+                    boolean changed)
+    {
+        this.path = path;
+        this.classifier = classifier;
+        this.id = id;
+        this.version = version;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.checksums = Collections.unmodifiableMap(new LinkedHashMap<>(checksums));
+        this.changed = changed;
+    }
+
+    /**
+     * @return the path of the file, relative to the repository
+     */
+    public String getPath()
+    {
+        return path;
+    }
+
+    public String getClassifier()
+    {
+        return classifier;
+    }
+
+    public String getId()
+    {
+        return id;
+    }
+
+    public String getVersion()
+    {
+        return version;
+    }
+
+    public long getSize()
+    {
+        return size;
+    }
+
+    public long getLastModified()
+    {
+        return lastModified;
+    }
+
+    public Map<String, String> getChecksums()
+    {
+        return checksums;
+    }
+
+    public boolean isChanged()
+    {
+        return changed;
+    }
+
+    /**
+     * @return the same bundle, as if it had been taken over from a previous run
+     */
+    P2Bundle unchanged()
+    {
+        return changed ? new P2Bundle(path, classifier, id, version, size, lastModified, checksums, false) : this;
+    }
+
+    /**
+     * @return everything but the path, as stored by {@link P2MetadataGenerator} between runs
+     */
+    String toState()
+    {
+        StringBuilder state = new StringBuilder();
+        state.append(lastModified).append(SEPARATOR)
+             .append(size).append(SEPARATOR)
+             .append(classifier).append(SEPARATOR)
+             .append(id).append(SEPARATOR)
+             .append(version);
+
+        checksums.forEach((algorithm, checksum) -> state.append(SEPARATOR)
+                                                        .append(algorithm)
+                                                        .append("=")
+                                                        .append(checksum));
+
+        return state.toString();
+    }
+
+    /**
+     * @return the bundle, or <code>null</code>, if the state can't be parsed
+     */
+    static P2Bundle fromState(String path,
+                              String state)
+    {
+        String[] values = state.split("\\" + SEPARATOR);
+        if (values.length < 5)
+        {
+            return null;
+        }
+
+        Map<String, String> checksums = new LinkedHashMap<>();
+        for (int i = 5; i < values.length; i++)
+        {
+            int index = values[i].indexOf('=');
+            if (index > 0)
+            {
+                checksums.put(values[i].substring(0, index), values[i].substring(index + 1));
+            }
+        }
+
+        try
+        {
+            return new P2Bundle(path, values[2], values[3], values[4], Long.parseLong(values[1]),
+                                Long.parseLong(values[0]), checksums, false);
+        }
+        catch (NumberFormatException e)
+        {
+            return null;
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return path + " (" + classifier + " " + id + " " + version + ")";
+    }
+
+}
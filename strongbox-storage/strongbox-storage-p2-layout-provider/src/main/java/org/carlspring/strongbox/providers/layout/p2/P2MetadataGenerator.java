@@ -0,0 +1,877 @@
+package org.carlspring.strongbox.providers.layout.p2;
+
+import org.carlspring.strongbox.util.MessageDigestUtils;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Element;
+import org.xml.sax.SAXException;
+
+/**
+ * Generates the metadata (artifacts.xml and content.xml, along with their compressed artifacts.jar and content.jar)
+ * and the checksums of a P2 repository.
+ * <p>
+ * The plugins, features and binary folders of the repository are walked once, and the files are read in parallel.
+ * Only the manifest (or the feature.xml) of a bundle is read (see {@link P2ZipReader}), and all of its checksums
+ * are calculated while reading the file once. What has been read is kept in the .index folder of the
+ * repository, so that, unless the regeneration is forced, only the files which have changed since the previous run
+ * are read again.
+ * <p>
+ * The metadata is marked as generated (see {@link #GENERATED_PROPERTY}) and metadata which is not, such as the one
+ * of a repository which has been built by the P2 publisher, is never replaced, as the generated one only describes
+ * the artifacts, but not the requirements of the bundles, nor the packed artifacts.
+ */
+public class P2MetadataGenerator
+{
+
+    private static final Logger logger = LoggerFactory.getLogger(P2MetadataGenerator.class);
+
+    public static final String STATE_FILE = ".index/p2-bundles.properties";
+
+    public static final String CONTENT_XML = "content.xml";
+
+    public static final String CONTENT_JAR = "content.jar";
+
+    /**
+     * The repository property which marks the metadata as generated by Strongbox.
+     */
+    public static final String GENERATED_PROPERTY = "strongbox.generated";
+
+    private static final String MANIFEST = "META-INF/MANIFEST.MF";
+
+    private static final String FEATURE_XML = "feature.xml";
+
+    private static final String IU_NAMESPACE = "org.eclipse.equinox.p2.iu";
+
+    /**
+     * The folders of the repository, along with the classifier of their files.
+     */
+    private static final Map<String, String> FOLDERS = new LinkedHashMap<>();
+
+    /**
+     * The default mappings of a simple artifact repository, as {filter, output} pairs.
+     */
+    private static final String[][] MAPPING_RULES = new String[][]{
+            { "(& (classifier=osgi.bundle) (format=packed))", "${repoUrl}/plugins/${id}_${version}.jar.pack.gz" },
+            { "(& (classifier=osgi.bundle))", "${repoUrl}/plugins/${id}_${version}.jar" },
+            { "(& (classifier=binary))", "${repoUrl}/binary/${id}_${version}" },
+            { "(& (classifier=org.eclipse.update.feature) (format=packed))",
+              "${repoUrl}/features/${id}_${version}.jar.pack.gz" },
+            { "(& (classifier=org.eclipse.update.feature))", "${repoUrl}/features/${id}_${version}.jar" } };
+
+    static
+    {
+        FOLDERS.put("plugins", P2Bundle.OSGI_BUNDLE);
+        FOLDERS.put("features", P2Bundle.FEATURE);
+        FOLDERS.put("binary", P2Bundle.BINARY);
+    }
+
+    private final Path basedir;
+
+    private final String repositoryName;
+
+    private final Set<String> digestAlgorithms;
+
+    private final int parallelism;
+
+
+    public P2MetadataGenerator(Path basedir,
+                               String repositoryName,
+                               Set<String> digestAlgorithms)
+    {
+        this(basedir, repositoryName, digestAlgorithms, Runtime.getRuntime().availableProcessors());
+    }
+
+    public P2MetadataGenerator(Path basedir,
+                               String repositoryName,
+                               Set<String> digestAlgorithms,
+                               int parallelism)
+    {
+        this.basedir = basedir;
+        this.repositoryName = repositoryName;
+        this.digestAlgorithms = digestAlgorithms;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Reads the files which have changed since the previous run and writes the checksums and the metadata.
+     *
+     * @param forceRegeneration whether to read all of the files and to write all of the checksums
+     */
+    public List<P2Bundle> generate(boolean forceRegeneration)
+            throws IOException
+    {
+        List<P2Bundle> bundles = scan(forceRegeneration);
+
+        writeChecksums(bundles, forceRegeneration);
+        if (!writeMetadata(bundles))
+        {
+            logger.info("The metadata of " + basedir + " has not been generated by Strongbox, only the checksums" +
+                        " have been generated.");
+        }
+
+        return bundles;
+    }
+
+    /**
+     * Walks the repository and reads the files which have changed since the previous run (or all of them).
+     *
+     * @return the files of the repository, ordered by path
+     * @throws IOException if a file can't be read and hasn't been read before either
+     */
+    public List<P2Bundle> scan(boolean forceRegeneration)
+            throws IOException
+    {
+        Map<String, P2Bundle> previousBundles = loadState();
+        Map<Path, String> files = walk();
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        List<P2Bundle> bundles;
+        try
+        {
+            bundles = pool.submit(() -> files.entrySet()
+                                             .parallelStream()
+                                             .map(e -> readOrReuse(e.getKey(), e.getValue(), previousBundles,
+                                                                   forceRegeneration))
+                                             .filter(Objects::nonNull)
+                                             .sorted(Comparator.comparing(P2Bundle::getPath))
+                                             .collect(Collectors.toList()))
+                          .get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+
+            throw new IOException("Interrupted while reading " + basedir + ".", e);
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof UncheckedIOException)
+            {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+
+            throw new IOException("Failed to read " + basedir + ".", e.getCause());
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+
+        long changed = bundles.stream().filter(P2Bundle::isChanged).count();
+        logger.debug("Read " + changed + " of the " + bundles.size() + " files of " + basedir + ".");
+
+        saveState(bundles);
+
+        return bundles;
+    }
+
+    /**
+     * Writes the checksums of the files which have changed, or which have none.
+     */
+    public void writeChecksums(List<P2Bundle> bundles,
+                               boolean forceRegeneration)
+            throws IOException
+    {
+        for (P2Bundle bundle : bundles)
+        {
+            Path file = basedir.resolve(bundle.getPath());
+            for (Map.Entry<String, String> checksum : bundle.getChecksums().entrySet())
+            {
+                String extension = "." + checksum.getKey().toLowerCase().replaceAll("-", "");
+                if (forceRegeneration || bundle.isChanged() ||
+                    !Files.exists(file.resolveSibling(file.getFileName() + extension)))
+                {
+                    MessageDigestUtils.writeChecksum(file.toFile(), extension, checksum.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the artifacts.xml, content.xml, artifacts.jar and content.jar of the repository, unless there already is
+     * metadata which has not been generated by Strongbox.
+     *
+     * @return whether the metadata has been written
+     */
+    public boolean writeMetadata(List<P2Bundle> bundles)
+            throws IOException
+    {
+        if (!isGenerated(P2ArtifactReader.ARTIFACTS_XML, P2ArtifactReader.ARTIFACTS_JAR) ||
+            !isGenerated(CONTENT_XML, CONTENT_JAR))
+        {
+            return false;
+        }
+
+        long timestamp = System.currentTimeMillis();
+        try
+        {
+            byte[] artifacts = createArtifacts(bundles, timestamp);
+            write(P2ArtifactReader.ARTIFACTS_XML, artifacts);
+            writeJar(P2ArtifactReader.ARTIFACTS_JAR, P2ArtifactReader.ARTIFACTS_XML, artifacts);
+
+            byte[] content = createContent(bundles, timestamp);
+            write(CONTENT_XML, content);
+            writeJar(CONTENT_JAR, CONTENT_XML, content);
+        }
+        catch (XMLStreamException e)
+        {
+            throw new IOException("Failed to generate the metadata of " + basedir + ".", e);
+        }
+
+        return true;
+    }
+
+    /**
+     * @return whether the metadata file (or, if there is none, its compressed form) is missing, or has been generated
+     */
+    private boolean isGenerated(String xmlFilename,
+                                String jarFilename)
+    {
+        Path xmlFile = basedir.resolve(xmlFilename);
+        Path jarFile = basedir.resolve(jarFilename);
+        try
+        {
+            if (Files.exists(xmlFile))
+            {
+                try (InputStream is = Files.newInputStream(xmlFile))
+                {
+                    return isGenerated(is);
+                }
+            }
+
+            if (Files.exists(jarFile))
+            {
+                try (ZipFile zipFile = new ZipFile(jarFile.toFile()))
+                {
+                    ZipEntry entry = zipFile.getEntry(xmlFilename);
+                    if (entry == null)
+                    {
+                        return false;
+                    }
+
+                    try (InputStream is = zipFile.getInputStream(entry))
+                    {
+                        return isGenerated(is);
+                    }
+                }
+            }
+
+            return true;
+        }
+        catch (IOException | XMLStreamException e)
+        {
+            // What can't be read is not replaced either, as it may still be readable by the clients.
+            logger.warn("Unable to read the metadata of " + basedir + ": " + e.getMessage());
+
+            return false;
+        }
+    }
+
+    /**
+     * Only reads the properties of the repository (which come before its mappings, artifacts or units), so that the
+     * metadata of large repositories is not read as a whole.
+     */
+    private static boolean isGenerated(InputStream is)
+            throws XMLStreamException
+    {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        XMLStreamReader reader = factory.createXMLStreamReader(is);
+        try
+        {
+            int depth = 0;
+            while (reader.hasNext())
+            {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT)
+                {
+                    depth++;
+
+                    String name = reader.getLocalName();
+                    if (depth == 2 && !"properties".equals(name))
+                    {
+                        return false;
+                    }
+                    if (depth == 3 && "property".equals(name) &&
+                        GENERATED_PROPERTY.equals(reader.getAttributeValue(null, "name")))
+                    {
+                        return Boolean.parseBoolean(reader.getAttributeValue(null, "value"));
+                    }
+                }
+                else if (event == XMLStreamConstants.END_ELEMENT)
+                {
+                    if (depth == 2)
+                    {
+                        return false;
+                    }
+
+                    depth--;
+                }
+            }
+
+            return false;
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    private Map<Path, String> walk()
+            throws IOException
+    {
+        Map<Path, String> files = new LinkedHashMap<>();
+        for (Map.Entry<String, String> folder : FOLDERS.entrySet())
+        {
+            Path directory = basedir.resolve(folder.getKey());
+            if (!Files.isDirectory(directory))
+            {
+                continue;
+            }
+
+            try (Stream<Path> paths = Files.list(directory))
+            {
+                paths.filter(Files::isRegularFile)
+                     .filter(path -> isBundle(path, folder.getValue()))
+                     .forEach(path -> files.put(path, folder.getValue()));
+            }
+        }
+
+        return files;
+    }
+
+    private boolean isBundle(Path path,
+                             String classifier)
+    {
+        String filename = path.getFileName().toString();
+        if (!P2Bundle.BINARY.equals(classifier))
+        {
+            // Packed (.jar.pack.gz) bundles are not supported.
+            return filename.endsWith(".jar");
+        }
+
+        return digestAlgorithms.stream()
+                               .map(algorithm -> "." + algorithm.toLowerCase().replaceAll("-", ""))
+                               .noneMatch(filename::endsWith);
+    }
+
+    private P2Bundle readOrReuse(Path file,
+                                 String classifier,
+                                 Map<String, P2Bundle> previousBundles,
+                                 boolean forceRegeneration)
+    {
+        String path = basedir.relativize(file).toString().replace('\\', '/');
+        P2Bundle previous = previousBundles.get(path);
+        try
+        {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+
+            if (!forceRegeneration &&
+                previous != null &&
+                previous.getLastModified() == attributes.lastModifiedTime().toMillis() &&
+                previous.getSize() == attributes.size() &&
+                previous.getClassifier().equals(classifier) &&
+                previous.getChecksums().keySet().containsAll(digestAlgorithms))
+            {
+                return previous.unchanged();
+            }
+
+            return read(file, path, classifier, attributes);
+        }
+        catch (IOException e)
+        {
+            if (previous != null && previous.getClassifier().equals(classifier))
+            {
+                // The file is still listed as it was, rather than disappearing from the metadata.
+                logger.error("Failed to read " + file + ", keeping what was previously read from it.", e);
+
+                return previous.unchanged();
+            }
+
+            throw new UncheckedIOException("Failed to read " + file + ".", e);
+        }
+    }
+
+    private P2Bundle read(Path file,
+                          String path,
+                          String classifier,
+                          BasicFileAttributes attributes)
+            throws IOException
+    {
+        String[] idAndVersion = null;
+        Map<String, String> checksums = new LinkedHashMap<>();
+
+        try (P2ZipReader reader = new P2ZipReader(file))
+        {
+            if (P2Bundle.OSGI_BUNDLE.equals(classifier))
+            {
+                idAndVersion = readManifest(reader.readEntry(MANIFEST));
+            }
+            else if (P2Bundle.FEATURE.equals(classifier))
+            {
+                idAndVersion = readFeature(reader.readEntry(FEATURE_XML));
+            }
+
+            Map<String, MessageDigest> digests = new LinkedHashMap<>();
+            for (String algorithm : digestAlgorithms)
+            {
+                digests.put(algorithm, MessageDigest.getInstance(algorithm));
+            }
+
+            // All the checksums are calculated while reading the file once.
+            reader.digest(digests.values());
+
+            for (Map.Entry<String, MessageDigest> digest : digests.entrySet())
+            {
+                checksums.put(digest.getKey(), MessageDigestUtils.convertToHexadecimalString(digest.getValue()));
+            }
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IOException(e.getMessage(), e);
+        }
+
+        if (idAndVersion == null)
+        {
+            idAndVersion = parseFilename(file.getFileName().toString());
+        }
+        if (idAndVersion == null)
+        {
+            logger.warn("Unable to determine the id and the version of " + file + ".");
+
+            return null;
+        }
+
+        return new P2Bundle(path, classifier, idAndVersion[0], idAndVersion[1], attributes.size(),
+                            attributes.lastModifiedTime().toMillis(), checksums, true);
+    }
+
+    private static String[] readManifest(byte[] manifestBytes)
+            throws IOException
+    {
+        if (manifestBytes == null)
+        {
+            return null;
+        }
+
+        Attributes attributes = new Manifest(new ByteArrayInputStream(manifestBytes)).getMainAttributes();
+        String symbolicName = attributes.getValue("Bundle-SymbolicName");
+        if (symbolicName == null)
+        {
+            return null;
+        }
+
+        // E.g. "org.carlspring.bundle;singleton:=true"
+        int index = symbolicName.indexOf(';');
+        if (index >= 0)
+        {
+            symbolicName = symbolicName.substring(0, index);
+        }
+
+        String version = attributes.getValue("Bundle-Version");
+
+        return new String[]{ symbolicName.trim(), version != null ? version.trim() : "0.0.0" };
+    }
+
+    private static String[] readFeature(byte[] featureBytes)
+            throws IOException
+    {
+        if (featureBytes == null)
+        {
+            return null;
+        }
+
+        try (InputStream is = new ByteArrayInputStream(featureBytes))
+        {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+
+            Element feature = factory.newDocumentBuilder().parse(is).getDocumentElement();
+            String id = feature.getAttribute("id");
+            String version = feature.getAttribute("version");
+
+            return id.isEmpty() || version.isEmpty() ? null : new String[]{ id, version };
+        }
+        catch (ParserConfigurationException | SAXException e)
+        {
+            logger.warn("Unable to parse the feature.xml: " + e.getMessage());
+
+            return null;
+        }
+    }
+
+    /**
+     * @return the id and the version of {id}_{version}.jar
+     */
+    private static String[] parseFilename(String filename)
+    {
+        String name = filename.endsWith(".jar") ? filename.substring(0, filename.length() - 4) : filename;
+        int index = name.lastIndexOf('_');
+
+        return index > 0 && index < name.length() - 1 ?
+               new String[]{ name.substring(0, index), name.substring(index + 1) } : null;
+    }
+
+    private byte[] createArtifacts(List<P2Bundle> bundles,
+                                   long timestamp)
+            throws XMLStreamException
+    {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        XmlWriter xml = new XmlWriter(os);
+
+        xml.start("artifactRepository");
+        xml.startElement("repository",
+                         "name", repositoryName,
+                         "type", "org.eclipse.equinox.p2.artifact.repository.simpleRepository",
+                         "version", "1");
+        writeRepositoryProperties(xml, timestamp);
+
+        xml.startElement("mappings", "size", String.valueOf(MAPPING_RULES.length));
+        for (String[] rule : MAPPING_RULES)
+        {
+            xml.emptyElement("rule", "filter", rule[0], "output", rule[1]);
+        }
+        xml.endElement();
+
+        xml.startElement("artifacts", "size", String.valueOf(bundles.size()));
+        for (P2Bundle bundle : bundles)
+        {
+            xml.startElement("artifact",
+                             "classifier", bundle.getClassifier(),
+                             "id", bundle.getId(),
+                             "version", bundle.getVersion());
+
+            Map<String, String> properties = new LinkedHashMap<>();
+            properties.put("artifact.size", String.valueOf(bundle.getSize()));
+            properties.put("download.size", String.valueOf(bundle.getSize()));
+            bundle.getChecksums().forEach(
+                    (algorithm, checksum) -> properties.put("download.checksum." +
+                                                            algorithm.toLowerCase().replaceAll("-", ""), checksum));
+            if (bundle.getChecksums().containsKey("MD5"))
+            {
+                properties.put("download.md5", bundle.getChecksums().get("MD5"));
+            }
+
+            writeProperties(xml, properties);
+            xml.endElement();
+        }
+        xml.endElement();
+
+        xml.endElement();
+        xml.end();
+
+        return os.toByteArray();
+    }
+
+    private byte[] createContent(List<P2Bundle> bundles,
+                                 long timestamp)
+            throws XMLStreamException
+    {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        XmlWriter xml = new XmlWriter(os);
+
+        xml.start("metadataRepository");
+        xml.startElement("repository",
+                         "name", repositoryName,
+                         "type", "org.eclipse.equinox.internal.p2.metadata.repository.LocalMetadataRepository",
+                         "version", "1");
+        writeRepositoryProperties(xml, timestamp);
+
+        xml.startElement("units", "size", String.valueOf(bundles.size()));
+        for (P2Bundle bundle : bundles)
+        {
+            boolean feature = P2Bundle.FEATURE.equals(bundle.getClassifier());
+            boolean binary = P2Bundle.BINARY.equals(bundle.getClassifier());
+            String unitId = feature ? bundle.getId() + ".feature.jar" : bundle.getId();
+
+            xml.startElement("unit", "id", unitId, "version", bundle.getVersion());
+
+            xml.startElement("provides", "size", binary ? "1" : "2");
+            xml.emptyElement("provided", "namespace", IU_NAMESPACE, "name", unitId, "version", bundle.getVersion());
+            if (!binary)
+            {
+                xml.emptyElement("provided",
+                                 "namespace", bundle.getClassifier(),
+                                 "name", bundle.getId(),
+                                 "version", bundle.getVersion());
+            }
+            xml.endElement();
+
+            xml.startElement("artifacts", "size", "1");
+            xml.emptyElement("artifact",
+                             "classifier", bundle.getClassifier(),
+                             "id", bundle.getId(),
+                             "version", bundle.getVersion());
+            xml.endElement();
+
+            xml.endElement();
+        }
+        xml.endElement();
+
+        xml.endElement();
+        xml.end();
+
+        return os.toByteArray();
+    }
+
+    private static void writeRepositoryProperties(XmlWriter xml,
+                                                  long timestamp)
+            throws XMLStreamException
+    {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("p2.timestamp", String.valueOf(timestamp));
+        properties.put("p2.compressed", "true");
+        properties.put(GENERATED_PROPERTY, "true");
+
+        writeProperties(xml, properties);
+    }
+
+    private static void writeProperties(XmlWriter xml,
+                                        Map<String, String> properties)
+            throws XMLStreamException
+    {
+        xml.startElement("properties", "size", String.valueOf(properties.size()));
+        for (Map.Entry<String, String> property : properties.entrySet())
+        {
+            xml.emptyElement("property", "name", property.getKey(), "value", property.getValue());
+        }
+        xml.endElement();
+    }
+
+    /**
+     * Replaces the file in one go, so that it's never read while it's only partially written.
+     */
+    private void write(String filename,
+                       byte[] content)
+            throws IOException
+    {
+        Path file = basedir.resolve(filename);
+        Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try
+        {
+            Files.write(temp, content);
+            try
+            {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (AtomicMoveNotSupportedException e)
+            {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        finally
+        {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void writeJar(String filename,
+                          String entryName,
+                          byte[] content)
+            throws IOException
+    {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(os))
+        {
+            zos.putNextEntry(new ZipEntry(entryName));
+            zos.write(content);
+            zos.closeEntry();
+        }
+
+        write(filename, os.toByteArray());
+    }
+
+    private Map<String, P2Bundle> loadState()
+    {
+        Map<String, P2Bundle> bundles = new HashMap<>();
+
+        Path stateFile = basedir.resolve(STATE_FILE);
+        if (!Files.exists(stateFile))
+        {
+            return bundles;
+        }
+
+        Properties state = new Properties();
+        try (InputStream is = Files.newInputStream(stateFile))
+        {
+            state.load(is);
+        }
+        catch (IOException | IllegalArgumentException e)
+        {
+            logger.warn("Unable to read " + stateFile + ", all of the files will be read: " + e.getMessage());
+
+            return bundles;
+        }
+
+        for (String path : state.stringPropertyNames())
+        {
+            P2Bundle bundle = P2Bundle.fromState(path, state.getProperty(path));
+            if (bundle != null)
+            {
+                bundles.put(path, bundle);
+            }
+        }
+
+        return bundles;
+    }
+
+    private void saveState(List<P2Bundle> bundles)
+            throws IOException
+    {
+        Properties state = new Properties();
+        for (P2Bundle bundle : bundles)
+        {
+            state.setProperty(bundle.getPath(), bundle.toState());
+        }
+
+        Path stateFile = basedir.resolve(STATE_FILE);
+        Files.createDirectories(stateFile.getParent());
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        state.store(os, "The files of the repository, as of the last metadata generation");
+
+        write(STATE_FILE, os.toByteArray());
+    }
+
+    /**
+     * Writes indented XML, as the {@link XMLStreamWriter} doesn't.
+     */
+    private static class XmlWriter
+    {
+
+        private final XMLStreamWriter writer;
+
+        private final List<Boolean> hasChildren = new ArrayList<>();
+
+
+        XmlWriter(OutputStream os)
+                throws XMLStreamException
+        {
+            this.writer = XMLOutputFactory.newInstance().createXMLStreamWriter(os, "UTF-8");
+        }
+
+        void start(String repositoryType)
+                throws XMLStreamException
+        {
+            writer.writeStartDocument("UTF-8", "1.0");
+            writer.writeCharacters("\n");
+            writer.writeProcessingInstruction(repositoryType, "version='1.1.0'");
+        }
+
+        void startElement(String name,
+                          String... attributes)
+                throws XMLStreamException
+        {
+            indent();
+            writer.writeStartElement(name);
+            writeAttributes(attributes);
+
+            hasChildren.add(false);
+        }
+
+        void emptyElement(String name,
+                          String... attributes)
+                throws XMLStreamException
+        {
+            indent();
+            writer.writeEmptyElement(name);
+            writeAttributes(attributes);
+        }
+
+        void endElement()
+                throws XMLStreamException
+        {
+            boolean children = hasChildren.remove(hasChildren.size() - 1);
+            if (children)
+            {
+                writer.writeCharacters("\n");
+                writeIndentation(hasChildren.size());
+            }
+
+            writer.writeEndElement();
+        }
+
+        void end()
+                throws XMLStreamException
+        {
+            writer.writeCharacters("\n");
+            writer.writeEndDocument();
+            writer.close();
+        }
+
+        private void indent()
+                throws XMLStreamException
+        {
+            if (!hasChildren.isEmpty())
+            {
+                hasChildren.set(hasChildren.size() - 1, true);
+            }
+
+            writer.writeCharacters("\n");
+            writeIndentation(hasChildren.size());
+        }
+
+        private void writeIndentation(int depth)
+                throws XMLStreamException
+        {
+            for (int i = 0; i < depth; i++)
+            {
+                writer.writeCharacters("  ");
+            }
+        }
+
+        private void writeAttributes(String... attributes)
+                throws XMLStreamException
+        {
+            for (int i = 0; i + 1 < attributes.length; i += 2)
+            {
+                writer.writeAttribute(attributes[i], attributes[i + 1]);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,91 @@
+package org.carlspring.strongbox.providers.layout.p2;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The parsed artifacts of a P2 repository, indexed by {id}/{version}/{classifier}, along with the compiled rules of its
+ * mappings.
+ * <p>
+ * An index is never modified once it has been built. It remembers the last modification time and the size of the file
+ * it was built from, so that it can tell when the file has been replaced.
+ */
+public class P2RepositoryIndex
+{
+
+    private final File source;
+
+    private final long lastModified;
+
+    private final long length;
+
+    private final Map<String, P2Artifact> artifacts;
+
+    private final List<P2ArtifactRuleProcessor> rules;
+
+
+    public P2RepositoryIndex(File source,
+                             long lastModified,
+                             long length,
+                             P2Repository repository)
+    {
+        this.source = source;
+        this.lastModified = lastModified;
+        this.length = length;
+
+        Map<String, P2Artifact> artifacts = new HashMap<>();
+        if (repository.getArtifacts() != null)
+        {
+            for (P2Artifact artifact : repository.getArtifacts().getArtifacts())
+            {
+                artifacts.putIfAbsent(getKey(artifact.getId(), artifact.getVersion(), artifact.getClassifier()),
+                                      artifact);
+            }
+        }
+
+        this.artifacts = Collections.unmodifiableMap(artifacts);
+        this.rules = Collections.unmodifiableList(P2ArtifactRuleProcessor.compile(repository.getMappings()));
+    }
+
+    public File getSource()
+    {
+        return source;
+    }
+
+    /**
+     * @return <code>true</code>, if the file, which the index was built from, hasn't changed since
+     */
+    public boolean isCurrent()
+    {
+        return source.lastModified() == lastModified && source.length() == length;
+    }
+
+    public P2Artifact getArtifact(String id,
+                                  String version,
+                                  String classifier)
+    {
+        return artifacts.get(getKey(id, version, classifier));
+    }
+
+    public Collection<P2Artifact> getArtifacts()
+    {
+        return artifacts.values();
+    }
+
+    public List<P2ArtifactRuleProcessor> getRules()
+    {
+        return rules;
+    }
+
+    private static String getKey(String id,
+                                 String version,
+                                 String classifier)
+    {
+        return id + "/" + version + "/" + classifier;
+    }
+
+}
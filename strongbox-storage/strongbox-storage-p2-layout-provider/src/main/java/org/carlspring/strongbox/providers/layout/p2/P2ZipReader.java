@@ -0,0 +1,121 @@
+package org.carlspring.strongbox.providers.layout.p2;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Collection;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Reads single entries (such as the <code>META-INF/MANIFEST.MF</code>) of a bundle through a {@link ZipFile}, which
+ * looks them up in the central directory at the end of the file, rather than reading the bundle from its start.
+ * <p>
+ * As the bundles are uploaded by the users, an entry is never inflated beyond the size which the central directory
+ * declares for it, nor beyond {@link #MAX_ENTRY_SIZE}. The archive is only opened once an entry is read, so files
+ * which are merely digested don't have to be archives.
+ */
+public class P2ZipReader
+        implements Closeable
+{
+
+    /**
+     * The largest entry which will be read (a manifest, or a feature.xml, is usually just a few kilobytes).
+     */
+    public static final int MAX_ENTRY_SIZE = 8 * 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path path;
+
+    private ZipFile zipFile;
+
+
+    public P2ZipReader(Path path)
+    {
+        this.path = path;
+    }
+
+    /**
+     * Updates all the digests with the whole content of the file, which is read once.
+     */
+    public void digest(Collection<MessageDigest> digests)
+            throws IOException
+    {
+        try (InputStream is = Files.newInputStream(path))
+        {
+            byte[] bytes = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = is.read(bytes)) != -1)
+            {
+                for (MessageDigest digest : digests)
+                {
+                    digest.update(bytes, 0, read);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the uncompressed content of the entry, or <code>null</code>, if there is no such entry
+     * @throws IOException if the archive is invalid, or the entry is larger than {@link #MAX_ENTRY_SIZE}
+     */
+    public byte[] readEntry(String name)
+            throws IOException
+    {
+        if (zipFile == null)
+        {
+            zipFile = new ZipFile(path.toFile());
+        }
+
+        ZipEntry entry = zipFile.getEntry(name);
+        if (entry == null)
+        {
+            return null;
+        }
+
+        long declaredSize = entry.getSize();
+        if (declaredSize > MAX_ENTRY_SIZE)
+        {
+            throw new IOException("The entry " + name + " of " + path + " is larger than " + MAX_ENTRY_SIZE +
+                                  " bytes.");
+        }
+
+        long limit = declaredSize >= 0 ? declaredSize : MAX_ENTRY_SIZE;
+
+        try (InputStream is = zipFile.getInputStream(entry))
+        {
+            ByteArrayOutputStream os = new ByteArrayOutputStream((int) Math.min(limit, BUFFER_SIZE));
+            byte[] bytes = new byte[(int) Math.min(limit + 1, BUFFER_SIZE)];
+            int read;
+            while ((read = is.read(bytes)) != -1)
+            {
+                if (os.size() + read > limit)
+                {
+                    // There is more than the central directory has declared, so this could be a zip bomb.
+                    throw new IOException("The entry " + name + " of " + path + " is larger than " +
+                                          (declaredSize >= 0 ? "its declared size." : MAX_ENTRY_SIZE + " bytes."));
+                }
+
+                os.write(bytes, 0, read);
+            }
+
+            return os.toByteArray();
+        }
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        if (zipFile != null)
+        {
+            zipFile.close();
+        }
+    }
+
+}
@@ -2,12 +2,22 @@ package org.carlspring.strongbox.providers.layout.p2;
 
 import org.carlspring.strongbox.artifact.coordinates.P2ArtifactCoordinates;
 
+import javax.xml.bind.JAXBException;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FileUtils;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -107,6 +117,78 @@ public class P2ArtifactReaderTest
         Assert.assertEquals(expectedFilename, foundArtifact.getFilename());
     }
 
+    @Test
+    public void testIndexIsReused()
+            throws URISyntaxException, IOException, JAXBException
+    {
+        final String repoDir = getRepoDir();
+
+        P2RepositoryIndex index = P2ArtifactReader.getIndex(repoDir);
+
+        Assert.assertSame(index, P2ArtifactReader.getIndex(repoDir));
+        Assert.assertEquals(3, index.getArtifacts().size());
+        Assert.assertEquals(5, index.getRules().size());
+        Assert.assertNotNull(index.getArtifact(ID, VERSION, CLASSIFIER));
+        Assert.assertNull(index.getArtifact(ID, VERSION, "binary"));
+
+        P2ArtifactReader.invalidate(repoDir);
+
+        Assert.assertNotSame(index, P2ArtifactReader.getIndex(repoDir));
+    }
+
+    @Test
+    public void testIndexIsRebuiltWhenModified()
+            throws URISyntaxException, IOException, JAXBException
+    {
+        Path repoDir = createRepoDir("p2-modified");
+        Path artifactsXml = repoDir.resolve("artifacts.xml");
+        String content = new String(Files.readAllBytes(getArtifactsXml().toPath()), StandardCharsets.UTF_8);
+        Files.write(artifactsXml, content.getBytes(StandardCharsets.UTF_8));
+
+        Assert.assertNotNull(P2ArtifactReader.getArtifact(repoDir.toString(), PATH));
+
+        // Remove the bundle
+        Files.write(artifactsXml, content.replace("id='com.carlspring.bundle'", "id='com.carlspring.removed'")
+                                         .getBytes(StandardCharsets.UTF_8));
+        Assert.assertTrue(artifactsXml.toFile().setLastModified(System.currentTimeMillis() + 2000));
+
+        Assert.assertNull(P2ArtifactReader.getArtifact(repoDir.toString(), PATH));
+    }
+
+    @Test
+    public void testCompressedArtifacts()
+            throws URISyntaxException, IOException
+    {
+        Path repoDir = createRepoDir("p2-compressed");
+        try (OutputStream os = Files.newOutputStream(repoDir.resolve("artifacts.jar"));
+             ZipOutputStream zos = new ZipOutputStream(os))
+        {
+            zos.putNextEntry(new ZipEntry("artifacts.xml"));
+            Files.copy(getArtifactsXml().toPath(), zos);
+            zos.closeEntry();
+        }
+
+        P2ArtifactCoordinates foundArtifact = P2ArtifactReader.getArtifact(repoDir.toString(), PATH);
+
+        Assert.assertNotNull(foundArtifact);
+        Assert.assertEquals(String.format("%s/plugins/%s_%s.jar", repoDir, ID, VERSION), foundArtifact.getFilename());
+    }
+
+    private Path createRepoDir(String name)
+            throws IOException
+    {
+        Path repoDir = Paths.get("target", name).toAbsolutePath();
+        FileUtils.deleteDirectory(repoDir.toFile());
+
+        return Files.createDirectories(repoDir);
+    }
+
+    private File getArtifactsXml()
+            throws URISyntaxException
+    {
+        return new File(getClass().getResource("artifacts.xml").toURI());
+    }
+
     private P2ArtifactCoordinates getArtifact()
             throws URISyntaxException, IOException
     {
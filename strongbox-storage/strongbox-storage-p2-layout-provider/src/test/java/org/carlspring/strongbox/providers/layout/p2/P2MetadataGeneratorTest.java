@@ -0,0 +1,313 @@
+package org.carlspring.strongbox.providers.layout.p2;
+
+import org.carlspring.strongbox.artifact.coordinates.P2ArtifactCoordinates;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class P2MetadataGeneratorTest
+{
+
+    private static final Set<String> DIGEST_ALGORITHMS = new LinkedHashSet<>(Arrays.asList("MD5", "SHA-1"));
+
+    private static final String BUNDLE_ID = "org.carlspring.strongbox.bundle";
+
+    private static final String FEATURE_ID = "org.carlspring.strongbox.feature";
+
+    private Path repoDir;
+
+
+    @Before
+    public void setUp()
+            throws IOException
+    {
+        repoDir = Paths.get("target", "p2-generated").toAbsolutePath();
+        FileUtils.deleteDirectory(repoDir.toFile());
+
+        Files.createDirectories(repoDir.resolve("plugins"));
+        Files.createDirectories(repoDir.resolve("features"));
+        Files.createDirectories(repoDir.resolve("binary"));
+
+        // The name of the file doesn't match the manifest on purpose.
+        createBundle(repoDir.resolve("plugins/bundle.jar"), BUNDLE_ID + ";singleton:=true", "1.0.0.v2017");
+        createFeature(repoDir.resolve("features/" + FEATURE_ID + "_2.0.0.jar"), FEATURE_ID, "2.0.0");
+        Files.write(repoDir.resolve("binary/org.carlspring.strongbox.binary_3.0.0"),
+                    "binary".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testGenerate()
+            throws IOException
+    {
+        List<P2Bundle> bundles = new P2MetadataGenerator(repoDir, "test", DIGEST_ALGORITHMS, 2).generate(false);
+
+        Assert.assertEquals(3, bundles.size());
+        Assert.assertEquals("binary/org.carlspring.strongbox.binary_3.0.0", bundles.get(0).getPath());
+        Assert.assertEquals(P2Bundle.FEATURE, bundles.get(1).getClassifier());
+        Assert.assertEquals(FEATURE_ID, bundles.get(1).getId());
+
+        P2Bundle bundle = bundles.get(2);
+        Assert.assertEquals(P2Bundle.OSGI_BUNDLE, bundle.getClassifier());
+        Assert.assertEquals(BUNDLE_ID, bundle.getId());
+        Assert.assertEquals("1.0.0.v2017", bundle.getVersion());
+        Assert.assertTrue(bundle.isChanged());
+
+        for (String file : Arrays.asList("artifacts.xml", "artifacts.jar", "content.xml", "content.jar",
+                                         "plugins/bundle.jar.md5", "plugins/bundle.jar.sha1",
+                                         P2MetadataGenerator.STATE_FILE))
+        {
+            Assert.assertTrue(file + " was not generated!", Files.exists(repoDir.resolve(file)));
+        }
+
+        Assert.assertEquals(bundle.getChecksums().get("SHA-1"),
+                            new String(Files.readAllBytes(repoDir.resolve("plugins/bundle.jar.sha1")),
+                                       StandardCharsets.UTF_8).trim());
+
+        P2ArtifactReader.invalidate(repoDir.toString());
+        P2ArtifactCoordinates artifact = P2ArtifactReader.getArtifact(repoDir.toString(),
+                                                                      BUNDLE_ID + "/1.0.0.v2017/osgi.bundle");
+
+        Assert.assertNotNull(artifact);
+        Assert.assertEquals(repoDir + "/plugins/" + BUNDLE_ID + "_1.0.0.v2017.jar", artifact.getFilename());
+    }
+
+    @Test
+    public void testOnlyChangedBundlesAreRead()
+            throws IOException
+    {
+        new P2MetadataGenerator(repoDir, "test", DIGEST_ALGORITHMS, 2).generate(false);
+
+        List<P2Bundle> bundles = new P2MetadataGenerator(repoDir, "test", DIGEST_ALGORITHMS, 2).generate(false);
+
+        Assert.assertEquals(3, bundles.size());
+        Assert.assertTrue(bundles.stream().noneMatch(P2Bundle::isChanged));
+
+        Path bundleFile = repoDir.resolve("plugins/bundle.jar");
+        createBundle(bundleFile, BUNDLE_ID, "1.0.1");
+        Files.setLastModifiedTime(bundleFile, FileTime.fromMillis(System.currentTimeMillis() + 2000));
+
+        bundles = new P2MetadataGenerator(repoDir, "test", DIGEST_ALGORITHMS, 2).generate(false);
+
+        Assert.assertEquals(1, bundles.stream().filter(P2Bundle::isChanged).count());
+        Assert.assertEquals("1.0.1", bundles.get(2).getVersion());
+
+        bundles = new P2MetadataGenerator(repoDir, "test", DIGEST_ALGORITHMS, 2).generate(true);
+
+        Assert.assertTrue(bundles.stream().allMatch(P2Bundle::isChanged));
+    }
+
+    @Test
+    public void testReadZipEntries()
+            throws IOException
+    {
+        Path zip = repoDir.resolve("entries.zip");
+        byte[] content = "A deflated entry, which is long enough to be compressed, compressed, compressed."
+                                 .getBytes(StandardCharsets.UTF_8);
+
+        try (OutputStream os = Files.newOutputStream(zip);
+             ZipOutputStream zos = new ZipOutputStream(os))
+        {
+            zos.putNextEntry(new ZipEntry("first.txt"));
+            zos.write("first".getBytes(StandardCharsets.UTF_8));
+            zos.closeEntry();
+
+            zos.putNextEntry(new ZipEntry("deflated.txt"));
+            zos.write(content);
+            zos.closeEntry();
+
+            zos.setComment("A comment at the end of the archive");
+        }
+
+        try (P2ZipReader reader = new P2ZipReader(zip))
+        {
+            Assert.assertArrayEquals(content, reader.readEntry("deflated.txt"));
+            Assert.assertArrayEquals("first".getBytes(StandardCharsets.UTF_8), reader.readEntry("first.txt"));
+            Assert.assertNull(reader.readEntry("missing.txt"));
+        }
+    }
+
+    @Test
+    public void testAllDigestsAreCalculatedInOnePass()
+            throws Exception
+    {
+        Path binary = repoDir.resolve("binary/org.carlspring.strongbox.binary_3.0.0");
+
+        MessageDigest md5 = MessageDigest.getInstance("MD5");
+        MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+
+        // The binary is not an archive, but it can still be digested.
+        try (P2ZipReader reader = new P2ZipReader(binary))
+        {
+            reader.digest(Arrays.asList(md5, sha1));
+        }
+
+        byte[] content = Files.readAllBytes(binary);
+
+        Assert.assertArrayEquals(MessageDigest.getInstance("MD5").digest(content), md5.digest());
+        Assert.assertArrayEquals(MessageDigest.getInstance("SHA-1").digest(content), sha1.digest());
+    }
+
+    @Test
+    public void testMetadataWhichWasNotGeneratedIsKept()
+            throws IOException
+    {
+        byte[] published = ("<?xml version='1.0' encoding='UTF-8'?>\n" +
+                            "<?artifactRepository version='1.1.0'?>\n" +
+                            "<repository name='published' type='simpleRepository' version='1'>\n" +
+                            "  <properties size='1'><property name='p2.timestamp' value='1'/></properties>\n" +
+                            "</repository>\n").getBytes(StandardCharsets.UTF_8);
+        Files.write(repoDir.resolve("artifacts.xml"), published);
+
+        List<P2Bundle> bundles = new P2MetadataGenerator(repoDir, "test", DIGEST_ALGORITHMS, 2).generate(false);
+
+        Assert.assertEquals(3, bundles.size());
+        Assert.assertArrayEquals(published, Files.readAllBytes(repoDir.resolve("artifacts.xml")));
+        Assert.assertFalse(Files.exists(repoDir.resolve("content.xml")));
+        Assert.assertTrue(Files.exists(repoDir.resolve("plugins/bundle.jar.sha1")));
+
+        // Once it's gone, the metadata is generated, and from then on, replaced.
+        Files.delete(repoDir.resolve("artifacts.xml"));
+
+        P2MetadataGenerator generator = new P2MetadataGenerator(repoDir, "test", DIGEST_ALGORITHMS, 2);
+        Assert.assertTrue(generator.writeMetadata(bundles));
+        Assert.assertTrue(generator.writeMetadata(bundles));
+        Assert.assertTrue(new String(Files.readAllBytes(repoDir.resolve("content.xml")), StandardCharsets.UTF_8)
+                                  .contains(P2MetadataGenerator.GENERATED_PROPERTY));
+    }
+
+    @Test
+    public void testUnreadableBundles()
+            throws IOException
+    {
+        Path bundleFile = repoDir.resolve("plugins/bundle.jar");
+        Path brokenFile = repoDir.resolve("plugins/broken.jar");
+        Files.write(brokenFile, "not a bundle".getBytes(StandardCharsets.UTF_8));
+
+        try
+        {
+            new P2MetadataGenerator(repoDir, "test", DIGEST_ALGORITHMS, 2).generate(false);
+            Assert.fail("A bundle which can't be read must fail the generation.");
+        }
+        catch (IOException e)
+        {
+            Assert.assertFalse(Files.exists(repoDir.resolve("artifacts.xml")));
+        }
+
+        Files.delete(brokenFile);
+        new P2MetadataGenerator(repoDir, "test", DIGEST_ALGORITHMS, 2).generate(false);
+
+        // A bundle which has been read before is kept as it was.
+        Files.write(bundleFile, "not a bundle any more".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(bundleFile, FileTime.fromMillis(System.currentTimeMillis() + 2000));
+
+        List<P2Bundle> bundles = new P2MetadataGenerator(repoDir, "test", DIGEST_ALGORITHMS, 2).generate(false);
+
+        Assert.assertEquals(3, bundles.size());
+        Assert.assertEquals(BUNDLE_ID, bundles.get(2).getId());
+        Assert.assertFalse(bundles.get(2).isChanged());
+    }
+
+    @Test
+    public void testLargeZipEntriesAreRejected()
+            throws IOException
+    {
+        Path zip = repoDir.resolve("large.zip");
+        try (OutputStream os = Files.newOutputStream(zip);
+             ZipOutputStream zos = new ZipOutputStream(os))
+        {
+            zos.putNextEntry(new ZipEntry("large.txt"));
+            zos.write(new byte[P2ZipReader.MAX_ENTRY_SIZE + 1]);
+            zos.closeEntry();
+
+            zos.putNextEntry(new ZipEntry("bomb.txt"));
+            zos.write(new byte[64 * 1024]);
+            zos.closeEntry();
+        }
+
+        // Declares a much smaller size for the bomb.txt than it inflates to.
+        byte[] bytes = Files.readAllBytes(zip);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        for (int offset = bytes.length - 22; offset >= 0; offset--)
+        {
+            if (buffer.getInt(offset) == 0x02014b50 &&
+                new String(bytes, offset + 46, 8, StandardCharsets.UTF_8).equals("bomb.txt"))
+            {
+                buffer.putInt(offset + 24, 1024);
+            }
+        }
+        Files.write(zip, bytes);
+
+        try (P2ZipReader reader = new P2ZipReader(zip))
+        {
+            for (String entry : Arrays.asList("large.txt", "bomb.txt"))
+            {
+                try
+                {
+                    reader.readEntry(entry);
+                    Assert.fail(entry + " should have been rejected.");
+                }
+                catch (IOException e)
+                {
+                    // Expected
+                }
+            }
+        }
+    }
+
+    private static void createBundle(Path path,
+                                     String symbolicName,
+                                     String version)
+            throws IOException
+    {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().putValue("Bundle-SymbolicName", symbolicName);
+        manifest.getMainAttributes().putValue("Bundle-Version", version);
+
+        try (OutputStream os = Files.newOutputStream(path);
+             JarOutputStream jos = new JarOutputStream(os, manifest))
+        {
+            jos.putNextEntry(new ZipEntry("org/carlspring/Bundle.class"));
+            jos.write(new byte[]{ 1, 2, 3 });
+            jos.closeEntry();
+        }
+    }
+
+    private static void createFeature(Path path,
+                                      String id,
+                                      String version)
+            throws IOException
+    {
+        try (OutputStream os = Files.newOutputStream(path);
+             ZipOutputStream zos = new ZipOutputStream(os))
+        {
+            zos.putNextEntry(new ZipEntry("feature.xml"));
+            zos.write(String.format("<?xml version='1.0' encoding='UTF-8'?>%n<feature id='%s' version='%s'/>",
+                                    id, version).getBytes(StandardCharsets.UTF_8));
+            zos.closeEntry();
+        }
+    }
+
+}
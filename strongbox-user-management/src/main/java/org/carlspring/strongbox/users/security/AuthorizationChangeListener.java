@@ -0,0 +1,18 @@
+package org.carlspring.strongbox.users.security;
+
+/**
+ * Notified whenever the users or the {@link AuthorizationConfig} change, so that whatever has been derived from them
+ * can be recalculated.
+ */
+public interface AuthorizationChangeListener
+{
+
+    /**
+     * @param username the user which has been saved or deleted, or <code>null</code>, if any of the users may have
+     *                 changed
+     */
+    void userChanged(String username);
+
+    void authorizationConfigChanged();
+
+}
@@ -0,0 +1,108 @@
+package org.carlspring.strongbox.users.security;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Notifies all of the registered {@link AuthorizationChangeListener}-s.
+ * <p>
+ * When a change is made within a transaction, the listeners are only notified once it has been committed, as
+ * whatever they recalculate before then would still be derived from the previous state of the user (or the config).
+ */
+@Component
+public class AuthorizationChangeListenerRegistry
+{
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthorizationChangeListenerRegistry.class);
+
+    private final List<AuthorizationChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+
+    public void addListener(AuthorizationChangeListener listener)
+    {
+        listeners.add(listener);
+    }
+
+    public boolean removeListener(AuthorizationChangeListener listener)
+    {
+        return listeners.remove(listener);
+    }
+
+    public void userChanged(String username)
+    {
+        afterCommit(() -> notifyUserChanged(username));
+    }
+
+    private void notifyUserChanged(String username)
+    {
+        logger.debug("User " + (username != null ? username : "(all)") + " changed.");
+
+        for (AuthorizationChangeListener listener : listeners)
+        {
+            try
+            {
+                listener.userChanged(username);
+            }
+            catch (RuntimeException e)
+            {
+                logger.error("Failed to notify " + listener.getClass().getName() + " of a user change.", e);
+            }
+        }
+    }
+
+    public void authorizationConfigChanged()
+    {
+        afterCommit(this::notifyAuthorizationConfigChanged);
+    }
+
+    private void notifyAuthorizationConfigChanged()
+    {
+        logger.debug("Authorization config changed.");
+
+        for (AuthorizationChangeListener listener : listeners)
+        {
+            try
+            {
+                listener.authorizationConfigChanged();
+            }
+            catch (RuntimeException e)
+            {
+                logger.error("Failed to notify " + listener.getClass().getName() + " of an authorization config change.",
+                             e);
+            }
+        }
+    }
+
+    private static void afterCommit(Runnable notification)
+    {
+        if (!TransactionSynchronizationManager.isSynchronizationActive())
+        {
+            notification.run();
+
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter()
+        {
+
+            @Override
+            public void afterCommit()
+            {
+                notification.run();
+            }
+
+        });
+    }
+
+    public List<AuthorizationChangeListener> getListeners()
+    {
+        return listeners;
+    }
+
+}
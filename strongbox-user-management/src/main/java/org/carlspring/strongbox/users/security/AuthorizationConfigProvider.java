@@ -52,6 +52,8 @@ public class AuthorizationConfigProvider
     private AuthorizationConfig config;
     @Inject
     private TransactionTemplate transactionTemplate;
+    @Inject
+    private AuthorizationChangeListenerRegistry authorizationChangeListenerRegistry;
 
     private static void throwIfNotEmpty(Sets.SetView<String> intersectionView,
                                         String message)
@@ -210,6 +212,8 @@ public class AuthorizationConfigProvider
         logger.debug("Update config -> " + this.config);
 
         saveConfig();
+
+        authorizationChangeListenerRegistry.authorizationConfigChanged();
     }
 
     private Resource getConfigurationResource()
@@ -6,6 +6,10 @@ import javax.inject.Inject;
 import java.io.UnsupportedEncodingException;
 import java.security.Key;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.jose4j.jws.AlgorithmIdentifiers;
 import org.jose4j.jws.JsonWebSignature;
@@ -23,7 +27,10 @@ import org.springframework.stereotype.Component;
 /**
  * Used to get and verify security tokens. <br>
  * This implementation based on JSON Web Token (JWT) which is RFC 7519 standard. <br>
- * 
+ * The claims of the tokens which have been verified are cached (for {@link #MAX_VERIFIED_TOKEN_AGE} at most, and never
+ * past their expiration), so that the signature of a token is only verified once. Once {@link #MAX_VERIFIED_TOKENS}
+ * are cached, the expired ones are purged (at most every {@link #VERIFIED_TOKEN_PURGE_INTERVAL}), and until there is
+ * room again, the other tokens are verified without being cached. <br>
  * 
  * @author Sergey Bespalov
  */
@@ -31,12 +38,41 @@ import org.springframework.stereotype.Component;
 public class SecurityTokenProvider
 {
     private static final String MESSAGE_INVALID_JWT = "Invalid JWT: value-[%s]";
+
+    public static final int MAX_VERIFIED_TOKENS = 10000;
+
+    /**
+     * The time (in milliseconds) for which the claims of a verified token are cached.
+     */
+    public static final long MAX_VERIFIED_TOKEN_AGE = TimeUnit.MINUTES.toMillis(10);
+
+    /**
+     * The minimum time (in milliseconds) between the purges of the expired tokens from a full cache.
+     */
+    public static final long VERIFIED_TOKEN_PURGE_INTERVAL = TimeUnit.SECONDS.toMillis(10);
+
     /**
      * Secret key which is used to encode and verify tokens.<br>
      * All previous tokens will be invalid, if it changed.
      */
     private Key key;
 
+    private JwtConsumer jwtConsumer;
+
+    /**
+     * The claims of the verified tokens, by token.
+     */
+    private final ConcurrentMap<String, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
+
+    /**
+     * The time (in milliseconds) before which the full cache is not purged again.
+     */
+    private volatile long nextVerifiedTokenPurge;
+
+    private final LongAdder verifiedTokenHits = new LongAdder();
+
+    private final LongAdder verifiedTokenMisses = new LongAdder();
+
     /**
      * Creates {@link Key} instance using Secret string from application configuration.
      * 
@@ -49,6 +85,12 @@ public class SecurityTokenProvider
         throws UnsupportedEncodingException
     {
         key = new HmacKey(secret.getBytes("UTF-8"));
+        jwtConsumer = new JwtConsumerBuilder().setRequireSubject()
+                                              .setVerificationKey(key)
+                                              .setRelaxVerificationKeyValidation()
+                                              .build();
+
+        verifiedTokens.clear();
     }
 
     /**
@@ -107,23 +149,80 @@ public class SecurityTokenProvider
 
     private JwtClaims getClimes(String token)
     {
-        JwtConsumer jwtConsumer = new JwtConsumerBuilder().setRequireSubject()
-                                                          .setVerificationKey(key)
-                                                          .setRelaxVerificationKeyValidation()
-                                                          .build();
+        long now = System.currentTimeMillis();
+
+        VerifiedToken verifiedToken = verifiedTokens.get(token);
+        if (verifiedToken != null)
+        {
+            if (now < verifiedToken.expiresAt)
+            {
+                verifiedTokenHits.increment();
+
+                return verifiedToken.claims;
+            }
+
+            verifiedTokens.remove(token, verifiedToken);
+        }
+
+        verifiedTokenMisses.increment();
 
         JwtClaims jwtClaims;
+        NumericDate expirationTime;
         try
         {
             jwtClaims = jwtConsumer.processToClaims(token);
+            expirationTime = jwtClaims.getExpirationTime();
         }
-        catch (InvalidJwtException e)
+        catch (InvalidJwtException | MalformedClaimException e)
         {
             throw new SecurityTokenException(String.format(MESSAGE_INVALID_JWT, token), e);
         }
+
+        long expiresAt = now + MAX_VERIFIED_TOKEN_AGE;
+        if (expirationTime != null)
+        {
+            expiresAt = Math.min(expiresAt, expirationTime.getValueInMillis());
+        }
+
+        cacheVerifiedToken(token, new VerifiedToken(jwtClaims, expiresAt), now);
+
         return jwtClaims;
     }
 
+    private void cacheVerifiedToken(String token,
+                                    VerifiedToken verifiedToken,
+                                    long now)
+    {
+        if (verifiedTokens.size() >= MAX_VERIFIED_TOKENS)
+        {
+            // Walking the whole cache on every miss would cost more than verifying the signatures.
+            if (now < nextVerifiedTokenPurge)
+            {
+                return;
+            }
+
+            nextVerifiedTokenPurge = now + VERIFIED_TOKEN_PURGE_INTERVAL;
+            verifiedTokens.values().removeIf(t -> now >= t.expiresAt);
+
+            if (verifiedTokens.size() >= MAX_VERIFIED_TOKENS)
+            {
+                return;
+            }
+        }
+
+        verifiedTokens.put(token, verifiedToken);
+    }
+
+    public long getVerifiedTokenHits()
+    {
+        return verifiedTokenHits.sum();
+    }
+
+    public long getVerifiedTokenMisses()
+    {
+        return verifiedTokenMisses.sum();
+    }
+
     /**
      * @param token
      * @param targetSubject
@@ -159,4 +258,21 @@ public class SecurityTokenProvider
         }
     }
 
+    private static class VerifiedToken
+    {
+
+        private final JwtClaims claims;
+
+        private final long expiresAt;
+
+
+        VerifiedToken(JwtClaims claims,
+                      long expiresAt)
+        {
+            this.claims = claims;
+            this.expiresAt = expiresAt;
+        }
+
+    }
+
 }
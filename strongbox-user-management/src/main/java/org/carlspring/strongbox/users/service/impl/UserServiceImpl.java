@@ -11,6 +11,7 @@ import javax.inject.Inject;
 import org.apache.commons.lang.StringUtils;
 import org.carlspring.strongbox.data.service.CommonCrudService;
 import org.carlspring.strongbox.users.domain.User;
+import org.carlspring.strongbox.users.security.AuthorizationChangeListenerRegistry;
 import org.carlspring.strongbox.users.security.SecurityTokenProvider;
 import org.carlspring.strongbox.users.service.UserService;
 import org.jose4j.lang.JoseException;
@@ -22,6 +23,8 @@ import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
 
@@ -44,6 +47,8 @@ public class UserServiceImpl extends CommonCrudService<User>
     CacheManager cacheManager;
     @Inject
     SecurityTokenProvider tokenProvider;
+    @Inject
+    AuthorizationChangeListenerRegistry authorizationChangeListenerRegistry;
     Cache usersCache;
 
     @PostConstruct
@@ -81,9 +86,22 @@ public class UserServiceImpl extends CommonCrudService<User>
     {
         S user = super.save(newUser);
         usersCache.put(user.getUsername(), getDelegate().detachAll(user, true));
+        userChanged(user.getUsername());
         return user;
     }
 
+    @Override
+    public <S extends User> Iterable<S> save(Iterable<S> newUsers)
+    {
+        Iterable<S> users = super.save(newUsers);
+        for (S user : users)
+        {
+            usersCache.put(user.getUsername(), getDelegate().detachAll(user, true));
+            userChanged(user.getUsername());
+        }
+        return users;
+    }
+
     @Override
     public Optional<User> findOne(String id)
     {
@@ -101,10 +119,12 @@ public class UserServiceImpl extends CommonCrudService<User>
     @Override
     public void delete(String objectId)
     {
-        findOne(objectId).ifPresent(user -> {
-            usersCache.evict(user.getUsername());
+        Optional<User> user = findOne(objectId);
+        user.ifPresent(u -> {
+            usersCache.evict(u.getUsername());
         });
         super.delete(objectId);
+        user.ifPresent(u -> userChanged(u.getUsername()));
     }
 
     @Override
@@ -112,6 +132,7 @@ public class UserServiceImpl extends CommonCrudService<User>
     {
         usersCache.evict(user.getUsername());
         super.delete(user);
+        userChanged(user.getUsername());
     }
 
     @Override
@@ -119,6 +140,47 @@ public class UserServiceImpl extends CommonCrudService<User>
     {
         usersCache.clear();
         super.deleteAll();
+        userChanged(null);
+    }
+
+    /**
+     * Once the transaction has been committed, evicts the user from the cache again (as it could have been cached as
+     * it was before the change by a concurrent lookup in the meantime) and then notifies the listeners, which look
+     * the user up again.
+     */
+    private void userChanged(String username)
+    {
+        Runnable eviction = () -> {
+            if (username != null)
+            {
+                usersCache.evict(username);
+            }
+            else
+            {
+                usersCache.clear();
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+        {
+            // Registered before the notification of the listeners, so that it runs first.
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter()
+            {
+
+                @Override
+                public void afterCommit()
+                {
+                    eviction.run();
+                }
+
+            });
+        }
+        else
+        {
+            eviction.run();
+        }
+
+        authorizationChangeListenerRegistry.userChanged(username);
     }
 
     @Override
@@ -163,4 +225,4 @@ public class UserServiceImpl extends CommonCrudService<User>
         tokenProvider.verifyToken(apiKey, userName, claimMap);
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,75 @@
+package org.carlspring.strongbox.users;
+
+import org.carlspring.strongbox.security.exceptions.SecurityTokenException;
+import org.carlspring.strongbox.users.security.SecurityTokenProvider;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class SecurityTokenProviderTest
+{
+
+    private SecurityTokenProvider securityTokenProvider;
+
+    private Map<String, String> claims = Collections.singletonMap("credentials", "password");
+
+
+    @Before
+    public void setUp()
+            throws Exception
+    {
+        securityTokenProvider = new SecurityTokenProvider();
+        securityTokenProvider.init("test-secret");
+    }
+
+    @Test
+    public void testTokenIsVerifiedOnce()
+            throws Exception
+    {
+        String token = securityTokenProvider.getToken("admin", claims, 60);
+
+        assertEquals("admin", securityTokenProvider.getSubject(token));
+        securityTokenProvider.verifyToken(token, "admin", claims);
+        securityTokenProvider.verifyToken(token, "admin", claims);
+
+        assertEquals(1, securityTokenProvider.getVerifiedTokenMisses());
+        assertEquals(2, securityTokenProvider.getVerifiedTokenHits());
+
+        try
+        {
+            securityTokenProvider.verifyToken(token, "admin", Collections.singletonMap("credentials", "changed"));
+            fail("The cached claims should still be checked!");
+        }
+        catch (SecurityTokenException e)
+        {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testTokenSignedWithAnotherKeyIsRejected()
+            throws Exception
+    {
+        SecurityTokenProvider otherSecurityTokenProvider = new SecurityTokenProvider();
+        otherSecurityTokenProvider.init("other-secret");
+
+        String token = otherSecurityTokenProvider.getToken("admin", claims, 60);
+        otherSecurityTokenProvider.getSubject(token);
+
+        try
+        {
+            securityTokenProvider.getSubject(token);
+            fail("A token signed with another key should be rejected!");
+        }
+        catch (SecurityTokenException e)
+        {
+            // Expected
+        }
+    }
+
+}
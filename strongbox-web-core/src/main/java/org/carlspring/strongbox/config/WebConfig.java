@@ -34,6 +34,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 @Configuration
 @ComponentScan({ "org.carlspring.strongbox.controller",
                  "org.carlspring.strongbox.mapper",
+                 "org.carlspring.strongbox.nuget",
                  "org.carlspring.strongbox.security",
                  "org.carlspring.strongbox.authentication",
                  "org.carlspring.strongbox.user",
@@ -1,8 +1,11 @@
 package org.carlspring.strongbox.controller;
 
+import org.carlspring.commons.encryption.EncryptionAlgorithmsEnum;
 import org.carlspring.maven.commons.util.ArtifactUtils;
 import org.carlspring.strongbox.client.ArtifactTransportException;
 import org.carlspring.strongbox.io.ArtifactInputStream;
+import org.carlspring.strongbox.io.RepositoryPath;
+import org.carlspring.strongbox.io.StreamUtils;
 import org.carlspring.strongbox.storage.ArtifactResolutionException;
 import org.carlspring.strongbox.storage.ArtifactStorageException;
 import org.carlspring.strongbox.storage.Storage;
@@ -18,12 +21,15 @@ import javax.xml.bind.JAXBException;
 import java.io.File;
 import java.io.IOException;
 import java.net.URLEncoder;
+import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.security.NoSuchAlgorithmException;
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.Locale;
+import java.util.Map;
 import java.util.regex.Matcher;
 
 import io.swagger.annotations.ApiOperation;
@@ -181,6 +187,12 @@ public class ArtifactController
             return;
         }
 
+        if (downloadStoredFile(storageId, repositoryId, path, httpHeaders, response))
+        {
+            logger.debug("Download succeeded.");
+            return;
+        }
+
         ArtifactInputStream is;
         try
         {
@@ -191,11 +203,20 @@ public class ArtifactController
                 return;
             }
 
+            setMediaTypeHeader(path, response);
+
+            response.setHeader("Accept-Ranges", "bytes");
+
             if (isRangedRequest(httpHeaders))
             {
                 logger.debug("Detecting range request....");
                 handlePartialDownload(is, httpHeaders, response);
             }
+            else if (StreamUtils.getLength(is) > 0)
+            {
+                response.setHeader("Content-Length", StreamUtils.getLength(is) + "");
+            }
+
             copyToResponse(is, response);
         }
         catch (ArtifactResolutionException | ArtifactTransportException e)
@@ -205,13 +226,77 @@ public class ArtifactController
             return;
         }
 
+        ArtifactControllerHelper.setHeadersForChecksums(is, response);
+
+        logger.debug("Download succeeded.");
+    }
+
+    /**
+     * Serves a file which is already present in the storage (a hosted artifact, or an artifact which has been cached
+     * by a proxy repository) straight from its file channel. The checksum headers are taken from the stored checksum
+     * files, so the content does not have to be digested again on every download.
+     * <p>
+     * Range requests (including multiple and suffix ranges, as well as <code>If-Range</code>) are served from the
+     * file channel as well, by reading each range at its position.
+     *
+     * @return <code>false</code>, if the path has to be resolved through the repository providers instead
+     */
+    private boolean downloadStoredFile(String storageId,
+                                       String repositoryId,
+                                       String path,
+                                       HttpHeaders httpHeaders,
+                                       HttpServletResponse response)
+            throws Exception
+    {
+        RepositoryPath artifactPath = getArtifactManagementService().resolvePath(storageId, repositoryId, path);
+        if (artifactPath == null)
+        {
+            return false;
+        }
+
+        boolean rangedRequest = isRangedRequest(httpHeaders);
+
+        Map<String, String> checksums = Collections.emptyMap();
+        if (!ArtifactUtils.isChecksum(path))
+        {
+            checksums = ArtifactControllerHelper.readStoredChecksums(artifactPath);
+            if (checksums == null && !rangedRequest)
+            {
+                // The checksums are not available yet, so they will have to be calculated while streaming.
+                return false;
+            }
+        }
+
         setMediaTypeHeader(path, response);
 
         response.setHeader("Accept-Ranges", "bytes");
 
-        ArtifactControllerHelper.setHeadersForChecksums(is, response);
+        long lastModified = Files.getLastModifiedTime(artifactPath).toMillis();
+        response.setDateHeader("Last-Modified", lastModified);
 
-        logger.debug("Download succeeded.");
+        // The stored SHA-1 checksum identifies the content, so it makes for a strong entity tag.
+        String eTag = null;
+        if (checksums != null && checksums.containsKey(EncryptionAlgorithmsEnum.SHA1.getAlgorithm()))
+        {
+            eTag = "\"" + checksums.get(EncryptionAlgorithmsEnum.SHA1.getAlgorithm()) + "\"";
+            response.setHeader("ETag", eTag);
+        }
+
+        if (rangedRequest &&
+            ArtifactControllerHelper.isIfRangeSatisfied(httpHeaders, lastModified, eTag) &&
+            ArtifactControllerHelper.handlePartialDownload(artifactPath, httpHeaders, response))
+        {
+            return true;
+        }
+
+        if (checksums != null)
+        {
+            ArtifactControllerHelper.setHeadersForChecksums(checksums, response);
+        }
+
+        copyToResponse(artifactPath, response);
+
+        return true;
     }
 
     private void setMediaTypeHeader(String path,
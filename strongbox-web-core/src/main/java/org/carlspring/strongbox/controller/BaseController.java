@@ -8,6 +8,11 @@ import javax.servlet.http.HttpServletResponse;
 import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.io.ByteStreams;
@@ -67,4 +72,34 @@ public abstract class BaseController
         }
     }
 
+    /**
+     * Streams a stored file into the response via {@link FileChannel#transferTo(long, long, WritableByteChannel)},
+     * so that the content is neither buffered on the heap, nor digested on its way out.
+     * The Content-Length is known up-front and set before the body is written.
+     */
+    protected void copyToResponse(Path path,
+                                  HttpServletResponse response)
+            throws Exception
+    {
+        try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            long size = fileChannel.size();
+            response.setHeader("Content-Length", size + "");
+
+            WritableByteChannel responseChannel = Channels.newChannel(response.getOutputStream());
+
+            long position = 0;
+            while (position < size)
+            {
+                position += fileChannel.transferTo(position, size - position, responseChannel);
+            }
+
+            response.flushBuffer();
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException("Unable copy to response", e);
+        }
+    }
+
 }
@@ -1,15 +1,27 @@
 package org.carlspring.strongbox.controller;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Enumeration;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import javax.inject.Inject;
 import javax.servlet.ServletInputStream;
@@ -18,14 +30,21 @@ import javax.ws.rs.core.MediaType;
 
 import org.apache.commons.fileupload.FileUploadBase.FileUploadIOException;
 import org.apache.commons.fileupload.MultipartStream;
-import org.apache.commons.fileupload.MultipartStream.MalformedStreamException;
+import org.apache.commons.codec.DecoderException;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.MessageDigestAlgorithms;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.carlspring.strongbox.io.ArtifactInputStream;
+import org.carlspring.strongbox.io.RepositoryPath;
+import org.carlspring.strongbox.nuget.NugetODataFeedWriter;
+import org.carlspring.strongbox.nuget.NugetPackageEntry;
+import org.carlspring.strongbox.nuget.NugetPackageIndex;
 import org.carlspring.strongbox.security.exceptions.SecurityTokenException;
 import org.carlspring.strongbox.storage.Storage;
 import org.carlspring.strongbox.storage.repository.Repository;
+import org.carlspring.strongbox.storage.repository.RepositoryLayoutEnum;
 import org.carlspring.strongbox.users.service.UserService;
-import org.carlspring.strongbox.utils.ArtifactControllerHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.io.InputStreamResource;
@@ -41,13 +60,14 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
-import ru.aristar.jnuget.files.TempNupkgFile;
+import ru.aristar.jnuget.files.nuspec.NuspecFile;
 
 /**
  * This Controller used to handle Nuget requests.
@@ -64,9 +84,21 @@ public class NugetPackageController extends BaseArtifactController
 
     public final static String ROOT_CONTEXT = "/storages";
 
+    private static final int PACKAGE_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The number of packages in a page of the feed, if the client doesn't ask for a specific number.
+     */
+    private static final int DEFAULT_PAGE_SIZE = 30;
+
+    private static final int MAX_PAGE_SIZE = 100;
+
     @Inject
     private UserService userService;
 
+    @Inject
+    private NugetPackageIndex nugetPackageIndex;
+
     /**
      * This method is used to check storage availability.<br>
      * For example NuGet pings the root without credentials to determine if the repository is healthy. If this receives
@@ -107,16 +139,23 @@ public class NugetPackageController extends BaseArtifactController
         try
         {
             ServletInputStream is = request.getInputStream();
-            FileInputStream packagePartInputStream = extractPackageMultipartStream(extractBoundary(contentType), is);
+            NupkgPart packagePart = extractPackageMultipartStream(extractBoundary(contentType), is);
 
-            if (packagePartInputStream == null)
+            if (packagePart == null)
             {
                 logger.error(String.format("Failed to extract Nuget package from request: storageId-[%s]; repositoryId-[%s]",
                                            storageId, repositoryId));
                 return ResponseEntity.badRequest().build();
             }
 
-            resourceUri = storePackage(storageId, repositoryId, packagePartInputStream);
+            try
+            {
+                resourceUri = storePackage(storageId, repositoryId, packagePart);
+            }
+            finally
+            {
+                Files.deleteIfExists(packagePart.file);
+            }
         }
         catch (Exception e)
         {
@@ -155,10 +194,26 @@ public class NugetPackageController extends BaseArtifactController
             return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         }
 
-        String path = String.format("%s/%s/%s.%s.nupkg", packageId, packageVersion, packageId, packageVersion);
+        String fileName = String.format("%s.%s.nupkg", packageId, packageVersion);
+        String path = String.format("%s/%s/%s", packageId, packageVersion, fileName);
 
         try
         {
+            HttpHeaders headers = new HttpHeaders();
+            headers.add("Content-Disposition", String.format("attachment; filename=\"%s\"", fileName));
+
+            RepositoryPath packagePath = getArtifactManagementService().resolvePath(storageId, repositoryId, path);
+            if (packagePath != null)
+            {
+                // The package is already stored, so it can be streamed as it is, without copying it anywhere first.
+                headers.add("Content-Length", String.valueOf(Files.size(packagePath)));
+                setHeadersForStoredChecksum(packagePath, headers);
+
+                return new ResponseEntity<Resource>(new InputStreamResource(Files.newInputStream(packagePath)),
+                                                    headers,
+                                                    HttpStatus.OK);
+            }
+
             ArtifactInputStream is = (ArtifactInputStream) getArtifactManagementService().resolve(storageId,
                                                                                                   repositoryId,
                                                                                                   path);
@@ -167,29 +222,357 @@ public class NugetPackageController extends BaseArtifactController
                 return ResponseEntity.notFound().build();
             }
 
-            try (TempNupkgFile nupkgFile = new TempNupkgFile(is))
-            {
-                HttpHeaders headers = new HttpHeaders();
-                headers.add("Content-Length", String.valueOf(nupkgFile.getSize()));
-                headers.add("Content-Disposition",
-                            String.format("attachment; filename=\"%s\"", nupkgFile.getFileName()));
-                ArtifactControllerHelper.setHeadersForChecksums(is, headers);
-                return new ResponseEntity<Resource>(new InputStreamResource(nupkgFile.getStream()), headers,
-                        HttpStatus.OK);
+            // The length is not known up-front here, so the package is streamed without a Content-Length.
+            setHeadersForChecksum(is, headers);
+
+            return new ResponseEntity<Resource>(new InputStreamResource(is), headers, HttpStatus.OK);
+        }
+        catch (Exception e)
+        {
+            logger.error(String.format(
+                    "Failed to process Nuget get request: storageId-[%s]; repositoryId-[%s]; packageId-[%s]; version-[%s]",
+                    storageId, repositoryId, packageId, packageVersion),
+                         e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+        }
+    }
+
+    @ApiOperation(value = "Used to list the packages of the repository (the OData feed)")
+    @ApiResponses(value = { @ApiResponse(code = HttpURLConnection.HTTP_OK, message = "The packages were listed successfully."),
+                            @ApiResponse(code = HttpURLConnection.HTTP_INTERNAL_ERROR, message = "An error occurred.") })
+    @PreAuthorize("hasAuthority('ARTIFACTS_RESOLVE')")
+    @RequestMapping(path = { "{storageId}/{repositoryId}/Packages()", "{storageId}/{repositoryId}/Packages" }, method = RequestMethod.GET)
+    public ResponseEntity<?> getPackages(@ApiParam(value = "The storageId", required = true) @PathVariable(name = "storageId") String storageId,
+                                         @ApiParam(value = "The repositoryId", required = true) @PathVariable(name = "repositoryId") String repositoryId,
+                                         @RequestParam(name = "$filter", required = false) String filter,
+                                         @RequestParam(name = "$skip", required = false) Integer skip,
+                                         @RequestParam(name = "$top", required = false) Integer top,
+                                         HttpServletRequest request)
+    {
+        ResponseEntity<?> unavailable = checkRepository(storageId, repositoryId);
+        if (unavailable != null)
+        {
+            return unavailable;
+        }
+
+        try
+        {
+            List<NugetPackageEntry> packages = isLatestVersionFilter(filter) ?
+                                               nugetPackageIndex.search(storageId, repositoryId, null,
+                                                                        isAbsoluteLatestVersionFilter(filter), true) :
+                                               nugetPackageIndex.getPackages(storageId, repositoryId);
+
+            return feed(storageId, repositoryId, "Packages", packages, skip, top, request);
+        }
+        catch (Exception e)
+        {
+            logger.error(String.format("Failed to process Nuget packages request: storageId-[%s]; repositoryId-[%s]",
+                                       storageId, repositoryId),
+                         e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+        }
+    }
+
+    @ApiOperation(value = "Used to get the details of a package version (the OData entry)")
+    @ApiResponses(value = { @ApiResponse(code = HttpURLConnection.HTTP_OK, message = "The package was found."),
+                            @ApiResponse(code = HttpURLConnection.HTTP_NOT_FOUND, message = "The package was not found."),
+                            @ApiResponse(code = HttpURLConnection.HTTP_INTERNAL_ERROR, message = "An error occurred.") })
+    @PreAuthorize("hasAuthority('ARTIFACTS_RESOLVE')")
+    @RequestMapping(path = "{storageId}/{repositoryId}/Packages(Id='{packageId}',Version='{packageVersion}')", method = RequestMethod.GET)
+    public ResponseEntity<?> getPackageEntry(@ApiParam(value = "The storageId", required = true) @PathVariable(name = "storageId") String storageId,
+                                             @ApiParam(value = "The repositoryId", required = true) @PathVariable(name = "repositoryId") String repositoryId,
+                                             @ApiParam(value = "The packageId", required = true) @PathVariable(name = "packageId") String packageId,
+                                             @ApiParam(value = "The packageVersion", required = true) @PathVariable(name = "packageVersion") String packageVersion,
+                                             HttpServletRequest request)
+    {
+        ResponseEntity<?> unavailable = checkRepository(storageId, repositoryId);
+        if (unavailable != null)
+        {
+            return unavailable;
+        }
 
+        try
+        {
+            NugetPackageEntry entry = nugetPackageIndex.getPackage(storageId, repositoryId, packageId, packageVersion);
+            if (entry == null)
+            {
+                return ResponseEntity.notFound().build();
             }
 
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            getFeedWriter(storageId, repositoryId, request).writeEntry(os, entry);
+
+            return ResponseEntity.ok()
+                                 .header(HttpHeaders.CONTENT_TYPE, NugetODataFeedWriter.CONTENT_TYPE_ATOM_ENTRY)
+                                 .body(os.toByteArray());
         }
         catch (Exception e)
         {
             logger.error(String.format(
-                    "Failed to process Nuget get request: storageId-[%s]; repositoryId-[%s]; packageId-[%s]; version-[%s]",
+                    "Failed to process Nuget package request: storageId-[%s]; repositoryId-[%s]; packageId-[%s]; version-[%s]",
                     storageId, repositoryId, packageId, packageVersion),
                          e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
         }
     }
 
+    @ApiOperation(value = "Used to list all the versions of a package (the OData feed)")
+    @ApiResponses(value = { @ApiResponse(code = HttpURLConnection.HTTP_OK, message = "The versions were listed successfully."),
+                            @ApiResponse(code = HttpURLConnection.HTTP_INTERNAL_ERROR, message = "An error occurred.") })
+    @PreAuthorize("hasAuthority('ARTIFACTS_RESOLVE')")
+    @RequestMapping(path = "{storageId}/{repositoryId}/FindPackagesById()", method = RequestMethod.GET)
+    public ResponseEntity<?> findPackagesById(@ApiParam(value = "The storageId", required = true) @PathVariable(name = "storageId") String storageId,
+                                              @ApiParam(value = "The repositoryId", required = true) @PathVariable(name = "repositoryId") String repositoryId,
+                                              @ApiParam(value = "The packageId", required = true) @RequestParam(name = "id") String packageId,
+                                              @RequestParam(name = "$skip", required = false) Integer skip,
+                                              @RequestParam(name = "$top", required = false) Integer top,
+                                              HttpServletRequest request)
+    {
+        ResponseEntity<?> unavailable = checkRepository(storageId, repositoryId);
+        if (unavailable != null)
+        {
+            return unavailable;
+        }
+
+        try
+        {
+            List<NugetPackageEntry> packages = nugetPackageIndex.findPackagesById(storageId, repositoryId,
+                                                                                  unquote(packageId));
+
+            return feed(storageId, repositoryId, "FindPackagesById", packages, skip, top, request);
+        }
+        catch (Exception e)
+        {
+            logger.error(String.format(
+                    "Failed to process Nuget FindPackagesById request: storageId-[%s]; repositoryId-[%s]; packageId-[%s]",
+                    storageId, repositoryId, packageId),
+                         e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+        }
+    }
+
+    @ApiOperation(value = "Used to search for packages (the OData feed)")
+    @ApiResponses(value = { @ApiResponse(code = HttpURLConnection.HTTP_OK, message = "The search was successful."),
+                            @ApiResponse(code = HttpURLConnection.HTTP_INTERNAL_ERROR, message = "An error occurred.") })
+    @PreAuthorize("hasAuthority('ARTIFACTS_RESOLVE')")
+    @RequestMapping(path = "{storageId}/{repositoryId}/Search()", method = RequestMethod.GET)
+    public ResponseEntity<?> search(@ApiParam(value = "The storageId", required = true) @PathVariable(name = "storageId") String storageId,
+                                    @ApiParam(value = "The repositoryId", required = true) @PathVariable(name = "repositoryId") String repositoryId,
+                                    @RequestParam(name = "searchTerm", required = false) String searchTerm,
+                                    @RequestParam(name = "includePrerelease", required = false, defaultValue = "false") boolean includePrerelease,
+                                    @RequestParam(name = "$filter", required = false) String filter,
+                                    @RequestParam(name = "$skip", required = false) Integer skip,
+                                    @RequestParam(name = "$top", required = false) Integer top,
+                                    HttpServletRequest request)
+    {
+        ResponseEntity<?> unavailable = checkRepository(storageId, repositoryId);
+        if (unavailable != null)
+        {
+            return unavailable;
+        }
+
+        try
+        {
+            List<NugetPackageEntry> packages = search(storageId, repositoryId, searchTerm, includePrerelease, filter);
+
+            return feed(storageId, repositoryId, "Search", packages, skip, top, request);
+        }
+        catch (Exception e)
+        {
+            logger.error(String.format("Failed to process Nuget search request: storageId-[%s]; repositoryId-[%s]; searchTerm-[%s]",
+                                       storageId, repositoryId, searchTerm),
+                         e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+        }
+    }
+
+    @ApiOperation(value = "Used to count the results of a package search")
+    @ApiResponses(value = { @ApiResponse(code = HttpURLConnection.HTTP_OK, message = "The search was successful."),
+                            @ApiResponse(code = HttpURLConnection.HTTP_INTERNAL_ERROR, message = "An error occurred.") })
+    @PreAuthorize("hasAuthority('ARTIFACTS_RESOLVE')")
+    @RequestMapping(path = "{storageId}/{repositoryId}/Search()/$count", method = RequestMethod.GET, produces = MediaType.TEXT_PLAIN)
+    public ResponseEntity<?> searchCount(@ApiParam(value = "The storageId", required = true) @PathVariable(name = "storageId") String storageId,
+                                         @ApiParam(value = "The repositoryId", required = true) @PathVariable(name = "repositoryId") String repositoryId,
+                                         @RequestParam(name = "searchTerm", required = false) String searchTerm,
+                                         @RequestParam(name = "includePrerelease", required = false, defaultValue = "false") boolean includePrerelease,
+                                         @RequestParam(name = "$filter", required = false) String filter)
+    {
+        ResponseEntity<?> unavailable = checkRepository(storageId, repositoryId);
+        if (unavailable != null)
+        {
+            return unavailable;
+        }
+
+        try
+        {
+            int count = search(storageId, repositoryId, searchTerm, includePrerelease, filter).size();
+
+            return ResponseEntity.ok(String.valueOf(count));
+        }
+        catch (Exception e)
+        {
+            logger.error(String.format("Failed to process Nuget search request: storageId-[%s]; repositoryId-[%s]; searchTerm-[%s]",
+                                       storageId, repositoryId, searchTerm),
+                         e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+        }
+    }
+
+    private List<NugetPackageEntry> search(String storageId,
+                                           String repositoryId,
+                                           String searchTerm,
+                                           boolean includePrerelease,
+                                           String filter)
+        throws IOException
+    {
+        boolean latestOnly = isLatestVersionFilter(filter);
+
+        return nugetPackageIndex.search(storageId,
+                                        repositoryId,
+                                        unquote(searchTerm),
+                                        includePrerelease || isAbsoluteLatestVersionFilter(filter),
+                                        latestOnly);
+    }
+
+    /**
+     * Writes a page of the results as an OData feed, linking to the next page, if there are more results.
+     */
+    private ResponseEntity<?> feed(String storageId,
+                                   String repositoryId,
+                                   String title,
+                                   List<NugetPackageEntry> packages,
+                                   Integer skip,
+                                   Integer top,
+                                   HttpServletRequest request)
+        throws IOException
+    {
+        int first = Math.max(0, Math.min(skip != null ? skip : 0, packages.size()));
+        int pageSize = top != null && top > 0 ? Math.min(top, MAX_PAGE_SIZE) : DEFAULT_PAGE_SIZE;
+        int last = Math.min(packages.size(), first + pageSize);
+
+        String nextLink = null;
+        if (last < packages.size())
+        {
+            nextLink = getBaseUrl(storageId, repositoryId, request) + title + "()?" +
+                       getQueryWithoutPaging(request) + "$skip=" + last + "&$top=" + pageSize;
+        }
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        getFeedWriter(storageId, repositoryId, request).writeFeed(os, title, packages.subList(first, last), nextLink);
+
+        return ResponseEntity.ok()
+                             .header(HttpHeaders.CONTENT_TYPE, NugetODataFeedWriter.CONTENT_TYPE_ATOM_FEED)
+                             .body(os.toByteArray());
+    }
+
+    private NugetODataFeedWriter getFeedWriter(String storageId,
+                                               String repositoryId,
+                                               HttpServletRequest request)
+    {
+        return new NugetODataFeedWriter(getBaseUrl(storageId, repositoryId, request),
+                                        (entry, includePrerelease) -> nugetPackageIndex.isLatestVersion(storageId,
+                                                                                                        repositoryId,
+                                                                                                        entry,
+                                                                                                        includePrerelease));
+    }
+
+    /**
+     * @return the URL of the feed of the repository, up to (and including) the slash after the repositoryId
+     */
+    private String getBaseUrl(String storageId,
+                              String repositoryId,
+                              HttpServletRequest request)
+    {
+        String url = request.getRequestURL().toString();
+        String repositoryPath = "/" + storageId + "/" + repositoryId + "/";
+
+        int index = url.lastIndexOf(repositoryPath);
+
+        return index >= 0 ? url.substring(0, index + repositoryPath.length()) : url;
+    }
+
+    /**
+     * @return the query of the request without the paging parameters, ending with an ampersand, if it isn't empty
+     */
+    private String getQueryWithoutPaging(HttpServletRequest request)
+    {
+        String query = request.getQueryString();
+        if (StringUtils.isEmpty(query))
+        {
+            return "";
+        }
+
+        StringBuilder result = new StringBuilder();
+        for (String parameter : query.split("&"))
+        {
+            if (parameter.isEmpty() || parameter.startsWith("$skip=") || parameter.startsWith("%24skip=") ||
+                parameter.startsWith("$top=") || parameter.startsWith("%24top="))
+            {
+                continue;
+            }
+
+            result.append(parameter).append('&');
+        }
+
+        return result.toString();
+    }
+
+    private boolean isLatestVersionFilter(String filter)
+    {
+        return filter != null && (filter.trim().equals("IsLatestVersion") || isAbsoluteLatestVersionFilter(filter));
+    }
+
+    private boolean isAbsoluteLatestVersionFilter(String filter)
+    {
+        return filter != null && filter.trim().equals("IsAbsoluteLatestVersion");
+    }
+
+    /**
+     * Strips the quotes from a string literal of an OData query (<code>'value'</code>).
+     */
+    private String unquote(String value)
+    {
+        if (value == null)
+        {
+            return null;
+        }
+
+        String result = value.trim();
+        if (result.length() >= 2 && result.startsWith("'") && result.endsWith("'"))
+        {
+            result = result.substring(1, result.length() - 1).replace("''", "'");
+        }
+
+        return result;
+    }
+
+    private ResponseEntity<?> checkRepository(String storageId,
+                                              String repositoryId)
+    {
+        Storage storage = configurationManager.getConfiguration().getStorage(storageId);
+        Repository repository = storage != null ? storage.getRepository(repositoryId) : null;
+        if (repository == null)
+        {
+            return ResponseEntity.notFound().build();
+        }
+
+        if (!RepositoryLayoutEnum.NUGET_HIERACHLICAL.getLayout().equals(repository.getLayout()))
+        {
+            // There is no feed for the repositories of the other layouts.
+            logger.warn(String.format("Nuget feed request for a repository with the %s layout: storageId-[%s]; repositoryId-[%s]",
+                                      repository.getLayout(), storageId, repositoryId));
+            return ResponseEntity.notFound().build();
+        }
+
+        if (!repository.isInService())
+        {
+            logger.error("Repository is not in service...");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+
+        return null;
+    }
+
     private String extractBoundary(String contentType)
     {
         String boundaryString = "";
@@ -202,12 +585,15 @@ public class NugetPackageController extends BaseArtifactController
         return boundaryString;
     }
 
-    private FileInputStream extractPackageMultipartStream(String boundaryString,
-                                                          ServletInputStream is)
+    /**
+     * Writes the package part of the multipart request into a temporary file, calculating its SHA-512 digest on the
+     * way. The nuspec is then read from the central directory of the written package, so the package doesn't
+     * have to be copied, or read in full, once again before it's stored.
+     */
+    private NupkgPart extractPackageMultipartStream(String boundaryString,
+                                                    ServletInputStream is)
         throws IOException,
-        FileNotFoundException,
-        FileUploadIOException,
-        MalformedStreamException
+        NoSuchAlgorithmException
     {
 
         if (StringUtils.isEmpty(boundaryString))
@@ -215,24 +601,36 @@ public class NugetPackageController extends BaseArtifactController
             return null;
         }
 
-        File packagePartFile = File.createTempFile("nupkg", "part");
-        try (FileOutputStream packagePartOutputStream = new FileOutputStream(packagePartFile))
+        NupkgPart packagePart = new NupkgPart(Files.createTempFile("nupkg", "part"));
+        try
         {
+            MessageDigest sha512 = MessageDigest.getInstance(MessageDigestAlgorithms.SHA_512);
+            try (OutputStream packagePartOutputStream = new DigestOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(packagePart.file), PACKAGE_BUFFER_SIZE), sha512))
+            {
+                writePackagePart(boundaryString, is, packagePartOutputStream);
+            }
 
-            writePackagePart(boundaryString, is, packagePartOutputStream);
+            packagePart.sha512 = Base64.getEncoder().encodeToString(sha512.digest());
+            packagePart.nuspec = readNuspec(packagePart.file);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            Files.deleteIfExists(packagePart.file);
+            throw e;
         }
 
-        return new FileInputStream(packagePartFile);
+        return packagePart;
     }
 
     private void writePackagePart(String boundaryString,
                                   ServletInputStream is,
-                                  FileOutputStream packagePartOutputStream)
+                                  OutputStream packagePartOutputStream)
         throws FileUploadIOException,
         IOException
     {
         byte[] boundary = boundaryString.getBytes();
-        MultipartStream multipartStream = new MultipartStream(is, boundary);
+        MultipartStream multipartStream = new MultipartStream(is, boundary, PACKAGE_BUFFER_SIZE, null);
 
         try
         {
@@ -256,43 +654,128 @@ public class NugetPackageController extends BaseArtifactController
         }
     }
 
-    private URI storePackage(String storageId,
-                             String repositoryId,
-                             InputStream is)
-        throws Exception
+    /**
+     * @return the content of the nuspec file at the root of the package, or <code>null</code>, if there isn't one
+     *         (nuget.exe first sends an empty package)
+     */
+    private byte[] readNuspec(Path packageFile)
+        throws IOException
     {
+        if (Files.size(packageFile) == 0)
+        {
+            return null;
+        }
 
-        try (TempNupkgFile nupkgFile = new TempNupkgFile(is))
+        try (ZipFile zipFile = new ZipFile(packageFile.toFile()))
         {
-            if (nupkgFile.getNuspecFile() == null)
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements())
             {
-                return null;
+                ZipEntry entry = entries.nextElement();
+                if (!entry.isDirectory() && !entry.getName().contains("/") && entry.getName().endsWith(".nuspec"))
+                {
+                    try (InputStream nuspecInputStream = zipFile.getInputStream(entry))
+                    {
+                        return IOUtils.toByteArray(nuspecInputStream);
+                    }
+                }
             }
+        }
 
-            String path = String.format("%s/%s/%s.%s.nupkg", nupkgFile.getId(), nupkgFile.getVersion(),
-                                        nupkgFile.getId(), nupkgFile.getVersion());
-            artifactManagementService.store(storageId, repositoryId, path, nupkgFile.getStream());
+        return null;
+    }
 
-            File nuspecFile = File.createTempFile(nupkgFile.getId(), "nuspec");
-            try (FileOutputStream fileOutputStream = new FileOutputStream(nuspecFile))
-            {
-                nupkgFile.getNuspecFile().saveTo(fileOutputStream);
-            }
-            path = String.format("%s/%s/%s.nuspec", nupkgFile.getId(), nupkgFile.getVersion(), nupkgFile.getId());
-            artifactManagementService.store(storageId, repositoryId, path, new FileInputStream(nuspecFile));
+    private URI storePackage(String storageId,
+                             String repositoryId,
+                             NupkgPart packagePart)
+        throws Exception
+    {
+        if (packagePart.nuspec == null)
+        {
+            return null;
+        }
 
-            File hashFile = File.createTempFile(String.format("%s.%s", nupkgFile.getId(), nupkgFile.getVersion()),
-                                                "nupkg.sha512");
-            nupkgFile.getHash().saveTo(hashFile);
+        NuspecFile nuspecFile = NuspecFile.Parse(new ByteArrayInputStream(packagePart.nuspec));
+        String packageId = nuspecFile.getId();
+        String packageVersion = nuspecFile.getVersion().toString();
 
-            path = String.format("%s/%s/%s.%s.nupkg.sha512", nupkgFile.getId(), nupkgFile.getVersion(),
-                                 nupkgFile.getId(), nupkgFile.getVersion());
-            artifactManagementService.store(storageId, repositoryId, path, new FileInputStream(hashFile));
+        String path = String.format("%s/%s/%s.nuspec", packageId, packageVersion, packageId);
+        artifactManagementService.store(storageId, repositoryId, path, new ByteArrayInputStream(packagePart.nuspec));
+
+        path = String.format("%s/%s/%s.%s.nupkg.sha512", packageId, packageVersion, packageId, packageVersion);
+        artifactManagementService.store(storageId, repositoryId, path,
+                                        new ByteArrayInputStream(packagePart.sha512.getBytes(StandardCharsets.UTF_8)));
+
+        // Stored last, as the NugetPackageIndex indexes the package (along with the files above) once it's stored.
+        path = String.format("%s/%s/%s.%s.nupkg", packageId, packageVersion, packageId, packageVersion);
+        try (InputStream packageInputStream = new BufferedInputStream(Files.newInputStream(packagePart.file),
+                                                                      PACKAGE_BUFFER_SIZE))
+        {
+            artifactManagementService.store(storageId, repositoryId, path, packageInputStream);
         }
 
         return new URI("");
     }
 
+    /**
+     * Sets the checksum header from the <code>.sha512</code> file which is stored next to the package.
+     */
+    private void setHeadersForStoredChecksum(Path packagePath,
+                                             HttpHeaders headers)
+        throws IOException
+    {
+        Path sha512Path = packagePath.resolveSibling(packagePath.getFileName() + ".sha512");
+        if (!Files.isRegularFile(sha512Path))
+        {
+            return;
+        }
+
+        setChecksumHeader(new String(Files.readAllBytes(sha512Path), StandardCharsets.UTF_8), headers);
+    }
+
+    /**
+     * Sets the checksum header of a package, which has been resolved without being stored in the repository (such as
+     * via a group repository).
+     */
+    private void setHeadersForChecksum(ArtifactInputStream is,
+                                       HttpHeaders headers)
+    {
+        String sha512 = is.getHexDigests().get(MessageDigestAlgorithms.SHA_512);
+        if (sha512 != null)
+        {
+            setChecksumHeader(sha512, headers);
+        }
+    }
+
+    /**
+     * The SHA-512 of a package is Base64 encoded, like in the <code>.sha512</code> files and the
+     * <code>PackageHash</code> of the feed, regardless of whether it has been stored, or calculated.
+     */
+    private void setChecksumHeader(String sha512,
+                                   HttpHeaders headers)
+    {
+        String checksum = sha512.trim();
+        if (checksum.isEmpty())
+        {
+            return;
+        }
+
+        if (checksum.length() == 128 && checksum.matches("[0-9a-fA-F]+"))
+        {
+            try
+            {
+                checksum = Base64.getEncoder().encodeToString(Hex.decodeHex(checksum.toCharArray()));
+            }
+            catch (DecoderException e)
+            {
+                logger.warn("Invalid SHA-512 checksum: " + checksum, e);
+                return;
+            }
+        }
+
+        headers.add("Checksum-SHA512", checksum);
+    }
+
     private boolean verify(String userName,
                            String apiKey)
     {
@@ -321,4 +804,24 @@ public class NugetPackageController extends BaseArtifactController
         return authentication == null ? null : authentication.getName();
     }
 
+    /**
+     * The package part of a push request, as written into a temporary file.
+     */
+    private static class NupkgPart
+    {
+
+        private final Path file;
+
+        private String sha512;
+
+        private byte[] nuspec;
+
+
+        NupkgPart(Path file)
+        {
+            this.file = file;
+        }
+
+    }
+
 }
@@ -0,0 +1,257 @@
+package org.carlspring.strongbox.nuget;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Writes the Atom feeds of the Nuget v2 (OData) API, such as the results of the <code>Packages()</code>,
+ * <code>FindPackagesById()</code> and <code>Search()</code> queries.
+ */
+public class NugetODataFeedWriter
+{
+
+    public static final String CONTENT_TYPE_ATOM_FEED = "application/atom+xml;type=feed;charset=utf-8";
+
+    public static final String CONTENT_TYPE_ATOM_ENTRY = "application/atom+xml;type=entry;charset=utf-8";
+
+    private static final String XML_NAMESPACE = "http://www.w3.org/XML/1998/namespace";
+
+    private static final String ATOM_NAMESPACE = "http://www.w3.org/2005/Atom";
+
+    private static final String DATA_SERVICES_NAMESPACE = "http://schemas.microsoft.com/ado/2007/08/dataservices";
+
+    private static final String METADATA_NAMESPACE = "http://schemas.microsoft.com/ado/2007/08/dataservices/metadata";
+
+    private static final DateTimeFormatter ATOM_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss'Z'")
+                                                                              .withZone(ZoneOffset.UTC);
+
+    private static final DateTimeFormatter EDM_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss")
+                                                                             .withZone(ZoneOffset.UTC);
+
+    private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+    /**
+     * The base URL of the repository's feed (ending with a slash).
+     */
+    private final String baseUrl;
+
+    private final LatestVersionCheck latestVersionCheck;
+
+
+    public NugetODataFeedWriter(String baseUrl,
+                                LatestVersionCheck latestVersionCheck)
+    {
+        this.baseUrl = baseUrl;
+        this.latestVersionCheck = latestVersionCheck;
+    }
+
+    /**
+     * @param nextLink the link to the next page of the results, or <code>null</code>, if this is the last one
+     */
+    public void writeFeed(OutputStream os,
+                          String title,
+                          List<NugetPackageEntry> entries,
+                          String nextLink)
+            throws IOException
+    {
+        try
+        {
+            XMLStreamWriter writer = XML_OUTPUT_FACTORY.createXMLStreamWriter(os, "UTF-8");
+            writer.writeStartDocument("UTF-8", "1.0");
+
+            writer.writeStartElement("feed");
+            writeNamespaces(writer);
+
+            writeElement(writer, "id", baseUrl + title);
+            writeTextElement(writer, "title", title);
+            writeElement(writer, "updated", ATOM_DATE_FORMAT.format(Instant.now()));
+
+            writer.writeEmptyElement("link");
+            writer.writeAttribute("rel", "self");
+            writer.writeAttribute("title", title);
+            writer.writeAttribute("href", title);
+
+            for (NugetPackageEntry entry : entries)
+            {
+                writeEntry(writer, entry, false);
+            }
+
+            if (nextLink != null)
+            {
+                writer.writeEmptyElement("link");
+                writer.writeAttribute("rel", "next");
+                writer.writeAttribute("href", nextLink);
+            }
+
+            writer.writeEndElement();
+            writer.writeEndDocument();
+            writer.flush();
+            writer.close();
+        }
+        catch (XMLStreamException e)
+        {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    public void writeEntry(OutputStream os,
+                           NugetPackageEntry entry)
+            throws IOException
+    {
+        try
+        {
+            XMLStreamWriter writer = XML_OUTPUT_FACTORY.createXMLStreamWriter(os, "UTF-8");
+            writer.writeStartDocument("UTF-8", "1.0");
+
+            writeEntry(writer, entry, true);
+
+            writer.writeEndDocument();
+            writer.flush();
+            writer.close();
+        }
+        catch (XMLStreamException e)
+        {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private void writeEntry(XMLStreamWriter writer,
+                            NugetPackageEntry entry,
+                            boolean standalone)
+            throws XMLStreamException, IOException
+    {
+        String entryPath = String.format("Packages(Id='%s',Version='%s')", entry.getId(), entry.getVersion());
+        Date published = entry.getPublished() != null ? entry.getPublished() : new Date(0);
+
+        writer.writeStartElement("entry");
+        if (standalone)
+        {
+            writeNamespaces(writer);
+        }
+
+        writeElement(writer, "id", baseUrl + entryPath);
+
+        writer.writeEmptyElement("category");
+        writer.writeAttribute("term", "NuGetGallery.V2FeedPackage");
+        writer.writeAttribute("scheme", "http://schemas.microsoft.com/ado/2007/08/dataservices/scheme");
+
+        writer.writeEmptyElement("link");
+        writer.writeAttribute("rel", "edit");
+        writer.writeAttribute("title", "V2FeedPackage");
+        writer.writeAttribute("href", entryPath);
+
+        writeTextElement(writer, "title", entry.getId());
+        writeTextElement(writer, "summary", entry.getSummary() != null ? entry.getSummary() : "");
+        writeElement(writer, "updated", ATOM_DATE_FORMAT.format(published.toInstant()));
+
+        writer.writeStartElement("author");
+        writeElement(writer, "name", entry.getAuthors() != null ? entry.getAuthors() : "");
+        writer.writeEndElement();
+
+        writer.writeEmptyElement("content");
+        writer.writeAttribute("type", "application/zip");
+        writer.writeAttribute("src", baseUrl + "download/" + entry.getId() + "/" + entry.getVersion());
+
+        writer.writeStartElement("m", "properties", METADATA_NAMESPACE);
+        writeProperty(writer, "Id", null, entry.getId());
+        writeProperty(writer, "Version", null, entry.getVersion());
+        writeProperty(writer, "Title", null, entry.getTitle());
+        writeProperty(writer, "Description", null, entry.getDescription());
+        writeProperty(writer, "Summary", null, entry.getSummary());
+        writeProperty(writer, "Authors", null, entry.getAuthors());
+        writeProperty(writer, "Tags", null, entry.getTags());
+        writeProperty(writer, "Dependencies", null, entry.getDependencies());
+        writeProperty(writer, "IsPrerelease", "Edm.Boolean", String.valueOf(entry.isPrerelease()));
+        writeProperty(writer, "IsLatestVersion", "Edm.Boolean",
+                      String.valueOf(latestVersionCheck.isLatestVersion(entry, false)));
+        writeProperty(writer, "IsAbsoluteLatestVersion", "Edm.Boolean",
+                      String.valueOf(latestVersionCheck.isLatestVersion(entry, true)));
+        writeProperty(writer, "PackageHash", null, entry.getPackageHash());
+        writeProperty(writer, "PackageHashAlgorithm", null, entry.getPackageHash() != null ? "SHA512" : null);
+        writeProperty(writer, "PackageSize", "Edm.Int64", String.valueOf(entry.getPackageSize()));
+        writeProperty(writer, "Published", "Edm.DateTime", EDM_DATE_FORMAT.format(published.toInstant()));
+        writeProperty(writer, "LastUpdated", "Edm.DateTime", EDM_DATE_FORMAT.format(published.toInstant()));
+        writer.writeEndElement();
+
+        writer.writeEndElement();
+    }
+
+    private void writeNamespaces(XMLStreamWriter writer)
+            throws XMLStreamException
+    {
+        writer.writeAttribute("xml", XML_NAMESPACE, "base", baseUrl);
+        writer.writeDefaultNamespace(ATOM_NAMESPACE);
+        writer.writeNamespace("d", DATA_SERVICES_NAMESPACE);
+        writer.writeNamespace("m", METADATA_NAMESPACE);
+        writer.setPrefix("d", DATA_SERVICES_NAMESPACE);
+        writer.setPrefix("m", METADATA_NAMESPACE);
+    }
+
+    private static void writeElement(XMLStreamWriter writer,
+                                     String name,
+                                     String value)
+            throws XMLStreamException
+    {
+        writer.writeStartElement(name);
+        writer.writeCharacters(value);
+        writer.writeEndElement();
+    }
+
+    private static void writeTextElement(XMLStreamWriter writer,
+                                         String name,
+                                         String value)
+            throws XMLStreamException
+    {
+        writer.writeStartElement(name);
+        writer.writeAttribute("type", "text");
+        writer.writeCharacters(value);
+        writer.writeEndElement();
+    }
+
+    private static void writeProperty(XMLStreamWriter writer,
+                                      String name,
+                                      String type,
+                                      String value)
+            throws XMLStreamException
+    {
+        writer.writeStartElement("d", name, DATA_SERVICES_NAMESPACE);
+        if (type != null)
+        {
+            writer.writeAttribute("m", METADATA_NAMESPACE, "type", type);
+        }
+        if (value == null)
+        {
+            writer.writeAttribute("m", METADATA_NAMESPACE, "null", "true");
+        }
+        else
+        {
+            writer.writeCharacters(value);
+        }
+        writer.writeEndElement();
+    }
+
+    /**
+     * Tells whether a package is the latest version of its id.
+     */
+    @FunctionalInterface
+    public interface LatestVersionCheck
+    {
+
+        /**
+         * @param includePrerelease whether the pre-releases are taken into account
+         */
+        boolean isLatestVersion(NugetPackageEntry entry,
+                                boolean includePrerelease)
+                throws IOException;
+
+    }
+
+}
@@ -0,0 +1,262 @@
+package org.carlspring.strongbox.nuget;
+
+import java.util.Comparator;
+import java.util.Date;
+
+/**
+ * The metadata of a stored Nuget package, as held by the {@link NugetPackageIndex}.
+ */
+public class NugetPackageEntry
+{
+
+    /**
+     * Orders the packages by their id (ignoring the case) and then by their version.
+     */
+    public static final Comparator<NugetPackageEntry> ID_AND_VERSION_ORDER =
+            Comparator.comparing((NugetPackageEntry e) -> e.getId().toLowerCase())
+                      .thenComparing(NugetPackageEntry::getVersion, NugetPackageEntry::compareVersions);
+
+    private final String id;
+
+    private final String version;
+
+    private String title;
+
+    private String description;
+
+    private String summary;
+
+    private String authors;
+
+    private String tags;
+
+    private String dependencies;
+
+    private String packageHash;
+
+    private long packageSize;
+
+    private Date published;
+
+    /**
+     * The path of the directory of the package, relative to the repository.
+     */
+    private final String directory;
+
+
+    public NugetPackageEntry(String id,
+                             String version)
+    {
+        this.id = id;
+        this.version = version;
+        this.directory = id + "/" + version;
+    }
+
+    public String getId()
+    {
+        return id;
+    }
+
+    public String getVersion()
+    {
+        return version;
+    }
+
+    public String getDirectory()
+    {
+        return directory;
+    }
+
+    public boolean isPrerelease()
+    {
+        return isPrerelease(version);
+    }
+
+    public String getTitle()
+    {
+        return title;
+    }
+
+    public void setTitle(String title)
+    {
+        this.title = title;
+    }
+
+    public String getDescription()
+    {
+        return description;
+    }
+
+    public void setDescription(String description)
+    {
+        this.description = description;
+    }
+
+    public String getSummary()
+    {
+        return summary;
+    }
+
+    public void setSummary(String summary)
+    {
+        this.summary = summary;
+    }
+
+    public String getAuthors()
+    {
+        return authors;
+    }
+
+    public void setAuthors(String authors)
+    {
+        this.authors = authors;
+    }
+
+    public String getTags()
+    {
+        return tags;
+    }
+
+    public void setTags(String tags)
+    {
+        this.tags = tags;
+    }
+
+    /**
+     * @return the dependencies in the format of the OData feed (<code>id:versionRange:targetFramework|...</code>)
+     */
+    public String getDependencies()
+    {
+        return dependencies;
+    }
+
+    public void setDependencies(String dependencies)
+    {
+        this.dependencies = dependencies;
+    }
+
+    /**
+     * @return the Base64 encoded SHA-512 digest of the package
+     */
+    public String getPackageHash()
+    {
+        return packageHash;
+    }
+
+    public void setPackageHash(String packageHash)
+    {
+        this.packageHash = packageHash;
+    }
+
+    public long getPackageSize()
+    {
+        return packageSize;
+    }
+
+    public void setPackageSize(long packageSize)
+    {
+        this.packageSize = packageSize;
+    }
+
+    public Date getPublished()
+    {
+        return published;
+    }
+
+    public void setPublished(Date published)
+    {
+        this.published = published;
+    }
+
+    /**
+     * Checks whether the search term is contained in the id, title, description, or tags of the package
+     * (ignoring the case).
+     */
+    public boolean matches(String searchTerm)
+    {
+        if (searchTerm == null || searchTerm.isEmpty())
+        {
+            return true;
+        }
+
+        String term = searchTerm.toLowerCase();
+
+        return contains(id, term) || contains(title, term) || contains(description, term) || contains(tags, term);
+    }
+
+    private static boolean contains(String value,
+                                    String term)
+    {
+        return value != null && value.toLowerCase().contains(term);
+    }
+
+    public static boolean isPrerelease(String version)
+    {
+        return version.indexOf('-') >= 0;
+    }
+
+    /**
+     * Compares two (semantic) Nuget versions: the numeric parts are compared by their value, a pre-release version
+     * is lower than the respective release and the pre-release labels are compared ignoring the case.
+     * The build metadata is ignored.
+     */
+    public static int compareVersions(String version1,
+                                      String version2)
+    {
+        String v1 = stripMetadata(version1);
+        String v2 = stripMetadata(version2);
+
+        int labelIndex1 = v1.indexOf('-');
+        int labelIndex2 = v2.indexOf('-');
+
+        String[] numbers1 = (labelIndex1 < 0 ? v1 : v1.substring(0, labelIndex1)).split("\\.");
+        String[] numbers2 = (labelIndex2 < 0 ? v2 : v2.substring(0, labelIndex2)).split("\\.");
+
+        for (int i = 0; i < Math.max(numbers1.length, numbers2.length); i++)
+        {
+            String part1 = i < numbers1.length ? numbers1[i] : "0";
+            String part2 = i < numbers2.length ? numbers2[i] : "0";
+
+            int result = compareParts(part1, part2);
+            if (result != 0)
+            {
+                return result;
+            }
+        }
+
+        if (labelIndex1 < 0 || labelIndex2 < 0)
+        {
+            // A release is higher than any of its pre-releases.
+            return Boolean.compare(labelIndex1 < 0, labelIndex2 < 0);
+        }
+
+        return v1.substring(labelIndex1 + 1).compareToIgnoreCase(v2.substring(labelIndex2 + 1));
+    }
+
+    private static String stripMetadata(String version)
+    {
+        int metadataIndex = version.indexOf('+');
+
+        return metadataIndex < 0 ? version : version.substring(0, metadataIndex);
+    }
+
+    private static int compareParts(String part1,
+                                    String part2)
+    {
+        try
+        {
+            return Long.compare(Long.parseLong(part1), Long.parseLong(part2));
+        }
+        catch (NumberFormatException e)
+        {
+            return part1.compareToIgnoreCase(part2);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return id + " " + version;
+    }
+
+}
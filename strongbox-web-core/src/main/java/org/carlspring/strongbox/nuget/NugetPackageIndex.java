@@ -0,0 +1,618 @@
+package org.carlspring.strongbox.nuget;
+
+import org.carlspring.strongbox.configuration.ConfigurationManager;
+import org.carlspring.strongbox.event.ArtifactEvent;
+import org.carlspring.strongbox.event.ArtifactEventListener;
+import org.carlspring.strongbox.event.ArtifactEventListenerRegistry;
+import org.carlspring.strongbox.storage.Storage;
+import org.carlspring.strongbox.storage.repository.Repository;
+import org.carlspring.strongbox.storage.repository.RepositoryLayoutEnum;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * An in-memory index of the metadata of the packages stored in the Nuget repositories, which serves the queries of
+ * the OData feed, so that they don't have to walk the directory tree of the repository.
+ * <p>
+ * The index of a repository is built from its stored <code>.nuspec</code> files the first time it's queried and is
+ * then kept up to date incrementally, as packages are pushed and deleted.
+ * <p>
+ * A group repository has no index of its own; its queries are answered from the indexes of its (nested) members
+ * which are in service, in the order in which the group resolves them, so if several members have the same version
+ * of a package, the one of the first member is listed. The routing rules of the group aren't taken into account.
+ */
+@Component
+public class NugetPackageIndex
+        implements ArtifactEventListener
+{
+
+    private static final Logger logger = LoggerFactory.getLogger(NugetPackageIndex.class);
+
+    /**
+     * Key:     storageId:repositoryId
+     * Value:   the packages of the repository
+     */
+    private final ConcurrentMap<String, RepositoryPackages> repositories = new ConcurrentHashMap<>();
+
+    @Inject
+    private ArtifactEventListenerRegistry artifactEventListenerRegistry;
+
+    @Inject
+    private ConfigurationManager configurationManager;
+
+
+    @PostConstruct
+    public void register()
+    {
+        artifactEventListenerRegistry.addListener(this);
+    }
+
+    /**
+     * @return all the packages of the repository, ordered by their id and version
+     */
+    public List<NugetPackageEntry> getPackages(String storageId,
+                                               String repositoryId)
+            throws IOException
+    {
+        List<NugetPackageEntry> result = new ArrayList<>();
+        for (NavigableMap<String, NugetPackageEntry> versions : getAllPackages(storageId, repositoryId).values())
+        {
+            result.addAll(versions.values());
+        }
+
+        return result;
+    }
+
+    /**
+     * @return all the versions of the package (the id is matched ignoring the case), ordered by version
+     */
+    public List<NugetPackageEntry> findPackagesById(String storageId,
+                                                    String repositoryId,
+                                                    String id)
+            throws IOException
+    {
+        NavigableMap<String, NugetPackageEntry> versions = getVersions(storageId, repositoryId, id);
+
+        return versions != null ? new ArrayList<>(versions.values()) : Collections.emptyList();
+    }
+
+    public NugetPackageEntry getPackage(String storageId,
+                                        String repositoryId,
+                                        String id,
+                                        String version)
+            throws IOException
+    {
+        NavigableMap<String, NugetPackageEntry> versions = getVersions(storageId, repositoryId, id);
+
+        return versions != null ? versions.get(version) : null;
+    }
+
+    /**
+     * @param latestOnly whether to only return the latest version of each package
+     *                   (taking the pre-releases into account only if they're included)
+     * @return the matching packages, ordered by their id and version
+     */
+    public List<NugetPackageEntry> search(String storageId,
+                                          String repositoryId,
+                                          String searchTerm,
+                                          boolean includePrerelease,
+                                          boolean latestOnly)
+            throws IOException
+    {
+        List<NugetPackageEntry> result = new ArrayList<>();
+        for (NavigableMap<String, NugetPackageEntry> versions : getAllPackages(storageId, repositoryId).values())
+        {
+            if (latestOnly)
+            {
+                NugetPackageEntry latest = getLatestVersion(versions, includePrerelease);
+                if (latest != null && latest.matches(searchTerm))
+                {
+                    result.add(latest);
+                }
+
+                continue;
+            }
+
+            for (NugetPackageEntry entry : versions.values())
+            {
+                if ((includePrerelease || !entry.isPrerelease()) && entry.matches(searchTerm))
+                {
+                    result.add(entry);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @param includePrerelease whether the pre-releases are taken into account
+     *                          (as for the <code>IsAbsoluteLatestVersion</code> of the feed)
+     */
+    public boolean isLatestVersion(String storageId,
+                                   String repositoryId,
+                                   NugetPackageEntry entry,
+                                   boolean includePrerelease)
+            throws IOException
+    {
+        NavigableMap<String, NugetPackageEntry> versions = getVersions(storageId, repositoryId, entry.getId());
+
+        return versions != null && getLatestVersion(versions, includePrerelease) == entry;
+    }
+
+    /**
+     * Drops the index of the repository, so that it's rebuilt from the stored files the next time it's queried.
+     */
+    public void invalidate(String storageId,
+                           String repositoryId)
+    {
+        repositories.remove(storageId + ":" + repositoryId);
+    }
+
+    private NugetPackageEntry getLatestVersion(NavigableMap<String, NugetPackageEntry> versions,
+                                               boolean includePrerelease)
+    {
+        for (NugetPackageEntry entry : versions.descendingMap().values())
+        {
+            if (includePrerelease || !entry.isPrerelease())
+            {
+                return entry;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @return all the packages of the repository (merged from the members of a group repository), by their id (in lower
+     *         case) and version
+     */
+    private NavigableMap<String, ? extends NavigableMap<String, NugetPackageEntry>> getAllPackages(String storageId,
+                                                                                                  String repositoryId)
+            throws IOException
+    {
+        List<RepositoryPackages> members = getRepositoryPackages(storageId, repositoryId);
+        if (members.size() == 1)
+        {
+            return members.get(0).packages;
+        }
+
+        NavigableMap<String, NavigableMap<String, NugetPackageEntry>> result = new TreeMap<>();
+        for (RepositoryPackages member : members)
+        {
+            member.packages.forEach((id, versions) -> {
+                NavigableMap<String, NugetPackageEntry> mergedVersions =
+                        result.computeIfAbsent(id, k -> new TreeMap<>(NugetPackageIndex::compareVersionKeys));
+
+                versions.forEach(mergedVersions::putIfAbsent);
+            });
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the versions of the package (merged from the members of a group repository), or <code>null</code>, if
+     *         there are none
+     */
+    private NavigableMap<String, NugetPackageEntry> getVersions(String storageId,
+                                                                String repositoryId,
+                                                                String id)
+            throws IOException
+    {
+        List<RepositoryPackages> members = getRepositoryPackages(storageId, repositoryId);
+
+        NavigableMap<String, NugetPackageEntry> result = null;
+        for (RepositoryPackages member : members)
+        {
+            NavigableMap<String, NugetPackageEntry> versions = member.packages.get(id.toLowerCase());
+            if (versions == null)
+            {
+                continue;
+            }
+            if (members.size() == 1)
+            {
+                return versions;
+            }
+
+            if (result == null)
+            {
+                result = new TreeMap<>(NugetPackageIndex::compareVersionKeys);
+            }
+
+            versions.forEach(result::putIfAbsent);
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the index of the repository, or the indexes of the members of a group repository
+     */
+    private List<RepositoryPackages> getRepositoryPackages(String storageId,
+                                                           String repositoryId)
+            throws IOException
+    {
+        List<RepositoryPackages> result = new ArrayList<>();
+        collectRepositoryPackages(getRepository(storageId, repositoryId), new HashSet<>(), result);
+
+        return result;
+    }
+
+    private void collectRepositoryPackages(Repository repository,
+                                           Set<String> visited,
+                                           List<RepositoryPackages> result)
+            throws IOException
+    {
+        if (repository == null ||
+            !RepositoryLayoutEnum.NUGET_HIERACHLICAL.getLayout().equals(repository.getLayout()) ||
+            !visited.add(repository.getStorage().getId() + ":" + repository.getId()))
+        {
+            return;
+        }
+
+        if (!repository.isGroupRepository())
+        {
+            result.add(getLoadedPackages(repository));
+
+            return;
+        }
+
+        for (String storageAndRepositoryId : repository.getGroupRepositories())
+        {
+            String sId = configurationManager.getStorageId(repository.getStorage(), storageAndRepositoryId);
+            String rId = configurationManager.getRepositoryId(storageAndRepositoryId);
+
+            Repository member = getRepository(sId, rId);
+            if (member != null && member.isInService())
+            {
+                collectRepositoryPackages(member, visited, result);
+            }
+        }
+    }
+
+    private RepositoryPackages getLoadedPackages(Repository repository)
+            throws IOException
+    {
+        RepositoryPackages packages = repositories.computeIfAbsent(repository.getStorage().getId() + ":" +
+                                                                   repository.getId(),
+                                                                   k -> new RepositoryPackages());
+        if (!packages.loaded)
+        {
+            synchronized (packages)
+            {
+                if (!packages.loaded)
+                {
+                    load(repository, packages);
+                    packages.loaded = true;
+                }
+            }
+        }
+
+        return packages;
+    }
+
+    private void load(Repository repository,
+                      RepositoryPackages packages)
+            throws IOException
+    {
+        Path basedir = Paths.get(repository.getBasedir());
+        if (!Files.isDirectory(basedir))
+        {
+            return;
+        }
+
+        logger.debug("Building the Nuget package index of " + repository.getStorage().getId() + ":" +
+                     repository.getId() + "...");
+
+        XMLInputFactory xmlInputFactory = newXmlInputFactory();
+
+        // <packageId>/<version>/<packageId>.nuspec
+        try (Stream<Path> paths = Files.walk(basedir, 3))
+        {
+            paths.filter(p -> p.getNameCount() - basedir.getNameCount() == 3)
+                 .filter(p -> p.getFileName().toString().endsWith(".nuspec"))
+                 .filter(p -> !basedir.relativize(p).toString().startsWith("."))
+                 .forEach(p -> indexPackage(packages, p.getParent(), xmlInputFactory));
+        }
+
+        logger.debug("Indexed " + packages.packages.size() + " Nuget package(s) of " +
+                     repository.getStorage().getId() + ":" + repository.getId() + ".");
+    }
+
+    @Override
+    public void handle(ArtifactEvent event)
+    {
+        RepositoryPackages packages = repositories.get(event.getStorageId() + ":" + event.getRepositoryId());
+        if (packages == null || event.getPath() == null)
+        {
+            // Not queried yet, so the stored files will be picked up once it's built.
+            return;
+        }
+
+        switch (event.getType())
+        {
+            case ArtifactEvent.EVENT_ARTIFACT_UPLOADED:
+            case ArtifactEvent.EVENT_ARTIFACT_DELETED:
+                break;
+            default:
+                return;
+        }
+
+        Repository repository = getRepository(event.getStorageId(), event.getRepositoryId());
+        if (repository == null || !RepositoryLayoutEnum.NUGET_HIERACHLICAL.getLayout().equals(repository.getLayout()))
+        {
+            return;
+        }
+
+        String path = trimSlashes(event.getPath().replace('\\', '/'));
+        String[] segments = path.split("/");
+
+        if (segments.length >= 3)
+        {
+            // A file of a package: <packageId>/<version>/<file>
+            if (event.getType() == ArtifactEvent.EVENT_ARTIFACT_UPLOADED && !path.endsWith(".nupkg"))
+            {
+                // The package itself is stored after its nuspec and hash, so it's only indexed once it's there.
+                return;
+            }
+
+            Path basedir = Paths.get(repository.getBasedir());
+            indexPackage(packages, basedir.resolve(segments[0]).resolve(segments[1]), newXmlInputFactory());
+        }
+        else if (event.getType() == ArtifactEvent.EVENT_ARTIFACT_DELETED)
+        {
+            removePackages(packages, path);
+        }
+    }
+
+    /**
+     * (Re-)indexes the package stored in the specified directory, or removes it from the index, if its nuspec, or
+     * the package itself is no longer there.
+     */
+    private void indexPackage(RepositoryPackages packages,
+                              Path packageDirectory,
+                              XMLInputFactory xmlInputFactory)
+    {
+        String version = packageDirectory.getFileName().toString();
+        String id = packageDirectory.getParent().getFileName().toString();
+
+        Path nuspecPath = packageDirectory.resolve(id + ".nuspec");
+        Path packagePath = packageDirectory.resolve(id + "." + version + ".nupkg");
+
+        try
+        {
+            if (!Files.isRegularFile(nuspecPath) || !Files.isRegularFile(packagePath))
+            {
+                removePackage(packages, id, version);
+                return;
+            }
+
+            NugetPackageEntry entry = new NugetPackageEntry(id, version);
+            try (InputStream is = Files.newInputStream(nuspecPath))
+            {
+                readNuspec(is, entry, xmlInputFactory);
+            }
+
+            entry.setPackageSize(Files.size(packagePath));
+            entry.setPublished(new Date(Files.getLastModifiedTime(packagePath).toMillis()));
+
+            Path hashPath = packageDirectory.resolve(packagePath.getFileName() + ".sha512");
+            if (Files.isRegularFile(hashPath))
+            {
+                entry.setPackageHash(new String(Files.readAllBytes(hashPath), StandardCharsets.UTF_8).trim());
+            }
+
+            packages.packages.computeIfAbsent(id.toLowerCase(),
+                                              k -> new ConcurrentSkipListMap<>(NugetPackageIndex::compareVersionKeys))
+                             .put(version, entry);
+        }
+        catch (IOException | XMLStreamException e)
+        {
+            logger.error("Failed to index the Nuget package in " + packageDirectory + ".", e);
+        }
+    }
+
+    private void removePackage(RepositoryPackages packages,
+                               String id,
+                               String version)
+    {
+        packages.packages.computeIfPresent(id.toLowerCase(), (k, versions) -> {
+            versions.remove(version);
+
+            return versions.isEmpty() ? null : versions;
+        });
+    }
+
+    /**
+     * Removes the packages stored under the specified path (a package version, a package id, or the root of the
+     * repository).
+     */
+    private void removePackages(RepositoryPackages packages,
+                                String path)
+    {
+        for (Map.Entry<String, ConcurrentNavigableMap<String, NugetPackageEntry>> versions : packages.packages.entrySet())
+        {
+            for (NugetPackageEntry entry : versions.getValue().values())
+            {
+                if (path.isEmpty() ||
+                    entry.getDirectory().equals(path) ||
+                    entry.getDirectory().startsWith(path + "/"))
+                {
+                    removePackage(packages, entry.getId(), entry.getVersion());
+                }
+            }
+        }
+    }
+
+    private void readNuspec(InputStream is,
+                            NugetPackageEntry entry,
+                            XMLInputFactory xmlInputFactory)
+            throws XMLStreamException
+    {
+        XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(is);
+        try
+        {
+            StringBuilder dependencies = new StringBuilder();
+            String targetFramework = "";
+            boolean inMetadata = false;
+
+            while (reader.hasNext())
+            {
+                int event = reader.next();
+                if (event == XMLStreamConstants.END_ELEMENT && "metadata".equals(reader.getLocalName()))
+                {
+                    break;
+                }
+                if (event != XMLStreamConstants.START_ELEMENT)
+                {
+                    continue;
+                }
+
+                String name = reader.getLocalName();
+                if (!inMetadata)
+                {
+                    inMetadata = "metadata".equals(name);
+                    continue;
+                }
+
+                switch (name)
+                {
+                    case "title":
+                        entry.setTitle(reader.getElementText().trim());
+                        break;
+                    case "description":
+                        entry.setDescription(reader.getElementText().trim());
+                        break;
+                    case "summary":
+                        entry.setSummary(reader.getElementText().trim());
+                        break;
+                    case "authors":
+                        entry.setAuthors(reader.getElementText().trim());
+                        break;
+                    case "tags":
+                        entry.setTags(reader.getElementText().trim());
+                        break;
+                    case "group":
+                        String framework = reader.getAttributeValue(null, "targetFramework");
+                        targetFramework = framework != null ? framework : "";
+                        break;
+                    case "dependency":
+                        if (dependencies.length() > 0)
+                        {
+                            dependencies.append('|');
+                        }
+
+                        String version = reader.getAttributeValue(null, "version");
+                        dependencies.append(reader.getAttributeValue(null, "id"))
+                                    .append(':')
+                                    .append(version != null ? version : "")
+                                    .append(':')
+                                    .append(targetFramework);
+                        break;
+                    default:
+                        break;
+                }
+            }
+
+            entry.setDependencies(dependencies.toString());
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    /**
+     * The factories aren't thread-safe, so each one is only used by the thread which has created it.
+     */
+    private static XMLInputFactory newXmlInputFactory()
+    {
+        XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        return xmlInputFactory;
+    }
+
+    /**
+     * Orders the versions of a package like {@link NugetPackageEntry#compareVersions(String, String)}, but keeps the
+     * versions which only differ in their trailing zeros, or their build metadata (such as <code>1.2</code>,
+     * <code>1.2.0.0</code> and <code>1.2.0+build</code>) apart, as they are stored in different directories.
+     */
+    private static int compareVersionKeys(String version1,
+                                          String version2)
+    {
+        int result = NugetPackageEntry.compareVersions(version1, version2);
+
+        return result != 0 ? result : version1.compareTo(version2);
+    }
+
+    private Repository getRepository(String storageId,
+                                     String repositoryId)
+    {
+        Storage storage = configurationManager.getConfiguration().getStorage(storageId);
+
+        return storage != null ? storage.getRepository(repositoryId) : null;
+    }
+
+    private static String trimSlashes(String path)
+    {
+        int start = 0;
+        int end = path.length();
+        while (start < end && path.charAt(start) == '/')
+        {
+            start++;
+        }
+        while (end > start && path.charAt(end - 1) == '/')
+        {
+            end--;
+        }
+
+        return path.substring(start, end);
+    }
+
+    private static class RepositoryPackages
+    {
+
+        /**
+         * Key:     package id (in lower case)
+         * Value:   version -> package
+         */
+        private final ConcurrentNavigableMap<String, ConcurrentNavigableMap<String, NugetPackageEntry>> packages =
+                new ConcurrentSkipListMap<>();
+
+        private volatile boolean loaded;
+
+    }
+
+}
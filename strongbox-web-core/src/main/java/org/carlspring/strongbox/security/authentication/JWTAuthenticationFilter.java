@@ -18,6 +18,8 @@ public class JWTAuthenticationFilter
         extends OncePerRequestFilter
 {
 
+    private static final Pattern BEARER_PATTERN = Pattern.compile("Bearer (.*)");
+
     private AuthenticationManager authenticationManager;
 
     public JWTAuthenticationFilter(AuthenticationManager authenticationManager)
@@ -35,13 +37,12 @@ public class JWTAuthenticationFilter
     {
         String tokenHeader = request.getHeader("Authorization");
 
-        Pattern pattern = Pattern.compile("Bearer (.*)");
         if (tokenHeader == null)
         {
             filterChain.doFilter(request, response);
             return;
         }
-        Matcher matcher = pattern.matcher(tokenHeader);
+        Matcher matcher = BEARER_PATTERN.matcher(tokenHeader);
         if (!matcher.matches())
         {
             filterChain.doFilter(request, response);
@@ -1,40 +1,53 @@
 package org.carlspring.strongbox.security.user;
 
-import java.util.HashSet;
-import java.util.Set;
-
-import javax.annotation.PostConstruct;
-
 import org.carlspring.strongbox.security.Role;
 import org.carlspring.strongbox.users.domain.Roles;
 import org.carlspring.strongbox.users.domain.User;
+import org.carlspring.strongbox.users.security.AuthorizationChangeListener;
+import org.carlspring.strongbox.users.security.AuthorizationChangeListenerRegistry;
 import org.carlspring.strongbox.users.security.AuthorizationConfigProvider;
 import org.carlspring.strongbox.users.service.UserService;
 
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
-import com.orientechnologies.orient.object.db.OObjectDatabaseTx;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
+/**
+ * Resolves the {@link UserDetails} (and their authorities) of the users.
+ * <p>
+ * The authorities of the roles are calculated once, whenever the authorization config changes, and the resolved
+ * user details are cached until the user changes (see {@link AuthorizationChangeListener}), so the lookups, which
+ * happen for every authenticated request, don't need any locking. The cached details also expire after
+ * <code>cacheTimeToLive</code> milliseconds, in case a change has been made without a notification (such as directly
+ * in the database).
+ */
 @Component
 public class StrongboxUserDetailService
-        implements UserDetailsService
+        implements UserDetailsService, AuthorizationChangeListener
 {
 
     private static final Logger logger = LoggerFactory.getLogger(StrongboxUserDetailService.class);
 
+    public static final long DEFAULT_CACHE_TIME_TO_LIVE = TimeUnit.MINUTES.toMillis(5);
+
     // @Autowired
     // private PasswordEncoder passwordEncoder;
 
@@ -44,58 +57,88 @@ public class StrongboxUserDetailService
     @Inject
     AuthorizationConfigProvider authorizationConfigProvider;
 
-    private Set<GrantedAuthority> fullAuthorities;
+    @Inject
+    AuthorizationChangeListenerRegistry authorizationChangeListenerRegistry;
+
+    /**
+     * The (read-only) authorities of the roles, by upper-cased role name.
+     */
+    private volatile Map<String, Set<GrantedAuthority>> authoritiesByRole = Collections.emptyMap();
+
+    private final ConcurrentMap<String, CachedUserDetails> userDetailsCache = new ConcurrentHashMap<>();
+
+    private volatile long cacheTimeToLive = DEFAULT_CACHE_TIME_TO_LIVE;
+
+    /**
+     * Incremented on every invalidation, so that user details which have been resolved while their user was changing
+     * are not left in the cache.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder invalidations = new LongAdder();
 
-    private Set<Role> configuredRoles;
 
     @PostConstruct
-    @Transactional
     public void init()
     {
-        fullAuthorities = new HashSet<>();
-        configuredRoles = new HashSet<>();
-
-        authorizationConfigProvider.getConfig()
-                                   .ifPresent(
-                                           config ->
-                                           {
-                                               try
-                                               {
-                                                   config.getRoles()
-                                                         .getRoles()
-                                                         .forEach(
-                                                                 role -> role.getPrivileges()
-                                                                             .forEach(
-                                                                                     privilegeName -> fullAuthorities.add(
-                                                                                             new SimpleGrantedAuthority(privilegeName.toUpperCase()))));
-
-                                                   configuredRoles.addAll(config.getRoles()
-                                                                                .getRoles());
-                                               }
-                                               catch (Exception e)
-                                               {
-                                                   logger.error("Unable to process authorization config", e);
-                                               }
-                                           }
-                                   );
         authorizationConfigProvider.getConfig()
                                    .orElseThrow(
                                            () -> new RuntimeException("Unable to get authorization config"));
+
+        loadAuthorities();
+
+        authorizationChangeListenerRegistry.addListener(this);
     }
 
     @Override
-    @Cacheable(value = "userDetails",
-               key = "#name")
-    public synchronized UserDetails loadUserByUsername(String name)
+    public UserDetails loadUserByUsername(String name)
             throws UsernameNotFoundException
     {
-        logger.debug("Loading user details for " + name + " ...");
-
         if (name == null)
         {
             throw new IllegalArgumentException("Username cannot be null.");
         }
 
+        long now = System.currentTimeMillis();
+
+        CachedUserDetails cachedUserDetails = userDetailsCache.get(name);
+        if (cachedUserDetails != null)
+        {
+            if (cachedUserDetails.expiresAt > now)
+            {
+                hits.increment();
+
+                return cachedUserDetails.userDetails;
+            }
+
+            userDetailsCache.remove(name, cachedUserDetails);
+        }
+
+        misses.increment();
+
+        long currentGeneration = generation.get();
+
+        UserDetails userDetails = resolveUserDetails(name);
+
+        cachedUserDetails = new CachedUserDetails(userDetails, now + cacheTimeToLive);
+        userDetailsCache.put(name, cachedUserDetails);
+        if (generation.get() != currentGeneration)
+        {
+            // The user, or the roles, changed while they were being resolved.
+            userDetailsCache.remove(name, cachedUserDetails);
+        }
+
+        return userDetails;
+    }
+
+    private UserDetails resolveUserDetails(String name)
+    {
+        logger.debug("Loading user details for " + name + " ...");
+
         User user = userService.findByUserName(name);
         if (user == null)
         {
@@ -103,10 +146,11 @@ public class StrongboxUserDetailService
             throw new UsernameNotFoundException("Cannot find user with that name");
         }
 
-        // thread-safe transformation of roles to authorities
+        Map<String, Set<GrantedAuthority>> authoritiesByRole = this.authoritiesByRole;
+
         Set<GrantedAuthority> authorities = new HashSet<>();
         user.getRoles()
-            .forEach(role -> authorities.addAll(getAuthoritiesByRoleName(role.toUpperCase())));
+            .forEach(role -> authorities.addAll(getAuthoritiesByRoleName(authoritiesByRole, role.toUpperCase())));
 
         // extract (detach) user in current transaction
         SpringSecurityUser springUser = new SpringSecurityUser();
@@ -114,47 +158,150 @@ public class StrongboxUserDetailService
         springUser.setPassword(user.getPassword());
         springUser.setSalt(user.getSalt());
         springUser.setUsername(user.getUsername());
-        springUser.setAuthorities(authorities);
+        springUser.setAuthorities(Collections.unmodifiableSet(authorities));
 
-        logger.info("Authorise under " + springUser);
+        logger.debug("Authorise under " + springUser);
 
         return springUser;
     }
 
-    private synchronized Set<GrantedAuthority> getAuthoritiesByRoleName(final String roleName)
+    private Set<GrantedAuthority> getAuthoritiesByRoleName(Map<String, Set<GrantedAuthority>> authoritiesByRole,
+                                                           String roleName)
     {
+        Set<GrantedAuthority> authorities = authoritiesByRole.get(roleName);
+        if (authorities == null)
+        {
+            logger.warn("Unable to find role by name " + roleName);
 
-        Set<GrantedAuthority> authorities = new HashSet<>();
+            return Collections.emptySet();
+        }
 
-        if (roleName.equals("ADMIN"))
+        return authorities;
+    }
+
+    /**
+     * Calculates the authorities of the predefined roles and the ones from etc/conf/security-authorization.xml.
+     */
+    private void loadAuthorities()
+    {
+        Set<GrantedAuthority> fullAuthorities = new HashSet<>();
+        Set<Role> configuredRoles = new HashSet<>();
+
+        authorizationConfigProvider.getConfig()
+                                   .ifPresent(config ->
+                                              {
+                                                  try
+                                                  {
+                                                      config.getRoles()
+                                                            .getRoles()
+                                                            .forEach(role -> role.getPrivileges()
+                                                                                 .forEach(privilegeName -> fullAuthorities.add(
+                                                                                         new SimpleGrantedAuthority(privilegeName.toUpperCase()))));
+
+                                                      configuredRoles.addAll(config.getRoles()
+                                                                                   .getRoles());
+                                                  }
+                                                  catch (Exception e)
+                                                  {
+                                                      logger.error("Unable to process authorization config", e);
+                                                  }
+                                              });
+
+        Map<String, Set<GrantedAuthority>> authoritiesByRole = new HashMap<>();
+        for (Roles role : Roles.values())
+        {
+            authoritiesByRole.computeIfAbsent(role.name(), name -> new HashSet<>())
+                             .addAll(role.getPrivileges());
+        }
+
+        for (Role role : configuredRoles)
         {
-            authorities.addAll(fullAuthorities);
+            Set<GrantedAuthority> authorities = authoritiesByRole.computeIfAbsent(role.getName().toUpperCase(),
+                                                                                  name -> new HashSet<>());
+            role.getPrivileges()
+                .forEach(privilegeName -> authorities.add(new SimpleGrantedAuthority(privilegeName.toUpperCase())));
         }
 
-        // add all privileges from etc/conf/security-authorization.xml for any role that defines there
-        configuredRoles.forEach(role ->
-                                {
-                                    if (role.getName()
-                                            .equalsIgnoreCase(roleName))
-                                    {
-                                        role.getPrivileges()
-                                            .forEach(
-                                                    privilegeName -> authorities.add(
-                                                            new SimpleGrantedAuthority(privilegeName.toUpperCase())));
-                                    }
-                                });
-
-        try
+        authoritiesByRole.computeIfAbsent("ADMIN", name -> new HashSet<>())
+                         .addAll(fullAuthorities);
+
+        authoritiesByRole.replaceAll((name, authorities) -> Collections.unmodifiableSet(authorities));
+
+        this.authoritiesByRole = Collections.unmodifiableMap(authoritiesByRole);
+    }
+
+    @Override
+    public void userChanged(String username)
+    {
+        generation.incrementAndGet();
+        invalidations.increment();
+
+        if (username == null)
         {
-            Roles configuredRole = Roles.valueOf(roleName);
-            authorities.addAll(configuredRole.getPrivileges());
+            userDetailsCache.clear();
         }
-        catch (IllegalArgumentException e)
+        else
         {
-            logger.warn("Unable to find predefined role by name " + roleName, e);
+            userDetailsCache.remove(username);
+        }
+    }
+
+    @Override
+    public void authorizationConfigChanged()
+    {
+        generation.incrementAndGet();
+        invalidations.increment();
+
+        loadAuthorities();
+
+        userDetailsCache.clear();
+    }
+
+    public long getCacheHits()
+    {
+        return hits.sum();
+    }
+
+    public long getCacheMisses()
+    {
+        return misses.sum();
+    }
+
+    public long getCacheInvalidations()
+    {
+        return invalidations.sum();
+    }
+
+    public int getCachedUserCount()
+    {
+        return userDetailsCache.size();
+    }
+
+    public long getCacheTimeToLive()
+    {
+        return cacheTimeToLive;
+    }
+
+    public void setCacheTimeToLive(long cacheTimeToLive)
+    {
+        this.cacheTimeToLive = cacheTimeToLive;
+    }
+
+    private static final class CachedUserDetails
+    {
+
+        private final UserDetails userDetails;
+
+        private final long expiresAt;
+
+
+        CachedUserDetails(UserDetails userDetails,
+                          long expiresAt)
+        {
+            this.userDetails = userDetails;
+            this.expiresAt = expiresAt;
         }
 
-        return authorities;
     }
 
 }
@@ -4,14 +4,34 @@ import org.carlspring.commons.http.range.ByteRange;
 import org.carlspring.commons.http.range.ByteRangeHeaderParser;
 import org.carlspring.strongbox.io.ArtifactInputStream;
 import org.carlspring.strongbox.io.StreamUtils;
+import org.carlspring.strongbox.util.MessageDigestUtils;
 
 import javax.servlet.http.HttpServletResponse;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import static org.springframework.http.HttpStatus.PARTIAL_CONTENT;
 import static org.springframework.http.HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE;
 
@@ -19,6 +39,11 @@ public class ArtifactControllerHelper
 {
 
     public static final String HEADER_NAME_RANGE = "Range";
+
+    public static final String HEADER_NAME_IF_RANGE = "If-Range";
+
+    private static final int RANGE_BUFFER_SIZE = 64 * 1024;
+
     private static final Logger logger = LoggerFactory.getLogger(ArtifactControllerHelper.class);
 
     private ArtifactControllerHelper()
@@ -76,8 +101,191 @@ public class ArtifactControllerHelper
                                                                HttpServletResponse response)
             throws IOException
     {
-        // XXX: this is not implemented yet
-        response.setStatus(REQUESTED_RANGE_NOT_SATISFIABLE.value());
+        // A plain stream can't be read out of order, so the Range header is ignored and the whole content is served
+        // (which RFC 7233 allows). Stored files have their multiple ranges served by handlePartialDownload(Path, ...).
+        logger.debug("Serving the whole content instead of multiple ranges.");
+    }
+
+    /**
+     * Serves the ranges requested by the <code>Range</code> header out of the file, as defined in RFC 7233: a single
+     * range as a <code>206 Partial Content</code> response, multiple ranges as a <code>multipart/byteranges</code>
+     * one. The ranges are read at their positions from a {@link SeekableByteChannel}, so nothing has to be skipped.
+     * <p>
+     * The content type of the file has to have already been set on the response.
+     *
+     * @return <code>false</code>, if the <code>Range</code> header has to be ignored and the whole file served instead
+     */
+    public static boolean handlePartialDownload(Path path,
+                                                HttpHeaders headers,
+                                                HttpServletResponse response)
+            throws IOException
+    {
+        try (SeekableByteChannel channel = Files.newByteChannel(path, StandardOpenOption.READ))
+        {
+            long length = channel.size();
+
+            List<ByteRanges.Range> ranges = ByteRanges.parse(headers.getFirst(HEADER_NAME_RANGE), length);
+            if (ranges == null)
+            {
+                logger.debug("Ignoring the Range header " + headers.getFirst(HEADER_NAME_RANGE) + ".");
+                return false;
+            }
+
+            response.setHeader("Accept-Ranges", "bytes");
+
+            if (ranges.isEmpty())
+            {
+                response.setHeader("Content-Range", "bytes */" + length);
+                response.setStatus(REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return true;
+            }
+
+            response.setStatus(PARTIAL_CONTENT.value());
+
+            if (ranges.size() == 1)
+            {
+                ByteRanges.Range range = ranges.get(0);
+
+                response.setHeader("Content-Range", range.toContentRange(length));
+                response.setHeader("Content-Length", String.valueOf(range.getLength()));
+
+                WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+                copyRange(channel, range, target);
+            }
+            else
+            {
+                writeMultipartByteRanges(channel, length, ranges, response);
+            }
+
+            response.flushBuffer();
+        }
+
+        return true;
+    }
+
+    private static void writeMultipartByteRanges(SeekableByteChannel channel,
+                                                 long length,
+                                                 List<ByteRanges.Range> ranges,
+                                                 HttpServletResponse response)
+            throws IOException
+    {
+        String boundary = UUID.randomUUID().toString().replaceAll("-", "");
+        String contentType = response.getContentType() != null ?
+                             response.getContentType() :
+                             MediaType.APPLICATION_OCTET_STREAM_VALUE;
+
+        List<byte[]> partHeaders = new ArrayList<>(ranges.size());
+        long contentLength = 0;
+        for (ByteRanges.Range range : ranges)
+        {
+            byte[] partHeader = ("\r\n--" + boundary + "\r\n" +
+                                 "Content-Type: " + contentType + "\r\n" +
+                                 "Content-Range: " + range.toContentRange(length) + "\r\n" +
+                                 "\r\n").getBytes(StandardCharsets.US_ASCII);
+
+            partHeaders.add(partHeader);
+            contentLength += partHeader.length + range.getLength();
+        }
+
+        byte[] closingBoundary = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        contentLength += closingBoundary.length;
+
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setHeader("Content-Length", String.valueOf(contentLength));
+
+        OutputStream os = response.getOutputStream();
+        WritableByteChannel target = Channels.newChannel(os);
+        for (int i = 0; i < ranges.size(); i++)
+        {
+            os.write(partHeaders.get(i));
+            copyRange(channel, ranges.get(i), target);
+        }
+
+        os.write(closingBoundary);
+    }
+
+    private static void copyRange(SeekableByteChannel channel,
+                                  ByteRanges.Range range,
+                                  WritableByteChannel target)
+            throws IOException
+    {
+        long position = range.getStart();
+        long end = range.getEnd() + 1;
+
+        if (channel instanceof FileChannel)
+        {
+            FileChannel fileChannel = (FileChannel) channel;
+            while (position < end)
+            {
+                position += fileChannel.transferTo(position, end - position, target);
+            }
+
+            return;
+        }
+
+        channel.position(position);
+
+        ByteBuffer buffer = ByteBuffer.allocate(RANGE_BUFFER_SIZE);
+        while (position < end)
+        {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), end - position));
+
+            int read = channel.read(buffer);
+            if (read < 0)
+            {
+                throw new EOFException("The content ended before position " + end + ".");
+            }
+
+            buffer.flip();
+            while (buffer.hasRemaining())
+            {
+                target.write(buffer);
+            }
+
+            position += read;
+        }
+    }
+
+    /**
+     * Evaluates the <code>If-Range</code> header (if any) against the current validators of the content.
+     *
+     * @param lastModified the time at which the content was last modified (in milliseconds)
+     * @param eTag         the strong entity tag of the content (including its quotes), or <code>null</code>
+     * @return <code>true</code>, if the requested ranges can be served, <code>false</code>, if the whole content has
+     *         to be served, as it has changed
+     */
+    public static boolean isIfRangeSatisfied(HttpHeaders headers,
+                                             long lastModified,
+                                             String eTag)
+    {
+        String ifRange = headers.getFirst(HEADER_NAME_IF_RANGE);
+        if (ifRange == null)
+        {
+            return true;
+        }
+
+        ifRange = ifRange.trim();
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/"))
+        {
+            // Entity tags have to be compared strongly, so a weak one never matches.
+            return eTag != null && eTag.equals(ifRange);
+        }
+
+        try
+        {
+            long date = ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME)
+                                     .toInstant()
+                                     .toEpochMilli();
+
+            // HTTP dates only have a precision of seconds.
+            return date / 1000 == lastModified / 1000;
+        }
+        catch (DateTimeParseException e)
+        {
+            logger.debug("Invalid If-Range header " + ifRange + ".");
+            return false;
+        }
     }
 
     public static long calculatePartialRangeLength(ByteRange byteRange,
@@ -152,4 +360,40 @@ public class ArtifactControllerHelper
                                        v));
 
     }
+
+    public static void setHeadersForChecksums(Map<String, String> checksums,
+                                              HttpServletResponse response)
+    {
+        checksums.forEach((k,
+                           v) -> response.setHeader(String.format("Checksum-%s",
+                                                                  k.toUpperCase()
+                                                                   .replaceAll("-", "")),
+                                                    v));
+    }
+
+    /**
+     * Reads the checksums of an artifact from its checksum files (.md5, .sha1) which are stored next to it.
+     *
+     * @return the checksums by digest algorithm, or <code>null</code> if any of the checksum files is missing
+     */
+    public static Map<String, String> readStoredChecksums(Path artifactPath)
+            throws IOException
+    {
+        Map<String, String> checksums = new LinkedHashMap<>();
+        for (String algorithm : ArtifactInputStream.DEFAULT_ALGORITHMS)
+        {
+            String checksumExtension = ".".concat(algorithm.toLowerCase()
+                                                           .replaceAll("-", ""));
+            Path checksumPath = artifactPath.resolveSibling(artifactPath.getFileName() + checksumExtension);
+            if (!Files.isRegularFile(checksumPath) || Files.size(checksumPath) == 0)
+            {
+                return null;
+            }
+
+            checksums.put(algorithm, MessageDigestUtils.readChecksumFile(Files.newInputStream(checksumPath)));
+        }
+
+        return checksums;
+    }
+
 }
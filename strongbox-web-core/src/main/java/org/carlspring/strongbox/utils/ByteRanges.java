@@ -0,0 +1,216 @@
+package org.carlspring.strongbox.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parses the byte ranges of an HTTP <code>Range</code> header against the length of the requested content,
+ * as defined in RFC 7233.
+ */
+public final class ByteRanges
+{
+
+    /**
+     * Requests for more ranges than this are served in full, instead of as a (costly) multipart response.
+     */
+    public static final int MAX_RANGES = 32;
+
+    private static final String BYTES_UNIT = "bytes";
+
+    private static final Pattern RANGE_SPEC = Pattern.compile("(\\d*)\\s*-\\s*(\\d*)");
+
+    /**
+     * Marks a syntactically invalid range, which invalidates the whole header.
+     */
+    private static final Range INVALID = new Range(-1, -1);
+
+
+    private ByteRanges()
+    {
+    }
+
+    /**
+     * @return the satisfiable ranges, in the order in which they have been requested (an empty list means that
+     *         none of them can be satisfied), or <code>null</code>, if the header has to be ignored and the whole
+     *         content served instead (because it's invalid, uses an unknown unit, or requests too many ranges)
+     */
+    public static List<Range> parse(String rangeHeader,
+                                    long length)
+    {
+        if (rangeHeader == null)
+        {
+            return null;
+        }
+
+        int separator = rangeHeader.indexOf('=');
+        if (separator < 0 || !BYTES_UNIT.equalsIgnoreCase(rangeHeader.substring(0, separator).trim()))
+        {
+            return null;
+        }
+
+        List<Range> ranges = new ArrayList<>();
+        boolean empty = true;
+        for (String rangeSpec : rangeHeader.substring(separator + 1).split(","))
+        {
+            rangeSpec = rangeSpec.trim();
+            if (rangeSpec.isEmpty())
+            {
+                continue;
+            }
+
+            Matcher matcher = RANGE_SPEC.matcher(rangeSpec);
+            if (!matcher.matches() || (matcher.group(1).isEmpty() && matcher.group(2).isEmpty()))
+            {
+                return null;
+            }
+
+            empty = false;
+
+            Range range;
+            try
+            {
+                range = matcher.group(1).isEmpty() ?
+                        suffixRange(Long.parseLong(matcher.group(2)), length) :
+                        range(Long.parseLong(matcher.group(1)), matcher.group(2), length);
+            }
+            catch (NumberFormatException e)
+            {
+                // The positions don't even fit in a long.
+                return null;
+            }
+
+            if (range == INVALID)
+            {
+                return null;
+            }
+
+            if (range != null)
+            {
+                ranges.add(range);
+            }
+        }
+
+        if (empty || ranges.size() > MAX_RANGES)
+        {
+            return null;
+        }
+
+        return ranges;
+    }
+
+    private static Range suffixRange(long suffixLength,
+                                     long length)
+    {
+        if (suffixLength == 0 || length == 0)
+        {
+            return null;
+        }
+
+        return new Range(Math.max(0, length - suffixLength), length - 1);
+    }
+
+    private static Range range(long first,
+                               String last,
+                               long length)
+    {
+        long lastPosition = Long.MAX_VALUE;
+        if (!last.isEmpty())
+        {
+            try
+            {
+                lastPosition = Long.parseLong(last);
+            }
+            catch (NumberFormatException e)
+            {
+                // Anything beyond the end of the content simply means "until the end".
+            }
+
+            if (lastPosition < first)
+            {
+                return INVALID;
+            }
+        }
+
+        if (first >= length)
+        {
+            return null;
+        }
+
+        return new Range(first, Math.min(lastPosition, length - 1));
+    }
+
+    /**
+     * A satisfiable byte range, with both of its positions inclusive.
+     */
+    public static final class Range
+    {
+
+        private final long start;
+
+        private final long end;
+
+
+        public Range(long start,
+                     long end)
+        {
+            this.start = start;
+            this.end = end;
+        }
+
+        public long getStart()
+        {
+            return start;
+        }
+
+        public long getEnd()
+        {
+            return end;
+        }
+
+        public long getLength()
+        {
+            return end - start + 1;
+        }
+
+        /**
+         * @return the value of the <code>Content-Range</code> header for this range
+         */
+        public String toContentRange(long length)
+        {
+            return BYTES_UNIT + " " + start + "-" + end + "/" + length;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (!(o instanceof Range))
+            {
+                return false;
+            }
+
+            Range range = (Range) o;
+
+            return start == range.start && end == range.end;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return 31 * Long.hashCode(start) + Long.hashCode(end);
+        }
+
+        @Override
+        public String toString()
+        {
+            return start + "-" + end;
+        }
+
+    }
+
+}
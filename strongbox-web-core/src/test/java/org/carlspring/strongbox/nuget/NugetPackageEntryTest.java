@@ -0,0 +1,57 @@
+package org.carlspring.strongbox.nuget;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NugetPackageEntryTest
+{
+
+    @Test
+    public void testVersionOrder()
+    {
+        List<String> versions = new ArrayList<>(Arrays.asList("1.10.0", "1.0.0", "1.2.0-beta", "1.2.0",
+                                                              "1.2.0-alpha.2", "1.2", "0.9.9.1"));
+        versions.sort(NugetPackageEntry::compareVersions);
+
+        assertEquals(Arrays.asList("0.9.9.1", "1.0.0", "1.2.0-alpha.2", "1.2.0-beta", "1.2.0", "1.2", "1.10.0"),
+                     versions);
+
+        assertEquals("Trailing zeros should not make a difference!",
+                     0, NugetPackageEntry.compareVersions("1.2", "1.2.0.0"));
+        assertEquals("The build metadata should be ignored!",
+                     0, NugetPackageEntry.compareVersions("1.2.0+build.5", "1.2.0"));
+    }
+
+    @Test
+    public void testOrderByIdAndVersion()
+    {
+        List<NugetPackageEntry> entries = new ArrayList<>(Arrays.asList(new NugetPackageEntry("b.package", "1.0.0"),
+                                                                        new NugetPackageEntry("A.Package", "2.0.0"),
+                                                                        new NugetPackageEntry("a.package", "10.0.0")));
+        entries.sort(NugetPackageEntry.ID_AND_VERSION_ORDER);
+
+        assertEquals("[A.Package 2.0.0, a.package 10.0.0, b.package 1.0.0]", entries.toString());
+    }
+
+    @Test
+    public void testMatches()
+    {
+        NugetPackageEntry entry = new NugetPackageEntry("Org.Carlspring.Strongbox", "1.0.0-rc1");
+        entry.setDescription("A test package");
+        entry.setTags("artifacts repository");
+
+        assertTrue(entry.isPrerelease());
+        assertTrue(entry.matches(null));
+        assertTrue(entry.matches("strongbox"));
+        assertTrue(entry.matches("TEST"));
+        assertTrue(entry.matches("repository"));
+        assertFalse(entry.matches("maven"));
+    }
+
+}
@@ -0,0 +1,205 @@
+package org.carlspring.strongbox.nuget;
+
+import org.carlspring.strongbox.event.ArtifactEvent;
+import org.carlspring.strongbox.rest.context.IntegrationTest;
+import org.carlspring.strongbox.services.ConfigurationManagementService;
+import org.carlspring.strongbox.services.RepositoryManagementService;
+import org.carlspring.strongbox.storage.repository.Repository;
+import org.carlspring.strongbox.storage.repository.RepositoryLayoutEnum;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@IntegrationTest
+@RunWith(SpringJUnit4ClassRunner.class)
+public class NugetPackageIndexTest
+{
+
+    private static final String STORAGE_ID = "storage0";
+
+    private static final String REPOSITORY_ID = "npit-releases";
+
+    private static final String PACKAGE_ID = "Org.Carlspring.Strongbox.Index";
+
+    @Inject
+    private NugetPackageIndex nugetPackageIndex;
+
+    @Inject
+    private ConfigurationManagementService configurationManagementService;
+
+    @Inject
+    private RepositoryManagementService repositoryManagementService;
+
+    private Path basedir;
+
+
+    @Before
+    public void setUp()
+            throws Exception
+    {
+        Repository repository = new Repository(REPOSITORY_ID);
+        repository.setLayout(RepositoryLayoutEnum.NUGET_HIERACHLICAL.getLayout());
+        repository.setIndexingEnabled(false);
+        repository.setStorage(configurationManagementService.getStorage(STORAGE_ID));
+
+        configurationManagementService.saveRepository(STORAGE_ID, repository);
+        repositoryManagementService.createRepository(STORAGE_ID, REPOSITORY_ID);
+
+        basedir = Paths.get(repository.getBasedir());
+    }
+
+    @After
+    public void tearDown()
+            throws Exception
+    {
+        nugetPackageIndex.invalidate(STORAGE_ID, REPOSITORY_ID);
+        configurationManagementService.removeRepository(STORAGE_ID, REPOSITORY_ID);
+
+        FileUtils.deleteDirectory(basedir.toFile());
+    }
+
+    @Test
+    public void testIndexIsBuiltFromTheStoredPackages()
+            throws Exception
+    {
+        storePackage(PACKAGE_ID, "1.0.0");
+        storePackage(PACKAGE_ID, "1.2");
+        storePackage(PACKAGE_ID, "1.2.0.0");
+        storePackage(PACKAGE_ID, "1.2.0+build");
+        storePackage(PACKAGE_ID, "2.0.0-beta");
+        storePackage("Org.Carlspring.Strongbox.Other", "1.0.0");
+
+        // A version without its package is not complete yet.
+        Files.delete(basedir.resolve("Org.Carlspring.Strongbox.Other/1.0.0/Org.Carlspring.Strongbox.Other.1.0.0.nupkg"));
+
+        // Versions which only differ in their trailing zeros, or their build metadata, are still different packages.
+        assertEquals(Arrays.asList("1.0.0", "1.2", "1.2.0+build", "1.2.0.0", "2.0.0-beta"),
+                     getVersions(nugetPackageIndex.findPackagesById(STORAGE_ID, REPOSITORY_ID, PACKAGE_ID.toLowerCase())));
+        assertEquals(5, nugetPackageIndex.getPackages(STORAGE_ID, REPOSITORY_ID).size());
+
+        NugetPackageEntry entry = nugetPackageIndex.getPackage(STORAGE_ID, REPOSITORY_ID, PACKAGE_ID, "1.2.0.0");
+        assertNotNull(entry);
+        assertEquals("1.2.0.0", entry.getVersion());
+        assertEquals("A package for the index tests", entry.getDescription());
+        assertEquals("hash-1.2.0.0", entry.getPackageHash());
+
+        NugetPackageEntry prerelease = nugetPackageIndex.getPackage(STORAGE_ID, REPOSITORY_ID, PACKAGE_ID, "2.0.0-beta");
+        assertTrue(nugetPackageIndex.isLatestVersion(STORAGE_ID, REPOSITORY_ID, prerelease, true));
+        assertFalse(nugetPackageIndex.isLatestVersion(STORAGE_ID, REPOSITORY_ID, prerelease, false));
+
+        List<NugetPackageEntry> latest = nugetPackageIndex.search(STORAGE_ID, REPOSITORY_ID, "index", false, true);
+        assertEquals(1, latest.size());
+        assertTrue(nugetPackageIndex.isLatestVersion(STORAGE_ID, REPOSITORY_ID, latest.get(0), false));
+    }
+
+    @Test
+    public void testIndexIsUpdatedIncrementally()
+            throws Exception
+    {
+        storePackage(PACKAGE_ID, "1.0.0");
+
+        assertEquals(1, nugetPackageIndex.getPackages(STORAGE_ID, REPOSITORY_ID).size());
+
+        // Pushed after the index has been built (the package is only indexed once the package itself is stored).
+        storePackage(PACKAGE_ID, "1.1.0");
+        nugetPackageIndex.handle(new ArtifactEvent(STORAGE_ID,
+                                                   REPOSITORY_ID,
+                                                   PACKAGE_ID + "/1.1.0/" + PACKAGE_ID + ".nuspec",
+                                                   ArtifactEvent.EVENT_ARTIFACT_UPLOADED));
+
+        assertNull(nugetPackageIndex.getPackage(STORAGE_ID, REPOSITORY_ID, PACKAGE_ID, "1.1.0"));
+
+        nugetPackageIndex.handle(new ArtifactEvent(STORAGE_ID,
+                                                   REPOSITORY_ID,
+                                                   PACKAGE_ID + "/1.1.0/" + PACKAGE_ID + ".1.1.0.nupkg",
+                                                   ArtifactEvent.EVENT_ARTIFACT_UPLOADED));
+
+        assertEquals(Arrays.asList("1.0.0", "1.1.0"),
+                     getVersions(nugetPackageIndex.findPackagesById(STORAGE_ID, REPOSITORY_ID, PACKAGE_ID)));
+
+        // A single version deleted.
+        FileUtils.deleteDirectory(basedir.resolve(PACKAGE_ID + "/1.0.0").toFile());
+        nugetPackageIndex.handle(new ArtifactEvent(STORAGE_ID,
+                                                   REPOSITORY_ID,
+                                                   PACKAGE_ID + "/1.0.0",
+                                                   ArtifactEvent.EVENT_ARTIFACT_DELETED));
+
+        assertNull(nugetPackageIndex.getPackage(STORAGE_ID, REPOSITORY_ID, PACKAGE_ID, "1.0.0"));
+        assertEquals(Arrays.asList("1.1.0"),
+                     getVersions(nugetPackageIndex.findPackagesById(STORAGE_ID, REPOSITORY_ID, PACKAGE_ID)));
+
+        // The package of a version deleted, while the rest of its files are still there.
+        Files.delete(basedir.resolve(PACKAGE_ID + "/1.1.0/" + PACKAGE_ID + ".1.1.0.nupkg"));
+        nugetPackageIndex.handle(new ArtifactEvent(STORAGE_ID,
+                                                   REPOSITORY_ID,
+                                                   PACKAGE_ID + "/1.1.0/" + PACKAGE_ID + ".1.1.0.nupkg",
+                                                   ArtifactEvent.EVENT_ARTIFACT_DELETED));
+
+        assertTrue(nugetPackageIndex.findPackagesById(STORAGE_ID, REPOSITORY_ID, PACKAGE_ID).isEmpty());
+
+        // The whole package deleted.
+        storePackage(PACKAGE_ID, "2.0.0");
+        nugetPackageIndex.handle(new ArtifactEvent(STORAGE_ID,
+                                                   REPOSITORY_ID,
+                                                   PACKAGE_ID + "/2.0.0/" + PACKAGE_ID + ".2.0.0.nupkg",
+                                                   ArtifactEvent.EVENT_ARTIFACT_UPLOADED));
+
+        assertEquals(1, nugetPackageIndex.getPackages(STORAGE_ID, REPOSITORY_ID).size());
+
+        FileUtils.deleteDirectory(basedir.resolve(PACKAGE_ID).toFile());
+        nugetPackageIndex.handle(new ArtifactEvent(STORAGE_ID,
+                                                   REPOSITORY_ID,
+                                                   PACKAGE_ID,
+                                                   ArtifactEvent.EVENT_ARTIFACT_DELETED));
+
+        assertTrue(nugetPackageIndex.getPackages(STORAGE_ID, REPOSITORY_ID).isEmpty());
+    }
+
+    private void storePackage(String id,
+                              String version)
+            throws IOException
+    {
+        Path packageDirectory = basedir.resolve(id).resolve(version);
+        Files.createDirectories(packageDirectory);
+
+        String nuspec = "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n" +
+                        "<package xmlns=\"http://schemas.microsoft.com/packaging/2011/08/nuspec.xsd\">\n" +
+                        "  <metadata>\n" +
+                        "    <id>" + id + "</id>\n" +
+                        "    <version>" + version + "</version>\n" +
+                        "    <authors>carlspring</authors>\n" +
+                        "    <description>A package for the index tests</description>\n" +
+                        "  </metadata>\n" +
+                        "</package>\n";
+
+        Files.write(packageDirectory.resolve(id + ".nuspec"), nuspec.getBytes(StandardCharsets.UTF_8));
+        Files.write(packageDirectory.resolve(id + "." + version + ".nupkg"), new byte[]{ 'P', 'K' });
+        Files.write(packageDirectory.resolve(id + "." + version + ".nupkg.sha512"),
+                    ("hash-" + version).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> getVersions(List<NugetPackageEntry> entries)
+    {
+        return entries.stream().map(NugetPackageEntry::getVersion).collect(Collectors.toList());
+    }
+
+}
@@ -295,6 +295,26 @@ public class ArtifactControllerTest
         assertEquals("Glued partial fetches did not match SHA-1 checksum!", sha1Remote, sha1Local);
     }
 
+    @Test
+    public void testDownloadStoredArtifact()
+            throws Exception
+    {
+        String pathToJar = "org/carlspring/strongbox/partial/partial-foo/3.2/partial-foo-3.2.jar";
+        File artifactFile = new File(getRepositoryBasedir(STORAGE0, REPOSITORY_RELEASES1), pathToJar);
+
+        ExtractableResponse response = client.getResourceWithResponse("storages/" + STORAGE0 + "/" + REPOSITORY_RELEASES1,
+                                                                      pathToJar);
+
+        assertEquals("Failed to download the artifact!", 200, response.statusCode());
+        assertEquals("Incorrect Content-Length!", String.valueOf(artifactFile.length()), response.header("Content-Length"));
+        assertEquals("Incorrect MD5 checksum header!",
+                     MessageDigestUtils.readChecksumFile(artifactFile.getAbsolutePath() + ".md5"),
+                     response.header("Checksum-MD5"));
+        assertEquals("Incorrect SHA-1 checksum header!",
+                     MessageDigestUtils.readChecksumFile(artifactFile.getAbsolutePath() + ".sha1"),
+                     response.header("Checksum-SHA1"));
+    }
+
     @Test
     public void testCopyArtifactFile()
             throws Exception
@@ -0,0 +1,265 @@
+package org.carlspring.strongbox.rest;
+
+import org.carlspring.strongbox.nuget.NugetPackageIndex;
+import org.carlspring.strongbox.rest.common.RestAssuredBaseTest;
+import org.carlspring.strongbox.rest.context.IntegrationTest;
+import org.carlspring.strongbox.storage.repository.Repository;
+import org.carlspring.strongbox.storage.repository.RepositoryLayoutEnum;
+import org.carlspring.strongbox.storage.repository.RepositoryTypeEnum;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.apache.commons.codec.digest.MessageDigestAlgorithms;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import static com.jayway.restassured.module.mockmvc.RestAssuredMockMvc.given;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@IntegrationTest
+@RunWith(SpringJUnit4ClassRunner.class)
+public class NugetPackageControllerTest
+        extends RestAssuredBaseTest
+{
+
+    private static final String REPOSITORY_RELEASES = "npct-releases";
+
+    private static final String REPOSITORY_GROUP = "npct-releases-group";
+
+    private static final String REPOSITORY_MAVEN = "npct-maven-releases";
+
+    private static final String PACKAGE_ID = "Org.Carlspring.Strongbox.Paging";
+
+    /**
+     * The value of the <code>user-agent</code> header, as it is mapped by the <code>HeaderMappingFilter</code>.
+     */
+    private static final String NUGET_USER_AGENT = "NuGet/*";
+
+    @Inject
+    private NugetPackageIndex nugetPackageIndex;
+
+    private Path basedir;
+
+
+    @Before
+    public void setUp()
+            throws Exception
+    {
+        Repository repository = new Repository(REPOSITORY_RELEASES);
+        repository.setLayout(RepositoryLayoutEnum.NUGET_HIERACHLICAL.getLayout());
+        repository.setIndexingEnabled(false);
+        repository.setStorage(configurationManagementService.getStorage(STORAGE0));
+
+        createRepository(repository);
+
+        basedir = Paths.get(repository.getBasedir());
+
+        Repository groupRepository = new Repository(REPOSITORY_GROUP);
+        groupRepository.setType(RepositoryTypeEnum.GROUP.getType());
+        groupRepository.setLayout(RepositoryLayoutEnum.NUGET_HIERACHLICAL.getLayout());
+        groupRepository.setIndexingEnabled(false);
+        groupRepository.setStorage(configurationManagementService.getStorage(STORAGE0));
+        groupRepository.getGroupRepositories().add(REPOSITORY_RELEASES);
+
+        createRepository(groupRepository);
+
+        Repository mavenRepository = new Repository(REPOSITORY_MAVEN);
+        mavenRepository.setIndexingEnabled(false);
+        mavenRepository.setStorage(configurationManagementService.getStorage(STORAGE0));
+
+        createRepository(mavenRepository);
+    }
+
+    @After
+    public void tearDown()
+            throws Exception
+    {
+        nugetPackageIndex.invalidate(STORAGE0, REPOSITORY_RELEASES);
+
+        removeRepositories(getRepositoriesToClean());
+        cleanUp(getRepositoriesToClean());
+    }
+
+    public static Set<Repository> getRepositoriesToClean()
+    {
+        Set<Repository> repositories = new LinkedHashSet<>();
+        repositories.add(createRepositoryMock(STORAGE0, REPOSITORY_GROUP));
+        repositories.add(createRepositoryMock(STORAGE0, REPOSITORY_RELEASES));
+        repositories.add(createRepositoryMock(STORAGE0, REPOSITORY_MAVEN));
+
+        return repositories;
+    }
+
+    @Test
+    public void testFeedPaging()
+            throws Exception
+    {
+        storePackage(PACKAGE_ID, "1.0.0");
+        storePackage(PACKAGE_ID, "1.1.0");
+        storePackage(PACKAGE_ID, "1.2.0");
+
+        String url = getContextBaseUrl() + "/storages/" + STORAGE0 + "/" + REPOSITORY_RELEASES + "/FindPackagesById()";
+
+        String firstPage = given().header("user-agent", NUGET_USER_AGENT)
+                                  .param("id", "'" + PACKAGE_ID + "'")
+                                  .param("$top", 2)
+                                  .when()
+                                  .get(url)
+                                  .peek()
+                                  .then()
+                                  .statusCode(200)
+                                  .extract()
+                                  .asString();
+
+        assertEquals("Only the requested number of packages should be returned!", 2, countEntries(firstPage));
+        assertTrue(firstPage.contains("1.0.0"));
+        assertTrue(firstPage.contains("1.1.0"));
+        assertFalse(firstPage.contains("1.2.0"));
+        assertTrue("The feed should link to the next page!", firstPage.contains("rel=\"next\""));
+        assertTrue("The next page should start after the current one!", firstPage.contains("$skip=2"));
+        assertTrue("The next page should be of the same size!", firstPage.contains("$top=2"));
+
+        String lastPage = given().header("user-agent", NUGET_USER_AGENT)
+                                 .param("id", "'" + PACKAGE_ID + "'")
+                                 .param("$skip", 2)
+                                 .param("$top", 2)
+                                 .when()
+                                 .get(url)
+                                 .peek()
+                                 .then()
+                                 .statusCode(200)
+                                 .extract()
+                                 .asString();
+
+        assertEquals(1, countEntries(lastPage));
+        assertTrue(lastPage.contains("1.2.0"));
+        assertFalse("The last page should not link to any further pages!", lastPage.contains("rel=\"next\""));
+
+        String beyondLastPage = given().header("user-agent", NUGET_USER_AGENT)
+                                       .param("id", "'" + PACKAGE_ID + "'")
+                                       .param("$skip", 10)
+                                       .when()
+                                       .get(url)
+                                       .then()
+                                       .statusCode(200)
+                                       .extract()
+                                       .asString();
+
+        assertEquals(0, countEntries(beyondLastPage));
+    }
+
+    @Test
+    public void testFeedOfGroupRepository()
+            throws Exception
+    {
+        storePackage(PACKAGE_ID, "1.0.0");
+        storePackage(PACKAGE_ID, "1.1.0");
+
+        String feed = given().header("user-agent", NUGET_USER_AGENT)
+                             .param("id", "'" + PACKAGE_ID + "'")
+                             .when()
+                             .get(getContextBaseUrl() + "/storages/" + STORAGE0 + "/" + REPOSITORY_GROUP +
+                                  "/FindPackagesById()")
+                             .peek()
+                             .then()
+                             .statusCode(200)
+                             .extract()
+                             .asString();
+
+        assertEquals("The packages of the members should be listed!", 2, countEntries(feed));
+        assertTrue(feed.contains("1.0.0"));
+        assertTrue(feed.contains("1.1.0"));
+    }
+
+    @Test
+    public void testFeedOfNonNugetRepository()
+    {
+        given().header("user-agent", NUGET_USER_AGENT)
+               .when()
+               .get(getContextBaseUrl() + "/storages/" + STORAGE0 + "/" + REPOSITORY_MAVEN + "/Packages()")
+               .peek()
+               .then()
+               .statusCode(404);
+    }
+
+    @Test
+    public void testDownloadChecksumHeader()
+            throws Exception
+    {
+        String version = "1.0.0";
+        storePackage(PACKAGE_ID, version);
+
+        Path packagePath = basedir.resolve(PACKAGE_ID + "/" + version + "/" + PACKAGE_ID + "." + version + ".nupkg");
+        String sha512 = Base64.getEncoder().encodeToString(
+                MessageDigest.getInstance(MessageDigestAlgorithms.SHA_512).digest(Files.readAllBytes(packagePath)));
+        Files.write(packagePath.resolveSibling(packagePath.getFileName() + ".sha512"),
+                    sha512.getBytes(StandardCharsets.UTF_8));
+
+        // Served directly from the stored file.
+        assertEquals("Incorrect SHA-512 checksum header!", sha512, downloadChecksum(REPOSITORY_RELEASES, version));
+
+        // Resolved through the repository provider.
+        assertEquals("The checksum header should be encoded the same way, however the package was resolved!",
+                     sha512, downloadChecksum(REPOSITORY_GROUP, version));
+    }
+
+    private String downloadChecksum(String repositoryId,
+                                    String version)
+    {
+        return given().header("user-agent", NUGET_USER_AGENT)
+                      .when()
+                      .get(getContextBaseUrl() + "/storages/" + STORAGE0 + "/" + repositoryId + "/download/" +
+                           PACKAGE_ID + "/" + version)
+                      .then()
+                      .statusCode(200)
+                      .extract()
+                      .header("Checksum-SHA512");
+    }
+
+    private void storePackage(String id,
+                              String version)
+            throws IOException
+    {
+        Path packageDirectory = basedir.resolve(id).resolve(version);
+        Files.createDirectories(packageDirectory);
+
+        String nuspec = "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n" +
+                        "<package xmlns=\"http://schemas.microsoft.com/packaging/2011/08/nuspec.xsd\">\n" +
+                        "  <metadata>\n" +
+                        "    <id>" + id + "</id>\n" +
+                        "    <version>" + version + "</version>\n" +
+                        "    <authors>carlspring</authors>\n" +
+                        "    <description>A package for the controller tests</description>\n" +
+                        "  </metadata>\n" +
+                        "</package>\n";
+
+        Files.write(packageDirectory.resolve(id + ".nuspec"), nuspec.getBytes(StandardCharsets.UTF_8));
+        Files.write(packageDirectory.resolve(id + "." + version + ".nupkg"),
+                    ("package " + id + " " + version).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static int countEntries(String feed)
+    {
+        int count = 0;
+        for (int index = feed.indexOf("<entry"); index >= 0; index = feed.indexOf("<entry", index + 1))
+        {
+            count++;
+        }
+
+        return count;
+    }
+
+}
@@ -4,15 +4,18 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import javax.inject.Inject;
 import java.io.File;
 import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.maven.artifact.Artifact;
 import org.carlspring.strongbox.artifact.generator.MavenArtifactDeployer;
 import org.carlspring.strongbox.resource.ConfigurationResourceResolver;
 import org.carlspring.strongbox.rest.common.RestAssuredBaseTest;
 import org.carlspring.strongbox.rest.context.IntegrationTest;
+import org.carlspring.strongbox.services.impl.ArtifactPostStoreProcessor;
 import org.carlspring.strongbox.storage.indexing.IndexTypeEnum;
 import org.carlspring.strongbox.storage.indexing.RepositoryIndexer;
 import org.carlspring.strongbox.storage.repository.Repository;
@@ -39,6 +42,9 @@ public class SearchControllerTest
 
     private static final File GENERATOR_BASEDIR = new File(
             ConfigurationResourceResolver.getVaultDirectory() + "/local");
+
+    @Inject
+    private ArtifactPostStoreProcessor artifactPostStoreProcessor;
     
 
     @BeforeClass
@@ -68,6 +74,9 @@ public class SearchControllerTest
         artifactDeployer.deploy(a1, STORAGE_SC_TEST, REPOSITORY_RELEASES);
         artifactDeployer.deploy(a2, STORAGE_SC_TEST, REPOSITORY_RELEASES);
         artifactDeployer.deploy(a3, STORAGE_SC_TEST, REPOSITORY_RELEASES);
+
+        // The artifacts are recorded in the database in the background.
+        assertTrue(artifactPostStoreProcessor.waitForPendingArtifacts(30, TimeUnit.SECONDS));
         
         final RepositoryIndexer repositoryIndexer = repositoryIndexManager.getRepositoryIndexer(STORAGE_SC_TEST + ":" +
                                                                                                 REPOSITORY_RELEASES + ":" +
@@ -0,0 +1,104 @@
+package org.carlspring.strongbox.security.user;
+
+import org.carlspring.strongbox.rest.context.IntegrationTest;
+import org.carlspring.strongbox.users.domain.User;
+import org.carlspring.strongbox.users.service.UserService;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@IntegrationTest
+@RunWith(SpringJUnit4ClassRunner.class)
+public class StrongboxUserDetailServiceTest
+{
+
+    private static final String USERNAME = "user-details-test";
+
+    @Inject
+    UserService userService;
+
+    @Inject
+    StrongboxUserDetailService userDetailService;
+
+    @Inject
+    @Named("userDetailsAuthenticationProvider")
+    AuthenticationProvider authenticationProvider;
+
+    @Inject
+    TransactionTemplate transactionTemplate;
+
+
+    @After
+    public void tearDown()
+    {
+        User user = userService.findByUserName(USERNAME);
+        if (user != null)
+        {
+            userService.delete(user);
+        }
+    }
+
+    @Test
+    public void testChangesTakeEffectOnTheNextAuthentication()
+    {
+        User user = new User();
+        user.setUsername(USERNAME);
+        user.setPassword("password");
+        user.setEnabled(true);
+        user.setRoles(Collections.singleton("ADMIN"));
+        userService.save(user);
+
+        Authentication authentication = authenticate("password");
+        assertFalse(authentication.getAuthorities().isEmpty());
+
+        long invalidations = userDetailService.getCacheInvalidations();
+
+        transactionTemplate.execute((s) -> {
+            User changedUser = userService.findByUserName(USERNAME);
+            changedUser.setPassword("changed");
+            changedUser.setRoles(Collections.emptySet());
+            userService.save(changedUser);
+
+            // The cached user details are only invalidated once the change has been committed.
+            assertEquals(invalidations, userDetailService.getCacheInvalidations());
+
+            return null;
+        });
+
+        assertTrue(userDetailService.getCacheInvalidations() > invalidations);
+
+        try
+        {
+            authenticate("password");
+            fail("The previous password must not be accepted any more.");
+        }
+        catch (BadCredentialsException e)
+        {
+            // Expected
+        }
+
+        authentication = authenticate("changed");
+        assertTrue("The roles have been revoked.", authentication.getAuthorities().isEmpty());
+    }
+
+    private Authentication authenticate(String password)
+    {
+        return authenticationProvider.authenticate(new UsernamePasswordAuthenticationToken(USERNAME, password));
+    }
+
+}
@@ -0,0 +1,78 @@
+package org.carlspring.strongbox.utils;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ByteRangesTest
+{
+
+    private static final long LENGTH = 10000;
+
+
+    @Test
+    public void testSingleRanges()
+    {
+        assertEquals(Arrays.asList(new ByteRanges.Range(0, 499)), ByteRanges.parse("bytes=0-499", LENGTH));
+        assertEquals(Arrays.asList(new ByteRanges.Range(9500, 9999)), ByteRanges.parse("bytes=9500-", LENGTH));
+        assertEquals("The last position should be limited to the end of the content!",
+                     Arrays.asList(new ByteRanges.Range(9500, 9999)), ByteRanges.parse("bytes=9500-20000", LENGTH));
+    }
+
+    @Test
+    public void testSuffixRanges()
+    {
+        assertEquals(Arrays.asList(new ByteRanges.Range(9500, 9999)), ByteRanges.parse("bytes=-500", LENGTH));
+        assertEquals("A suffix longer than the content should select all of it!",
+                     Arrays.asList(new ByteRanges.Range(0, 9999)), ByteRanges.parse("bytes=-20000", LENGTH));
+    }
+
+    @Test
+    public void testMultipleRanges()
+    {
+        List<ByteRanges.Range> ranges = ByteRanges.parse("bytes=500-599, -100 ,0-0", LENGTH);
+
+        assertEquals(Arrays.asList(new ByteRanges.Range(500, 599),
+                                   new ByteRanges.Range(9900, 9999),
+                                   new ByteRanges.Range(0, 0)),
+                     ranges);
+    }
+
+    @Test
+    public void testUnsatisfiableRanges()
+    {
+        assertTrue(ByteRanges.parse("bytes=10000-", LENGTH).isEmpty());
+        assertTrue(ByteRanges.parse("bytes=-0", LENGTH).isEmpty());
+
+        // The unsatisfiable ranges are simply left out.
+        assertEquals(Arrays.asList(new ByteRanges.Range(0, 9)), ByteRanges.parse("bytes=20000-,0-9", LENGTH));
+    }
+
+    @Test
+    public void testInvalidHeadersAreIgnored()
+    {
+        assertNull(ByteRanges.parse("bytes=500-400", LENGTH));
+        assertNull(ByteRanges.parse("bytes=abc", LENGTH));
+        assertNull(ByteRanges.parse("bytes=-", LENGTH));
+        assertNull(ByteRanges.parse("bytes=", LENGTH));
+        assertNull(ByteRanges.parse("items=0-9", LENGTH));
+        assertNull(ByteRanges.parse("0-9", LENGTH));
+    }
+
+    @Test
+    public void testTooManyRangesAreIgnored()
+    {
+        StringBuilder header = new StringBuilder("bytes=");
+        for (int i = 0; i <= ByteRanges.MAX_RANGES; i++)
+        {
+            header.append(i == 0 ? "" : ",").append(i * 10).append("-").append(i * 10 + 4);
+        }
+
+        assertNull(ByteRanges.parse(header.toString(), LENGTH));
+    }
+
+}